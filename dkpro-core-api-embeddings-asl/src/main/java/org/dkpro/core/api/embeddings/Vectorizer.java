@@ -18,6 +18,7 @@
 package org.dkpro.core.api.embeddings;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * An interface for vectorizers mapping tokens to embedding vectors.
@@ -26,7 +27,8 @@ public interface Vectorizer
 {
     /**
      * Get the vector for a token. If the token is unknown, implementing classes should return the
-     * {@link #unknownVector()}.
+     * {@link #unknownVector()}. The returned array is owned by the caller. Use
+     * {@link #vectorize(String, float[])} to avoid allocating a new array for each call.
      *
      * @param token
      *            a token String
@@ -37,6 +39,80 @@ public interface Vectorizer
     float[] vectorize(String token)
             throws IOException;
 
+    /**
+     * Copy the vector for a token into the given array. If the token is unknown, the
+     * {@link #unknownVector()} is copied. Implementations should avoid allocating memory in this
+     * method and must allow concurrent calls from multiple threads.
+     *
+     * @param token
+     *            a token String
+     * @param target
+     *            the array to copy the vector to
+     * @param offset
+     *            the position in the target array at which the vector starts
+     * @return true if the token is known
+     * @throws IOException
+     *             if there was an error accessing the vector file.
+     */
+    default boolean vectorize(String token, float[] target, int offset)
+            throws IOException
+    {
+        boolean known = contains(token);
+        float[] vector = vectorize(token);
+        System.arraycopy(vector, 0, target, offset, vector.length);
+        return known;
+    }
+
+    /**
+     * Copy the vector for a token into the given array.
+     *
+     * @param token
+     *            a token String
+     * @param target
+     *            the array to copy the vector to, must have a length of at least
+     *            {@link #dimensions()}
+     * @return true if the token is known
+     * @throws IOException
+     *             if there was an error accessing the vector file.
+     * @see #vectorize(String, float[], int)
+     */
+    default boolean vectorize(String token, float[] target)
+            throws IOException
+    {
+        return vectorize(token, target, 0);
+    }
+
+    /**
+     * Copy the vectors for a list of tokens into the given arrays.
+     *
+     * @param tokens
+     *            the tokens
+     * @param targets
+     *            one array per token to copy the vector to
+     * @return the number of known tokens
+     * @throws IOException
+     *             if there was an error accessing the vector file.
+     * @see #vectorize(String, float[], int)
+     */
+    default int vectorizeAll(List<String> tokens, float[][] targets)
+            throws IOException
+    {
+        if (targets.length < tokens.size()) {
+            throw new IllegalArgumentException("Expected at least [" + tokens.size()
+                    + "] target arrays but got [" + targets.length + "]");
+        }
+
+        int known = 0;
+        int i = 0;
+        for (String token : tokens) {
+            if (vectorize(token, targets[i], 0)) {
+                known++;
+            }
+            i++;
+        }
+        return known;
+    }
+
     /**
      * True if the token is known by the vectorizer.
      *
@@ -55,4 +55,30 @@ public class VectorizerUtils
     {
         return randomVector(aSize, RANDOM_SEED);
     }
+
+    /**
+     * Size of an open-addressing hash table for the given number of words. The size is a power of
+     * two and the load factor is at most 0.5, so that probe sequences remain short.
+     *
+     * @param aCapacity the number of words the table must hold
+     * @return the number of slots.
+     */
+    public static int wordTableSize(int aCapacity)
+    {
+        return Integer.highestOneBit(Math.max(1, aCapacity * 2 - 1)) << 1;
+    }
+
+    /**
+     * Hash of a word for an open-addressing hash table of the size returned by
+     * {@link #wordTableSize(int)}. It is based on {@link String#hashCode()}, which is specified by
+     * the JLS and thus stable across JVMs, so it can be used for tables stored in files.
+     *
+     * @param aWord the word
+     * @return the hash; mask it with the table size minus one to obtain the first slot.
+     */
+    public static int wordHash(String aWord)
+    {
+        int h = aWord.hashCode();
+        return h ^ (h >>> 16);
+    }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.core.api.embeddings.binary;
+
+import org.dkpro.core.api.embeddings.VectorizerUtils;
+import org.dkpro.core.api.embeddings.binary.BinaryVectorizer.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Writes a binary embeddings file incrementally, e.g. while a text format file is being read.
+ * The vectors are encoded and spooled to a temporary file next to the target as they are added;
+ * only the words are kept in memory. Calling {@link #finish(boolean, Locale)} writes the header,
+ * the word index and the unknown vector to the target and appends the spooled vectors.
+ */
+public class BinaryVectorWriter
+        implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryVectorWriter.class);
+
+    private final File target;
+    private final File spool;
+    private final int vectorLength;
+    private final VectorEncoding encoding;
+    private final ByteBuffer buffer;
+    private final float[] vector;
+    private final List<String> words = new ArrayList<>();
+    private final Set<String> seen = new HashSet<>();
+    private DataOutputStream spoolOutput;
+
+    /**
+     * @param aTarget       the target file {@link File}
+     * @param aVectorLength the dimensionality of the vectors
+     * @param aEncoding     the {@link VectorEncoding} in which to store the vectors
+     * @throws IOException if the temporary file cannot be created
+     */
+    public BinaryVectorWriter(File aTarget, int aVectorLength, VectorEncoding aEncoding)
+            throws IOException
+    {
+        target = aTarget;
+        vectorLength = aVectorLength;
+        encoding = aEncoding;
+        buffer = ByteBuffer.allocate(aEncoding.bytesPerVector(aVectorLength));
+        vector = new float[aVectorLength];
+        spool = File.createTempFile(aTarget.getName(), ".vectors",
+                aTarget.getAbsoluteFile().getParentFile());
+        spoolOutput = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(spool)));
+    }
+
+    /**
+     * Add a vector.
+     *
+     * @param aWord   the word
+     * @param aSource the array holding the vector
+     * @param aOffset the position of the vector in the source array
+     * @throws IOException if the vector cannot be written or if the word has already been added
+     */
+    public void add(String aWord, float[] aSource, int aOffset)
+            throws IOException
+    {
+        if (!seen.add(aWord)) {
+            throw new IOException("Duplicate entry for token [" + aWord + "]");
+        }
+
+        System.arraycopy(aSource, aOffset, vector, 0, vectorLength);
+        buffer.clear();
+        encoding.encode(vector, buffer);
+        spoolOutput.write(buffer.array(), 0, buffer.position());
+        words.add(aWord);
+    }
+
+    public int size()
+    {
+        return words.size();
+    }
+
+    /**
+     * Write the target file.
+     *
+     * @param aCaseless if true, tokens are expected to be caseless
+     * @param aLocale   the {@link Locale}
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish(boolean aCaseless, Locale aLocale)
+            throws IOException
+    {
+        if (words.isEmpty()) {
+            throw new IOException("No vectors have been added.");
+        }
+
+        spoolOutput.close();
+        spoolOutput = null;
+
+        Header header = new Header();
+        header.setVersion(Header.LATEST_VERSION);
+        header.setWordCount(words.size());
+        header.setVectorLength(vectorLength);
+        header.setCaseless(aCaseless);
+        header.setLocale(aLocale.toString());
+        header.setEncoding(encoding);
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(target)))) {
+            header.write(output);
+
+            LOG.info("Writing word index...");
+            MappedWordIndex.write(output, words.toArray(new String[words.size()]));
+
+            LOG.info("Writing UNK vector...");
+            ByteBuffer unk = ByteBuffer.allocate(vectorLength * Float.BYTES);
+            unk.asFloatBuffer().put(VectorizerUtils.randomVector(vectorLength));
+            output.write(unk.array());
+
+            LOG.info("Writing vectors...");
+            Files.copy(spool.toPath(), output);
+        }
+        finally {
+            close();
+        }
+    }
+
+    /**
+     * Discard the temporary file. Does not write the target file if {@link #finish} has not been
+     * called.
+     */
+    @Override public void close()
+            throws IOException
+    {
+        try {
+            if (spoolOutput != null) {
+                spoolOutput.close();
+                spoolOutput = null;
+            }
+        }
+        finally {
+            Files.deleteIfExists(spool.toPath());
+        }
+    }
+}
@@ -21,7 +21,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -29,6 +28,15 @@ import java.util.Locale;
 
 /**
  * A {@link Vectorizer} for a binary file. Initialize with {@link #load(File)}.
+ * <p>
+ * Files in format version 2 and later contain a memory-mapped hash index of the vocabulary, so
+ * loading them does not read the vocabulary into memory. Files in format version 1 only contain
+ * the sorted vocabulary which is loaded into memory and searched using binary search. Since format
+ * version 3, the vectors may be stored in a quantized {@link VectorEncoding} and are decoded on the
+ * fly.
+ * <p>
+ * The vectors are read from the memory-mapped file using absolute reads, so a single instance
+ * can be used by multiple threads concurrently.
  *
  * @see BinaryWordVectorUtils
  */
@@ -37,18 +45,21 @@ public class BinaryVectorizer
 {
     private static final Logger LOG = LoggerFactory.getLogger(BinaryVectorizer.class);
     private final String[] words;
+    private final MappedWordIndex wordIndex;
     private final Header header;
-    private final FloatBuffer[] parts;
+    private final ByteBuffer[] parts;
     private final int maxVectorsPerPartition;
+    private final int bytesPerVector;
     private Locale locale;
     private float[] unknownVector;
 
     private BinaryVectorizer(Header aHeader, RandomAccessFile file, String[] aWords,
-            long vectorStartOffset, float[] aUnk)
+            MappedWordIndex aWordIndex, long vectorStartOffset, float[] aUnk)
             throws IOException
     {
         header = aHeader;
         words = aWords;
+        wordIndex = aWordIndex;
 
         unknownVector = aUnk;
 
@@ -56,25 +67,22 @@ public class BinaryVectorizer
 
         // Integers can address up to 2 GB (Integer.MAX_VALUE) - to handle large embeddings
         // files, we partition the file into parts of up to 2 GB each.
-        maxVectorsPerPartition = Integer.MAX_VALUE / (header.getVectorLength() * Float.BYTES);
-        int maxPartitionSizeBytes =
-                maxVectorsPerPartition * header.getVectorLength() * Float.BYTES;
-        int neededPartitions = aWords.length / maxVectorsPerPartition;
-        if (aWords.length % maxPartitionSizeBytes > 0) {
+        bytesPerVector = header.getEncoding().bytesPerVector(header.getVectorLength());
+        maxVectorsPerPartition = Integer.MAX_VALUE / bytesPerVector;
+        int wordCount = header.getWordCount();
+        int neededPartitions = wordCount / maxVectorsPerPartition;
+        if (wordCount % maxVectorsPerPartition > 0) {
             neededPartitions += 1;
         }
 
-        parts = new FloatBuffer[neededPartitions];
+        parts = new ByteBuffer[neededPartitions];
         FileChannel channel = file.getChannel();
         for (int i = 0; i < neededPartitions; i++) {
-            long start = vectorStartOffset + ((long) i * maxPartitionSizeBytes);
-            long length = maxPartitionSizeBytes;
-            if (i == neededPartitions - 1) {
-                length = (aWords.length % maxVectorsPerPartition) * header.getVectorLength()
-                        * Float.BYTES;
-            }
-            parts[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length)
-                    .asFloatBuffer();
+            long start = vectorStartOffset + ((long) i * maxVectorsPerPartition * bytesPerVector);
+            int vectorsInPartition = Math.min(maxVectorsPerPartition,
+                    wordCount - i * maxVectorsPerPartition);
+            long length = (long) vectorsInPartition * bytesPerVector;
+            parts[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
         }
     }
 
@@ -88,75 +96,123 @@ public class BinaryVectorizer
     public static BinaryVectorizer load(File f)
             throws IOException
     {
-        RandomAccessFile file = new RandomAccessFile(f, "rw");
+        // The mapped buffers remain valid after the file has been closed
+        try (RandomAccessFile file = new RandomAccessFile(f, "r")) {
+            // Load header
+            Header header = Header.read(file);
+
+            // Load words
+            String[] words = null;
+            MappedWordIndex wordIndex = null;
+            if (header.getVersion() >= 2) {
+                wordIndex = MappedWordIndex.map(file, header.getWordCount());
+                LOG.info("Mapped index of " + wordIndex.size() + " word embeddings.");
+            }
+            else {
+                words = new String[header.getWordCount()];
+                for (int i = 0; i < header.getWordCount(); i++) {
+                    words[i] = file.readUTF();
+                }
+                LOG.info("Loaded " + words.length + " word embeddings.");
+            }
 
-        // Load header
-        Header header = Header.read(file);
+            // Load UNK vector
+            byte[] buffer = new byte[header.getVectorLength() * Float.BYTES];
+            file.readFully(buffer);
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            float[] unk = new float[header.getVectorLength()];
+            for (int i = 0; i < unk.length; i++) {
+                unk[i] = byteBuffer.getFloat(i * Float.BYTES);
+            }
 
-        // Load words
-        String[] words = new String[header.getWordCount()];
-        for (int i = 0; i < header.getWordCount(); i++) {
-            words[i] = file.readUTF();
+            // Rest of the file is mmapped
+            long offset = file.getFilePointer();
+            return new BinaryVectorizer(header, file, words, wordIndex, offset, unk);
         }
-        LOG.info("Loaded " + words.length + " word embeddings.");
-
-        // Load UNK vector
-        byte[] buffer = new byte[header.getVectorLength() * Float.BYTES];
-        file.readFully(buffer);
-        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
-        float[] unk = new float[header.getVectorLength()];
-        for (int i = 0; i < unk.length; i++) {
-            unk[i] = byteBuffer.getFloat(i * Float.BYTES);
-        }
-
-        // Rest of the file is mmapped
-        long offset = file.getFilePointer();
-        return new BinaryVectorizer(header, file, words, offset, unk);
     }
 
     @Override public float[] vectorize(String aWord)
             throws IOException
     {
-        String word = aWord;
-        if (header.isCaseless()) {
-            word = word.toLowerCase(locale);
+        int vectorIdx = indexOf(aWord);
+
+        // Word not found
+        if (vectorIdx < 0) {
+            return unknownVector();
         }
 
-        int vectorIdx = Arrays.binarySearch(words, word);
+        float[] vector = new float[header.getVectorLength()];
+        readVector(vectorIdx, vector, 0);
+        return vector;
+    }
+
+    @Override public boolean vectorize(String aWord, float[] aTarget, int aOffset)
+            throws IOException
+    {
+        int vectorIdx = indexOf(aWord);
 
         // Word not found
         if (vectorIdx < 0) {
-            return unknownVector;
+            System.arraycopy(unknownVector, 0, aTarget, aOffset, unknownVector.length);
+            return false;
         }
 
-        // Locate the buffer from which to read the vevtor
-        int partitionIdx = vectorIdx / maxVectorsPerPartition;
-        FloatBuffer part = this.parts[partitionIdx];
+        readVector(vectorIdx, aTarget, aOffset);
+        return true;
+    }
+
+    /**
+     * Read the vector with the given index into the target array. Only absolute reads are used
+     * on the shared buffers, so this is safe to call from multiple threads.
+     */
+    void readVector(int aVectorIdx, float[] aTarget, int aOffset)
+    {
+        // Locate the buffer from which to read the vector
+        int partitionIdx = aVectorIdx / maxVectorsPerPartition;
+        ByteBuffer part = this.parts[partitionIdx];
 
         // Locate the position within the buffer from which to read the vector
-        int relativeVectorIdx = vectorIdx % maxVectorsPerPartition;
-        int offset = relativeVectorIdx * header.getVectorLength();
-        part.position(offset);
+        int relativeVectorIdx = aVectorIdx % maxVectorsPerPartition;
+        int position = relativeVectorIdx * bytesPerVector;
 
-        // Read the vector
-        float[] vector = new float[header.getVectorLength()];
-        part.get(vector);
-        return vector;
+        // Read and decode the vector
+        header.getEncoding().decode(part, position, aTarget, aOffset, header.getVectorLength());
     }
 
-    @Override public boolean contains(String aWord)
+    /**
+     * @param aVectorIdx
+     *            the index of a vector.
+     * @return the word the vector at the given index belongs to.
+     */
+    String getWord(int aVectorIdx)
+    {
+        return wordIndex != null ? wordIndex.getWord(aVectorIdx) : words[aVectorIdx];
+    }
+
+    private int indexOf(String aWord)
     {
         String word = aWord;
         if (header.isCaseless()) {
             word = word.toLowerCase(locale);
         }
 
-        return Arrays.binarySearch(words, word) >= 0;
+        if (wordIndex != null) {
+            return wordIndex.indexOf(word);
+        }
+        else {
+            int idx = Arrays.binarySearch(words, word);
+            return idx >= 0 ? idx : -1;
+        }
+    }
+
+    @Override public boolean contains(String aWord)
+    {
+        return indexOf(aWord) >= 0;
     }
 
     @Override public float[] unknownVector()
     {
-        return unknownVector;
+        return unknownVector.clone();
     }
 
     @Override public int dimensions()
@@ -174,14 +230,29 @@ public class BinaryVectorizer
         return header.isCaseless();
     }
 
+    /**
+     * @return the encoding in which the vectors are stored.
+     */
+    public VectorEncoding getEncoding()
+    {
+        return header.getEncoding();
+    }
+
+    Header getHeader()
+    {
+        return header;
+    }
+
     static class Header
     {
         private static final String MAGIC = "dl4jw2v";
-        private int version = 1;
+        static final int LATEST_VERSION = 3;
+        private int version = LATEST_VERSION;
         private int wordCount;
         private int vectorLength;
         private boolean caseless;
         private String locale;
+        private VectorEncoding encoding = VectorEncoding.FLOAT32;
 
         public static Header read(DataInput aInput)
                 throws IOException
@@ -197,7 +268,7 @@ public class BinaryVectorizer
             Header header = new Header();
 
             header.version = aInput.readByte();
-            if (1 != header.version) {
+            if (header.version < 1 || header.version > LATEST_VERSION) {
                 throw new IOException("Not supported file format version.");
             }
 
@@ -208,6 +279,11 @@ public class BinaryVectorizer
 
             header.locale = aInput.readUTF();
 
+            // Older versions only support 32-bit floats
+            if (header.version >= 3) {
+                header.encoding = VectorEncoding.forId(aInput.readByte());
+            }
+
             return header;
         }
 
@@ -251,6 +327,16 @@ public class BinaryVectorizer
             this.locale = locale;
         }
 
+        public VectorEncoding getEncoding()
+        {
+            return encoding;
+        }
+
+        public void setEncoding(VectorEncoding encoding)
+        {
+            this.encoding = encoding;
+        }
+
         public int getVectorLength()
         {
             return vectorLength;
@@ -277,6 +363,10 @@ public class BinaryVectorizer
 
             out.writeUTF(locale);
 
+            if (version >= 3) {
+                out.writeByte(encoding.getId());
+            }
+
             out.flush();
         }
     }
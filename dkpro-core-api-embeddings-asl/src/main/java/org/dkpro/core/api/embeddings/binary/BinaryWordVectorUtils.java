@@ -68,6 +68,24 @@ public class BinaryWordVectorUtils
     public static void convertWordVectorsToBinary(Map<String, float[]> vectors, boolean aCaseless,
             Locale aLocale, File binaryTarget)
             throws IOException
+    {
+        convertWordVectorsToBinary(vectors, aCaseless, aLocale, VectorEncoding.FLOAT32,
+                binaryTarget);
+    }
+
+    /**
+     * Write a map of token embeddings into binary format using the given vector encoding.
+     *
+     * @param vectors      a {@code Map<String, float[]>} holding all tokens with embeddings
+     * @param aCaseless    if true, tokens are expected to be caseless
+     * @param aLocale      the {@link Locale}
+     * @param aEncoding    the {@link VectorEncoding} in which to store the vectors
+     * @param binaryTarget the target file {@link File}
+     * @throws IOException if an I/O error occurs
+     */
+    public static void convertWordVectorsToBinary(Map<String, float[]> vectors, boolean aCaseless,
+            Locale aLocale, VectorEncoding aEncoding, File binaryTarget)
+            throws IOException
     {
         if (vectors.isEmpty()) {
             throw new IllegalArgumentException("Word embeddings map must not be empty.");
@@ -76,7 +94,8 @@ public class BinaryWordVectorUtils
         int vectorLength = vectors.values().iterator().next().length;
         assert vectors.values().stream().allMatch(v -> v.length == vectorLength);
 
-        Header header = prepareHeader(aCaseless, aLocale, vectors.size(), vectorLength);
+        Header header = prepareHeader(aCaseless, aLocale, vectors.size(), vectorLength,
+                aEncoding);
         DataOutputStream output = new DataOutputStream(
                 new BufferedOutputStream(new FileOutputStream(binaryTarget)));
         header.write(output);
@@ -86,10 +105,8 @@ public class BinaryWordVectorUtils
                 .sorted()
                 .toArray(String[]::new);
 
-        LOG.info("Writing strings...");
-        for (String word : words) {
-            output.writeUTF(word);
-        }
+        LOG.info("Writing word index...");
+        MappedWordIndex.write(output, words);
 
         LOG.info("Writing UNK vector...");
         {
@@ -98,13 +115,70 @@ public class BinaryWordVectorUtils
         }
 
         LOG.info("Writing vectors...");
+        ByteBuffer buffer = ByteBuffer.allocate(aEncoding.bytesPerVector(vectorLength));
         for (String word : words) {
             float[] vector = vectors.get(word);
-            writeVector(output, vector);
+            writeVector(output, vector, aEncoding, buffer);
         }
         output.close();
     }
 
+    /**
+     * Convert a binary embeddings file into a binary embeddings file using the given vector
+     * encoding, e.g. to obtain a smaller quantized version of the file. The words, the unknown
+     * vector, the case-sensitivity and the locale are retained.
+     *
+     * @param binarySource the source file {@link File}
+     * @param aEncoding    the {@link VectorEncoding} in which to store the vectors
+     * @param binaryTarget the target file {@link File}
+     * @throws IOException if an I/O error occurs
+     */
+    public static void convertBinaryToBinary(File binarySource, VectorEncoding aEncoding,
+            File binaryTarget)
+            throws IOException
+    {
+        BinaryVectorizer source = BinaryVectorizer.load(binarySource);
+        int vectorLength = source.dimensions();
+
+        Header header = new Header();
+        header.setWordCount(source.size());
+        header.setVectorLength(vectorLength);
+        header.setCaseless(source.isCaseless());
+        header.setLocale(source.getHeader().getLocale());
+        header.setEncoding(aEncoding);
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(binaryTarget)))) {
+            header.write(output);
+
+            LOG.info("Writing word index...");
+            String[] words = new String[source.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = source.getWord(i);
+            }
+            MappedWordIndex.write(output, words);
+
+            LOG.info("Writing UNK vector...");
+            writeVector(output, source.unknownVector());
+
+            LOG.info("Writing vectors...");
+            float[] vector = new float[vectorLength];
+            ByteBuffer buffer = ByteBuffer.allocate(aEncoding.bytesPerVector(vectorLength));
+            for (int i = 0; i < words.length; i++) {
+                source.readVector(i, vector, 0);
+                writeVector(output, vector, aEncoding, buffer);
+            }
+        }
+    }
+
+    private static void writeVector(DataOutputStream output, float[] vector,
+            VectorEncoding aEncoding, ByteBuffer aBuffer)
+            throws IOException
+    {
+        aBuffer.clear();
+        aEncoding.encode(vector, aBuffer);
+        output.write(aBuffer.array(), 0, aBuffer.position());
+    }
+
     private static void writeVector(DataOutputStream output, float[] vector)
             throws IOException
     {
@@ -115,14 +189,15 @@ public class BinaryWordVectorUtils
     }
 
     private static Header prepareHeader(boolean aCaseless,
-            Locale aLocale, int wordCount, int vectorLength)
+            Locale aLocale, int wordCount, int vectorLength, VectorEncoding aEncoding)
     {
         Header header = new Header();
-        header.setVersion(1);
+        header.setVersion(Header.LATEST_VERSION);
         header.setWordCount(wordCount);
         header.setVectorLength(vectorLength);
         header.setCaseless(aCaseless);
         header.setLocale(aLocale.toString());
+        header.setEncoding(aEncoding);
         return header;
     }
 
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.core.api.embeddings.binary;
+
+import static org.dkpro.core.api.embeddings.VectorizerUtils.wordHash;
+import static org.dkpro.core.api.embeddings.VectorizerUtils.wordTableSize;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Memory-mapped vocabulary index used by version 2 of the binary embeddings format. The index
+ * consists of
+ * <ul>
+ * <li>the size of the hash table (int)</li>
+ * <li>the offsets of the words within the word data, one per word plus one end offset (int)</li>
+ * <li>an open-addressing hash table mapping the hash of a word to its index (int, -1 if the slot
+ * is empty)</li>
+ * <li>the UTF-8 encoded words in index order (byte)</li>
+ * </ul>
+ * The index is never copied to the heap. Looking up a word computes {@link String#hashCode()},
+ * probes the hash table and compares the candidate words directly against the mapped bytes, so
+ * no objects are allocated. Lookups only use absolute reads and are thread-safe.
+ */
+class MappedWordIndex
+{
+    private static final int EMPTY = -1;
+
+    private final ByteBuffer buffer;
+    private final int wordCount;
+    private final int mask;
+    private final int offsetsStart;
+    private final int tableStart;
+    private final int wordsStart;
+
+    private MappedWordIndex(ByteBuffer aBuffer, int aWordCount)
+    {
+        buffer = aBuffer;
+        wordCount = aWordCount;
+        int tableSize = buffer.getInt(0);
+        mask = tableSize - 1;
+        offsetsStart = Integer.BYTES;
+        tableStart = offsetsStart + (wordCount + 1) * Integer.BYTES;
+        wordsStart = tableStart + tableSize * Integer.BYTES;
+    }
+
+    /**
+     * Map the index starting at the current position of the given file. After the call, the file
+     * pointer is positioned directly after the index.
+     *
+     * @param aFile
+     *            the file.
+     * @param aWordCount
+     *            the number of words in the index.
+     * @return the index.
+     * @throws IOException
+     *             if the index cannot be mapped.
+     */
+    public static MappedWordIndex map(RandomAccessFile aFile, int aWordCount)
+        throws IOException
+    {
+        long start = aFile.getFilePointer();
+        int tableSize = aFile.readInt();
+        aFile.seek(start + Integer.BYTES + (long) aWordCount * Integer.BYTES);
+        int wordsLength = aFile.readInt();
+        long length = Integer.BYTES + (aWordCount + 1L) * Integer.BYTES
+                + (long) tableSize * Integer.BYTES + wordsLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Word index too large: " + length + " bytes");
+        }
+
+        ByteBuffer buffer = aFile.getChannel().map(FileChannel.MapMode.READ_ONLY, start, length);
+        aFile.seek(start + length);
+        return new MappedWordIndex(buffer, aWordCount);
+    }
+
+    /**
+     * Write an index for the given words.
+     *
+     * @param aOut
+     *            the target.
+     * @param aWords
+     *            the words. The position of a word in the array is its index.
+     * @throws IOException
+     *             if the index cannot be written.
+     */
+    public static void write(DataOutputStream aOut, String[] aWords)
+        throws IOException
+    {
+        int tableSize = wordTableSize(aWords.length);
+        int mask = tableSize - 1;
+        int[] table = new int[tableSize];
+        Arrays.fill(table, EMPTY);
+
+        byte[][] encoded = new byte[aWords.length][];
+        long wordsLength = 0;
+        for (int i = 0; i < aWords.length; i++) {
+            encoded[i] = aWords[i].getBytes(StandardCharsets.UTF_8);
+            wordsLength += encoded[i].length;
+
+            int slot = wordHash(aWords[i]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i;
+        }
+
+        if (wordsLength > Integer.MAX_VALUE) {
+            throw new IOException("Word data too large: " + wordsLength + " bytes");
+        }
+
+        aOut.writeInt(tableSize);
+
+        int offset = 0;
+        for (byte[] word : encoded) {
+            aOut.writeInt(offset);
+            offset += word.length;
+        }
+        aOut.writeInt(offset);
+
+        for (int slot : table) {
+            aOut.writeInt(slot);
+        }
+
+        for (byte[] word : encoded) {
+            aOut.write(word);
+        }
+    }
+
+    /**
+     * @param aWord
+     *            a word.
+     * @return the index of the word or {@code -1} if the word is not part of the index.
+     */
+    public int indexOf(String aWord)
+    {
+        int slot = wordHash(aWord) & mask;
+        while (true) {
+            int idx = buffer.getInt(tableStart + slot * Integer.BYTES);
+            if (idx == EMPTY) {
+                return -1;
+            }
+            if (matches(idx, aWord)) {
+                return idx;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size()
+    {
+        return wordCount;
+    }
+
+    /**
+     * @param aIndex
+     *            the index of a word.
+     * @return the word at the given index.
+     */
+    public String getWord(int aIndex)
+    {
+        int begin = wordsStart + buffer.getInt(offsetsStart + aIndex * Integer.BYTES);
+        int end = wordsStart + buffer.getInt(offsetsStart + (aIndex + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - begin];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(begin + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare the UTF-8 encoded word at the given index with the given string without decoding
+     * the word into a new string.
+     */
+    private boolean matches(int aIndex, String aWord)
+    {
+        int pos = wordsStart + buffer.getInt(offsetsStart + aIndex * Integer.BYTES);
+        int end = wordsStart + buffer.getInt(offsetsStart + (aIndex + 1) * Integer.BYTES);
+        int i = 0;
+        int n = aWord.length();
+        while (pos < end) {
+            if (i >= n) {
+                return false;
+            }
+
+            int b = buffer.get(pos++) & 0xFF;
+            int codePoint;
+            if (b < 0x80) {
+                codePoint = b;
+            }
+            else if (b < 0xE0) {
+                codePoint = ((b & 0x1F) << 6) | (buffer.get(pos++) & 0x3F);
+            }
+            else if (b < 0xF0) {
+                codePoint = ((b & 0x0F) << 12) | ((buffer.get(pos++) & 0x3F) << 6)
+                        | (buffer.get(pos++) & 0x3F);
+            }
+            else {
+                codePoint = ((b & 0x07) << 18) | ((buffer.get(pos++) & 0x3F) << 12)
+                        | ((buffer.get(pos++) & 0x3F) << 6) | (buffer.get(pos++) & 0x3F);
+            }
+
+            int c = aWord.codePointAt(i);
+            if (c != codePoint) {
+                return false;
+            }
+            i += Character.charCount(c);
+        }
+        return i == n;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.core.api.embeddings.binary;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodings in which the vectors can be stored in a binary embeddings file. The vectors are
+ * decoded on the fly when they are read.
+ */
+public enum VectorEncoding
+{
+    /**
+     * Vectors are stored as 32-bit floating point values (4 bytes per dimension).
+     */
+    FLOAT32(0)
+    {
+        @Override
+        public int bytesPerVector(int aDimensions)
+        {
+            return aDimensions * Float.BYTES;
+        }
+
+        @Override
+        public void encode(float[] aVector, ByteBuffer aTarget)
+        {
+            for (float value : aVector) {
+                aTarget.putFloat(value);
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer aSource, int aPosition, float[] aTarget, int aOffset,
+                int aDimensions)
+        {
+            for (int i = 0; i < aDimensions; i++) {
+                aTarget[aOffset + i] = aSource.getFloat(aPosition + i * Float.BYTES);
+            }
+        }
+    },
+
+    /**
+     * Vectors are stored as 16-bit IEEE 754 half-precision floating point values (2 bytes per
+     * dimension). Values beyond the range of half-precision values become infinite.
+     */
+    FLOAT16(1)
+    {
+        @Override
+        public int bytesPerVector(int aDimensions)
+        {
+            return aDimensions * Short.BYTES;
+        }
+
+        @Override
+        public void encode(float[] aVector, ByteBuffer aTarget)
+        {
+            for (float value : aVector) {
+                aTarget.putShort(floatToHalf(value));
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer aSource, int aPosition, float[] aTarget, int aOffset,
+                int aDimensions)
+        {
+            for (int i = 0; i < aDimensions; i++) {
+                aTarget[aOffset + i] = halfToFloat(aSource.getShort(aPosition + i * Short.BYTES));
+            }
+        }
+    },
+
+    /**
+     * Vectors are stored as 8-bit integers scaled per vector (1 byte per dimension plus a 4 byte
+     * scale per vector). The scale maps the value with the largest magnitude in the vector to
+     * 127.
+     */
+    INT8(2)
+    {
+        @Override
+        public int bytesPerVector(int aDimensions)
+        {
+            return Float.BYTES + aDimensions;
+        }
+
+        @Override
+        public void encode(float[] aVector, ByteBuffer aTarget)
+        {
+            float max = 0.0f;
+            for (float value : aVector) {
+                max = Math.max(max, Math.abs(value));
+            }
+            float scale = max / 127.0f;
+
+            aTarget.putFloat(scale);
+            for (float value : aVector) {
+                int quantized = scale == 0.0f ? 0 : Math.round(value / scale);
+                aTarget.put((byte) Math.max(-127, Math.min(127, quantized)));
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer aSource, int aPosition, float[] aTarget, int aOffset,
+                int aDimensions)
+        {
+            float scale = aSource.getFloat(aPosition);
+            int base = aPosition + Float.BYTES;
+            for (int i = 0; i < aDimensions; i++) {
+                aTarget[aOffset + i] = aSource.get(base + i) * scale;
+            }
+        }
+    };
+
+    private final int id;
+
+    VectorEncoding(int aId)
+    {
+        id = aId;
+    }
+
+    /**
+     * @return the identifier under which the encoding is stored in the file header.
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * @param aId
+     *            an identifier as stored in the file header.
+     * @return the encoding with the given identifier.
+     */
+    public static VectorEncoding forId(int aId)
+    {
+        for (VectorEncoding encoding : values()) {
+            if (encoding.id == aId) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unknown vector encoding: " + aId);
+    }
+
+    /**
+     * @param aDimensions
+     *            the dimensionality of the vectors.
+     * @return the number of bytes used to store one vector.
+     */
+    public abstract int bytesPerVector(int aDimensions);
+
+    /**
+     * Encode a vector at the current position of the target buffer.
+     *
+     * @param aVector
+     *            the vector.
+     * @param aTarget
+     *            the target buffer.
+     */
+    public abstract void encode(float[] aVector, ByteBuffer aTarget);
+
+    /**
+     * Decode a vector. Only absolute reads are performed on the source buffer, so it can be
+     * shared between threads.
+     *
+     * @param aSource
+     *            the source buffer.
+     * @param aPosition
+     *            the position of the encoded vector in the source buffer.
+     * @param aTarget
+     *            the array to decode the vector to.
+     * @param aOffset
+     *            the position in the target array at which the vector starts.
+     * @param aDimensions
+     *            the dimensionality of the vector.
+     */
+    public abstract void decode(ByteBuffer aSource, int aPosition, float[] aTarget, int aOffset,
+            int aDimensions);
+
+    /**
+     * Convert a value to IEEE 754 half-precision, rounding to the nearest representable value.
+     */
+    static short floatToHalf(float aValue)
+    {
+        int bits = Float.floatToIntBits(aValue);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7FFFFFFF;
+
+        // NaN and infinity
+        if (abs >= 0x7F800000) {
+            return (short) (sign | 0x7C00 | (abs > 0x7F800000 ? 0x200 : 0));
+        }
+        // Too large - overflow to infinity
+        if (abs >= 0x477FF000) {
+            return (short) (sign | 0x7C00);
+        }
+        // Normal half-precision range
+        if (abs >= 0x38800000) {
+            int rounded = abs + 0x00000FFF + ((abs >>> 13) & 1);
+            return (short) (sign | ((rounded - 0x38000000) >>> 13));
+        }
+        // Too small - underflow to zero
+        if (abs < 0x33000000) {
+            return (short) sign;
+        }
+        // Subnormal half-precision range
+        int exp = abs >>> 23;
+        int mant = (abs & 0x007FFFFF) | 0x00800000;
+        int shift = 126 - exp;
+        int half = mant >>> shift;
+        int rem = mant & ((1 << shift) - 1);
+        int mid = 1 << (shift - 1);
+        if (rem > mid || (rem == mid && (half & 1) != 0)) {
+            half++;
+        }
+        return (short) (sign | half);
+    }
+    /**
+     * Convert an IEEE 754 half-precision value to a float. The conversion is exact.
+     */
+    static float halfToFloat(short aValue)
+    {
+        int sign = (aValue & 0x8000) << 16;
+        int exp = (aValue >>> 10) & 0x1F;
+        int mant = aValue & 0x03FF;
+
+        if (exp == 0) {
+            if (mant == 0) {
+                return Float.intBitsToFloat(sign);
+            }
+            // Normalize subnormal value
+            exp = 1;
+            while ((mant & 0x0400) == 0) {
+                mant <<= 1;
+                exp--;
+            }
+            mant &= 0x03FF;
+        }
+        else if (exp == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mant << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mant << 13));
+    }
+}
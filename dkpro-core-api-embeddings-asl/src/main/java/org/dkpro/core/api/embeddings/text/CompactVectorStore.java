@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.core.api.embeddings.text;
+
+import static org.dkpro.core.api.embeddings.VectorizerUtils.wordHash;
+import static org.dkpro.core.api.embeddings.VectorizerUtils.wordTableSize;
+
+import java.util.Arrays;
+
+/**
+ * Columnar in-memory storage for word embeddings. All vectors are stored in a single contiguous
+ * {@code float[]} block and the words are located using an open-addressing hash index, so there
+ * is no object per embedding apart from the word itself. Once filled, the store can be read
+ * concurrently by multiple threads.
+ */
+class CompactVectorStore
+{
+    private static final int EMPTY = -1;
+
+    private final int dimensions;
+    private float[] vectors;
+    private String[] words;
+    private int[] table;
+    private int size;
+
+    /**
+     * @param aDimensions
+     *            the dimensionality of the vectors.
+     * @param aExpectedSize
+     *            the expected number of vectors, used to size the store up front. Use {@code 0}
+     *            if unknown.
+     */
+    public CompactVectorStore(int aDimensions, int aExpectedSize)
+    {
+        if (aDimensions < 0) {
+            throw new IllegalArgumentException("Dimensions must be at least 0, but was ["
+                    + aDimensions + "]");
+        }
+
+        dimensions = aDimensions;
+        int capacity = Math.max(16, aExpectedSize);
+        // Same limit as in grow()
+        long length = (long) capacity * dimensions;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Cannot store [" + capacity + "] vectors with ["
+                    + dimensions + "] dimensions");
+        }
+        vectors = new float[(int) length];
+        words = new String[capacity];
+        table = new int[wordTableSize(capacity)];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * Add a vector.
+     *
+     * @param aWord
+     *            the word.
+     * @param aSource
+     *            the array holding the vector.
+     * @param aOffset
+     *            the position of the vector in the source array.
+     * @return {@code false} if the word was already contained in the store. In this case, the
+     *         store is not changed.
+     */
+    public boolean add(String aWord, float[] aSource, int aOffset)
+    {
+        if (size == words.length) {
+            grow();
+        }
+
+        int slot = findSlot(aWord);
+        if (table[slot] != EMPTY) {
+            return false;
+        }
+
+        table[slot] = size;
+        words[size] = aWord;
+        System.arraycopy(aSource, aOffset, vectors, size * dimensions, dimensions);
+        size++;
+        return true;
+    }
+
+    /**
+     * @param aWord
+     *            a word.
+     * @return the row of the word or {@code -1} if the word is not in the store.
+     */
+    public int indexOf(String aWord)
+    {
+        return table[findSlot(aWord)];
+    }
+
+    /**
+     * Copy the vector in the given row to the target array.
+     *
+     * @param aRow
+     *            the row as returned by {@link #indexOf(String)}.
+     * @param aTarget
+     *            the target array.
+     * @param aOffset
+     *            the position in the target array at which to start.
+     */
+    public void copyTo(int aRow, float[] aTarget, int aOffset)
+    {
+        System.arraycopy(vectors, aRow * dimensions, aTarget, aOffset, dimensions);
+    }
+
+    public String getWord(int aRow)
+    {
+        return words[aRow];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int dimensions()
+    {
+        return dimensions;
+    }
+
+    /**
+     * Release unused capacity after the store has been filled.
+     */
+    public void trim()
+    {
+        if (words.length > size) {
+            vectors = Arrays.copyOf(vectors, size * dimensions);
+            words = Arrays.copyOf(words, size);
+        }
+    }
+
+    private int findSlot(String aWord)
+    {
+        int mask = table.length - 1;
+        int slot = wordHash(aWord) & mask;
+        while (table[slot] != EMPTY && !words[table[slot]].equals(aWord)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow()
+    {
+        long newCapacity = (long) words.length * 2;
+        if (newCapacity * dimensions > Integer.MAX_VALUE - 8) {
+            newCapacity = (Integer.MAX_VALUE - 8) / dimensions;
+            if (newCapacity <= words.length) {
+                throw new IllegalStateException("Too many vectors: " + size);
+            }
+        }
+
+        vectors = Arrays.copyOf(vectors, (int) newCapacity * dimensions);
+        words = Arrays.copyOf(words, (int) newCapacity);
+
+        // Rebuild the index for the larger capacity
+        table = new int[wordTableSize((int) newCapacity)];
+        Arrays.fill(table, EMPTY);
+        int mask = table.length - 1;
+        for (int row = 0; row < size; row++) {
+            int slot = wordHash(words[row]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = row;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.core.api.embeddings.text;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming parser for embeddings in text format. The file is read in chunks of lines. While a
+ * chunk is being parsed on all cores, the next chunk is already read from the file. The parsed
+ * chunks are handed to a {@link ChunkConsumer} in file order, so at most two chunks are held in
+ * memory in addition to whatever the consumer keeps.
+ */
+class TextFormatParser
+{
+    static final int CHUNK_SIZE = 10_000;
+
+    private final BufferedReader reader;
+    private final int dimensions;
+    private final int expectedSize;
+    private String firstLine;
+    private boolean caseless = true;
+    private int lineNumber;
+
+    /**
+     * Read the header line or, if there is none, the first line to determine the dimensionality
+     * of the vectors.
+     *
+     * @param aReader    the reader
+     * @param aHasHeader if true, read size and dimensionality from the first line
+     * @throws IOException if the input cannot be read or is empty
+     */
+    public TextFormatParser(BufferedReader aReader, boolean aHasHeader)
+            throws IOException
+    {
+        reader = aReader;
+
+        if (aHasHeader) {
+            String line = reader.readLine();
+            lineNumber++;
+            String[] header = line != null ? line.trim().split(" ") : new String[0];
+            if (header.length != 2) {
+                throw new IOException("Invalid header line: [" + line + "]");
+            }
+            expectedSize = Integer.parseInt(header[0]);
+            dimensions = Integer.parseInt(header[1]);
+        }
+        else {
+            expectedSize = -1;
+            do {
+                firstLine = reader.readLine();
+            }
+            while (firstLine != null && firstLine.trim().isEmpty());
+            if (firstLine == null) {
+                throw new IOException("No embeddings found.");
+            }
+            dimensions = firstLine.trim().split(" +").length - 1;
+        }
+    }
+
+    public int getDimensions()
+    {
+        return dimensions;
+    }
+
+    /**
+     * @return the number of embeddings announced in the header line or {@code -1} if there is no
+     *         header line.
+     */
+    public int getExpectedSize()
+    {
+        return expectedSize;
+    }
+
+    /**
+     * @return whether all tokens parsed so far are lowercase.
+     */
+    public boolean isCaseless()
+    {
+        return caseless;
+    }
+
+    /**
+     * Parse all remaining lines.
+     *
+     * @param aConsumer the consumer receiving the parsed chunks in file order
+     * @throws IOException if the input cannot be read or a line is malformed
+     */
+    public void parse(ChunkConsumer aConsumer)
+            throws IOException
+    {
+        CompletableFuture<Chunk> pending = null;
+        while (true) {
+            int chunkStart = lineNumber + 1;
+            List<String> lines = readChunk();
+
+            if (pending != null) {
+                Chunk chunk = await(pending);
+                caseless &= chunk.caseless;
+                aConsumer.accept(chunk);
+            }
+
+            if (lines.isEmpty()) {
+                break;
+            }
+
+            pending = CompletableFuture.supplyAsync(() -> parseChunk(lines, chunkStart));
+        }
+    }
+
+    private List<String> readChunk()
+            throws IOException
+    {
+        List<String> lines = new ArrayList<>(CHUNK_SIZE);
+        if (firstLine != null) {
+            lines.add(firstLine);
+            lineNumber++;
+            firstLine = null;
+        }
+
+        String line;
+        while (lines.size() < CHUNK_SIZE && (line = reader.readLine()) != null) {
+            lines.add(line);
+            lineNumber++;
+        }
+        return lines;
+    }
+
+    private Chunk parseChunk(List<String> aLines, int aFirstLineNumber)
+    {
+        Chunk chunk = new Chunk(aLines.size(), dimensions);
+        IntStream.range(0, aLines.size()).parallel().forEach(i -> {
+            try {
+                chunk.words[i] = parseLine(aLines.get(i), chunk.vectors, i * dimensions);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(
+                        new IOException("Line " + (aFirstLineNumber + i) + ": " + e.getMessage()));
+            }
+        });
+
+        // Blank lines yield no word - compact the chunk so that only actual embeddings remain
+        int size = 0;
+        for (int i = 0; i < chunk.words.length; i++) {
+            String word = chunk.words[i];
+            if (word == null) {
+                continue;
+            }
+            if (size != i) {
+                chunk.words[size] = word;
+                System.arraycopy(chunk.vectors, i * dimensions, chunk.vectors, size * dimensions,
+                        dimensions);
+            }
+            chunk.caseless &= word.equals(word.toLowerCase());
+            size++;
+        }
+        chunk.size = size;
+        return chunk;
+    }
+
+    /**
+     * Parse a single line in the format {@code <token> <value1> ... <valueN>}.
+     *
+     * @return the token or {@code null} if the line is blank.
+     */
+    private String parseLine(String aLine, float[] aTarget, int aOffset)
+            throws IOException
+    {
+        int length = aLine.length();
+        int end = aLine.indexOf(' ');
+        if (end == 0 || (end < 0 && !aLine.trim().isEmpty())) {
+            throw new IOException("Malformed line: [" + aLine + "]");
+        }
+        if (end < 0) {
+            return null;
+        }
+
+        String word = aLine.substring(0, end);
+        int d = 0;
+        int pos = end;
+        while (true) {
+            while (pos < length && aLine.charAt(pos) == ' ') {
+                pos++;
+            }
+            if (pos == length) {
+                break;
+            }
+            int next = aLine.indexOf(' ', pos);
+            if (next < 0) {
+                next = length;
+            }
+            if (d == dimensions) {
+                throw new IOException("Expected " + dimensions + " values but found more");
+            }
+            try {
+                aTarget[aOffset + d] = Float.parseFloat(aLine.substring(pos, next));
+            }
+            catch (NumberFormatException e) {
+                throw new IOException("Invalid value [" + aLine.substring(pos, next) + "]");
+            }
+            d++;
+            pos = next;
+        }
+
+        if (d != dimensions) {
+            throw new IOException("Expected " + dimensions + " values but found " + d);
+        }
+        return word;
+    }
+
+    private static Chunk await(CompletableFuture<Chunk> aFuture)
+            throws IOException
+    {
+        try {
+            return aFuture.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A block of parsed embeddings. The first {@code size} entries of {@code words} are valid,
+     * the vector of the i-th word starts at {@code i * dimensions} in {@code vectors}.
+     */
+    static class Chunk
+    {
+        final String[] words;
+        final float[] vectors;
+        int size;
+        boolean caseless = true;
+
+        Chunk(int aCapacity, int aDimensions)
+        {
+            words = new String[aCapacity];
+            vectors = new float[aCapacity * aDimensions];
+        }
+    }
+
+    interface ChunkConsumer
+    {
+        void accept(Chunk aChunk)
+                throws IOException;
+    }
+}
@@ -19,32 +19,32 @@ package org.dkpro.core.api.embeddings.text;
 
 import org.dkpro.core.api.embeddings.Vectorizer;
 import org.dkpro.core.api.embeddings.VectorizerUtils;
+import org.dkpro.core.api.embeddings.binary.VectorEncoding;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Map;
 
 /**
- * A {@link Vectorizer} backed by a {@code Map<String, float[]}.
+ * A {@link Vectorizer} backed by a compact in-memory table holding all vectors in a single
+ * {@code float[]} block.
  * <p>
  * Use {@link #load(File)} to initialize.
  */
 public class TextFormatVectorizer
         implements Vectorizer
 {
-    private Map<String, float[]> embeddings;
+    private CompactVectorStore embeddings;
     private float[] unknownVector;
     private int dimensions;
     private boolean caseless;
 
-    private TextFormatVectorizer(Map<String, float[]> embeddings)
+    TextFormatVectorizer(CompactVectorStore embeddings, boolean caseless)
     {
-        assert !embeddings.isEmpty();
+        assert embeddings.size() > 0;
         this.embeddings = embeddings;
-        dimensions = embeddings.values().iterator().next().length;
+        this.caseless = caseless;
+        dimensions = embeddings.dimensions();
         unknownVector = VectorizerUtils.randomVector(dimensions);
-        caseless = embeddings.keySet().stream()
-                .allMatch(token -> token.equals(token.toLowerCase()));
     }
 
     /**
@@ -71,28 +71,54 @@ public class TextFormatVectorizer
     public static Vectorizer load(File f, boolean hasHeaderLine)
             throws IOException
     {
-        return new TextFormatVectorizer(
-                TextFormatVectorizerUtils.readEmbeddingFileTxt(f, hasHeaderLine));
+        return TextFormatVectorizerUtils.loadEmbeddingFileTxt(f, hasHeaderLine, null, null);
+    }
+
+    /**
+     * Load a text-format embeddings file and at the same time convert it into the binary format.
+     * The binary file uses the locale {@link java.util.Locale#US}.
+     *
+     * @param f             the {@link File} containing the embeddings in text format
+     * @param hasHeaderLine if true, the first line in the file is expected to be a header line
+     * @param binaryTarget  the {@link File} to which the binary version is written
+     * @param encoding      the {@link VectorEncoding} used in the binary version
+     * @return a new {@link TextFormatVectorizer}
+     * @throws IOException if an I/O error occurs
+     */
+    public static Vectorizer load(File f, boolean hasHeaderLine, File binaryTarget,
+            VectorEncoding encoding)
+            throws IOException
+    {
+        return TextFormatVectorizerUtils.loadEmbeddingFileTxt(f, hasHeaderLine, binaryTarget,
+                encoding);
     }
 
     @Override public float[] vectorize(String token)
     {
-        if (caseless) {
-            token = token.toLowerCase();
-        }
-        float[] vector = contains(token) ? embeddings.get(token) : unknownVector();
-        assert vector.length == dimensions();
+        float[] vector = new float[dimensions];
+        vectorize(token, vector, 0);
         return vector;
     }
 
+    @Override public boolean vectorize(String token, float[] target, int offset)
+    {
+        int row = embeddings.indexOf(caseless ? token.toLowerCase() : token);
+        if (row < 0) {
+            System.arraycopy(unknownVector, 0, target, offset, dimensions);
+            return false;
+        }
+        embeddings.copyTo(row, target, offset);
+        return true;
+    }
+
     @Override public boolean contains(String token)
     {
-        return embeddings.containsKey(token);
+        return embeddings.indexOf(token) >= 0;
     }
 
     @Override public float[] unknownVector()
     {
-        return unknownVector;
+        return unknownVector.clone();
     }
 
     @Override public int dimensions()
@@ -18,16 +18,18 @@
 package org.dkpro.core.api.embeddings.text;
 
 import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionUtils;
-import org.apache.commons.lang3.tuple.Pair;
+import org.dkpro.core.api.embeddings.binary.BinaryVectorWriter;
 import org.dkpro.core.api.embeddings.binary.BinaryWordVectorUtils;
+import org.dkpro.core.api.embeddings.binary.VectorEncoding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Helper Methods for reading word embeddings.
@@ -52,10 +54,7 @@ public class TextFormatVectorizerUtils
             throws IOException
     {
         LOG.info("Reading embeddings from file " + file);
-        InputStream is = CompressionUtils
-                .getInputStream(file.getAbsolutePath(), new FileInputStream(file));
-
-        return readEmbeddingFileTxt(is, hasHeader);
+        return readEmbeddingFileTxt(openFile(file), hasHeader);
     }
 
     /**
@@ -71,74 +70,144 @@ public class TextFormatVectorizerUtils
             boolean hasHeader)
             throws IOException
     {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-
-        final int dimensions;
-        final int size;
-
-        if (hasHeader) {
-            String[] header = reader.readLine().split(" ");
-            assert header.length == 2;
-            size = Integer.parseInt(header[0]);
-            dimensions = Integer.parseInt(header[1]);
-        }
-        else {
-            dimensions = -1;
-            size = -1;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            TextFormatParser parser = new TextFormatParser(reader, hasHeader);
+            int dimensions = parser.getDimensions();
+            Map<String, float[]> embeddings = new HashMap<>();
+            parser.parse(chunk -> {
+                for (int i = 0; i < chunk.size; i++) {
+                    float[] vector = Arrays.copyOfRange(chunk.vectors, i * dimensions,
+                            (i + 1) * dimensions);
+                    if (embeddings.put(chunk.words[i], vector) != null) {
+                        throw duplicate(chunk.words[i]);
+                    }
+                }
+            });
+            checkSize(parser, embeddings.size());
+            return embeddings;
         }
+    }
 
-        Map<String, float[]> embeddings = reader.lines()
-                .map(TextFormatVectorizerUtils::lineToEmbedding)
-                .collect(Collectors.toMap(Pair::getKey, Pair::getValue));
-        reader.close();
-
-        /* assert size and dimension */
-        if (hasHeader) {
-            /* check that size read matches header information */
-            LOG.debug("Checking number and vector sizes for all embeddings.");
-            assert size == embeddings.size();
-            assert embeddings.values().stream().allMatch(vector -> dimensions == vector.length);
-        }
-        else {
-            LOG.debug("Checking vector sizes for all embeddings.");
-            int firstLength = embeddings.values().stream().findAny().get().length;
-            assert embeddings.values().stream().allMatch(vector -> firstLength == vector.length);
+    /**
+     * Stream an embeddings file in text format into a {@link TextFormatVectorizer}. If a binary
+     * target is given, the embeddings are written to it in binary format while they are read.
+     *
+     * @param file         the input file
+     * @param hasHeader    if true, read size and dimensionality from the first line
+     * @param binaryTarget the binary output file or {@code null}
+     * @param encoding     the vector encoding used in the binary output
+     * @return the vectorizer.
+     * @throws IOException if an I/O error occurs
+     */
+    static TextFormatVectorizer loadEmbeddingFileTxt(File file, boolean hasHeader,
+            File binaryTarget, VectorEncoding encoding)
+            throws IOException
+    {
+        LOG.info("Reading embeddings from file " + file);
+        long start = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(openFile(file), StandardCharsets.UTF_8))) {
+            TextFormatParser parser = new TextFormatParser(reader, hasHeader);
+            int dimensions = parser.getDimensions();
+            CompactVectorStore embeddings = new CompactVectorStore(dimensions,
+                    Math.max(0, parser.getExpectedSize()));
+            BinaryVectorWriter writer = binaryTarget != null
+                    ? new BinaryVectorWriter(binaryTarget, dimensions, encoding)
+                    : null;
+            try {
+                parser.parse(chunk -> {
+                    for (int i = 0; i < chunk.size; i++) {
+                        if (!embeddings.add(chunk.words[i], chunk.vectors, i * dimensions)) {
+                            throw duplicate(chunk.words[i]);
+                        }
+                        if (writer != null) {
+                            writer.add(chunk.words[i], chunk.vectors, i * dimensions);
+                        }
+                    }
+                });
+                checkSize(parser, embeddings.size());
+                if (writer != null) {
+                    writer.finish(parser.isCaseless(), Locale.US);
+                }
+            }
+            finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+
+            if (embeddings.size() == 0) {
+                throw new IOException("No embeddings found in file " + file);
+            }
+            embeddings.trim();
+            LOG.info("Read " + embeddings.size() + " embeddings with " + dimensions
+                    + " dimensions in " + (System.currentTimeMillis() - start) + "ms");
+            return new TextFormatVectorizer(embeddings, parser.isCaseless());
         }
-
-        return embeddings;
     }
 
     /**
-     * Convert a single line in the expected format ({@code <token> <value1> ... <valueN>} int a pair
-     * holding the token and the corresponding vector.
+     * Convert an embeddings file in text format into the binary format without loading all
+     * vectors into memory. The tokens are considered caseless if none of them contains an
+     * uppercase letter.
      *
-     * @param line a line
-     * @return a {@link Pair}
+     * @param textSource   the (compressed) input file in text format
+     * @param hasHeader    if true, read size and dimensionality from the first line
+     * @param aLocale      the {@link Locale}
+     * @param aEncoding    the {@link VectorEncoding} used in the binary output
+     * @param binaryTarget the output {@link File}
+     * @throws IOException if an I/O error occurs.
      */
-    private static Pair<String, float[]> lineToEmbedding(String line)
+    public static void convertTextToBinary(File textSource, boolean hasHeader, Locale aLocale,
+            VectorEncoding aEncoding, File binaryTarget)
+            throws IOException
     {
-        String[] array = line.split(" ");
-        int size = array.length;
-
-        double[] vector = Arrays.stream(array, 1, size)
-                .mapToDouble(Float::parseFloat)
-                .toArray();
-        return Pair.of(array[0], doubleToFloatArray(vector));
+        convertTextToBinary(textSource, hasHeader, null, aLocale, aEncoding, binaryTarget);
     }
 
     /**
-     * Convert a double array into a float array
-     *
-     * @param doubles a double[]
-     * @return a float[] of the same length as the input with each element casted to a float
+     * @param aCaseless whether the tokens are caseless or {@code null} to detect it.
      */
-    private static float[] doubleToFloatArray(double[] doubles)
+    private static void convertTextToBinary(File textSource, boolean hasHeader,
+            Boolean aCaseless, Locale aLocale, VectorEncoding aEncoding, File binaryTarget)
+            throws IOException
     {
-        float[] floats = new float[doubles.length];
-        for (int i = 0; i < doubles.length; i++) {
-            floats[i] = (float) doubles[i];
+        LOG.info("Converting embeddings from file " + textSource);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(openFile(textSource), StandardCharsets.UTF_8))) {
+            TextFormatParser parser = new TextFormatParser(reader, hasHeader);
+            int dimensions = parser.getDimensions();
+            try (BinaryVectorWriter writer = new BinaryVectorWriter(binaryTarget, dimensions,
+                    aEncoding)) {
+                parser.parse(chunk -> {
+                    for (int i = 0; i < chunk.size; i++) {
+                        writer.add(chunk.words[i], chunk.vectors, i * dimensions);
+                    }
+                });
+                checkSize(parser, writer.size());
+                writer.finish(aCaseless != null ? aCaseless : parser.isCaseless(), aLocale);
+            }
         }
-        return floats;
+    }
+
+    private static InputStream openFile(File file)
+            throws IOException
+    {
+        return CompressionUtils.getInputStream(file.getAbsolutePath(), new FileInputStream(file));
+    }
+
+    private static void checkSize(TextFormatParser parser, int size)
+    {
+        if (parser.getExpectedSize() >= 0 && parser.getExpectedSize() != size) {
+            LOG.warn("Header announced " + parser.getExpectedSize() + " embeddings but file "
+                    + "contains " + size);
+        }
+    }
+
+    private static IOException duplicate(String token)
+    {
+        return new IOException("Duplicate entry for token [" + token + "]");
     }
 
     /**
@@ -169,8 +238,7 @@ public class TextFormatVectorizerUtils
             Locale aLocale, File targetFile)
             throws IOException
     {
-        Map<String, float[]> embeddings = readEmbeddingFileTxt(malletEmbeddings, false);
-        BinaryWordVectorUtils
-                .convertWordVectorsToBinary(embeddings, aCaseless, aLocale, targetFile);
+        convertTextToBinary(malletEmbeddings, false, aCaseless, aLocale, VectorEncoding.FLOAT32,
+                targetFile);
     }
 }
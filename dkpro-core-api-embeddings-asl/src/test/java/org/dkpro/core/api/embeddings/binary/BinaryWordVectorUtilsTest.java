@@ -20,14 +20,20 @@ package org.dkpro.core.api.embeddings.binary;
 import de.tudarmstadt.ukp.dkpro.core.testing.DkproTestContext;
 import org.dkpro.core.api.embeddings.VectorizerUtils;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
 
 import static org.dkpro.core.api.embeddings.binary.BinaryWordVectorUtils.convertWordVectorsToBinary;
 import static org.junit.Assert.assertEquals;
@@ -113,6 +119,204 @@ public class BinaryWordVectorUtilsTest
                 Arrays.equals(unk1, unk2));
     }
 
+    @Test
+    public void testVectorizeAll()
+            throws Exception
+    {
+        File binaryTarget = writeBinaryFile(vectors);
+
+        BinaryVectorizer vec = BinaryVectorizer.load(binaryTarget);
+
+        float[][] buffers = new float[3][vec.dimensions()];
+        int known = vec.vectorizeAll(Arrays.asList("t1", "unk", "t2"), buffers);
+
+        assertEquals(2, known);
+        assertTrue(Arrays.equals(vectors.get("t1"), buffers[0]));
+        assertTrue(Arrays.equals(vec.unknownVector(), buffers[1]));
+        assertTrue(Arrays.equals(vectors.get("t2"), buffers[2]));
+    }
+
+    @Test
+    public void testQuantizedEncodings()
+            throws Exception
+    {
+        Map<String, float[]> manyVectors = new HashMap<>();
+        Random rnd = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            float[] vector = new float[50];
+            for (int d = 0; d < vector.length; d++) {
+                vector[d] = (float) rnd.nextGaussian();
+            }
+            manyVectors.put("t" + i, vector);
+        }
+        File binaryTarget = writeBinaryFile(manyVectors);
+
+        for (VectorEncoding encoding : VectorEncoding.values()) {
+            File quantizedTarget = new File(testContext.getTestOutputFolder(),
+                    "binaryTarget-" + encoding);
+            BinaryWordVectorUtils.convertBinaryToBinary(binaryTarget, encoding, quantizedTarget);
+
+            BinaryVectorizer vec = BinaryVectorizer.load(quantizedTarget);
+            assertEquals(encoding, vec.getEncoding());
+            assertEquals(1000, vec.size());
+            assertEquals(50, vec.dimensions());
+
+            double minCosine = 1.0;
+            for (String word : manyVectors.keySet()) {
+                minCosine = Math.min(minCosine,
+                        cosine(manyVectors.get(word), vec.vectorize(word)));
+            }
+
+            assertTrue(encoding + " too inaccurate", minCosine > 0.999);
+            if (encoding != VectorEncoding.FLOAT32) {
+                assertTrue(quantizedTarget.length() < binaryTarget.length());
+            }
+        }
+    }
+
+    @Ignore("Run this only when you want to compare the vector encodings")
+    @Test
+    public void encodingPerformanceTest()
+            throws Exception
+    {
+        int WORDS = 20000;
+        int DIMENSIONS = 100;
+        int ROUNDS = 20;
+
+        Map<String, float[]> manyVectors = new HashMap<>();
+        Random rnd = new Random(1);
+        for (int i = 0; i < WORDS; i++) {
+            float[] vector = new float[DIMENSIONS];
+            for (int d = 0; d < vector.length; d++) {
+                vector[d] = (float) rnd.nextGaussian();
+            }
+            manyVectors.put("t" + i, vector);
+        }
+        File binaryTarget = writeBinaryFile(manyVectors);
+        String[] words = manyVectors.keySet().toArray(new String[WORDS]);
+
+        System.out.printf("%d random %d-d vectors%n", WORDS, DIMENSIONS);
+        for (VectorEncoding encoding : VectorEncoding.values()) {
+            File quantizedTarget = new File(testContext.getTestOutputFolder(),
+                    "binaryTarget-" + encoding);
+            BinaryWordVectorUtils.convertBinaryToBinary(binaryTarget, encoding, quantizedTarget);
+            BinaryVectorizer vec = BinaryVectorizer.load(quantizedTarget);
+
+            double maxError = 0.0;
+            double sumError = 0.0;
+            double minCosine = 1.0;
+            for (String word : words) {
+                float[] orig = manyVectors.get(word);
+                float[] conv = vec.vectorize(word);
+                for (int d = 0; d < orig.length; d++) {
+                    double error = Math.abs(orig[d] - conv[d]);
+                    maxError = Math.max(maxError, error);
+                    sumError += error;
+                }
+                minCosine = Math.min(minCosine, cosine(orig, conv));
+            }
+
+            float[] buffer = new float[DIMENSIONS];
+            long start = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                for (String word : words) {
+                    vec.vectorize(word, buffer);
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf(
+                    "%-8s %10d bytes (%.2f of FLOAT32), max error %.6f, mean error %.6f, "
+                            + "minimum cosine %.7f, %.0f vectors/s%n",
+                    encoding, quantizedTarget.length(),
+                    (double) quantizedTarget.length() / binaryTarget.length(), maxError,
+                    sumError / ((double) WORDS * DIMENSIONS), minCosine,
+                    WORDS * ROUNDS / seconds);
+        }
+    }
+
+    @Test
+    public void testHalfPrecisionRoundTrip()
+    {
+        for (int h = 0; h < 0x10000; h++) {
+            float value = VectorEncoding.halfToFloat((short) h);
+            if (!Float.isNaN(value)) {
+                assertEquals((short) h, VectorEncoding.floatToHalf(value));
+            }
+        }
+    }
+
+    private static double cosine(float[] aA, float[] aB)
+    {
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (int i = 0; i < aA.length; i++) {
+            dot += aA[i] * aB[i];
+            normA += aA[i] * aA[i];
+            normB += aB[i] * aB[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    @Test
+    public void testReadVersion1()
+            throws Exception
+    {
+        File binaryTarget = new File(testContext.getTestOutputFolder(), "binaryTargetV1");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(binaryTarget))) {
+            BinaryVectorizer.Header header = new BinaryVectorizer.Header();
+            header.setVersion(1);
+            header.setWordCount(2);
+            header.setVectorLength(3);
+            header.setCaseless(true);
+            header.setLocale("en_US");
+            header.write(out);
+            out.writeUTF("t1");
+            out.writeUTF("t2");
+            for (float[] vector : new float[][] { VectorizerUtils.randomVector(3),
+                    vectors.get("t1"), vectors.get("t2") }) {
+                for (float f : vector) {
+                    out.writeFloat(f);
+                }
+            }
+        }
+
+        BinaryVectorizer vec = BinaryVectorizer.load(binaryTarget);
+
+        assertTrue(vec.contains("t1"));
+        assertFalse(vec.contains("t3"));
+        assertEquals(2, vec.size());
+        assertTrue(Arrays.equals(vectors.get("t1"), vec.vectorize("t1")));
+        assertTrue(Arrays.equals(vectors.get("t2"), vec.vectorize("t2")));
+    }
+
+    @Test
+    public void testConcurrentAccess()
+            throws Exception
+    {
+        Map<String, float[]> manyVectors = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            manyVectors.put("t" + i, VectorizerUtils.randomVector(3, i));
+        }
+        File binaryTarget = writeBinaryFile(manyVectors);
+
+        BinaryVectorizer vec = BinaryVectorizer.load(binaryTarget);
+
+        long mismatches = IntStream.range(0, 100000).parallel()
+                .filter(i -> {
+                    String word = "t" + (i % 1000);
+                    try {
+                        return !Arrays.equals(manyVectors.get(word), vec.vectorize(word));
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .count();
+        assertEquals(0, mismatches);
+    }
+
     /**
      * Write a binary vectors file to a testContext-dependent location.
      *
@@ -17,7 +17,11 @@
  */
 package org.dkpro.core.api.embeddings.text;
 
+import de.tudarmstadt.ukp.dkpro.core.testing.DkproTestContext;
 import org.dkpro.core.api.embeddings.Vectorizer;
+import org.dkpro.core.api.embeddings.binary.BinaryVectorizer;
+import org.dkpro.core.api.embeddings.binary.VectorEncoding;
+import org.junit.Rule;
 import org.junit.Test;
 
 import java.io.File;
@@ -30,6 +34,8 @@ import static org.junit.Assert.assertTrue;
 
 public class TextFormatVectorizerTest
 {
+    @Rule
+    public DkproTestContext testContext = new DkproTestContext();
 
     @Test
     public void testVectorizer()
@@ -96,4 +102,49 @@ public class TextFormatVectorizerTest
         assertTrue(Arrays.equals(expectedVectorPartiality, vectorizer.vectorize("partiality")));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testVectorizeIntoBuffer()
+            throws IOException
+    {
+        File modelFile = new File("src/test/resources/dummy.vec");
+        Vectorizer vectorizer = TextFormatVectorizer.load(modelFile);
+
+        float[] expected = vectorizer.vectorize("Her");
+        float[] buffer = new float[vectorizer.dimensions()];
+        assertTrue(vectorizer.vectorize("Her", buffer));
+        assertTrue(Arrays.equals(expected, buffer));
+
+        assertFalse(vectorizer.vectorize("not-in-the-model", buffer));
+        assertTrue(Arrays.equals(vectorizer.unknownVector(), buffer));
+
+        // Modifying the returned vector must not affect the vectorizer
+        expected[0] = 1000f;
+        assertFalse(Arrays.equals(expected, vectorizer.vectorize("Her")));
+    }
+
+    @Test
+    public void testLoadAndConvertToBinary()
+            throws IOException
+    {
+        File modelFile = new File("src/test/resources/dummy_lowercased.vec");
+        File outputFolder = testContext.getTestOutputFolder();
+        File targetFile = new File(outputFolder, "binary");
+
+        Vectorizer vectorizer = TextFormatVectorizer.load(modelFile, false, targetFile,
+                VectorEncoding.FLOAT32);
+        BinaryVectorizer binary = BinaryVectorizer.load(targetFile);
+
+        assertEquals(575, vectorizer.size());
+        assertEquals(vectorizer.size(), binary.size());
+        assertEquals(vectorizer.dimensions(), binary.dimensions());
+        assertTrue(vectorizer.isCaseless());
+        assertTrue(binary.isCaseless());
+        assertTrue(Arrays.equals(vectorizer.vectorize("extensive"),
+                binary.vectorize("extensive")));
+        assertTrue(Arrays.equals(vectorizer.vectorize("partiality"),
+                binary.vectorize("partiality")));
+        // The temporary vector file must have been removed
+        assertEquals(1, outputFolder.list().length);
+    }
+}
@@ -19,6 +19,7 @@ package org.dkpro.core.api.embeddings.text;
 
 import de.tudarmstadt.ukp.dkpro.core.testing.DkproTestContext;
 import org.dkpro.core.api.embeddings.binary.BinaryVectorizer;
+import org.dkpro.core.api.embeddings.binary.VectorEncoding;
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -26,9 +27,11 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class TextFormatVectorizerUtilsTest
@@ -102,5 +105,26 @@ public class TextFormatVectorizerUtilsTest
         }
     }
 
+    @Test
+    public void testConvertTextToBinary()
+            throws IOException
+    {
+        File modelFile = new File("src/test/resources/dummy_with_header.vec");
+        File targetFile = new File(testContext.getTestOutputFolder(), "binary");
+
+        Map<String, float[]> embeddings = TextFormatVectorizerUtils
+                .readEmbeddingFileTxt(modelFile, true);
+        TextFormatVectorizerUtils.convertTextToBinary(modelFile, true, Locale.US,
+                VectorEncoding.FLOAT32, targetFile);
+        BinaryVectorizer vec = BinaryVectorizer.load(targetFile);
+
+        assertEquals(embeddings.size(), vec.size());
+        assertFalse(vec.isCaseless());
+        for (String token : embeddings.keySet()) {
+            assertTrue("Arrays to not match for token " + token,
+                    Arrays.equals(embeddings.get(token), vec.vectorize(token)));
+        }
+    }
+
     // TODO add tests for caseless
 }
\ No newline at end of file
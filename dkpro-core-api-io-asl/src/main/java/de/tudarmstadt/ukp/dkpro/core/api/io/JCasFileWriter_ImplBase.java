@@ -19,26 +19,41 @@ package de.tudarmstadt.ukp.dkpro.core.api.io;
 
 import static org.apache.commons.io.IOUtils.closeQuietly;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.URL;
 import java.net.URLEncoder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.component.JCasConsumer_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
 
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionMethod;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionUtils;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceUtils;
 
 /**
  */
@@ -78,6 +93,25 @@ public abstract class JCasFileWriter_ImplBase
 	@ConfigurationParameter(name=PARAM_COMPRESSION, mandatory=false, defaultValue="NONE")
 	private CompressionMethod compression;
 
+    /**
+     * Number of background threads used for compressing each file. This is only supported by
+     * {@link CompressionMethod#ZSTD}. If 0, files are compressed on the writing thread.
+     */
+    public static final String PARAM_COMPRESSION_THREADS = "compressionThreads";
+    @ConfigurationParameter(name = PARAM_COMPRESSION_THREADS, mandatory = true, defaultValue = "0")
+    private int compressionThreads;
+
+    /**
+     * Location of a dictionary used for compression. This is only supported by
+     * {@link CompressionMethod#ZSTD}. A dictionary considerably improves the compression of many
+     * small files. The same dictionary must be provided when reading the files again.
+     * 
+     * @see CompressionUtils#trainZstdDictionary(Iterable, int)
+     */
+    public static final String PARAM_COMPRESSION_DICTIONARY = "compressionDictionary";
+    @ConfigurationParameter(name = PARAM_COMPRESSION_DICTIONARY, mandatory = false)
+    private String compressionDictionary;
+
     /**
      * Remove the original extension.
      */
@@ -106,12 +140,91 @@ public abstract class JCasFileWriter_ImplBase
     @ConfigurationParameter(name = PARAM_OVERWRITE, mandatory = true, defaultValue = "false")
     private boolean overwrite;
     
+    /**
+     * Write output asynchronously. The writer serializes each document into an in-memory buffer
+     * and a background thread compresses the buffer and writes it to the target location. When
+     * writing to a ZIP archive or to a {@link #PARAM_SINGULAR_TARGET singular target}, the
+     * documents are written in the order in which the writer produced them. Errors which occur
+     * while writing in the background are reported on the next attempt to write a document or at
+     * the end of the collection at the latest. Output to stdout is always written synchronously.
+     */
+    public static final String PARAM_ASYNC_OUTPUT = "asyncOutput";
+    @ConfigurationParameter(name = PARAM_ASYNC_OUTPUT, mandatory = true, defaultValue = "false")
+    private boolean asyncOutput;
+
+    /**
+     * Number of background threads used to write documents when {@link #PARAM_ASYNC_OUTPUT} is
+     * enabled. Only a single thread is used when writing to a ZIP archive or to a singular target
+     * in order to preserve the document order.
+     */
+    public static final String PARAM_ASYNC_THREADS = "asyncThreads";
+    @ConfigurationParameter(name = PARAM_ASYNC_THREADS, mandatory = true, defaultValue = "1")
+    private int asyncThreads;
+
+    /**
+     * Maximum number of documents buffered in memory waiting to be written when
+     * {@link #PARAM_ASYNC_OUTPUT} is enabled. If the limit is reached, the writer blocks until a
+     * document has been written.
+     */
+    public static final String PARAM_ASYNC_QUEUE_SIZE = "asyncQueueSize";
+    @ConfigurationParameter(name = PARAM_ASYNC_QUEUE_SIZE, mandatory = true, defaultValue = "16")
+    private int asyncQueueSize;
+
+    /**
+     * Buffers which grew larger than this are not returned to the buffer pool.
+     */
+    private static final int ASYNC_BUFFER_MAX_RETAINED_SIZE = 16 * 1024 * 1024;
+    
     private ZipOutputStream zipOutputStream;
     private String zipPath;
     private String zipEntryPrefix;
     
     private OutputStream singularTargetStream;
     
+    private byte[] compressionDictionaryData;
+    
+    private ExecutorService asyncExecutor;
+    private Semaphore asyncPermits;
+    private BlockingQueue<ByteArrayOutputStream> asyncBufferPool;
+    private volatile Throwable asyncError;
+    
+    @Override
+    public void initialize(UimaContext aContext)
+        throws ResourceInitializationException
+    {
+        super.initialize(aContext);
+        
+        if (compressionThreads < 0) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Parameter [" + PARAM_COMPRESSION_THREADS + "] must not be negative but was ["
+                            + compressionThreads + "]"));
+        }
+        if (asyncThreads < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Parameter [" + PARAM_ASYNC_THREADS + "] must be at least 1 but was ["
+                            + asyncThreads + "]"));
+        }
+        if (asyncQueueSize < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Parameter [" + PARAM_ASYNC_QUEUE_SIZE + "] must be at least 1 but was ["
+                            + asyncQueueSize + "]"));
+        }
+        
+        if (compressionDictionary != null) {
+            try {
+                URL url = ResourceUtils.resolveLocation(compressionDictionary, this, aContext);
+                try (InputStream is = url.openStream()) {
+                    compressionDictionaryData = IOUtils.toByteArray(is);
+                }
+                // Allow reading the data back within the same process
+                CompressionUtils.registerZstdDictionary(compressionDictionaryData);
+            }
+            catch (IOException | IllegalArgumentException e) {
+                throw new ResourceInitializationException(e);
+            }
+        }
+    }
+    
     protected CompressionMethod getCompressionMethod()
 	{
 		return compression;
@@ -131,15 +244,30 @@ public abstract class JCasFileWriter_ImplBase
     public void collectionProcessComplete()
         throws AnalysisEngineProcessException
     {
-        if (zipOutputStream != null) {
-            closeQuietly(zipOutputStream);
+        try {
+            awaitAsyncOutput();
         }
-        if (singularTargetStream != null) {
-            closeQuietly(singularTargetStream);
+        finally {
+            if (zipOutputStream != null) {
+                closeQuietly(zipOutputStream);
+            }
+            if (singularTargetStream != null) {
+                closeQuietly(singularTargetStream);
+            }
         }
         super.collectionProcessComplete();
     }
     
+    @Override
+    public void destroy()
+    {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdownNow();
+            asyncExecutor = null;
+        }
+        super.destroy();
+    }
+    
     protected NamedOutputStream getOutputStream(JCas aJCas, String aExtension)
         throws IOException
     {
@@ -186,6 +314,16 @@ public abstract class JCasFileWriter_ImplBase
             // Begin new entry
             ZipEntry entry = new ZipEntry(zipEntryPrefix + aRelativePath + aExtension
                     + compression.getExtension());
+            
+            if (asyncOutput) {
+                return new AsyncOutputStream(JAR_PREFIX + zipPath + '!' + entry.getName(),
+                        buffer -> {
+                            zipOutputStream.putNextEntry(entry);
+                            buffer.writeTo(zipOutputStream);
+                            zipOutputStream.closeEntry();
+                        });
+            }
+            
             zipOutputStream.putNextEntry(entry);
             
             // We return an OutputStream for an individual entry. When this is closed by the
@@ -203,8 +341,15 @@ public abstract class JCasFileWriter_ImplBase
                             + "] already exists and overwriting not enabled.");
                 }
                 
-                singularTargetStream = CompressionUtils.getOutputStream(outputFile);
+                singularTargetStream = CompressionUtils.getOutputStream(outputFile,
+                        compressionThreads, compressionDictionaryData);
             }
+            
+            if (asyncOutput) {
+                return new AsyncOutputStream(outputFile.getAbsolutePath(),
+                        buffer -> buffer.writeTo(singularTargetStream));
+            }
+            
             return new NamedOutputStream(outputFile.getAbsolutePath(),
                     new CloseShieldOutputStream(singularTargetStream));
         }
@@ -217,8 +362,116 @@ public abstract class JCasFileWriter_ImplBase
                         + "] already exists and overwriting not enabled.");
             }
             
+            if (asyncOutput) {
+                return new AsyncOutputStream(outputFile.getAbsolutePath(), buffer -> {
+                    try (OutputStream os = CompressionUtils.getOutputStream(outputFile,
+                            compressionThreads, compressionDictionaryData)) {
+                        buffer.writeTo(os);
+                    }
+                });
+            }
+            
             return new NamedOutputStream(outputFile.getAbsolutePath(),
-                    CompressionUtils.getOutputStream(outputFile));
+                    CompressionUtils.getOutputStream(outputFile, compressionThreads,
+                            compressionDictionaryData));
+        }
+    }
+    
+    private ByteArrayOutputStream borrowAsyncBuffer()
+        throws IOException
+    {
+        checkAsyncError();
+        
+        if (asyncExecutor == null) {
+            // Writing to a ZIP archive or to a singular target must happen in order
+            int threads = targetLocation.startsWith(JAR_PREFIX) || singularTarget ? 1
+                    : asyncThreads;
+            asyncExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, getClass().getSimpleName() + "-output");
+                thread.setDaemon(true);
+                return thread;
+            });
+            asyncPermits = new Semaphore(asyncQueueSize);
+            asyncBufferPool = new ArrayBlockingQueue<>(asyncQueueSize);
+        }
+        
+        ByteArrayOutputStream buffer = asyncBufferPool.poll();
+        return buffer != null ? buffer : new ByteArrayOutputStream();
+    }
+    
+    private void submitAsync(ByteArrayOutputStream aBuffer, AsyncWrite aWrite)
+        throws IOException
+    {
+        checkAsyncError();
+        
+        // Block while too many documents are waiting to be written
+        try {
+            asyncPermits.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for output to be written");
+        }
+        
+        try {
+            asyncExecutor.execute(() -> {
+                try {
+                    // Once an error has occurred, skip the remaining documents so that no gaps
+                    // appear in ordered output
+                    if (asyncError == null) {
+                        aWrite.writeTo(aBuffer);
+                    }
+                }
+                catch (Throwable e) {
+                    if (asyncError == null) {
+                        asyncError = e;
+                    }
+                }
+                finally {
+                    if (aBuffer.size() <= ASYNC_BUFFER_MAX_RETAINED_SIZE) {
+                        aBuffer.reset();
+                        asyncBufferPool.offer(aBuffer);
+                    }
+                    asyncPermits.release();
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            asyncPermits.release();
+            throw new IOException(e);
+        }
+    }
+    
+    private void checkAsyncError()
+        throws IOException
+    {
+        Throwable e = asyncError;
+        if (e != null) {
+            throw new IOException("Unable to write output in the background", e);
+        }
+    }
+    
+    private void awaitAsyncOutput()
+        throws AnalysisEngineProcessException
+    {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+            try {
+                asyncExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AnalysisEngineProcessException(e);
+            }
+            finally {
+                asyncExecutor = null;
+            }
+        }
+        
+        Throwable e = asyncError;
+        if (e != null) {
+            asyncError = null;
+            throw new AnalysisEngineProcessException(e);
         }
     }
     
@@ -345,6 +598,43 @@ public abstract class JCasFileWriter_ImplBase
         }
     }
     
+    /**
+     * Writes a buffered document to its target.
+     */
+    @FunctionalInterface
+    private interface AsyncWrite
+    {
+        void writeTo(ByteArrayOutputStream aBuffer)
+            throws IOException;
+    }
+    
+    /**
+     * Collects the document in a buffer. When the stream is closed, the buffer is handed over to
+     * the background executor to be written.
+     */
+    private class AsyncOutputStream extends NamedOutputStream
+    {
+        private final AsyncWrite write;
+        private boolean closed = false;
+        
+        public AsyncOutputStream(String aName, AsyncWrite aWrite)
+            throws IOException
+        {
+            super(aName, borrowAsyncBuffer());
+            write = aWrite;
+        }
+        
+        @Override
+        public void close()
+            throws IOException
+        {
+            if (!closed) {
+                closed = true;
+                submitAsync((ByteArrayOutputStream) outputStream, write);
+            }
+        }
+    }
+    
     private static class ZipEntryOutputStream extends NamedOutputStream
     {
 
@@ -86,8 +86,11 @@ public class ProgressMeter
 	{
 		final StringBuilder sb = new StringBuilder();
 		sb.append(_count);
-		sb.append(" of ");
-		sb.append(_limit);
+		// A negative limit means that the total is unknown
+		if (_limit >= 0) {
+			sb.append(" of ");
+			sb.append(_limit);
+		}
 		if (_count > 0 && _limit > 0) {
 			final int perc = 100 - (int) (((_limit - _count) * 100) / _limit);
 			sb.append(" (");
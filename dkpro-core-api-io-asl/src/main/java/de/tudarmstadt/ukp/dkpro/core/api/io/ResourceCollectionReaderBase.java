@@ -17,22 +17,34 @@
  */
 package de.tudarmstadt.ukp.dkpro.core.api.io;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.uima.UimaContext;
 import org.apache.uima.cas.CAS;
@@ -44,12 +56,15 @@ import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.Progress;
 import org.apache.uima.util.ProgressImpl;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.util.AntPathMatcher;
 
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionUtils;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceUtils;
 
 /**
  * Base class for collection readers that plan to access resources on the file system or in the
@@ -68,6 +83,11 @@ import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
  * <p>
  * The list of resources returned is sorted, so for the same set of resources, they are always
  * returned in the same order.
+ * <p>
+ * By default, all resources are located before the first document is read. For very large
+ * directory trees on the local file system, {@link #PARAM_LAZY_SCAN} traverses the directories
+ * while the documents are being read instead. {@link #PARAM_READ_AHEAD} reads upcoming resources
+ * in the background, so that I/O overlaps with the processing of the current document.
  * 
  * @see <a href="http://ant.apache.org/manual/dirtasks.html#patterns">Documentation of <b>ant</b>
  *      patterns</a>
@@ -145,9 +165,77 @@ public abstract class ResourceCollectionReaderBase
     @ConfigurationParameter(name = PARAM_LOG_FREQ, mandatory = true, defaultValue = "1")
     private int logFreq;
 
+    /**
+     * Traverse the source location while the documents are being read instead of locating all
+     * resources before the first document is read. Include and exclude patterns are evaluated
+     * during the traversal and directories which cannot contain included resources are skipped.
+     * This is only supported for directories on the local file system ({@code file:} locations
+     * with patterns); other locations are always scanned up front. The total number of resources
+     * is unknown in this mode.
+     */
+    public static final String PARAM_LAZY_SCAN = "lazyScan";
+    @ConfigurationParameter(name = PARAM_LAZY_SCAN, mandatory = true, defaultValue = "false")
+    private boolean lazyScan;
+
+    /**
+     * Return the resources sorted by their location. When scanning lazily, the entries of each
+     * directory are sorted by name instead. If disabled, resources are returned in the order in
+     * which they are found.
+     */
+    public static final String PARAM_SORT_RESOURCES = "sortResources";
+    @ConfigurationParameter(name = PARAM_SORT_RESOURCES, mandatory = true, defaultValue = "true")
+    private boolean sortResources;
+
+    /**
+     * Number of resources following the current one which are read into memory in the background.
+     * Resources larger than 64 MB are not read ahead. Set to 0 to disable.
+     */
+    public static final String PARAM_READ_AHEAD = "readAhead";
+    @ConfigurationParameter(name = PARAM_READ_AHEAD, mandatory = true, defaultValue = "0")
+    private int readAhead;
+
+    /**
+     * Number of shards into which the collection is split, e.g. to distribute it across several
+     * processes reading from the same location. Each process then only reads the resources of the
+     * shard given by {@link #PARAM_SHARD_INDEX}.
+     */
+    public static final String PARAM_SHARD_COUNT = "shardCount";
+    @ConfigurationParameter(name = PARAM_SHARD_COUNT, mandatory = true, defaultValue = "1")
+    private int shardCount;
+
+    /**
+     * Index of the shard to be read, from 0 to {@link #PARAM_SHARD_COUNT} - 1.
+     */
+    public static final String PARAM_SHARD_INDEX = "shardIndex";
+    @ConfigurationParameter(name = PARAM_SHARD_INDEX, mandatory = true, defaultValue = "0")
+    private int shardIndex;
+
+    /**
+     * How resources are assigned to shards. (default: {@link ShardingStrategy#HASH})
+     * 
+     * @see ShardingStrategy
+     */
+    public static final String PARAM_SHARDING_STRATEGY = "shardingStrategy";
+    @ConfigurationParameter(name = PARAM_SHARDING_STRATEGY, mandatory = true, defaultValue = "HASH")
+    private ShardingStrategy shardingStrategy;
+
+    /**
+     * Location of a Zstandard dictionary. Resources which were compressed using this dictionary
+     * are decompressed transparently by {@link CompressionUtils}.
+     * 
+     * @see CompressionUtils#trainZstdDictionary(Iterable, int)
+     */
+    public static final String PARAM_COMPRESSION_DICTIONARY = "compressionDictionary";
+    @ConfigurationParameter(name = PARAM_COMPRESSION_DICTIONARY, mandatory = false)
+    private String compressionDictionary;
+
+    private static final long READ_AHEAD_MAX_SIZE = 64 * 1024 * 1024;
+    private static final int READ_AHEAD_MAX_THREADS = 4;
+
     private int completed;
     private Collection<Resource> resources;
     private Iterator<Resource> resourceIterator;
+    private ExecutorService readAheadExecutor;
     
     private ProgressMeter progress;
 
@@ -162,6 +250,25 @@ public abstract class ResourceCollectionReaderBase
                     "Either a source location, pattern, or both must be specified.");
         }
         
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Shard index must be between 0 and " + (shardCount - 1) + " and shard count "
+                            + "must be at least 1, but were [" + shardIndex + "] and ["
+                            + shardCount + "]."));
+        }
+        
+        if (compressionDictionary != null) {
+            try {
+                URL url = ResourceUtils.resolveLocation(compressionDictionary, this, aContext);
+                try (InputStream is = url.openStream()) {
+                    CompressionUtils.registerZstdDictionary(IOUtils.toByteArray(is));
+                }
+            }
+            catch (IOException | IllegalArgumentException e) {
+                throw new ResourceInitializationException(e);
+            }
+        }
+        
         // if an ExternalResourceLocator providing a custom ResourcePatternResolver
         // has been specified, use it, by default use PathMatchingResourcePatternresolver
         
@@ -227,18 +334,152 @@ public abstract class ResourceCollectionReaderBase
                 sourceLocation = locationToUrl(sourceLocation);
             }
 
-            resources = scan(getSourceLocation(), includes, excludes);
-
-            progress = new ProgressMeter(resources.size());
-            
-            // Get the iterator that will be used to actually traverse the FileSet.
-            resourceIterator = resources.iterator();
-
-            getLogger().info("Found [" + resources.size() + "] resources to be read");
+            if (lazyScan && isFileSystemDirectory()) {
+                resourceIterator = scanLazily(getSourceLocation(), includes, excludes);
+            }
+            else {
+                if (lazyScan) {
+                    getLogger().warn("Lazy scanning is only supported for directories on the "
+                            + "file system - scanning [" + getSourceLocation() + "] up front");
+                }
+                
+                resources = scan(getSourceLocation(), includes, excludes);
+    
+                // Get the iterator that will be used to actually traverse the FileSet.
+                resourceIterator = resources.iterator();
+    
+                getLogger().info("Found [" + resources.size() + "] resources to be read");
+            }
         }
         catch (IOException e) {
             throw new ResourceInitializationException(e);
         }
+        
+        if (shardCount > 1) {
+            selectShard();
+        }
+        
+        progress = new ProgressMeter(resources != null ? resources.size() : -1);
+        
+        if (readAhead > 0) {
+            readAheadExecutor = Executors.newFixedThreadPool(
+                    Math.min(readAhead, READ_AHEAD_MAX_THREADS), runnable -> {
+                        Thread thread = new Thread(runnable, "resource-read-ahead");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            resourceIterator = new ReadAheadIterator(resourceIterator);
+        }
+    }
+    
+    @Override
+    public void destroy()
+    {
+        if (readAheadExecutor != null) {
+            readAheadExecutor.shutdownNow();
+            readAheadExecutor = null;
+        }
+        super.destroy();
+    }
+    
+    /**
+     * Restrict the resources to those of the configured shard. The progress then refers to the
+     * shard only.
+     */
+    private void selectShard()
+    {
+        if (shardingStrategy == ShardingStrategy.HASH && resources == null) {
+            // Scanning lazily - filter while scanning
+            resourceIterator = new ShardIterator(resourceIterator);
+            getLogger().info("Reading shard [" + shardIndex + "] of [" + shardCount + "]");
+            return;
+        }
+        
+        List<Resource> all = new ArrayList<>(getResources());
+        List<Resource> shard = new ArrayList<>();
+        switch (shardingStrategy) {
+        case HASH:
+            for (Resource res : all) {
+                if (isInShard(res)) {
+                    shard.add(res);
+                }
+            }
+            break;
+        case SIZE:
+            shard.addAll(selectShardBySize(all));
+            break;
+        default:
+            throw new IllegalStateException("Unknown sharding strategy [" + shardingStrategy
+                    + "]");
+        }
+        
+        resources = shard;
+        resourceIterator = shard.iterator();
+        
+        getLogger().info("Reading shard [" + shardIndex + "] of [" + shardCount + "] with ["
+                + shard.size() + "] of [" + all.size() + "] resources");
+    }
+    
+    private boolean isInShard(Resource aResource)
+    {
+        // Spread the bits of the string hash code which is the same in every JVM
+        int hash = aResource.getPath().hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, shardCount) == shardIndex;
+    }
+    
+    /**
+     * Assign the largest remaining resource to the shard with the smallest total size until all
+     * resources are assigned. Every process computes the same assignment from the same resources.
+     */
+    private List<Resource> selectShardBySize(List<Resource> aResources)
+    {
+        long[] sizes = new long[aResources.size()];
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < sizes.length; i++) {
+            try {
+                sizes[i] = Math.max(aResources.get(i).getResource().contentLength(), 1);
+            }
+            catch (IOException e) {
+                sizes[i] = 1;
+            }
+            order.add(i);
+        }
+        // Largest first - the location breaks ties in case the resources are not sorted
+        order.sort((a, b) -> sizes[a] != sizes[b] ? Long.compare(sizes[b], sizes[a])
+                : aResources.get(a).getLocation().compareTo(aResources.get(b).getLocation()));
+        
+        long[] shardSizes = new long[shardCount];
+        boolean[] selected = new boolean[sizes.length];
+        for (int i : order) {
+            int smallest = 0;
+            for (int s = 1; s < shardCount; s++) {
+                if (shardSizes[s] < shardSizes[smallest]) {
+                    smallest = s;
+                }
+            }
+            shardSizes[smallest] += sizes[i];
+            selected[i] = smallest == shardIndex;
+        }
+        
+        // Keep the original order of the resources
+        List<Resource> shard = new ArrayList<>();
+        for (int i = 0; i < sizes.length; i++) {
+            if (selected[i]) {
+                shard.add(aResources.get(i));
+            }
+        }
+        return shard;
+    }
+    
+    private boolean isFileSystemDirectory()
+    {
+        return !isSingleLocation() && getSourceLocation() != null
+                && getSourceLocation().startsWith("file:");
     }
     
     protected List<String> getDefaultExcludes()
@@ -317,8 +558,26 @@ public abstract class ResourceCollectionReaderBase
         return aLocation.indexOf(':') < 2;
     }
 
+    /**
+     * Get all resources to be read. When scanning lazily, calling this method scans all remaining
+     * resources at once.
+     * 
+     * @return the resources.
+     */
     protected Collection<Resource> getResources()
     {
+        if (resources == null) {
+            List<Resource> remaining = new ArrayList<>();
+            if (resourceIterator instanceof ReadAheadIterator) {
+                ((ReadAheadIterator) resourceIterator).drainTo(remaining);
+                resourceIterator = new ReadAheadIterator(remaining.iterator());
+            }
+            else {
+                resourceIterator.forEachRemaining(remaining::add);
+                resourceIterator = remaining.iterator();
+            }
+            resources = remaining;
+        }
         return resources;
     }
 
@@ -386,7 +645,8 @@ public abstract class ResourceCollectionReaderBase
     @Override
     public Progress[] getProgress()
     {
-        return new Progress[] { new ProgressImpl(completed, resources.size(), "file") };
+        return new Progress[] { new ProgressImpl(completed,
+                resources != null ? resources.size() : -1, "file") };
     }
 
     protected ResourcePatternResolver getResolver()
@@ -518,14 +778,16 @@ public abstract class ResourceCollectionReaderBase
             }
         }
 
-        Collections.sort(result, new Comparator<Resource>()
-        {
-            @Override
-            public int compare(Resource aO1, Resource aO2)
+        if (sortResources) {
+            Collections.sort(result, new Comparator<Resource>()
             {
-                return aO1.location.compareTo(aO2.location);
-            }
-        });
+                @Override
+                public int compare(Resource aO1, Resource aO2)
+                {
+                    return aO1.location.compareTo(aO2.location);
+                }
+            });
+        }
 
         if (singleLocation && result.isEmpty()) {
             throw new FileNotFoundException(
@@ -538,6 +800,49 @@ public abstract class ResourceCollectionReaderBase
         return result;
     }
 
+    /**
+     * Prepare a lazy traversal of a directory on the local file system. Unlike
+     * {@link #scan(String, Collection, Collection)}, the resources are located only while they are
+     * being read.
+     * 
+     * @param aBase
+     *            the base location.
+     * @param aIncludes
+     *            the include patterns.
+     * @param aExcludes
+     *            the exclude patterns.
+     * @return an iterator over the resources.
+     * @throws IOException
+     *             if the base location cannot be resolved to a directory.
+     */
+    protected Iterator<Resource> scanLazily(String aBase, Collection<String> aIncludes,
+            Collection<String> aExcludes)
+        throws IOException
+    {
+        String base = getBase(aBase);
+
+        getLogger().info("Scanning lazily [" + base + "]");
+
+        Collection<String> includes;
+        if (aIncludes == null || aIncludes.size() == 0) {
+            includes = Collections.singleton("**/*");
+        }
+        else {
+            includes = aIncludes;
+        }
+
+        Collection<String> excludes;
+        if (aExcludes == null) {
+            excludes = Collections.emptySet();
+        }
+        else {
+            excludes = aExcludes;
+        }
+
+        File root = resolver.getResource(base).getFile();
+        return new LazyFileScanner(base, root, includes, excludes);
+    }
+
     /**
      * Get the URI of the given resource.
      * 
@@ -630,6 +935,236 @@ public abstract class ResourceCollectionReaderBase
         return language;
     }
 
+    /**
+     * Depth-first traversal of a directory which evaluates the include and exclude patterns on the
+     * fly. Only the entries of the directories on the current path are held in memory.
+     */
+    private class LazyFileScanner
+        implements Iterator<Resource>
+    {
+        private final AntPathMatcher matcher = new AntPathMatcher();
+        private final String base;
+        private final String rootUri;
+        private final Collection<String> includes;
+        private final Collection<String> excludes;
+
+        // Entries of the directories on the current path - directory names end in a slash
+        private final Deque<Iterator<String>> entries = new ArrayDeque<>();
+        // The directories on the current path and their paths relative to the root
+        private final Deque<File> dirs = new ArrayDeque<>();
+        private final Deque<String> dirPaths = new ArrayDeque<>();
+
+        private Resource next;
+
+        public LazyFileScanner(String aBase, File aRoot, Collection<String> aIncludes,
+                Collection<String> aExcludes)
+        {
+            base = aBase;
+            rootUri = aRoot.toURI().toString();
+            includes = aIncludes;
+            excludes = aExcludes;
+            enter(aRoot, "");
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Resource next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Resource res = next;
+            next = null;
+            return res;
+        }
+
+        private Resource advance()
+        {
+            while (!entries.isEmpty()) {
+                Iterator<String> i = entries.getLast();
+                if (!i.hasNext()) {
+                    entries.removeLast();
+                    dirs.removeLast();
+                    dirPaths.removeLast();
+                    continue;
+                }
+
+                String name = i.next();
+                File file = new File(dirs.getLast(), name);
+                String path = dirPaths.getLast() + name;
+
+                if (name.endsWith("/")) {
+                    // Only descend if an include pattern may match something in the directory
+                    for (String include : includes) {
+                        if (matcher.matchStart(include, path)) {
+                            enter(file, path);
+                            break;
+                        }
+                    }
+                    continue;
+                }
+
+                if ((file.isHidden() && !includeHidden) || !isIncluded(path)) {
+                    continue;
+                }
+
+                URI uri = file.toURI();
+                String rest = uri.toString().substring(rootUri.length());
+                if (isExcluded(rest)) {
+                    if (getLogger().isDebugEnabled()) {
+                        getLogger().debug("Excluded: " + uri);
+                    }
+                    continue;
+                }
+
+                return new Resource(base + rest, base, uri, rootUri, rest,
+                        new FileSystemResource(file));
+            }
+            return null;
+        }
+
+        private void enter(File aDir, String aPath)
+        {
+            String[] names = aDir.list();
+            if (names == null) {
+                getLogger().warn("Unable to list directory [" + aDir + "]");
+                return;
+            }
+
+            // Marking directories with a trailing slash sorts them the way their contents would
+            // be sorted when comparing full paths
+            for (int n = 0; n < names.length; n++) {
+                if (new File(aDir, names[n]).isDirectory()) {
+                    names[n] += "/";
+                }
+            }
+            if (sortResources) {
+                Arrays.sort(names);
+            }
+
+            entries.addLast(Arrays.asList(names).iterator());
+            dirs.addLast(aDir);
+            dirPaths.addLast(aPath);
+        }
+
+        private boolean isIncluded(String aPath)
+        {
+            for (String include : includes) {
+                if (matcher.match(include, aPath)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isExcluded(String aRest)
+        {
+            for (String exclude : excludes) {
+                if (matcher.match(exclude, aRest)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Skips the resources of the wrapped iterator which do not belong to the selected shard.
+     */
+    private class ShardIterator
+        implements Iterator<Resource>
+    {
+        private final Iterator<Resource> source;
+        private Resource next;
+
+        public ShardIterator(Iterator<Resource> aSource)
+        {
+            source = aSource;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (next == null && source.hasNext()) {
+                Resource res = source.next();
+                if (isInShard(res)) {
+                    next = res;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Resource next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Resource res = next;
+            next = null;
+            return res;
+        }
+    }
+
+    /**
+     * Keeps the next {@link #PARAM_READ_AHEAD} resources of the wrapped iterator being read in the
+     * background.
+     */
+    private class ReadAheadIterator
+        implements Iterator<Resource>
+    {
+        private final Iterator<Resource> source;
+        private final Deque<Resource> buffer = new ArrayDeque<>();
+
+        public ReadAheadIterator(Iterator<Resource> aSource)
+        {
+            source = aSource;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            fill();
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public Resource next()
+        {
+            fill();
+            if (buffer.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Resource res = buffer.removeFirst();
+            fill();
+            return res;
+        }
+
+        private void fill()
+        {
+            while (buffer.size() < readAhead && source.hasNext()) {
+                Resource res = source.next();
+                res.readAhead(readAheadExecutor);
+                buffer.addLast(res);
+            }
+        }
+
+        public void drainTo(Collection<Resource> aTarget)
+        {
+            aTarget.addAll(buffer);
+            buffer.clear();
+            source.forEachRemaining(aTarget::add);
+        }
+    }
+
     /**
      */
     public static class Resource
@@ -640,6 +1175,7 @@ public abstract class ResourceCollectionReaderBase
         private final String resolvedBase;
         private final String path;
         private final org.springframework.core.io.Resource resource;
+        private volatile Future<byte[]> readAheadData;
 
         public Resource(String aLocation, String aBase, URI aResolvedUri, String aResolvedBaseUri,
                 String aPath, org.springframework.core.io.Resource aResource)
@@ -686,9 +1222,49 @@ public abstract class ResourceCollectionReaderBase
         public InputStream getInputStream()
             throws IOException
         {
+            // Use the data that has been read ahead - but only once
+            Future<byte[]> data = readAheadData;
+            readAheadData = null;
+            if (data != null) {
+                try {
+                    byte[] bytes = data.get();
+                    if (bytes != null) {
+                        return new ByteArrayInputStream(bytes);
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading [" + location
+                            + "] ahead");
+                }
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+            
             return resource.getInputStream();
         }
 
+        private void readAhead(ExecutorService aExecutor)
+        {
+            if (readAheadData != null) {
+                return;
+            }
+            
+            readAheadData = aExecutor.submit(() -> {
+                if (resource.contentLength() > READ_AHEAD_MAX_SIZE) {
+                    // Too large to be kept in memory - will be streamed when it is needed
+                    return null;
+                }
+                try (InputStream is = resource.getInputStream()) {
+                    return IOUtils.toByteArray(is);
+                }
+            });
+        }
+
         @Override
         public int hashCode()
         {
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.api.io;
+
+/**
+ * Strategies for assigning resources to shards.
+ * 
+ * @see ResourceCollectionReaderBase#PARAM_SHARD_COUNT
+ */
+public enum ShardingStrategy
+{
+    /**
+     * Assign each resource by a hash of its path relative to the base location. This does not
+     * require knowing the other resources, so it also works when scanning lazily.
+     */
+    HASH,
+
+    /**
+     * Distribute the resources such that the total size of each shard is roughly the same. This
+     * requires all resources to be scanned up front.
+     */
+    SIZE;
+}
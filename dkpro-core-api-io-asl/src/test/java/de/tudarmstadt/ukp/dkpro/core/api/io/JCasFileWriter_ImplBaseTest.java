@@ -95,6 +95,70 @@ public class JCasFileWriter_ImplBaseTest
         assertEquals(expected, FileUtils.readFileToString(target, "UTF-8"));
     }
 
+    @Test
+    public void writeToZipAsync() throws Exception
+    {
+        AnalysisEngine ae = createEngine(DummyWriter.class,
+                DummyWriter.PARAM_TARGET_LOCATION, "jar:file:target/out-async.zip",
+                DummyWriter.PARAM_OVERWRITE, true,
+                DummyWriter.PARAM_ASYNC_OUTPUT, true,
+                DummyWriter.PARAM_ASYNC_QUEUE_SIZE, 1);
+        JCas jcas = JCasFactory.createJCas();
+        ae.process(jcas);
+        ae.process(jcas);
+        ae.process(jcas);
+        ae.collectionProcessComplete();
+     
+        assertEquals(asList("file-0.txt", "file-1.txt", "file-2.txt"),
+                listContents("target/out-async.zip"));
+    }
+
+    @Test
+    public void writeToSingularTargetAsync() throws Exception
+    {
+        File target = new File("target/test-output/singular-async.txt");
+        
+        AnalysisEngine ae = createEngine(DummyWriter.class,
+                DummyWriter.PARAM_TARGET_LOCATION, target,
+                DummyWriter.PARAM_SINGULAR_TARGET, true,
+                DummyWriter.PARAM_OVERWRITE, true,
+                DummyWriter.PARAM_ASYNC_OUTPUT, true,
+                DummyWriter.PARAM_ASYNC_THREADS, 4);
+        JCas jcas = JCasFactory.createJCas();
+        ae.process(jcas);
+        ae.process(jcas);
+        ae.process(jcas);
+        ae.collectionProcessComplete();
+        
+        String expected = "This is the file 0\n" + 
+                "This is the file 1\n" + 
+                "This is the file 2\n";
+        
+        assertEquals(expected, FileUtils.readFileToString(target, "UTF-8"));
+    }
+
+    @Test
+    public void writeToFilesAsync() throws Exception
+    {
+        File target = new File("target/test-output/async");
+        
+        AnalysisEngine ae = createEngine(DummyWriter.class,
+                DummyWriter.PARAM_TARGET_LOCATION, target,
+                DummyWriter.PARAM_OVERWRITE, true,
+                DummyWriter.PARAM_ASYNC_OUTPUT, true,
+                DummyWriter.PARAM_ASYNC_THREADS, 2);
+        JCas jcas = JCasFactory.createJCas();
+        ae.process(jcas);
+        ae.process(jcas);
+        ae.process(jcas);
+        ae.collectionProcessComplete();
+        
+        for (int i = 0; i < 3; i++) {
+            assertEquals("This is the file " + i + "\n",
+                    FileUtils.readFileToString(new File(target, "file-" + i + ".txt"), "UTF-8"));
+        }
+    }
+
     private List<String> listContents(String aFile)
         throws IOException
     {
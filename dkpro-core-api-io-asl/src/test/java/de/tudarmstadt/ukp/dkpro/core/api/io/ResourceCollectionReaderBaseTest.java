@@ -20,11 +20,19 @@ package de.tudarmstadt.ukp.dkpro.core.api.io;
 
 import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
 import static org.apache.uima.fit.factory.ExternalResourceFactory.createExternalResourceDescription;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.collection.CollectionException;
@@ -157,6 +165,126 @@ public class ResourceCollectionReaderBaseTest
         searchForResourceCollectionReaderBase(reader);
     }
 
+    @Test
+    public void testFileLazy()
+        throws Exception
+    {
+        CollectionReader reader = createReader(DummyReader.class,
+                ResourceCollectionReaderBase.PARAM_SOURCE_LOCATION,
+                "file:src/main/java/de/tudarmstadt/ukp/",
+                ResourceCollectionReaderBase.PARAM_PATTERNS, new String[] {
+                        "[+]**/FileSetCollectionReaderBase.java",
+                        "[-]**/ResourceCollectionReaderBase.java" },
+                ResourceCollectionReaderBase.PARAM_LAZY_SCAN, true);
+
+        searchForResourceCollectionReaderBase(reader);
+    }
+
+    @Test
+    public void testLazyScanWithReadAhead()
+        throws Exception
+    {
+        CollectionReader eagerReader = createReader(ContentReader.class,
+                ResourceCollectionReaderBase.PARAM_SOURCE_LOCATION, "src/",
+                ResourceCollectionReaderBase.PARAM_PATTERNS, new String[] {
+                        "[+]**/*.java", "[-]**/Iob*" });
+        
+        CollectionReader lazyReader = createReader(ContentReader.class,
+                ResourceCollectionReaderBase.PARAM_SOURCE_LOCATION, "src/",
+                ResourceCollectionReaderBase.PARAM_PATTERNS, new String[] {
+                        "[+]**/*.java", "[-]**/Iob*" },
+                ResourceCollectionReaderBase.PARAM_LAZY_SCAN, true,
+                ResourceCollectionReaderBase.PARAM_READ_AHEAD, 3);
+        
+        List<String> expected = readAll(eagerReader);
+        List<String> actual = readAll(lazyReader);
+        
+        assertTrue(expected.size() > 10);
+        assertEquals(expected, actual);
+        assertEquals(-1, lazyReader.getProgress()[0].getTotal());
+        
+        lazyReader.destroy();
+    }
+    
+    @Test
+    public void testShardingByHash()
+        throws Exception
+    {
+        assertShardsCoverCollection(ShardingStrategy.HASH, false);
+    }
+
+    @Test
+    public void testShardingByHashLazy()
+        throws Exception
+    {
+        assertShardsCoverCollection(ShardingStrategy.HASH, true);
+    }
+
+    @Test
+    public void testShardingBySize()
+        throws Exception
+    {
+        assertShardsCoverCollection(ShardingStrategy.SIZE, false);
+    }
+
+    private void assertShardsCoverCollection(ShardingStrategy aStrategy, boolean aLazy)
+        throws Exception
+    {
+        List<String> all = readAll(createReader(ContentReader.class,
+                ResourceCollectionReaderBase.PARAM_SOURCE_LOCATION, "src/",
+                ResourceCollectionReaderBase.PARAM_PATTERNS, "[+]**/*.java"));
+
+        int shardCount = 3;
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < shardCount; i++) {
+            CollectionReader reader = createReader(ContentReader.class,
+                    ResourceCollectionReaderBase.PARAM_SOURCE_LOCATION, "src/",
+                    ResourceCollectionReaderBase.PARAM_PATTERNS, "[+]**/*.java",
+                    ResourceCollectionReaderBase.PARAM_LAZY_SCAN, aLazy,
+                    ResourceCollectionReaderBase.PARAM_SHARD_COUNT, shardCount,
+                    ResourceCollectionReaderBase.PARAM_SHARD_INDEX, i,
+                    ResourceCollectionReaderBase.PARAM_SHARDING_STRATEGY, aStrategy);
+            List<String> shard = readAll(reader);
+
+            assertTrue("Shard " + i + " is empty", !shard.isEmpty());
+            if (!aLazy) {
+                // Progress refers to the shard only
+                assertEquals(shard.size(), reader.getProgress()[0].getTotal());
+            }
+            for (String doc : shard) {
+                assertTrue("Resource read by two shards: " + doc, seen.add(doc));
+            }
+        }
+
+        assertEquals(new HashSet<>(all), seen);
+    }
+
+    @Test(expected = ResourceInitializationException.class)
+    public void testInvalidShardIndex()
+        throws Exception
+    {
+        createReader(DummyReader.class,
+                ResourceCollectionReaderBase.PARAM_SOURCE_LOCATION, "src/",
+                ResourceCollectionReaderBase.PARAM_PATTERNS, "[+]**/*.java",
+                ResourceCollectionReaderBase.PARAM_SHARD_COUNT, 2,
+                ResourceCollectionReaderBase.PARAM_SHARD_INDEX, 2);
+    }
+
+    private List<String> readAll(CollectionReader aReader)
+        throws Exception
+    {
+        List<String> documents = new ArrayList<>();
+        CAS cas = CasCreationUtils.createCas(aReader.getProcessingResourceMetaData());
+        while (aReader.hasNext()) {
+            aReader.getNext(cas);
+            documents.add(DocumentMetaData.get(cas).getDocumentUri() + "\n"
+                    + cas.getDocumentText());
+            cas.reset();
+        }
+        cas.release();
+        return documents;
+    }
+
     @Test
     public void testFileNoPrefix()
         throws Exception
@@ -307,4 +435,26 @@ public class ResourceCollectionReaderBaseTest
             // Ignore
         }
     }
+
+    public static final class ContentReader
+        extends ResourceCollectionReaderBase
+    {
+        @Override
+        public void getNext(CAS aCAS)
+            throws IOException, CollectionException
+        {
+            Resource res = nextFile();
+            initCas(aCAS, res);
+            try (InputStream is = res.getInputStream()) {
+                aCAS.setDocumentText(IOUtils.toString(is, "UTF-8"));
+            }
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            // Ignore
+        }
+    }
 }
@@ -40,6 +40,21 @@ public abstract class CasConfigurableProviderBase<M>
         }
     }
 
+    /**
+     * Configure the provider for the given language without a CAS.
+     *
+     * @param aLanguage
+     *            the document language.
+     * @throws IOException
+     *             if the resource cannot be created.
+     */
+    void configure(String aLanguage)
+        throws IOException
+    {
+        language = aLanguage;
+        super.configure();
+    }
+
     @Override
     protected Properties getProperties()
     {
@@ -26,7 +26,16 @@ public enum CompressionMethod
 	NONE(""),
 	GZIP(".gz"),
 	BZIP2(".bz2"),
-	XZ(".xz");
+	XZ(".xz"),
+	/**
+	 * LZ4 frame format. Very fast compression and decompression at a moderate compression ratio.
+	 */
+	LZ4(".lz4"),
+	/**
+	 * Zstandard. Compresses about as well as GZIP but is considerably faster, in particular when
+	 * decompressing.
+	 */
+	ZSTD(".zst");
 	
 	private String extension;
 	
@@ -20,18 +20,30 @@ package de.tudarmstadt.ukp.dkpro.core.api.resources;
 import static org.apache.commons.io.FileUtils.forceMkdir;
 import static de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionMethod.*;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
 import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
 import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
 
 /**
  * Utility methods for dealing with compressed data.
@@ -39,6 +51,20 @@ import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
  */
 public class CompressionUtils
 {
+    /**
+     * Zstandard compression level used when writing. This is the default level of the zstd
+     * command line tool.
+     */
+    private static final int ZSTD_LEVEL = 3;
+    
+    /**
+     * Maximum size of a Zstandard frame header which is the part of the frame recording the ID of
+     * the dictionary used to compress the frame.
+     */
+    private static final int ZSTD_FRAME_HEADER_MAX_SIZE = 18;
+    
+    private static final Map<Long, byte[]> zstdDictionaries = new ConcurrentHashMap<>();
+    
     public static String stripCompressionExtension(String aLocation)
     {
         String lcLocation = aLocation.toLowerCase();
@@ -54,6 +80,15 @@ public class CompressionUtils
         else if (lcLocation.endsWith(XZ.getExtension())) {
             return aLocation.substring(0, XZ.getExtension().length());
         }
+        else if (lcLocation.endsWith(LZ4.getExtension())) {
+            return aLocation.substring(0, aLocation.length() - LZ4.getExtension().length());
+        }
+        else if (lcLocation.endsWith(ZSTD.getExtension())) {
+            return aLocation.substring(0, aLocation.length() - ZSTD.getExtension().length());
+        }
+        else if (lcLocation.endsWith(".zstd")) {
+            return aLocation.substring(0, aLocation.length() - ".zstd".length());
+        }
         else {
             return aLocation;
         }
@@ -82,11 +117,105 @@ public class CompressionUtils
 		else if (lcLocation.endsWith(XZ.getExtension())) {
 			return new XZCompressorInputStream(aStream);
 		}
+        else if (lcLocation.endsWith(LZ4.getExtension())) {
+            return new FramedLZ4CompressorInputStream(aStream, true);
+        }
+        else if (lcLocation.endsWith(ZSTD.getExtension()) || lcLocation.endsWith(".zstd")) {
+            return getZstdInputStream(aStream);
+        }
 		else {
 			return aStream;
 		}
 	}
 	
+    /**
+     * Get a Zstandard decompressing stream. If the data was compressed using a dictionary, the
+     * dictionary must have been registered using {@link #registerZstdDictionary(byte[])}.
+     * 
+     * @param aStream
+     *            a raw stream of Zstandard-compressed data.
+     * @return a decompressing stream.
+     * @throws IOException
+     *             if an I/O error has occurred or if the data requires a dictionary which has not
+     *             been registered.
+     */
+    private static InputStream getZstdInputStream(InputStream aStream)
+        throws IOException
+    {
+        InputStream is = aStream.markSupported() ? aStream : new BufferedInputStream(aStream);
+        
+        // Peek at the frame header to see if a dictionary is required
+        byte[] header = new byte[ZSTD_FRAME_HEADER_MAX_SIZE];
+        is.mark(header.length);
+        int length = IOUtils.read(is, header);
+        is.reset();
+        
+        ZstdInputStream zis = new ZstdInputStream(is);
+        long dictionaryId = Zstd.getDictIdFromFrame(Arrays.copyOf(header, length));
+        if (dictionaryId != 0) {
+            byte[] dictionary = zstdDictionaries.get(dictionaryId);
+            if (dictionary == null) {
+                zis.close();
+                throw new IOException("Data was compressed using the Zstandard dictionary ["
+                        + dictionaryId + "] which has not been registered");
+            }
+            zis.setDict(dictionary);
+        }
+        return zis;
+    }
+    
+    /**
+     * Register a Zstandard dictionary. Afterwards, data that was compressed using the dictionary
+     * is transparently decompressed by {@link #getInputStream(String, InputStream)}. The
+     * dictionary is identified by the ID it carries, so registering the same dictionary again has
+     * no effect.
+     * 
+     * @param aDictionary
+     *            a dictionary, e.g. created by {@link #trainZstdDictionary(Iterable, int)}.
+     * @return the ID of the dictionary.
+     * @throws IllegalArgumentException
+     *             if the data is not a Zstandard dictionary.
+     */
+    public static long registerZstdDictionary(byte[] aDictionary)
+    {
+        long dictionaryId = Zstd.getDictIdFromDict(aDictionary);
+        if (dictionaryId == 0) {
+            throw new IllegalArgumentException("Not a Zstandard dictionary");
+        }
+        zstdDictionaries.put(dictionaryId, aDictionary);
+        return dictionaryId;
+    }
+    
+    /**
+     * Train a Zstandard dictionary from sample data. A dictionary considerably improves the
+     * compression of many small files of a similar kind, e.g. one CAS per file. The samples should
+     * be representative of the data to be compressed - typically a few hundred documents suffice.
+     * 
+     * @param aSamples
+     *            the sample data, one entry per file.
+     * @param aDictionarySize
+     *            the maximum size of the dictionary in bytes (e.g. 112640 like the zstd command
+     *            line tool).
+     * @return the dictionary.
+     */
+    public static byte[] trainZstdDictionary(Iterable<byte[]> aSamples, int aDictionarySize)
+    {
+        long totalSize = 0;
+        for (byte[] sample : aSamples) {
+            totalSize += sample.length;
+        }
+        
+        ZstdDictTrainer trainer = new ZstdDictTrainer(
+                (int) Math.min(totalSize, Integer.MAX_VALUE), aDictionarySize);
+        for (byte[] sample : aSamples) {
+            if (!trainer.addSample(sample)) {
+                break;
+            }
+        }
+        return trainer.trainSamples();
+    }
+	
+	
 	/**
 	 * Make sure the target directory exists and get a stream writing to the specified file within.
 	 * If the file name ends with a typical extension for compressed files, the stream will be
@@ -100,6 +229,33 @@ public class CompressionUtils
 	 */
     public static OutputStream getOutputStream(File aFile)
         throws IOException
+    {
+        return getOutputStream(aFile, 0, null);
+    }
+    
+    /**
+     * Make sure the target directory exists and get a stream writing to the specified file within.
+     * If the file name ends with a typical extension for compressed files, the stream will be
+     * compressed.
+     * 
+     * @param aFile
+     *            the target file.
+     * @param aThreads
+     *            the number of background threads used for compression. This is only supported
+     *            for {@link CompressionMethod#ZSTD}. If 0, data is compressed on the calling
+     *            thread.
+     * @param aDictionary
+     *            a dictionary to compress the data with or {@code null}. This is only supported
+     *            for {@link CompressionMethod#ZSTD}. The dictionary must be
+     *            {@link #registerZstdDictionary(byte[]) registered} in order to read the data
+     *            again.
+     * @return a stream to write to.
+     * @throws IOException
+     *             if an I/O error has occurred,
+     * @see CompressionMethod
+     */
+    public static OutputStream getOutputStream(File aFile, int aThreads, byte[] aDictionary)
+        throws IOException
     {
 		// Create parent folders for output file and set up stream
 		if (aFile.getParentFile() != null) {
@@ -118,6 +274,19 @@ public class CompressionUtils
 		else if (lcFilename.endsWith(XZ.getExtension())) {
 			os = new XZCompressorOutputStream(os);
 		}
+        else if (lcFilename.endsWith(LZ4.getExtension())) {
+            os = new FramedLZ4CompressorOutputStream(os);
+        }
+        else if (lcFilename.endsWith(ZSTD.getExtension()) || lcFilename.endsWith(".zstd")) {
+            ZstdOutputStream zos = new ZstdOutputStream(os, ZSTD_LEVEL);
+            if (aThreads > 0) {
+                zos.setWorkers(aThreads);
+            }
+            if (aDictionary != null) {
+                zos.setDict(aDictionary);
+            }
+            os = zos;
+        }
 		return os;
     }
 }
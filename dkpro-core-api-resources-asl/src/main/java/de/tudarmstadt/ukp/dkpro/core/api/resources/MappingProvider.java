@@ -24,7 +24,9 @@ import static de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceUtils.resolveL
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
@@ -50,6 +52,27 @@ public class MappingProvider extends CasConfigurableProviderBase<Map<String, Str
 
     private Map<String, HasResourceMetadata> tagMappingImports = new HashMap<>();
 
+    /**
+     * The metadata from which the current tag mappings were built. A provider replaces its
+     * metadata object whenever it loads a new resource, so comparing the identities is enough to
+     * detect that the tag mappings need to be rebuilt.
+     */
+    private List<Properties> tagMappingSources;
+
+    /**
+     * Tags resolved to their types. Built on first use and discarded when the type system, the
+     * mapping or the tag mappings change.
+     */
+    private Map<String, Type> compiledTagTypes;
+    private Type compiledFallbackType;
+    private Map<String, String> compiledResource;
+    private TypeSystem compiledTypeSystem;
+    private Map<String, String> compiledTagMappings;
+    private boolean compiledNotFound;
+
+    private String[] compiledTagIds;
+    private Type[] compiledTagIdTypes;
+
 	@Override
 	public void configure(CAS aCas) throws AnalysisEngineProcessException
 	{
@@ -57,17 +80,24 @@ public class MappingProvider extends CasConfigurableProviderBase<Map<String, Str
 
         // Tag mappings can exist independently from the type mappings because tag mappings
         // are configured in the model metadata
-        tagMappings = new HashMap<>();
-        for (Entry<String, HasResourceMetadata> imp : tagMappingImports.entrySet()) {
-            String prefix = imp.getKey() + ".tag.map.";
-            Properties props = imp.getValue().getResourceMetaData();
-            for (String key : props.stringPropertyNames()) {
-                if (key.startsWith(prefix)) {
-                    String originalTag = key.substring(prefix.length());
-                    String mappedTag = props.getProperty(key);
-                    tagMappings.put(originalTag, mappedTag);
+        List<Properties> sources = new ArrayList<>(tagMappingImports.size());
+        for (HasResourceMetadata imp : tagMappingImports.values()) {
+            sources.add(imp.getResourceMetaData());
+        }
+        if (tagMappings == null || !isSame(sources, tagMappingSources)) {
+            tagMappings = new HashMap<>();
+            for (Entry<String, HasResourceMetadata> imp : tagMappingImports.entrySet()) {
+                String prefix = imp.getKey() + ".tag.map.";
+                Properties props = imp.getValue().getResourceMetaData();
+                for (String key : props.stringPropertyNames()) {
+                    if (key.startsWith(prefix)) {
+                        String originalTag = key.substring(prefix.length());
+                        String mappedTag = props.getProperty(key);
+                        tagMappings.put(originalTag, mappedTag);
+                    }
                 }
             }
+            tagMappingSources = sources;
         }
 
         // Try loading the type mappings
@@ -81,6 +111,27 @@ public class MappingProvider extends CasConfigurableProviderBase<Map<String, Str
 		    }
 			notFound = true;
 		}
+		
+        if (compiledTagTypes != null && (compiledResource != getResource()
+                || compiledTypeSystem != typeSystem || compiledTagMappings != tagMappings
+                || compiledNotFound != notFound)) {
+            compiledTagTypes = null;
+        }
+	}
+
+	private static boolean isSame(List<Properties> aSources1, List<Properties> aSources2)
+	{
+	    if (aSources2 == null || aSources1.size() != aSources2.size()) {
+	        return false;
+	    }
+	    
+	    for (int i = 0; i < aSources1.size(); i++) {
+	        if (aSources1.get(i) != aSources2.get(i)) {
+	            return false;
+	        }
+	    }
+	    
+	    return true;
 	}
 
 	public String getTag(String aTag)
@@ -99,13 +150,109 @@ public class MappingProvider extends CasConfigurableProviderBase<Map<String, Str
 	}
 	
 	/**
-	 * Get the type for the given tag.
+	 * Get the type for the given tag. The types are looked up in a table which is built once per
+	 * type system and mapping.
 	 * 
 	 * @param aTag a tag.
 	 * @return the type
 	 * @throws IllegalStateException if the type could not be located
 	 */
 	public Type getTagType(String aTag)
+	{
+	    compileTagTypes();
+	    
+	    Type uimaType = compiledTagTypes.get(aTag);
+	    if (uimaType != null) {
+	        return uimaType;
+	    }
+	    
+	    // Tags not contained in the mapping use the fallback type
+	    if (compiledFallbackType != null
+	            && (notFound || !getResource().containsKey(getTag(aTag)))) {
+	        return compiledFallbackType;
+	    }
+	    
+	    return resolveTagType(aTag);
+	}
+	
+	/**
+	 * Get the types for the given tags, e.g. for taggers which produce tag IDs instead of tag
+	 * strings. The returned array is index-aligned with the given tags. It is cached as long as the
+	 * same tags array is passed and the type system and mapping do not change, so it must not be
+	 * modified.
+	 * 
+	 * @param aTags the tags, e.g. the outcomes of a tagger model.
+	 * @return the types indexed by tag ID.
+	 * @throws IllegalStateException if the type for any of the tags could not be located
+	 */
+	public Type[] getTagTypes(String[] aTags)
+	{
+	    compileTagTypes();
+	    
+	    if (compiledTagIds != aTags) {
+	        Type[] types = new Type[aTags.length];
+	        for (int i = 0; i < aTags.length; i++) {
+	            types[i] = getTagType(aTags[i]);
+	        }
+	        compiledTagIds = aTags;
+	        compiledTagIdTypes = types;
+	    }
+	    
+	    return compiledTagIdTypes;
+	}
+	
+	private void compileTagTypes()
+	{
+	    if (compiledTagTypes != null) {
+	        return;
+	    }
+	    
+	    Map<String, Type> tagTypes = new HashMap<>();
+	    Type fallbackType = null;
+	    if (notFound) {
+	        String type = getDefault(BASE_TYPE);
+	        if (type != null) {
+	            fallbackType = typeSystem.getType(type);
+	        }
+	    }
+	    else {
+	        Set<String> tags = MappingUtils.stripMetadata(getResource().keySet());
+	        if (tagMappings != null) {
+	            tags.addAll(tagMappings.keySet());
+	        }
+	        tags.remove("*");
+	        
+	        for (String tag : tags) {
+	            // Tags which cannot be resolved are left to resolveTagType() to report
+	            try {
+	                Type type = typeSystem.getType(getTagTypeName(tag));
+	                if (type != null) {
+	                    tagTypes.put(tag, type);
+	                }
+	            }
+	            catch (IllegalStateException e) {
+	                // Ignore
+	            }
+	        }
+	        
+	        String type = getResource().get("*");
+	        if (type != null) {
+	            String basePackage = getResource().get(META_TYPE_BASE);
+	            fallbackType = typeSystem.getType(basePackage != null ? basePackage + type : type);
+	        }
+	    }
+	    
+	    compiledTagTypes = tagTypes;
+	    compiledFallbackType = fallbackType;
+	    compiledResource = getResource();
+	    compiledTypeSystem = typeSystem;
+	    compiledTagMappings = tagMappings;
+	    compiledNotFound = notFound;
+	    compiledTagIds = null;
+	    compiledTagIdTypes = null;
+	}
+	
+	private Type resolveTagType(String aTag)
 	{
 		String type = getTagTypeName(aTag);
 
@@ -211,5 +358,6 @@ public class MappingProvider extends CasConfigurableProviderBase<Map<String, Str
     public void addTagMappingImport(String aLayerPrefix, HasResourceMetadata aSource)
     {
         tagMappingImports.put(aLayerPrefix, aSource);
+        tagMappingSources = null;
     }
 }
@@ -25,8 +25,13 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
@@ -44,9 +49,21 @@ public class ModelProviderBase<M>
     extends CasConfigurableStreamProviderBase<M>
     implements HasTagsets
 {
+    private static final Log LOG = LogFactory.getLog(ModelProviderBase.class);
+    
     private AggregateTagset tagsets = new AggregateTagset();
     private Set<String> inputTagsetDescriptions = new HashSet<String>();
 
+    /**
+     * The model being loaded in the background by the {@link ParallelModelLoader}.
+     */
+    private volatile Future<?> pendingLoad;
+
+    /**
+     * The pipeline whose models are loaded together if parallel loading has been enabled.
+     */
+    private volatile Object pipeline;
+
     public ModelProviderBase()
     {
         // Nothing to do
@@ -79,10 +96,27 @@ public class ModelProviderBase<M>
     }
     // end::model-provider-convenience[]
     
+    /**
+     * Load the model of this provider concurrently with the models of the other components of the
+     * same pipeline if parallel model loading is enabled (see {@link ParallelModelLoader}). Call
+     * this at the end of the {@code initialize()} method of the component, once the provider has
+     * been fully set up.
+     *
+     * @param aContext
+     *            the context of the component owning this provider.
+     */
+    public void enableParallelLoading(UimaContext aContext)
+    {
+        ParallelModelLoader.register(this, aContext);
+    }
+    
     @Override
     public void configure(CAS aCas)
         throws AnalysisEngineProcessException
     {
+        ParallelModelLoader.start(this, aCas.getDocumentLanguage());
+        awaitPendingLoad();
+        
         super.configure(aCas);
         
         try {
@@ -93,6 +127,41 @@ public class ModelProviderBase<M>
         }
     }
     
+    void setPendingLoad(Future<?> aLoad)
+    {
+        pendingLoad = aLoad;
+    }
+
+    void setPipeline(Object aPipeline)
+    {
+        pipeline = aPipeline;
+    }
+
+    Object getPipeline()
+    {
+        return pipeline;
+    }
+
+    private void awaitPendingLoad()
+        throws AnalysisEngineProcessException
+    {
+        Future<?> load = pendingLoad;
+        if (load != null) {
+            pendingLoad = null;
+            try {
+                load.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AnalysisEngineProcessException(e);
+            }
+            catch (ExecutionException e) {
+                // Configuring the provider reports the error again or retries loading the model
+                LOG.warn("Unable to load model in the background", e.getCause());
+            }
+        }
+    }
+
     @Override
     protected M produceResource(InputStream aStream)
         throws Exception
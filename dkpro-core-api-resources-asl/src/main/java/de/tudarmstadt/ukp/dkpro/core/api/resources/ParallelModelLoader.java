@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.api.resources;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.uima.UimaContext;
+import org.apache.uima.UimaContextAdmin;
+
+/**
+ * Loads the models of the {@link ModelProviderBase model providers} of a pipeline concurrently.
+ * <p>
+ * Usually, each component loads its model when it processes the first document, so the start-up
+ * time of a pipeline is the sum of the load times of all its models. A component can offer its
+ * model provider for parallel loading by calling
+ * {@link ModelProviderBase#enableParallelLoading(UimaContext)} at the end of its
+ * {@code initialize()} method. Providers are grouped by the root context of the component, so all
+ * components of one aggregate form one pipeline. When the first provider of a pipeline is
+ * configured for a document, the models of the other providers of that pipeline are loaded on a
+ * bounded thread pool using the language of that document. Each component then only waits for its
+ * own model when it is configured. Language or variant overrides of the providers are respected as
+ * usual. If a later document requires a different model, it is loaded as usual.
+ * <p>
+ * Parallel loading is enabled by setting the {@link #PROP_THREADS} system property or by calling
+ * {@link #setThreads(int)} before the pipeline is created.
+ */
+public final class ParallelModelLoader
+{
+    private static final Log LOG = LogFactory.getLog(ParallelModelLoader.class);
+
+    /**
+     * Number of threads used to load models concurrently. If not set or 0, parallel loading is
+     * disabled.
+     */
+    public static final String PROP_THREADS = "dkpro.model.loader.threads";
+
+    private static int threads = Integer.getInteger(PROP_THREADS, 0);
+    private static ExecutorService executor;
+    private static final Map<Object, Set<ModelProviderBase<?>>> pending = new WeakHashMap<>();
+    private static volatile boolean hasPending = false;
+
+    private ParallelModelLoader()
+    {
+        // No instances
+    }
+
+    /**
+     * Set the number of threads used to load models concurrently.
+     *
+     * @param aThreads
+     *            the number of threads or 0 to disable parallel loading.
+     */
+    public static synchronized void setThreads(int aThreads)
+    {
+        if (aThreads < 0) {
+            throw new IllegalArgumentException("Number of threads must be at least 0, but was ["
+                    + aThreads + "]");
+        }
+
+        threads = aThreads;
+
+        // Models which are already being loaded continue loading
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+
+        if (threads == 0) {
+            pending.clear();
+            hasPending = false;
+        }
+    }
+
+    public static synchronized int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * Remember a fully set up provider so that its model is loaded together with the models of the
+     * other providers of the same pipeline.
+     *
+     * @param aProvider
+     *            the provider.
+     * @param aContext
+     *            the context of the component owning the provider.
+     */
+    static synchronized void register(ModelProviderBase<?> aProvider, UimaContext aContext)
+    {
+        if (threads == 0) {
+            return;
+        }
+
+        Object pipeline = aContext instanceof UimaContextAdmin
+                ? ((UimaContextAdmin) aContext).getRootContext() : aContext;
+        aProvider.setPipeline(pipeline);
+
+        // Only weakly reference the providers - the providers reference the pipeline
+        pending.computeIfAbsent(pipeline, k -> Collections
+                .newSetFromMap(new WeakHashMap<ModelProviderBase<?>, Boolean>())).add(aProvider);
+        hasPending = true;
+    }
+
+    /**
+     * Start loading the models of all other providers of the pipeline the given provider belongs
+     * to.
+     *
+     * @param aTrigger
+     *            the provider which is being configured and which loads its model itself.
+     * @param aLanguage
+     *            the document language.
+     */
+    static void start(ModelProviderBase<?> aTrigger, String aLanguage)
+    {
+        Object pipeline = aTrigger.getPipeline();
+        if (!hasPending || pipeline == null) {
+            return;
+        }
+
+        synchronized (ParallelModelLoader.class) {
+            Set<ModelProviderBase<?>> batch = pending.remove(pipeline);
+            if (batch == null) {
+                return;
+            }
+
+            batch.remove(aTrigger);
+            List<ModelProviderBase<?>> providers = new ArrayList<ModelProviderBase<?>>(batch);
+
+            if (!providers.isEmpty()) {
+                if (executor == null) {
+                    final AtomicInteger count = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(threads, r -> {
+                        Thread t = new Thread(r, "dkpro-model-loader-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                }
+
+                LOG.info("Loading [" + providers.size() + "] models in the background using ["
+                        + threads + "] threads");
+
+                // Failures are reported by the provider when it waits for its model
+                for (ModelProviderBase<?> provider : providers) {
+                    provider.setPendingLoad(executor.submit(() -> {
+                        provider.configure(aLanguage);
+                        return null;
+                    }));
+                }
+            }
+
+            // A provider configured in another thread must see its pending load, so the loads
+            // are set before the flag is updated
+            hasPending = !pending.isEmpty();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.net.URLConnection;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -37,7 +38,6 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
-import java.util.WeakHashMap;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
@@ -107,6 +107,12 @@ public abstract class ResourceObjectProviderBase<M>
     public static final String PROP_REPO_URL = "dkpro.model.repository.url";
     public static final String PROP_REPO_CACHE = "dkpro.model.repository.cache";
     
+    /**
+     * Prefix of the system properties which enable sharing the resources of the providers created
+     * by a component. The name of the component class is appended to the prefix.
+     */
+    public static final String PROP_SHARABLE_PREFIX = "dkpro.core.resourceprovider.sharable.";
+    
     public static final String FORCE_AUTO_LOAD = "forceAutoLoad";
 
     private static final String DEFAULT_REPO_ID = "ukp-model-releases";
@@ -184,18 +190,25 @@ public abstract class ResourceObjectProviderBase<M>
 
     private PropertyPlaceholderHelper pph = new PropertyPlaceholderHelper("${", "}", null, false);
 
-    private static Map<ResourceHandle, Object> cache = new WeakHashMap<ResourceHandle, Object>();
-
     private Map<String, String> autoOverrides = new HashMap<>();
     
     /**
-     * Maintain a reference to the handle for the currently loaded resource. This handle is used
-     * as a key in the resource cache and makes sure that the resource is not removed from the
-     * cache while it is still considered as "loaded" by this provider.
+     * The handle of the currently loaded resource if it has been acquired from the
+     * {@link ResourceRegistry}. The resource is released when another resource is loaded.
      */
-    @SuppressWarnings("unused")
     private ResourceHandle resourceHandle;
 
+    /**
+     * Incremented whenever defaults, overrides, imports or default variants change. Together with
+     * the values from {@link #getProperties()} and the imported values, this makes up the key under
+     * which the outcome of the last {@link #configure()} call is remembered.
+     */
+    private int configurationVersion;
+    private List<Object> lastConfigurationKey;
+    private IOException lastConfigurationError;
+    private long configurationHits;
+    private long configurationMisses;
+
     {
         init();
     }
@@ -213,6 +226,7 @@ public abstract class ResourceObjectProviderBase<M>
         else {
             overrides.setProperty(aKey, aValue);
         }
+        configurationVersion++;
     }
 
     public String getOverride(String aKey)
@@ -223,6 +237,7 @@ public abstract class ResourceObjectProviderBase<M>
     public void removeOverride(String aKey)
     {
         overrides.remove(aKey);
+        configurationVersion++;
     }
 
     public void setDefault(String aKey, String aValue)
@@ -233,6 +248,7 @@ public abstract class ResourceObjectProviderBase<M>
         else {
             defaults.setProperty(aKey, aValue);
         }
+        configurationVersion++;
     }
 
     public String getDefault(String aKey)
@@ -243,16 +259,19 @@ public abstract class ResourceObjectProviderBase<M>
     public void removeDefault(String aKey)
     {
         defaults.remove(aKey);
+        configurationVersion++;
     }
 
     public void addImport(String aString, HasResourceMetadata aSource)
     {
         imports.put(aString, aSource);
+        configurationVersion++;
     }
 
     public void removeImport(String aString)
     {
         imports.remove(aString);
+        configurationVersion++;
     }
 
     /**
@@ -267,6 +286,7 @@ public abstract class ResourceObjectProviderBase<M>
     public void setDefaultVariantsLocation(String aLocation)
     {
         defaultVariantsLocation = aLocation;
+        configurationVersion++;
     }
 
     /**
@@ -285,6 +305,7 @@ public abstract class ResourceObjectProviderBase<M>
             defaultVariants = new Properties();
             defaultVariants.putAll(aDefaultVariants);
         }
+        configurationVersion++;
     }
 
     /**
@@ -306,7 +327,7 @@ public abstract class ResourceObjectProviderBase<M>
         // finds the already-loaded model and simply reuses it. Sharing models can also lead to
         // unexpected results or crashes in multi-threaded environments.
         // Allowed values: "true" and "false"
-        String key = "dkpro.core.resourceprovider.sharable."+aObject.getClass().getName();
+        String key = PROP_SHARABLE_PREFIX + aObject.getClass().getName();
         if (System.getProperty(key) != null) {
             setDefault(SHARABLE, System.getProperty(key));
         }
@@ -506,12 +527,42 @@ public abstract class ResourceObjectProviderBase<M>
      * Call this method after all configurations have been made. A already configured resource will
      * only be recreated if the URL from which the resource is generated has changed due to
      * configuration changes.
+     * <p>
+     * If neither the defaults, overrides, imported values nor the values from
+     * {@link #getProperties()} have changed since the last call, the outcome of the last call is
+     * reused without aggregating the configuration or resolving the location again.
      *
      * @throws IOException
      *             if the resource cannot be created.
      */
     public void configure()
         throws IOException
+    {
+        List<Object> key = getConfigurationKey();
+        if (key.equals(lastConfigurationKey)) {
+            configurationHits++;
+            if (lastConfigurationError != null) {
+                throw lastConfigurationError;
+            }
+            return;
+        }
+
+        configurationMisses++;
+        lastConfigurationKey = null;
+        lastConfigurationError = null;
+
+        try {
+            configure(key);
+        }
+        catch (IOException e) {
+            lastConfigurationKey = key;
+            lastConfigurationError = e;
+            throw e;
+        }
+    }
+
+    private void configure(List<Object> aKey)
+        throws IOException
     {
         boolean success = false;
 
@@ -577,6 +628,7 @@ public abstract class ResourceObjectProviderBase<M>
                 }
             }
             success = true;
+            lastConfigurationKey = aKey;
         }
         finally {
             if (!success) {
@@ -586,6 +638,40 @@ public abstract class ResourceObjectProviderBase<M>
         }
     }
 
+    /**
+     * Collects everything {@link #getAggregatedProperties()} depends on into a key which is cheap
+     * to build and to compare.
+     */
+    private List<Object> getConfigurationKey()
+    {
+        List<Object> key = new ArrayList<Object>(imports.size() + 2);
+        key.add(configurationVersion);
+        key.add(getProperties());
+        for (Entry<String, HasResourceMetadata> e : imports.entrySet()) {
+            Properties metadata = e.getValue().getResourceMetaData();
+            key.add(metadata != null ? metadata.getProperty(e.getKey()) : null);
+        }
+        return key;
+    }
+
+    /**
+     * @return the number of {@link #configure()} calls which reused the outcome of the previous
+     *         call because the configuration did not change.
+     */
+    public long getConfigurationHits()
+    {
+        return configurationHits;
+    }
+
+    /**
+     * @return the number of {@link #configure()} calls which had to aggregate the configuration
+     *         and resolve the location.
+     */
+    public long getConfigurationMisses()
+    {
+        return configurationMisses;
+    }
+
     private static boolean equals(URL aUrl1, URL aUrl2)
     {
         if (aUrl1 == aUrl2) {
@@ -680,42 +766,85 @@ public abstract class ResourceObjectProviderBase<M>
     }
 
 
-    @SuppressWarnings("unchecked")
     protected synchronized void loadResource(Properties aProperties) throws IOException
     {
         boolean sharable = "true".equals(aProperties.getProperty(SHARABLE, "false"));
 
-        ResourceHandle handle = null;
+        releaseSharedResource();
         resource = null;
 
-        // Check the cache
         if (sharable) {
-            // We need to scan the cache manually because in the end we need to keep a reference
-            // to exactly the same key object that was used to store the resource in the cache.
-            handle = new ResourceHandle(getClass(), resourceUrl != null ? resourceUrl.toString()
+            // Get the resource from the registry which loads it only if no other provider of the
+            // same kind has already loaded it
+            final URL url = resourceUrl;
+            ResourceHandle handle = new ResourceHandle(getClass(), url != null ? url.toString()
                     : null);
-            for (Entry<ResourceHandle, Object> e : cache.entrySet()) {
-                if (handle.equals(e.getKey())) {
-                    resourceHandle = e.getKey();
-                    resource = (M) e.getValue();
-                    log.info("Used resource from cache");
-                }
-            }
+            resource = ResourceRegistry.getInstance().acquire(this, handle, getResourceSize(url),
+                    () -> produceResource(url));
+            resourceHandle = handle;
         }
-
-        // If there was nothing in the cache or if the cache is disabled, produce new
-        if (resource == null) {
+        else {
             StopWatch sw = new StopWatch();
             sw.start();
             resource = produceResource(resourceUrl);
             sw.stop();
             log.info("Producing resource took " + sw.getTime() + "ms");
+        }
+    }
 
-            // If cache is enabled, update the cache
-            if (sharable) {
-                cache.put(handle, resource);
-                resourceHandle = handle;
+    /**
+     * Release the currently loaded resource. If the resource has been shared via the
+     * {@link ResourceRegistry}, it can then be evicted from the registry. The provider needs to be
+     * configured again before the resource can be used.
+     */
+    public synchronized void releaseResource()
+    {
+        releaseSharedResource();
+        resource = null;
+        resourceUrl = null;
+        initialResourceUrl = null;
+        lastModelLocation = null;
+        lastConfigurationKey = null;
+        lastConfigurationError = null;
+    }
+
+    private void releaseSharedResource()
+    {
+        if (resourceHandle != null) {
+            ResourceRegistry.getInstance().release(this, resourceHandle);
+            resourceHandle = null;
+        }
+    }
+
+    /**
+     * Estimate the size of the resource loaded from the given URL. This is used to keep the
+     * shared resources within the memory budget of the {@link ResourceRegistry}. By default, the
+     * size of the data at the URL is used.
+     *
+     * @param aUrl
+     *            the URL from which the resource is loaded (may be {@code null}).
+     * @return the estimated size in bytes or 0 if unknown.
+     */
+    protected long getResourceSize(URL aUrl)
+    {
+        if (aUrl == null) {
+            return 0;
+        }
+
+        try {
+            URLConnection connection = aUrl.openConnection();
+            connection.setUseCaches(false);
+            long length = connection.getContentLengthLong();
+            try {
+                connection.getInputStream().close();
+            }
+            catch (IOException e) {
+                // Ignore
             }
+            return Math.max(0, length);
+        }
+        catch (IOException e) {
+            return 0;
         }
     }
 
@@ -1030,6 +1159,12 @@ public abstract class ResourceObjectProviderBase<M>
             return owner;
         }
 
+        @Override
+        public String toString()
+        {
+            return owner.getName() + "@" + url;
+        }
+
         @Override
         public int hashCode()
         {
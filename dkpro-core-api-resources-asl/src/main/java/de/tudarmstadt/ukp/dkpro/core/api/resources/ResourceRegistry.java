@@ -0,0 +1,538 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.api.resources;
+
+import static de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceObjectProviderBase.LANGUAGE;
+import static de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceObjectProviderBase.PROP_SHARABLE_PREFIX;
+import static de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceObjectProviderBase.SHARABLE;
+import static de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceObjectProviderBase.VARIANT;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_component.AnalysisComponent;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.metadata.AnalysisEngineMetaData;
+import org.apache.uima.jcas.JCas;
+
+import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+
+/**
+ * Registry of the resources shared between {@link ResourceObjectProviderBase resource providers}
+ * which have the {@link ResourceObjectProviderBase#SHARABLE} setting enabled.
+ * <p>
+ * A resource is referenced by every provider which has acquired it and not released it since.
+ * Providers which are garbage collected no longer count as referencing the resource. Resources
+ * which are not referenced remain in the registry until the {@link #PROP_CACHE_SIZE memory budget}
+ * is exceeded, at which point the least recently used ones are evicted. Referenced resources are
+ * never evicted.
+ * <p>
+ * Different resources are loaded concurrently. If several providers request the same resource at
+ * the same time, it is loaded only once and the other providers wait for it.
+ * <p>
+ * The size of a resource is estimated by its provider, by default from the size of the file it is
+ * loaded from. The in-memory size of a resource may differ considerably.
+ */
+public final class ResourceRegistry
+{
+    private static final Log LOG = LogFactory.getLog(ResourceRegistry.class);
+
+    /**
+     * Memory budget in bytes for the resources in the registry. Defaults to half of the maximum
+     * heap size.
+     */
+    public static final String PROP_CACHE_SIZE = "dkpro.model.cache.size";
+
+    private static final ResourceRegistry INSTANCE = new ResourceRegistry(getDefaultBudget());
+
+    private final Map<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+    private long budget;
+    private long size;
+
+    ResourceRegistry(long aBudget)
+    {
+        budget = aBudget;
+    }
+
+    public static ResourceRegistry getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private static long getDefaultBudget()
+    {
+        String value = System.getProperty(PROP_CACHE_SIZE);
+        if (value != null) {
+            return Long.parseLong(value.trim());
+        }
+
+        return Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    /**
+     * Set the memory budget for the resources in the registry. If the budget is exceeded, resources
+     * which are not referenced are evicted immediately.
+     *
+     * @param aBudget
+     *            the budget in bytes.
+     */
+    public void setMemoryBudget(long aBudget)
+    {
+        synchronized (entries) {
+            budget = aBudget;
+            evict();
+        }
+    }
+
+    public long getMemoryBudget()
+    {
+        synchronized (entries) {
+            return budget;
+        }
+    }
+
+    /**
+     * @return the estimated size of all resources in the registry.
+     */
+    public long getSize()
+    {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    /**
+     * Get a resource from the registry, loading it if necessary, and record that the given holder
+     * references it.
+     *
+     * @param aHolder
+     *            the object referencing the resource, usually a resource provider.
+     * @param aKey
+     *            the key identifying the resource.
+     * @param aSize
+     *            the estimated size of the resource in bytes.
+     * @param aLoader
+     *            the loader which is used if the resource is not in the registry yet.
+     * @return the resource.
+     * @throws IOException
+     *             if the resource cannot be loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T acquire(Object aHolder, Object aKey, long aSize, Loader<T> aLoader)
+        throws IOException
+    {
+        Entry entry;
+        boolean load = false;
+        synchronized (entries) {
+            entry = entries.get(aKey);
+            if (entry == null) {
+                entry = new Entry(aKey, aSize, aLoader);
+                entries.put(aKey, entry);
+                load = true;
+            }
+            else {
+                entry.hits++;
+            }
+            entry.holders.add(aHolder);
+            entry.lastAccess = System.currentTimeMillis();
+        }
+
+        if (load) {
+            long start = System.currentTimeMillis();
+            entry.task.run();
+            synchronized (entries) {
+                entry.loadTime = System.currentTimeMillis() - start;
+            }
+        }
+        else {
+            LOG.info("Used resource from cache");
+        }
+
+        try {
+            Object resource = entry.task.get();
+            if (load) {
+                synchronized (entries) {
+                    entry.loaded = true;
+                    size += entry.size;
+                    evict();
+                }
+                LOG.info("Producing resource took " + entry.loadTime + "ms");
+            }
+            return (T) resource;
+        }
+        catch (InterruptedException e) {
+            release(aHolder, aKey);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for resource [" + aKey + "]", e);
+        }
+        catch (ExecutionException e) {
+            synchronized (entries) {
+                if (entries.get(aKey) == entry) {
+                    entries.remove(aKey);
+                }
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Record that the given holder no longer references a resource. If the resource is no longer
+     * referenced at all, it may be evicted.
+     *
+     * @param aHolder
+     *            the object referencing the resource.
+     * @param aKey
+     *            the key identifying the resource.
+     */
+    public void release(Object aHolder, Object aKey)
+    {
+        synchronized (entries) {
+            Entry entry = entries.get(aKey);
+            if (entry != null) {
+                entry.holders.remove(aHolder);
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Evict all resources which are not referenced.
+     */
+    public void evictIdle()
+    {
+        synchronized (entries) {
+            long savedBudget = budget;
+            budget = 0;
+            try {
+                evict();
+            }
+            finally {
+                budget = savedBudget;
+            }
+        }
+    }
+
+    private void evict()
+    {
+        // Iteration order is least recently used first
+        Iterator<Entry> i = entries.values().iterator();
+        while (size > budget && i.hasNext()) {
+            Entry entry = i.next();
+            if (entry.loaded && entry.holders.isEmpty()) {
+                i.remove();
+                size -= entry.size;
+                LOG.info("Evicted resource [" + entry.key + "] (" + entry.size + " bytes)");
+            }
+        }
+    }
+
+    /**
+     * Load the resource of the given provider for the given language and variant into the
+     * registry. The resource is kept until it is evicted, so providers requesting the same
+     * resource later do not have to wait for it to be loaded. Only resources of providers of the
+     * same class are shared, so usually a provider created by the same component should be passed
+     * here.
+     *
+     * @param aProvider
+     *            the provider.
+     * @param aLanguage
+     *            the language or {@code null} to use the provider default.
+     * @param aVariant
+     *            the variant or {@code null} to use the provider default.
+     * @throws IOException
+     *             if the resource cannot be loaded.
+     */
+    public void preload(ResourceObjectProviderBase<?> aProvider, String aLanguage, String aVariant)
+        throws IOException
+    {
+        if (aLanguage != null) {
+            aProvider.setOverride(LANGUAGE, aLanguage);
+        }
+        if (aVariant != null) {
+            aProvider.setOverride(VARIANT, aVariant);
+        }
+        aProvider.setOverride(SHARABLE, "true");
+        aProvider.configure();
+        aProvider.releaseResource();
+    }
+
+    /**
+     * Load the resources of the given component for the given language and variant into the
+     * registry. The component is created with the given language and variant and processes an
+     * empty document in that language, so that its providers load their resources. The component
+     * is destroyed afterwards, but its resources remain in the registry until they are evicted, so
+     * instances of the component created later with the same settings use them immediately.
+     * <p>
+     * The component only places its resources in the registry if sharing has been enabled for it
+     * by setting the system property {@link ResourceObjectProviderBase#PROP_SHARABLE_PREFIX
+     * dkpro.core.resourceprovider.sharable.&lt;component class&gt;} to {@code true}.
+     *
+     * @param aComponentClass
+     *            the component class.
+     * @param aLanguage
+     *            the language or {@code null} to use the component default.
+     * @param aVariant
+     *            the variant or {@code null} to use the component default.
+     * @throws IOException
+     *             if the component cannot be created or its resources cannot be loaded.
+     */
+    public void preload(Class<? extends AnalysisComponent> aComponentClass, String aLanguage,
+            String aVariant)
+        throws IOException
+    {
+        String sharable = PROP_SHARABLE_PREFIX + aComponentClass.getName();
+        if (!"true".equals(System.getProperty(sharable))) {
+            throw new IllegalArgumentException("Sharing resources is not enabled for component ["
+                    + aComponentClass.getName() + "]. Set the system property [" + sharable
+                    + "] to [true].");
+        }
+
+        AnalysisEngine engine = null;
+        try {
+            AnalysisEngineDescription desc = createEngineDescription(aComponentClass);
+            setParameterIfDeclared(desc, ComponentParameters.PARAM_LANGUAGE, aLanguage);
+            setParameterIfDeclared(desc, ComponentParameters.PARAM_VARIANT, aVariant);
+            engine = createEngine(desc);
+
+            JCas jcas = engine.newJCas();
+            jcas.setDocumentText("");
+            if (aLanguage != null) {
+                jcas.setDocumentLanguage(aLanguage);
+            }
+            engine.process(jcas);
+        }
+        catch (UIMAException e) {
+            throw new IOException("Unable to preload the resources of component ["
+                    + aComponentClass.getName() + "]", e);
+        }
+        finally {
+            if (engine != null) {
+                engine.destroy();
+            }
+        }
+    }
+
+    /**
+     * Load the resources described by the given entries into the registry. Each entry has the
+     * form {@code class[:language[:variant]]} where class is the name of a component class.
+     *
+     * @param aEntries
+     *            the entries.
+     * @throws IOException
+     *             if any of the resources cannot be loaded.
+     * @see #preload(Class, String, String)
+     */
+    @SuppressWarnings("unchecked")
+    public void preload(Collection<String> aEntries)
+        throws IOException
+    {
+        for (String e : aEntries) {
+            String[] fields = StringUtils.splitPreserveAllTokens(e.trim(), ':');
+            if (fields.length > 3) {
+                throw new IllegalArgumentException("Preload entry [" + e
+                        + "] must have the form class[:language[:variant]]");
+            }
+
+            Class<?> componentClass;
+            try {
+                componentClass = Class.forName(fields[0]);
+            }
+            catch (ClassNotFoundException ex) {
+                throw new IOException("Unable to find component [" + fields[0] + "]", ex);
+            }
+
+            if (!AnalysisComponent.class.isAssignableFrom(componentClass)) {
+                throw new IllegalArgumentException("[" + fields[0] + "] is not a component");
+            }
+
+            preload((Class<? extends AnalysisComponent>) componentClass,
+                    fields.length > 1 ? StringUtils.trimToNull(fields[1]) : null,
+                    fields.length > 2 ? StringUtils.trimToNull(fields[2]) : null);
+        }
+    }
+
+    private static void setParameterIfDeclared(AnalysisEngineDescription aDesc, String aName,
+            String aValue)
+    {
+        AnalysisEngineMetaData meta = aDesc.getAnalysisEngineMetaData();
+        if (aValue != null && meta.getConfigurationParameterDeclarations()
+                .getConfigurationParameter(null, aName) != null) {
+            meta.getConfigurationParameterSettings().setParameterValue(aName, aValue);
+        }
+    }
+
+    /**
+     * @return the statistics of all resources in the registry, least recently used first.
+     */
+    public List<ResourceStatistics> getStatistics()
+    {
+        synchronized (entries) {
+            List<ResourceStatistics> statistics = new ArrayList<ResourceStatistics>();
+            for (Entry entry : entries.values()) {
+                statistics.add(new ResourceStatistics(String.valueOf(entry.key), entry.loaded,
+                        entry.size, entry.loadTime, entry.hits, entry.holders.size(),
+                        entry.lastAccess));
+            }
+            return statistics;
+        }
+    }
+
+    /**
+     * Loads a resource.
+     */
+    public interface Loader<T>
+    {
+        T load()
+            throws IOException;
+    }
+
+    /**
+     * Snapshot of the metrics of a resource in the registry.
+     */
+    public static final class ResourceStatistics
+    {
+        private final String key;
+        private final boolean loaded;
+        private final long size;
+        private final long loadTime;
+        private final long hits;
+        private final int referenceCount;
+        private final long lastAccess;
+
+        private ResourceStatistics(String aKey, boolean aLoaded, long aSize, long aLoadTime,
+                long aHits, int aReferenceCount, long aLastAccess)
+        {
+            key = aKey;
+            loaded = aLoaded;
+            size = aSize;
+            loadTime = aLoadTime;
+            hits = aHits;
+            referenceCount = aReferenceCount;
+            lastAccess = aLastAccess;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        /**
+         * @return whether the resource has been loaded or is still being loaded.
+         */
+        public boolean isLoaded()
+        {
+            return loaded;
+        }
+
+        /**
+         * @return the estimated size of the resource in bytes.
+         */
+        public long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * @return the time it took to load the resource in milliseconds.
+         */
+        public long getLoadTime()
+        {
+            return loadTime;
+        }
+
+        /**
+         * @return how often the resource was requested after it had been loaded.
+         */
+        public long getHits()
+        {
+            return hits;
+        }
+
+        /**
+         * @return the number of holders currently referencing the resource.
+         */
+        public int getReferenceCount()
+        {
+            return referenceCount;
+        }
+
+        /**
+         * @return the time of the last request of the resource in milliseconds since the epoch.
+         */
+        public long getLastAccess()
+        {
+            return lastAccess;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[" + key + "] size: " + size + " bytes, load time: " + loadTime
+                    + "ms, hits: " + hits + ", references: " + referenceCount;
+        }
+    }
+
+    private static final class Entry
+    {
+        private final Object key;
+        private final long size;
+        private final FutureTask<Object> task;
+
+        /**
+         * Holders are weakly referenced, so holders which are garbage collected without
+         * releasing the resource do not keep it from being evicted.
+         */
+        private final Set<Object> holders = Collections
+                .newSetFromMap(new WeakHashMap<Object, Boolean>());
+
+        private boolean loaded;
+        private long loadTime;
+        private long hits;
+        private long lastAccess;
+
+        public Entry(Object aKey, long aSize, Loader<?> aLoader)
+        {
+            key = aKey;
+            size = Math.max(0, aSize);
+            task = new FutureTask<Object>(aLoader::load);
+        }
+    }
+}
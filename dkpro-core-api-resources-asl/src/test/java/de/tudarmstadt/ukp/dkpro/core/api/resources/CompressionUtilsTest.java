@@ -22,6 +22,8 @@ import org.apache.commons.lang.StringUtils;
 import org.junit.Test;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 
@@ -76,6 +78,64 @@ public class CompressionUtilsTest
         testCompression(compressionMethod);
     }
 
+    @Test
+    public void testLZ4()
+            throws Exception
+    {
+        CompressionMethod compressionMethod = CompressionMethod.LZ4;
+        testCompression(compressionMethod);
+    }
+
+    @Test
+    public void testZstd()
+            throws Exception
+    {
+        CompressionMethod compressionMethod = CompressionMethod.ZSTD;
+        testCompression(compressionMethod);
+    }
+
+    @Test
+    public void testZstdMultithreaded()
+            throws Exception
+    {
+        String text = StringUtils.repeat("This is a test. ", 100000);
+        File file = new File("compressed-mt" + CompressionMethod.ZSTD.getExtension());
+
+        OutputStream os = CompressionUtils.getOutputStream(file, 2, null);
+        os.write(text.getBytes());
+        os.close();
+        InputStream is = CompressionUtils.getInputStream(file.getPath(), new FileInputStream(file));
+        assertEquals(text, IOUtils.toString(is));
+        is.close();
+        file.delete();
+    }
+
+    @Test
+    public void testZstdDictionary()
+            throws Exception
+    {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(("<cas:Sofa xmi:id=\"" + i + "\" sofaNum=\"1\" sofaID=\"_InitialView\" "
+                    + "mimeType=\"text\" sofaString=\"Document number " + i + " is a test.\"/>")
+                    .getBytes("UTF-8"));
+        }
+        byte[] dictionary = CompressionUtils.trainZstdDictionary(samples, 4096);
+
+        String text = new String(samples.get(42), "UTF-8");
+        File file = new File("compressed-dict" + CompressionMethod.ZSTD.getExtension());
+
+        OutputStream os = CompressionUtils.getOutputStream(file, 0, dictionary);
+        os.write(text.getBytes("UTF-8"));
+        os.close();
+        
+        CompressionUtils.registerZstdDictionary(dictionary);
+        InputStream is = CompressionUtils.getInputStream(file.getPath(), new FileInputStream(file));
+        assertEquals(text, IOUtils.toString(is, "UTF-8"));
+        is.close();
+        file.delete();
+    }
+
     @Test
     public void testPrintWriter()
             throws IOException
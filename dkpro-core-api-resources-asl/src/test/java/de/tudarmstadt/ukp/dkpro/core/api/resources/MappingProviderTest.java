@@ -18,6 +18,8 @@
 package de.tudarmstadt.ukp.dkpro.core.api.resources;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 import java.net.URL;
@@ -25,6 +27,7 @@ import java.util.Map;
 import java.util.Properties;
 
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
 import org.apache.uima.resource.metadata.impl.TypeSystemDescription_impl;
 import org.apache.uima.util.CasCreationUtils;
 import org.junit.Test;
@@ -170,4 +173,60 @@ public class MappingProviderTest
         Properties meta = mappingProvider.getResourceMetaData();
         assertEquals("redirected", meta.getProperty("tagset"));
     }
+
+    @Test
+    public void testConfigurationCache() throws Exception
+    {
+        MappingProvider mappingProvider = new MappingProvider();
+        mappingProvider.setDefault(MappingProvider.LOCATION, "src/test/resources/${language}.map");
+        
+        CAS cas = CasCreationUtils.createCas(new TypeSystemDescription_impl(), null, null);
+        
+        cas.setDocumentLanguage("en");
+        mappingProvider.configure(cas);
+        Map<String, String> enMap = mappingProvider.getResource();
+        mappingProvider.configure(cas);
+        assertSame(enMap, mappingProvider.getResource());
+        assertEquals(1, mappingProvider.getConfigurationHits());
+        assertEquals(1, mappingProvider.getConfigurationMisses());
+        
+        cas.setDocumentLanguage("de");
+        mappingProvider.configure(cas);
+        assertEquals("de", mappingProvider.getResource().get("value"));
+        assertEquals(2, mappingProvider.getConfigurationMisses());
+        
+        // Changing the configuration must not reuse the previous outcome
+        mappingProvider.setOverride(MappingProvider.LANGUAGE, "en");
+        mappingProvider.configure(cas);
+        assertEquals("en", mappingProvider.getResource().get("value"));
+        assertEquals(3, mappingProvider.getConfigurationMisses());
+        assertEquals(1, mappingProvider.getConfigurationHits());
+    }
+
+    @Test
+    public void testCompiledTagTypes() throws Exception
+    {
+        MappingProvider mappingProvider = new MappingProvider();
+        mappingProvider.setDefault(MappingProvider.LOCATION, "src/test/resources/tagtypes.map");
+        
+        CAS cas = CasCreationUtils.createCas(new TypeSystemDescription_impl(), null, null);
+        mappingProvider.configure(cas);
+        
+        assertEquals(CAS.TYPE_NAME_ANNOTATION, mappingProvider.getTagType("NN").getName());
+        assertEquals(CAS.TYPE_NAME_DOCUMENT_ANNOTATION,
+                mappingProvider.getTagType("unknown").getName());
+        
+        String[] tags = { "NN", "unknown" };
+        Type[] types = mappingProvider.getTagTypes(tags);
+        assertSame(mappingProvider.getTagType("NN"), types[0]);
+        assertSame(mappingProvider.getTagType("unknown"), types[1]);
+        assertSame(types, mappingProvider.getTagTypes(tags));
+        
+        // A new type system requires new types
+        CAS cas2 = CasCreationUtils.createCas(new TypeSystemDescription_impl(), null, null);
+        mappingProvider.configure(cas2);
+        assertSame(cas2.getTypeSystem().getType(CAS.TYPE_NAME_ANNOTATION),
+                mappingProvider.getTagType("NN"));
+        assertNotSame(types, mappingProvider.getTagTypes(tags));
+    }
 }
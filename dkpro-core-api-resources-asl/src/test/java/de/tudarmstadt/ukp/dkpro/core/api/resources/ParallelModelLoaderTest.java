@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.api.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.fit.factory.UimaContextFactory;
+import org.apache.uima.resource.metadata.impl.TypeSystemDescription_impl;
+import org.apache.uima.util.CasCreationUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelModelLoaderTest
+{
+    private CAS cas;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        cas = CasCreationUtils.createCas(new TypeSystemDescription_impl(), null, null);
+        cas.setDocumentText("text");
+        cas.setDocumentLanguage("en");
+    }
+
+    @Test
+    public void testParallelLoading() throws Exception
+    {
+        ParallelModelLoader.setThreads(2);
+
+        UimaContext pipeline = UimaContextFactory.createUimaContext();
+        ModelProviderBase<String> provider1 = new ThreadRecordingModelProvider();
+        provider1.enableParallelLoading(pipeline);
+        ModelProviderBase<String> provider2 = new ThreadRecordingModelProvider();
+        provider2.enableParallelLoading(pipeline);
+
+        // Configuring the first provider starts loading the model of the second one
+        provider1.configure(cas);
+        assertEquals(Thread.currentThread().getName(), provider1.getResource());
+
+        provider2.configure(cas);
+        assertTrue(provider2.getResource().startsWith("dkpro-model-loader-"));
+        assertEquals(1, provider2.getConfigurationHits());
+    }
+
+    @Test
+    public void testSeparatePipelines() throws Exception
+    {
+        ParallelModelLoader.setThreads(2);
+
+        ModelProviderBase<String> provider1 = new ThreadRecordingModelProvider();
+        provider1.enableParallelLoading(UimaContextFactory.createUimaContext());
+        ModelProviderBase<String> provider2 = new ThreadRecordingModelProvider();
+        provider2.enableParallelLoading(UimaContextFactory.createUimaContext());
+        ModelProviderBase<String> provider3 = new ThreadRecordingModelProvider();
+
+        // Only providers of the same pipeline are loaded together
+        provider1.configure(cas);
+        provider2.configure(cas);
+        provider3.configure(cas);
+        assertEquals(Thread.currentThread().getName(), provider2.getResource());
+        assertEquals(0, provider2.getConfigurationHits());
+        assertEquals(Thread.currentThread().getName(), provider3.getResource());
+        assertEquals(0, provider3.getConfigurationHits());
+    }
+
+    @Test
+    public void testBackgroundFailure() throws Exception
+    {
+        ParallelModelLoader.setThreads(2);
+
+        UimaContext pipeline = UimaContextFactory.createUimaContext();
+        ModelProviderBase<String> provider1 = new ThreadRecordingModelProvider();
+        provider1.enableParallelLoading(pipeline);
+        FailingModelProvider provider2 = new FailingModelProvider();
+        provider2.enableParallelLoading(pipeline);
+
+        provider1.configure(cas);
+        try {
+            provider2.configure(cas);
+            fail("Expected the background failure to be reported");
+        }
+        catch (AnalysisEngineProcessException e) {
+            // Expected
+        }
+
+        // The failed model is not loaded a second time
+        assertEquals(1, provider2.attempts.get());
+    }
+
+    @Test
+    public void testDisabled() throws Exception
+    {
+        UimaContext pipeline = UimaContextFactory.createUimaContext();
+        ModelProviderBase<String> provider1 = new ThreadRecordingModelProvider();
+        provider1.enableParallelLoading(pipeline);
+        ModelProviderBase<String> provider2 = new ThreadRecordingModelProvider();
+        provider2.enableParallelLoading(pipeline);
+
+        provider1.configure(cas);
+        provider2.configure(cas);
+        assertEquals(Thread.currentThread().getName(), provider2.getResource());
+        assertEquals(0, provider2.getConfigurationHits());
+    }
+
+    @After
+    public void tearDown()
+    {
+        ParallelModelLoader.setThreads(0);
+    }
+
+    private static class ThreadRecordingModelProvider
+        extends ModelProviderBase<String>
+    {
+        {
+            setDefault(LOCATION, "src/test/resources/${language}.model");
+        }
+
+        @Override
+        protected String produceResource(InputStream aStream)
+            throws Exception
+        {
+            IOUtils.toString(aStream, "UTF-8");
+            return Thread.currentThread().getName();
+        }
+    }
+
+    private static class FailingModelProvider
+        extends ModelProviderBase<String>
+    {
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        {
+            setDefault(LOCATION, "src/test/resources/${language}.model");
+        }
+
+        @Override
+        protected String produceResource(InputStream aStream)
+            throws Exception
+        {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Broken model");
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.api.resources;
+
+import static java.util.Arrays.asList;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceRegistry.ResourceStatistics;
+
+public class ResourceRegistryTest
+{
+    @Test
+    public void testSharing() throws Exception
+    {
+        ResourceRegistry registry = new ResourceRegistry(1000);
+        AtomicInteger loads = new AtomicInteger();
+        Object holder1 = new Object();
+        Object holder2 = new Object();
+        
+        Object resource1 = registry.acquire(holder1, "a", 10, () -> {
+            loads.incrementAndGet();
+            return new Object();
+        });
+        Object resource2 = registry.acquire(holder2, "a", 10, () -> {
+            loads.incrementAndGet();
+            return new Object();
+        });
+        
+        assertSame(resource1, resource2);
+        assertEquals(1, loads.get());
+        
+        List<ResourceStatistics> stats = registry.getStatistics();
+        assertEquals(1, stats.size());
+        assertEquals(10, stats.get(0).getSize());
+        assertEquals(1, stats.get(0).getHits());
+        assertEquals(2, stats.get(0).getReferenceCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception
+    {
+        ResourceRegistry registry = new ResourceRegistry(25);
+        Object holder = new Object();
+        
+        registry.acquire(holder, "a", 10, Object::new);
+        registry.acquire(holder, "b", 10, Object::new);
+        registry.release(holder, "a");
+        registry.release(holder, "b");
+        assertEquals(20, registry.getSize());
+        
+        // Loading "c" exceeds the budget, so the least recently used idle resource is evicted
+        registry.acquire(holder, "c", 10, Object::new);
+        assertEquals(20, registry.getSize());
+        List<ResourceStatistics> stats = registry.getStatistics();
+        assertEquals("b", stats.get(0).getKey());
+        assertEquals("c", stats.get(1).getKey());
+        
+        // Referenced resources are never evicted
+        registry.setMemoryBudget(0);
+        assertEquals(10, registry.getSize());
+        assertEquals("c", registry.getStatistics().get(0).getKey());
+        
+        registry.release(holder, "c");
+        assertEquals(0, registry.getSize());
+    }
+
+    @Test
+    public void testFailedLoad() throws Exception
+    {
+        ResourceRegistry registry = new ResourceRegistry(1000);
+        Object holder = new Object();
+        
+        try {
+            registry.acquire(holder, "a", 10, () -> {
+                throw new IOException("failed");
+            });
+            fail("acquire() should have thrown an exception!");
+        }
+        catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        
+        assertEquals(0, registry.getStatistics().size());
+        assertEquals(0, registry.getSize());
+    }
+
+    @Test
+    public void testPreloadComponent() throws Exception
+    {
+        String sharable = ResourceObjectProviderBase.PROP_SHARABLE_PREFIX
+                + SharingAnnotator.class.getName();
+        System.setProperty(sharable, "true");
+        try {
+            SharingAnnotator.loads.set(0);
+            ResourceRegistry.getInstance().preload(
+                    asList(SharingAnnotator.class.getName() + ":en"));
+            assertEquals(1, SharingAnnotator.loads.get());
+            
+            // A component created later uses the preloaded model
+            AnalysisEngine engine = createEngine(SharingAnnotator.class);
+            JCas jcas = engine.newJCas();
+            jcas.setDocumentText("text");
+            jcas.setDocumentLanguage("en");
+            engine.process(jcas);
+            engine.destroy();
+            assertEquals(1, SharingAnnotator.loads.get());
+        }
+        finally {
+            System.clearProperty(sharable);
+            ResourceRegistry.getInstance().evictIdle();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreloadComponentNotSharable() throws Exception
+    {
+        ResourceRegistry.getInstance().preload(SharingAnnotator.class, "en", null);
+    }
+
+    public static class SharingAnnotator
+        extends JCasAnnotator_ImplBase
+    {
+        static final AtomicInteger loads = new AtomicInteger();
+        
+        @ConfigurationParameter(name = ComponentParameters.PARAM_LANGUAGE, mandatory = false)
+        private String language;
+        
+        private ModelProviderBase<String> modelProvider;
+        
+        @Override
+        public void initialize(UimaContext aContext)
+            throws ResourceInitializationException
+        {
+            super.initialize(aContext);
+            
+            modelProvider = new ModelProviderBase<String>()
+            {
+                {
+                    setContextObject(SharingAnnotator.this);
+                    setDefault(LOCATION, "src/test/resources/${language}.model");
+                    addAutoOverride(ComponentParameters.PARAM_LANGUAGE, LANGUAGE);
+                    applyAutoOverrides(SharingAnnotator.this);
+                }
+                
+                @Override
+                protected String produceResource(InputStream aStream)
+                    throws Exception
+                {
+                    loads.incrementAndGet();
+                    return IOUtils.toString(aStream, "UTF-8");
+                }
+            };
+        }
+        
+        @Override
+        public void process(JCas aJCas)
+            throws AnalysisEngineProcessException
+        {
+            modelProvider.configure(aJCas.getCas());
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package de.tudarmstadt.ukp.dkpro.core.api.transform.alignment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
@@ -27,6 +28,11 @@ import java.util.Set;
  * Allows to stack strings on top of each other and modifying each of them propagating changes up to
  * the top while leaving lower levels unchanged.
  * 
+ * The offsets of the segments are kept in an index which is built lazily from left to right. A
+ * change only invalidates the index from the changed segment onwards, so applying changes from
+ * right to left and resolving offsets afterwards does not require walking the segments again and
+ * again.
+ * 
  * This class is not synchronized internally.
  * 
  */
@@ -43,9 +49,17 @@ public class AlignedString
     protected final AnchorSegment _last;
 
     private boolean _stringDirty = true;
-    private boolean _startDirty = true;
     private String _content = null;
 
+    // Offset index: all segments including anchors in list order together with their start
+    // offsets. Only the first _indexed entries are valid. Since the segments are contiguous, the
+    // end of an entry is the start of the next one and the end of the last valid entry is
+    // _indexEnd.
+    private AbstractDataSegment[] _index = new AbstractDataSegment[16];
+    private int[] _indexStarts = new int[16];
+    private int _indexed = 0;
+    private int _indexEnd = 0;
+
     {
         _first = new AnchorSegment(null, null);
         _last = new AnchorSegment(null, null);
@@ -87,15 +101,21 @@ public class AlignedString
 
     public void fireChange()
     {
-//        if (!_startDirty) {
-//            System.out.println("startDirty true");
-//        }
+        _stringDirty = true;
+        for (final AlignedString a : _changeListeners) {
+            a.invalidateCaches();
+        }
+    }
 
+    private void invalidateCaches()
+    {
+        // The lengths of the oblique segments depend on the underlying data, so any offset on
+        // this level may have changed.
         _stringDirty = true;
-        _startDirty = true;
+        _indexed = 0;
+        _indexEnd = 0;
         for (final AlignedString a : _changeListeners) {
-            a._stringDirty = true;
-            a._startDirty = true;
+            a.invalidateCaches();
         }
     }
 
@@ -123,83 +143,133 @@ public class AlignedString
         final DataSegment endSeg = getSegmentAt(
                 (i.getStart() != i.getEnd()) ? i.getEnd() - 1 : i.getEnd(), true);
 
+        final int start = resolveStart(startSeg, i.getStart());
+        final int end = resolveEnd(startSeg, endSeg, i.getStart(), i.getEnd());
+
+        if (end < start) {
+            throw new IllegalStateException("BUG: End [" + end
+                    + "] of resolved interval before start [" + start + "]!");
+        }
+
+        return new ImmutableInterval(start, end);
+    }
+
+    /**
+     * For the given intervals on the current data, get the corresponding intervals in the wrapped
+     * data. This yields the same results as calling {@link #resolve(Interval)} for each interval,
+     * but if the intervals are sorted by their start offsets, the segments are located in a
+     * single sweep over the offset index instead of a separate search per interval. Unsorted
+     * intervals are resolved correctly as well, just less efficiently.
+     * 
+     * @param begins
+     *            the start offsets of the intervals. Replaced by the resolved start offsets.
+     * @param ends
+     *            the end offsets of the intervals. Replaced by the resolved end offsets.
+     */
+    public void resolveAll(final int[] begins, final int[] ends)
+    {
+        if (begins.length != ends.length) {
+            throw new IllegalArgumentException("Number of begins [" + begins.length
+                    + "] does not match number of ends [" + ends.length + "]");
+        }
+
+        if (_underlying == null) {
+            return;
+        }
+
+        int hint = 0;
+        for (int n = 0; n < begins.length; n++) {
+            final int begin = begins[n];
+            final int end = ends[n];
+
+            final int startIdx = getIndexAt(begin, true, hint);
+            final int endIdx = getIndexAt((begin != end) ? end - 1 : end, true, startIdx);
+            hint = startIdx;
+
+            final AbstractDataSegment startSeg = _index[startIdx];
+            final AbstractDataSegment endSeg = _index[endIdx];
+
+            final int resolvedStart = resolveStart(startSeg, begin);
+            final int resolvedEnd = resolveEnd(startSeg, endSeg, begin, end);
+
+            if (resolvedEnd < resolvedStart) {
+                throw new IllegalStateException("BUG: End [" + resolvedEnd
+                        + "] of resolved interval before start [" + resolvedStart + "]!");
+            }
+
+            begins[n] = resolvedStart;
+            ends[n] = resolvedEnd;
+        }
+    }
+
+    private int resolveStart(final DataSegment startSeg, final int start)
+    {
         // For start find oblique segment here or to left.
         // If none start is start of first segment.
         DataSegment cursor = startSeg;
-        int start;
         while (true) {
             if (cursor == null) {
                 // If there is nothing start at the beginning
-                start = _underlying._first.getStart();
-                break;
+                return _underlying._first.getStart();
             }
             else if (cursor instanceof ObliqueSegment) {
                 final ObliqueSegment oseg = (ObliqueSegment) cursor;
                 if (cursor == startSeg) {
                     // Calculate offset relative to the position of the
                     // ObliqueSegment if we did not need to move
-                    final int pos = i.getStart() - oseg.getStart();
-                    start = oseg._start.getPosition() + pos;
-                    break;
+                    final int pos = start - oseg.getStart();
+                    return oseg._start.getPosition() + pos;
                 }
                 else {
                     // If we had to move, use the end position of the
                     // ObliqueSegment.
-                    start = oseg._end.getPosition();
-                    break;
+                    return oseg._end.getPosition();
                 }
             }
             else {
                 cursor = cursor.getPrevious();
             }
         }
+    }
 
+    private int resolveEnd(final DataSegment startSeg, final DataSegment endSeg, final int start,
+            final int end)
+    {
         // For end find oblique segment here or to right.
         // If none end is end of last segment of underlying data
-        cursor = endSeg;
-        int end;
+        DataSegment cursor = endSeg;
         while (true) {
             if (cursor == null) {
                 // Maybe we should be in the start segment and just missed it
                 // Try to recover in this case instead of expanding to the
                 // end of the underlying data.
-                if ((startSeg instanceof ObliqueSegment) && (startSeg.length() >= i.getLength())) {
+                if ((startSeg instanceof ObliqueSegment) && (startSeg.length() >= end - start)) {
                     final ObliqueSegment oseg = (ObliqueSegment) startSeg;
-                    final int pos = i.getEnd() - oseg.getStart();
-                    end = oseg._start.getPosition() + pos;
+                    final int pos = end - oseg.getStart();
+                    return oseg._start.getPosition() + pos;
                 }
                 else {
-                    end = _underlying._last.getEnd();
+                    return _underlying._last.getEnd();
                 }
-                break;
             }
             else if (cursor instanceof ObliqueSegment) {
                 final ObliqueSegment oseg = (ObliqueSegment) cursor;
                 if (cursor == endSeg) {
                     // Calculate offset relative to the position of the
                     // ObliqueSegment if we did not need to move
-                    final int pos = i.getEnd() - oseg.getStart();
-                    end = oseg._start.getPosition() + pos;
-                    break;
+                    final int pos = end - oseg.getStart();
+                    return oseg._start.getPosition() + pos;
                 }
                 else {
                     // If we had to move, use the end position of the
                     // ObliqueSegment
-                    end = oseg._start.getPosition();
-                    break;
+                    return oseg._start.getPosition();
                 }
             }
             else {
                 cursor = cursor.getNext();
             }
         }
-
-        if (end < start) {
-            throw new IllegalStateException("BUG: End [" + end
-                    + "] of resolved interval before start [" + start + "]!");
-        }
-
-        return new ImmutableInterval(start, end);
     }
 
     /**
@@ -361,44 +431,135 @@ public class AlignedString
      *            whether or not to include anchors.
      */
     private AbstractDataSegment getSegmentAt(final int position, final boolean includeAnchors)
+    {
+        // Look up the position first - the lookup may grow the index array
+        final int idx = getIndexAt(position, includeAnchors, 0);
+        return _index[idx];
+    }
+
+    /**
+     * Same as {@link #getSegmentAt(int, boolean)}, but returns the position of the segment in the
+     * offset index.
+     * 
+     * @param hint
+     *            a position in the offset index at which to start searching. If the offset lies
+     *            to the right of it, the segment is found by galloping search from there.
+     */
+    private int getIndexAt(final int position, final boolean includeAnchors, final int hint)
     {
         if (position < 0) {
             throw new IndexOutOfBoundsException("Negative position not allowed: [" + position + "]");
         }
 
-        final AbstractDataSegment first = _first;
-
-        if (first == null) {
-            throw new IndexOutOfBoundsException("No data");
+        // Make sure the index covers the position
+        while (_indexEnd <= position && extendIndex()) {
+            // Nothing to do
         }
 
-        AbstractDataSegment seg = first._next;
-        int pEnd = seg.length();
-        while ((seg != null) && (position > (pEnd - 1))) {
-            seg = seg.getNext();
-            if (seg != null) {
-                pEnd += seg.length();
+        // Find the last entry starting at or before the position
+        int low = 0;
+        int high = _indexed;
+        if (hint > 0 && hint < _indexed && _indexStarts[hint] <= position) {
+            low = hint;
+            int step = 1;
+            high = hint + 1;
+            while (high < _indexed && _indexStarts[high] <= position) {
+                low = high;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, _indexed);
+        }
+        while (high - low > 1) {
+            final int mid = (low + high) >>> 1;
+            if (_indexStarts[mid] <= position) {
+                low = mid;
+            }
+            else {
+                high = mid;
             }
         }
 
-        if (seg == null) {
-            if ((includeAnchors) && (pEnd == position)) {
-                return _last;
+        // Zero-length segments never contain a position. If the entry found has a zero length,
+        // the position is beyond the end of the data.
+        final int end = (low + 1 < _indexed) ? _indexStarts[low + 1] : _indexEnd;
+        if (end <= position) {
+            if ((includeAnchors) && (_indexEnd == position)) {
+                return _indexed - 1;
             }
             else {
                 throw new IndexOutOfBoundsException("Index [" + position + "] not in range [0-"
-                        + pEnd + "], [" + (position - pEnd) + "] off");
+                        + _indexEnd + "], [" + (position - _indexEnd) + "] off");
             }
         }
 
         // If we can directly hit an anchor, return the anchor
         if (includeAnchors) {
-            if (seg._prev.isAnchor() && (((Anchor) seg._prev).getPosition() == position)) {
-                return seg._prev;
+            if (_index[low - 1].isAnchor() && (_indexStarts[low - 1] == position)) {
+                return low - 1;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Add the next segment to the offset index.
+     * 
+     * @return {@code false} if all segments are already indexed.
+     */
+    private boolean extendIndex()
+    {
+        final AbstractDataSegment seg = (_indexed == 0) ? _first : _index[_indexed - 1]._next;
+        if (seg == null) {
+            return false;
+        }
+
+        if (_indexed == _index.length) {
+            _index = Arrays.copyOf(_index, _indexed * 2);
+            _indexStarts = Arrays.copyOf(_indexStarts, _indexed * 2);
+        }
+
+        _index[_indexed] = seg;
+        _indexStarts[_indexed] = _indexEnd;
+        seg._indexPosition = _indexed;
+        _indexed++;
+        _indexEnd += seg.length();
+        return true;
+    }
+
+    /**
+     * Get the position of the given segment in the offset index, extending the index if
+     * necessary.
+     * 
+     * @return the position or {@code -1} if the segment is not part of the data.
+     */
+    private int indexPositionOf(final AbstractDataSegment seg)
+    {
+        final int pos = seg._indexPosition;
+        if (pos >= 0 && pos < _indexed && _index[pos] == seg) {
+            return pos;
+        }
+
+        while (extendIndex()) {
+            if (_index[_indexed - 1] == seg) {
+                return _indexed - 1;
             }
         }
+        return -1;
+    }
 
-        return seg;
+    /**
+     * Drop the given segment and all segments following it from the offset index. Must be called
+     * before the length or the successor of a segment is changed.
+     */
+    private void invalidateIndex(final AbstractDataSegment seg)
+    {
+        final int pos = seg._indexPosition;
+        if (pos >= 0 && pos < _indexed && _index[pos] == seg) {
+            _indexed = pos;
+            _indexEnd = _indexStarts[pos];
+        }
     }
 
     public AbstractDataSegment getFirst()
@@ -437,11 +598,10 @@ public class AlignedString
      */
     public int length()
     {
-        int length = 0;
-        for (final DataSegment s : this) {
-            length += s.length();
+        while (extendIndex()) {
+            // Nothing to do
         }
-        return length;
+        return _indexEnd;
     }
 
     /**
@@ -470,16 +630,8 @@ public class AlignedString
         }
 
         get();
-        if (_startDirty) {
-            int length = 0;
-            AbstractDataSegment seg = _first;
-            while (seg != null) {
-                seg._cachedStart = length;
-                length += seg.length();
-                seg = seg._next;
-            }
-            _startDirty = false;
-            System.out.println("startDirty false");
+        while (extendIndex()) {
+            // Nothing to do
         }
     }
 
@@ -527,6 +679,7 @@ public class AlignedString
 
         // Insert segment
         final BaseSegment seg = new BaseSegment(prefix, suffix, s);
+        invalidateIndex(prefix);
         prefix._next = seg;
         suffix._prev = seg;
 
@@ -554,6 +707,7 @@ public class AlignedString
         if ((seg instanceof BaseSegment) &&
         // !seg.isAnchor() &&
                 (seg.length() == 0)) {
+            invalidateIndex(seg._prev);
             seg._prev._next = seg._next;
             seg._next._prev = seg._prev;
         }
@@ -606,6 +760,7 @@ public class AlignedString
             suffix = prefix._next;
             suffix = suffix.split(end);
 
+            invalidateIndex(prefix);
             if (d == null || d.length() == 0) {
                 prefix._next = suffix;
                 suffix._prev = prefix;
@@ -634,6 +789,7 @@ public class AlignedString
             prefix = segAtStart;
             suffix = segAtEnd.split(end);
 
+            invalidateIndex(prefix);
             if (d == null || d.length() == 0) {
                 AbstractDataSegment s = prefix._next;
                 while (s != suffix) {
@@ -690,6 +846,7 @@ public class AlignedString
 
             // Insert segment
             final AnchorSegment seg = new AnchorSegment(prefix, suffix);
+            invalidateIndex(prefix);
             prefix._next = seg;
             suffix._prev = seg;
 
@@ -839,7 +996,7 @@ public class AlignedString
     {
         protected AbstractDataSegment _prev;
         protected AbstractDataSegment _next;
-        protected int _cachedStart = -1;
+        protected int _indexPosition = -1;
 
         public AbstractDataSegment(final AbstractDataSegment prev, final AbstractDataSegment next)
         {
@@ -878,19 +1035,19 @@ public class AlignedString
         @Override
         public int getStart()
         {
-            if (_startDirty || _cachedStart == -1) {
-                int pos = 0;
-                AbstractDataSegment seg = this._prev;
-                while (seg != null) {
-                    pos += seg.length();
-                    seg = seg._prev;
-                }
-
-                return pos;
+            final int idx = indexPositionOf(this);
+            if (idx >= 0) {
+                return _indexStarts[idx];
             }
-            else {
-                return _cachedStart;
+
+            // The segment has been removed from the data - calculate the position it would have
+            int pos = 0;
+            AbstractDataSegment seg = this._prev;
+            while (seg != null) {
+                pos += seg.length();
+                seg = seg._prev;
             }
+            return pos;
         }
 
         @Override
@@ -944,6 +1101,7 @@ public class AlignedString
                     _data.length()));
 
             // Change current segment
+            invalidateIndex(this);
             _data = _data.substring(0, pos);
 
             // Insert new segment
@@ -1015,6 +1173,7 @@ public class AlignedString
             final ObliqueSegment suffix = new ObliqueSegment(this, _next, splitAnchor, _end);
 
             // Change current segment
+            invalidateIndex(this);
             _end = splitAnchor;
 
             // Insert new segment
@@ -274,6 +274,30 @@ class AlignedStringTest
 		assertEquals(65, i.getEnd());
 	}
 
+	@Test
+	public
+	void testResolveAll()
+	{
+		top.replace(7, 11, "quiz");
+		top.delete(2, 5);
+		top.insert(0, "Yes, ");
+
+		final int[] begins = new int[top.length() + 1];
+		final int[] ends = new int[top.length() + 1];
+		for (int n = 0; n < begins.length; n++) {
+			begins[n] = n;
+			ends[n] = Math.min(n + 3, top.length());
+		}
+
+		top.resolveAll(begins, ends);
+
+		for (int n = 0; n < begins.length; n++) {
+			final Interval i = top.resolve(new ImmutableInterval(n, Math.min(n + 3, top.length())));
+			assertEquals(i.getStart(), begins[n]);
+			assertEquals(i.getEnd(), ends[n]);
+		}
+	}
+
 	@Test
 	public
 	void testDeleteInsert()
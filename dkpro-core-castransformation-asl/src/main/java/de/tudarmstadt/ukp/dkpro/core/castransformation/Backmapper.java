@@ -17,9 +17,14 @@
  */
 package de.tudarmstadt.ukp.dkpro.core.castransformation;
 
+import static org.apache.uima.fit.util.CasUtil.getType;
+import static org.apache.uima.fit.util.CasUtil.select;
 import static org.apache.uima.fit.util.CasUtil.selectAllFS;
+import static org.apache.uima.fit.util.CasUtil.selectFS;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.apache.uima.UIMAException;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -28,6 +33,7 @@ import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.internal.util.IntListIterator;
@@ -66,6 +72,18 @@ extends JCasAnnotator_ImplBase
 			ApplyChangesAnnotator.VIEW_TARGET})
 	protected LinkedList<String> sofaChain = new LinkedList<>();
 
+	/**
+	 * Types of the feature structures to map back. If set, only feature structures of these types
+	 * and their subtypes are copied to the target view. The types are processed one after the
+	 * other and the offsets of each type are remapped in a single sweep, so the full source view
+	 * is never duplicated. Feature structures referenced by the selected ones are copied along,
+	 * but their offsets are only remapped and they are only indexed if their type is selected as
+	 * well. If not set, all feature structures are mapped back.
+	 */
+	public static final String PARAM_TYPES = "types";
+	@ConfigurationParameter(name = PARAM_TYPES, mandatory = false)
+	protected String[] types;
+
 	@Override
     public void process(final JCas aJCas)
         throws AnalysisEngineProcessException
@@ -79,6 +97,12 @@ extends JCasAnnotator_ImplBase
             // Copy the annotations
             CAS sourceView = aJCas.getCas().getView(sofaChain.getFirst());
             CAS targetView = aJCas.getCas().getView(sofaChain.getLast());
+            
+            if (types != null && types.length > 0) {
+                copySelectedTypes(aJCas, sourceView, targetView);
+                return;
+            }
+            
 	        Feature mDestSofaFeature = targetView.getTypeSystem()
 	                .getFeatureByFullName(CAS.FEATURE_FULL_NAME_SOFA);
             CasCopier cc = new CasCopier(sourceView, targetView);
@@ -91,17 +115,7 @@ extends JCasAnnotator_ImplBase
                     continue;
                 }
                 
-                // This returns either a new copy -- or -- if an FS has been copied as a
-                // transitively referenced feature of another FS, it will return an existing copy
-                FeatureStructure fsCopy = cc.copyFs(fs);
-                
-                // Make sure that the sofa annotation in the copy is set
-                if (fs instanceof AnnotationBaseFS) {
-                    FeatureStructure sofa = fsCopy.getFeatureValue(mDestSofaFeature);
-                    if (sofa == null) {
-                        fsCopy.setFeatureValue(mDestSofaFeature, targetView.getSofa());
-                    }
-                }
+                FeatureStructure fsCopy = copy(cc, fs, mDestSofaFeature, targetView);
                 
                 // We will still update the offsets, so we do not index the copy just yet
                 copiedFs.add(targetView.getLowLevelCAS().ll_getFSRef(fsCopy));
@@ -140,6 +154,110 @@ extends JCasAnnotator_ImplBase
 		}
 	}
 	
+    /**
+     * Copy and remap the selected types one by one. The annotations of a type are collected in
+     * index order, i.e. sorted by their begin offset, so that they can be resolved in a single
+     * sweep over the alignment of each step in the chain.
+     */
+    private void copySelectedTypes(JCas aJCas, CAS sourceView, CAS targetView)
+        throws UIMAException
+    {
+        // Collect the alignments along the chain
+        List<AlignedString> alignments = new ArrayList<>();
+        LinkedList<String> workChain = new LinkedList<>(sofaChain);
+        String target = workChain.poll();
+        do {
+            String source = target;
+            target = workChain.poll();
+            alignments.add(getAlignedString(aJCas, aJCas.getCas().getView(source).getViewName(),
+                    aJCas.getCas().getView(target).getViewName()));
+        }
+        while (!workChain.isEmpty());
+
+        Feature mDestSofaFeature = targetView.getTypeSystem()
+                .getFeatureByFullName(CAS.FEATURE_FULL_NAME_SOFA);
+        Type annotationType = sourceView.getAnnotationType();
+        CasCopier cc = new CasCopier(sourceView, targetView);
+        int docAnno = sourceView.getLowLevelCAS().ll_getFSRef(sourceView.getDocumentAnnotation());
+        // Copies which have already been remapped and indexed - a type may be a subtype of
+        // another selected type
+        final PositiveIntSet mappedFs = new PositiveIntSet_impl();
+
+        for (String typeName : types) {
+            Type type = getType(sourceView, typeName);
+            boolean isAnnotation = sourceView.getTypeSystem().subsumes(annotationType, type);
+
+            long copyStart = System.currentTimeMillis();
+            List<FeatureStructure> copies = new ArrayList<>();
+            Iterable<? extends FeatureStructure> fses = isAnnotation ? select(sourceView, type)
+                    : selectFS(sourceView, type);
+            for (FeatureStructure fs : fses) {
+                if (sourceView.getLowLevelCAS().ll_getFSRef(fs) == docAnno) {
+                    // Skip document annotation
+                    continue;
+                }
+
+                FeatureStructure fsCopy = copy(cc, fs, mDestSofaFeature, targetView);
+                if (mappedFs.add(targetView.getLowLevelCAS().ll_getFSRef(fsCopy))) {
+                    copies.add(fsCopy);
+                }
+            }
+            long copyTime = System.currentTimeMillis() - copyStart;
+
+            long remapStart = System.currentTimeMillis();
+            int[] begins = new int[copies.size()];
+            int[] ends = new int[copies.size()];
+            int n = 0;
+            for (FeatureStructure fsCopy : copies) {
+                if (fsCopy instanceof Annotation) {
+                    begins[n] = ((Annotation) fsCopy).getBegin();
+                    ends[n] = ((Annotation) fsCopy).getEnd();
+                    n++;
+                }
+            }
+            
+            if (n > 0) {
+                for (AlignedString as : alignments) {
+                    as.resolveAll(begins, ends);
+                }
+            }
+            
+            n = 0;
+            for (FeatureStructure fsCopy : copies) {
+                if (fsCopy instanceof Annotation) {
+                    Annotation a = (Annotation) fsCopy;
+                    a.setBegin(begins[n]);
+                    a.setEnd(ends[n]);
+                    n++;
+                }
+                targetView.addFsToIndexes(fsCopy);
+            }
+            long remapTime = System.currentTimeMillis() - remapStart;
+
+            getLogger().debug("Mapped back [" + copies.size() + "] feature structures of type ["
+                    + type.getName() + "] - copying took [" + copyTime
+                    + "] ms, remapping took [" + remapTime + "] ms");
+        }
+    }
+
+    private FeatureStructure copy(CasCopier aCopier, FeatureStructure aFs, Feature aSofaFeature,
+            CAS aTargetView)
+    {
+        // This returns either a new copy -- or -- if an FS has been copied as a
+        // transitively referenced feature of another FS, it will return an existing copy
+        FeatureStructure fsCopy = aCopier.copyFs(aFs);
+        
+        // Make sure that the sofa annotation in the copy is set
+        if (aFs instanceof AnnotationBaseFS) {
+            FeatureStructure sofa = fsCopy.getFeatureValue(aSofaFeature);
+            if (sofa == null) {
+                fsCopy.setFeatureValue(aSofaFeature, aTargetView.getSofa());
+            }
+        }
+        
+        return fsCopy;
+    }
+
     private AlignedString getAlignedString(JCas aSomeCase, String from, String to)
         throws AnalysisEngineProcessException
     {
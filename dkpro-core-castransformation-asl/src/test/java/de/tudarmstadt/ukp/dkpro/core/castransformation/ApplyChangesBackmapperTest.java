@@ -52,6 +52,21 @@ public class ApplyChangesBackmapperTest
     @Test
     public void test()
         throws Exception
+    {
+        testBackmapping();
+    }
+
+    @Test
+    public void testSelectedTypes()
+        throws Exception
+    {
+        testBackmapping(
+                "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence",
+                "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token");
+    }
+
+    private void testBackmapping(String... aTypes)
+        throws Exception
     {
        File output = testContext.getTestOutputFolder();
        File inputFile = new File("src/test/resources/input.txt");
@@ -74,7 +89,8 @@ public class ApplyChangesBackmapperTest
 
        AnalysisEngineDescription backMapper = createEngineDescription(
                Backmapper.class,
-               Backmapper.PARAM_CHAIN, new String[]{TARGET_VIEW, CAS.NAME_DEFAULT_SOFA});
+               Backmapper.PARAM_CHAIN, new String[]{TARGET_VIEW, CAS.NAME_DEFAULT_SOFA},
+               Backmapper.PARAM_TYPES, aTypes);
 
        AnalysisEngineDescription xmiWriter = createEngineDescription(
                XmiWriter.class,
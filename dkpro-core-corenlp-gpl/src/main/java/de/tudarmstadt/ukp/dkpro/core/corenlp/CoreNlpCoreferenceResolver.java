@@ -33,7 +33,6 @@ import org.apache.uima.fit.descriptor.TypeCapability;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 
-import de.tudarmstadt.ukp.dkpro.core.api.resources.CasConfigurableProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ModelProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.corenlp.internal.DKPro2CoreNlp;
 import de.tudarmstadt.ukp.dkpro.core.corenlp.internal.CoreNlp2DKPro;
@@ -121,7 +120,7 @@ public class CoreNlpCoreferenceResolver
     @ConfigurationParameter(name = PARAM_QUOTE_END, mandatory = false)
     private List<String> quoteEnd;
     
-    private CasConfigurableProviderBase<DeterministicCorefAnnotator> annotatorProvider;
+    private ModelProviderBase<DeterministicCorefAnnotator> annotatorProvider;
     
     @Override
     public void initialize(UimaContext aContext)
@@ -130,6 +129,8 @@ public class CoreNlpCoreferenceResolver
         super.initialize(aContext);
         
         annotatorProvider = new CoreNlpPosTaggerModelProvider(this);
+
+        annotatorProvider.enableParallelLoading(aContext);
     }
     
     @Override
@@ -38,7 +38,6 @@ import org.apache.uima.resource.ResourceInitializationException;
 import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.SingletonTagset;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
-import de.tudarmstadt.ukp.dkpro.core.api.resources.CasConfigurableProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProvider;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProviderFactory;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ModelProviderBase;
@@ -160,7 +159,7 @@ public class CoreNlpDependencyParser
     @ConfigurationParameter(name = PARAM_EXTRA_DEPENDENCIES, mandatory = true, defaultValue="NONE")
     GrammaticalStructure.Extras extraDependencies;
     
-    private CasConfigurableProviderBase<DependencyParseAnnotator> annotatorProvider;
+    private ModelProviderBase<DependencyParseAnnotator> annotatorProvider;
     private MappingProvider mappingProvider;
     
     @Override
@@ -175,6 +174,8 @@ public class CoreNlpDependencyParser
                 dependencyMappingLocation, language, annotatorProvider);
 
         numThreads = ComponentParameters.computeNumThreads(numThreads);
+
+        annotatorProvider.enableParallelLoading(aContext);
     }
     
     @Override
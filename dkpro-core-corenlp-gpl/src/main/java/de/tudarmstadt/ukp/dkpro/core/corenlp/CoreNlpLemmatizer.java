@@ -32,7 +32,6 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.Messages;
-import de.tudarmstadt.ukp.dkpro.core.api.resources.CasConfigurableProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ModelProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.corenlp.internal.DKPro2CoreNlp;
 import de.tudarmstadt.ukp.dkpro.core.corenlp.internal.CoreNlp2DKPro;
@@ -80,7 +79,7 @@ public class CoreNlpLemmatizer
     
     private boolean verbose = false;
     
-    private CasConfigurableProviderBase<MorphaAnnotator> annotatorProvider;
+    private ModelProviderBase<MorphaAnnotator> annotatorProvider;
     
     @Override
     public void initialize(UimaContext aContext)
@@ -100,6 +99,8 @@ public class CoreNlpLemmatizer
                 return annotator;
             }
         };
+
+        annotatorProvider.enableParallelLoading(aContext);
     }
     
     @Override
@@ -195,6 +195,8 @@ public class CoreNlpNamedEntityRecognizer
         mappingProvider.setOverride(MappingProvider.VARIANT, variant);
 
         numThreads = ComponentParameters.computeNumThreads(numThreads);
+
+        annotatorProvider.enableParallelLoading(aContext);
     }
     
     @Override
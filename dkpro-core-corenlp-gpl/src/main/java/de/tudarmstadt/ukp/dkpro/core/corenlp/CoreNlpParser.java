@@ -39,7 +39,6 @@ import org.apache.uima.resource.ResourceInitializationException;
 import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.SingletonTagset;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
-import de.tudarmstadt.ukp.dkpro.core.api.resources.CasConfigurableProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProvider;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProviderFactory;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ModelProviderBase;
@@ -247,7 +246,7 @@ public class CoreNlpParser
 //    @ConfigurationParameter(name = PARAM_KEEP_PUNCTUATION, mandatory = true, defaultValue = "false")
 //    private boolean keepPunctuation;
 
-    private CasConfigurableProviderBase<ParserAnnotator> annotatorProvider;
+    private ModelProviderBase<ParserAnnotator> annotatorProvider;
     private MappingProvider dependencyMappingProvider;
     private MappingProvider constituentMappingProvider;
     private MappingProvider posMappingProvider;
@@ -270,6 +269,8 @@ public class CoreNlpParser
                 posMappingLocation, language, annotatorProvider);
 
         numThreads = ComponentParameters.computeNumThreads(numThreads);
+
+        annotatorProvider.enableParallelLoading(aContext);
     }
     
     @Override
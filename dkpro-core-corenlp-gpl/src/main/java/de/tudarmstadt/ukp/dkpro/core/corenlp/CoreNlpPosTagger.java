@@ -36,7 +36,6 @@ import org.apache.uima.resource.ResourceInitializationException;
 import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.SingletonTagset;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
-import de.tudarmstadt.ukp.dkpro.core.api.resources.CasConfigurableProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProvider;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProviderFactory;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ModelProviderBase;
@@ -149,7 +148,7 @@ public class CoreNlpPosTagger
     @ConfigurationParameter(name = PARAM_QUOTE_END, mandatory = false)
     private List<String> quoteEnd;
     
-    private CasConfigurableProviderBase<POSTaggerAnnotator> annotatorProvider;
+    private ModelProviderBase<POSTaggerAnnotator> annotatorProvider;
     private MappingProvider mappingProvider;
     
     @Override
@@ -164,6 +163,8 @@ public class CoreNlpPosTagger
                 language, annotatorProvider);
 
         numThreads = ComponentParameters.computeNumThreads(numThreads);
+
+        annotatorProvider.enableParallelLoading(aContext);
     }
     
     @Override
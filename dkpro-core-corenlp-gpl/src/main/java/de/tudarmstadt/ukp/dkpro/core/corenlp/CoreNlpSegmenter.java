@@ -174,6 +174,9 @@ public class CoreNlpSegmenter
                 return annotator;
             }
         };
+
+        tokenizerAnnotator.enableParallelLoading(aContext);
+        sentenceAnnotator.enableParallelLoading(aContext);
     }
     
     @Override
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.dictionaryannotator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable, compact variant of the {@link PhraseTree}. Each distinct phrase token is mapped to an
+ * int id and the trie is stored in flat int arrays: the children of a node are laid out
+ * contiguously and sorted by token id, so a child is found by binary search. There is no object
+ * per node. The tree is built in parallel from a collection of phrases and can safely be shared
+ * between threads.
+ * <p>
+ * Matching is done on token id sequences which are obtained once per sentence using
+ * {@link #toIds(String[])}.
+ */
+public class CompactPhraseTree
+{
+    /**
+     * Id assigned to tokens which do not occur in any phrase.
+     */
+    public static final int UNKNOWN = -1;
+
+    private static final int ROOT = 0;
+
+    private final Map<String, Integer> vocabulary;
+    private final int[] label;
+    private final int[] firstChild;
+    private final BitSet endElement;
+
+    private CompactPhraseTree(Map<String, Integer> aVocabulary, int[] aLabel, int[] aFirstChild,
+            BitSet aEndElement)
+    {
+        vocabulary = aVocabulary;
+        label = aLabel;
+        firstChild = aFirstChild;
+        endElement = aEndElement;
+    }
+
+    /**
+     * Build a tree from the given phrases.
+     *
+     * @param aPhrases
+     *            the phrases, each array entry is a phrase token.
+     * @return the tree.
+     */
+    public static CompactPhraseTree build(Collection<String[]> aPhrases)
+    {
+        // Map phrase tokens to ids
+        Map<String, Integer> vocabulary = new ConcurrentHashMap<>();
+        AtomicInteger nextId = new AtomicInteger();
+        int[][] phrases = aPhrases.parallelStream()
+                .filter(phrase -> phrase.length > 0)
+                .map(phrase -> {
+                    int[] ids = new int[phrase.length];
+                    for (int i = 0; i < phrase.length; i++) {
+                        ids[i] = vocabulary.computeIfAbsent(phrase[i],
+                                k -> nextId.getAndIncrement());
+                    }
+                    return ids;
+                })
+                .toArray(int[][]::new);
+
+        // Sorting places phrases sharing a prefix next to each other with shorter phrases first
+        Arrays.parallelSort(phrases, CompactPhraseTree::compare);
+
+        // Build the trie breadth-first. Every node covers a range of the sorted phrases which
+        // all share the path from the root to the node. Since nodes are numbered in the order in
+        // which they are created, the children of a node occupy a contiguous range of ids.
+        int capacity = 1;
+        for (int[] phrase : phrases) {
+            capacity += phrase.length;
+        }
+        int[] label = new int[capacity];
+        int[] firstChild = new int[capacity + 1];
+        int[] rangeBegin = new int[capacity];
+        int[] rangeEnd = new int[capacity];
+        BitSet endElement = new BitSet();
+
+        label[ROOT] = UNKNOWN;
+        rangeBegin[ROOT] = 0;
+        rangeEnd[ROOT] = phrases.length;
+        int nodeCount = 1;
+        int depth = 0;
+        int depthEnd = 1;
+
+        for (int node = 0; node < nodeCount; node++) {
+            if (node == depthEnd) {
+                depth++;
+                depthEnd = nodeCount;
+            }
+
+            firstChild[node] = nodeCount;
+
+            int i = rangeBegin[node];
+            int end = rangeEnd[node];
+
+            // Phrases ending at this node sort first in the range
+            while (i < end && phrases[i].length == depth) {
+                endElement.set(node);
+                i++;
+            }
+
+            while (i < end) {
+                int token = phrases[i][depth];
+                int groupBegin = i;
+                while (i < end && phrases[i][depth] == token) {
+                    i++;
+                }
+                label[nodeCount] = token;
+                rangeBegin[nodeCount] = groupBegin;
+                rangeEnd[nodeCount] = i;
+                nodeCount++;
+            }
+        }
+        firstChild[nodeCount] = nodeCount;
+
+        // The vocabulary is only read from now on, so a plain map is sufficient
+        return new CompactPhraseTree(new HashMap<>(vocabulary),
+                Arrays.copyOf(label, nodeCount), Arrays.copyOf(firstChild, nodeCount + 1),
+                endElement);
+    }
+
+    private static int compare(int[] aA, int[] aB)
+    {
+        int len = Math.min(aA.length, aB.length);
+        for (int i = 0; i < len; i++) {
+            if (aA[i] != aB[i]) {
+                return Integer.compare(aA[i], aB[i]);
+            }
+        }
+        return Integer.compare(aA.length, aB.length);
+    }
+
+    /**
+     * Map the given tokens to the ids used in this tree.
+     *
+     * @param aTokens
+     *            the tokens.
+     * @return the token ids. Tokens which do not occur in any phrase are mapped to
+     *         {@link #UNKNOWN}.
+     */
+    public int[] toIds(String[] aTokens)
+    {
+        int[] ids = new int[aTokens.length];
+        for (int i = 0; i < aTokens.length; i++) {
+            Integer id = aTokens[i] != null ? vocabulary.get(aTokens[i]) : null;
+            ids[i] = id != null ? id : UNKNOWN;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the length of the longest phrase in the tree which matches the token ids beginning
+     * at the given position.
+     *
+     * @param aIds
+     *            the token ids, as obtained from {@link #toIds(String[]) toIds}.
+     * @param aBegin
+     *            the position of the first token to match.
+     * @return the number of tokens matched or {@code 0} if no phrase matches.
+     */
+    public int getLongestMatch(int[] aIds, int aBegin)
+    {
+        int node = ROOT;
+        int longest = 0;
+        for (int i = aBegin; i < aIds.length; i++) {
+            node = getChild(node, aIds[i]);
+            if (node < 0) {
+                break;
+            }
+            if (endElement.get(node)) {
+                longest = i - aBegin + 1;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Returns the longest matching phrase in the tree, beginning with the first array entry in
+     * matchText.
+     *
+     * @param aMatchText
+     *            Text to match against, pre-tokenized
+     * @return Longest matching phrase stored in the tree, as token-array, or {@code null} if no
+     *         phrase matches.
+     */
+    public String[] getLongestMatch(String[] aMatchText)
+    {
+        int length = getLongestMatch(toIds(aMatchText), 0);
+        return length > 0 ? Arrays.copyOfRange(aMatchText, 0, length) : null;
+    }
+
+    /**
+     * Checks if the phrase is contained in the tree
+     *
+     * @param aPhraseParts
+     *            Phrase as token array
+     * @return true if contained, false otherwise
+     */
+    public boolean contains(String[] aPhraseParts)
+    {
+        int node = ROOT;
+        for (int id : toIds(aPhraseParts)) {
+            node = getChild(node, id);
+            if (node < 0) {
+                return false;
+            }
+        }
+        return node != ROOT && endElement.get(node);
+    }
+
+    /**
+     * @return the number of nodes in the tree including the root.
+     */
+    public int size()
+    {
+        return label.length;
+    }
+
+    private int getChild(int aNode, int aId)
+    {
+        if (aId == UNKNOWN) {
+            return -1;
+        }
+
+        int lo = firstChild[aNode];
+        int hi = firstChild[aNode + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int l = label[mid];
+            if (l < aId) {
+                lo = mid + 1;
+            }
+            else if (l > aId) {
+                hi = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
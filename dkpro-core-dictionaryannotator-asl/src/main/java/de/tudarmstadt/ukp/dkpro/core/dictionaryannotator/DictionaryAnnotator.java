@@ -102,7 +102,7 @@ public class DictionaryAnnotator
 	@ConfigurationParameter(name = PARAM_VALUE, mandatory = false)
 	private String value;
 
-	private PhraseTree phrases;
+	private CompactPhraseTree phrases;
 
 	@Override
 	public void initialize(UimaContext aContext)
@@ -114,16 +114,16 @@ public class DictionaryAnnotator
 			annotationType = NGram.class.getName();
 		}
 
-		phrases = new PhraseTree();
-
 		InputStream is = null;
 		try {
 			URL phraseFileUrl = ResourceUtils.resolveLocation(phraseFile, aContext);
 			is = phraseFileUrl.openStream();
+			List<String[]> phraseList = new ArrayList<String[]>();
 			for (String inputLine : IOUtils.readLines(is, modelEncoding)) {
 				String[] phraseSplit = inputLine.split(" ");
-				phrases.addPhrase(phraseSplit);
+				phraseList.add(phraseSplit);
 			}
+			phrases = CompactPhraseTree.build(phraseList);
 		}
 		catch (IOException e) {
 			throw new ResourceInitializationException(e);
@@ -149,21 +149,21 @@ public class DictionaryAnnotator
 		}
 
 		for (Sentence currSentence : select(jcas, Sentence.class)) {
-			ArrayList<Token> tokens = new ArrayList<Token>(selectCovered(Token.class, currSentence));
+			List<Token> tokens = selectCovered(Token.class, currSentence);
 
+			// Look up the token texts only once per sentence
+			String[] tokenTexts = new String[tokens.size()];
 			for (int i = 0; i < tokens.size(); i++) {
-				List<Token> tokensToSentenceEnd = tokens.subList(i, tokens.size() - 1);
-				String[] sentenceToEnd = new String[tokens.size()];
-
-				for (int j = 0; j < tokensToSentenceEnd.size(); j++) {
-					sentenceToEnd[j] = tokensToSentenceEnd.get(j).getCoveredText();
-				}
+				tokenTexts[i] = tokens.get(i).getCoveredText();
+			}
+			int[] tokenIds = phrases.toIds(tokenTexts);
 
-				String[] longestMatch = phrases.getLongestMatch(sentenceToEnd);
+			for (int i = 0; i < tokenIds.length; i++) {
+				int matchLength = phrases.getLongestMatch(tokenIds, i);
 
-				if (longestMatch != null) {
+				if (matchLength > 0) {
 					Token beginToken = tokens.get(i);
-					Token endToken = tokens.get(i + longestMatch.length - 1);
+					Token endToken = tokens.get(i + matchLength - 1);
 
 					AnnotationFS newFound = jcas.getCas().createAnnotation(type,
 							beginToken.getBegin(), endToken.getEnd());
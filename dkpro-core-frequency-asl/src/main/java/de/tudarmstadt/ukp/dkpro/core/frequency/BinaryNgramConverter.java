@@ -0,0 +1,529 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.frequency;
+
+import static de.tudarmstadt.ukp.dkpro.core.frequency.BinaryNgramProvider.MAGIC;
+import static de.tudarmstadt.ukp.dkpro.core.frequency.BinaryNgramProvider.VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+
+/**
+ * Converts a Web1T folder into the binary n-gram format read by {@link BinaryNgramProvider}.
+ * The n-gram files of each level ({@code 1gms}, {@code 2gms}, ...) are read, optionally gzipped,
+ * in the usual {@code w1 w2 ... wn<TAB>count} format. Only the data files {@code vocab} and
+ * {@code Ngm-NNNN} are read, other files like {@code vocab_cs} or {@code Ngm.idx} are ignored.
+ * The n-grams are sorted externally, i.e. in runs limited by the sort buffer size which are then
+ * merged, so only the vocabulary needs to fit into memory. N-grams occurring multiple times are
+ * summed up.
+ */
+public class BinaryNgramConverter
+{
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    public static final long DEFAULT_SORT_BUFFER_SIZE = 64 * 1024 * 1024;
+
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private long sortBufferSize = DEFAULT_SORT_BUFFER_SIZE;
+
+    /**
+     * Convert all n-gram levels found in the given folder.
+     *
+     * @param web1TFolder
+     *            the folder containing the {@code 1gms}, {@code 2gms}, ... sub-folders.
+     * @param target
+     *            the binary n-gram file to write.
+     * @throws IOException
+     *             if the n-grams cannot be read or the target cannot be written.
+     */
+    public void convert(File web1TFolder, File target)
+        throws IOException
+    {
+        List<File[]> levels = new ArrayList<>();
+        for (int n = 1;; n++) {
+            File folder = new File(web1TFolder, n + "gms");
+            if (!folder.isDirectory()) {
+                break;
+            }
+            // Skip the sorted unigram copy (vocab_cs) and the index files (Ngm.idx)
+            Pattern dataFile = Pattern
+                    .compile(n == 1 ? "vocab(\\.gz)?" : n + "gms?-\\d+(\\.gz)?");
+            File[] files = folder.listFiles(
+                    f -> f.isFile() && dataFile.matcher(f.getName()).matches());
+            Arrays.sort(files);
+            levels.add(files);
+        }
+        if (levels.isEmpty()) {
+            throw new IOException("No n-gram folders found in [" + web1TFolder + "]");
+        }
+
+        String[] vocabulary = readVocabulary(levels);
+        File tempFolder = target.getAbsoluteFile().getParentFile();
+
+        CountingOutputStream counter = new CountingOutputStream(
+                new BufferedOutputStream(new FileOutputStream(target)));
+        try (DataOutputStream out = new DataOutputStream(counter)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            // Vocabulary
+            long offsetsStart = counter.getByteCount();
+            MappedStringDictionary.writeOffsets(out, vocabulary);
+            long tableStart = counter.getByteCount();
+            int tableSize = MappedStringDictionary.writeTable(out, vocabulary);
+            long wordsStart = counter.getByteCount();
+            MappedStringDictionary.writeStrings(out, vocabulary);
+
+            // N-grams
+            List<BlockWriter> writers = new ArrayList<>();
+            for (int i = 0; i < levels.size(); i++) {
+                BlockWriter writer = new BlockWriter(i + 1, out, counter, tempFolder);
+                try {
+                    convertLevel(i + 1, levels.get(i), vocabulary, writer, tempFolder);
+                    writer.writeIndex();
+                }
+                finally {
+                    writer.close();
+                }
+                writers.add(writer);
+            }
+
+            // Directory
+            long directoryStart = counter.getByteCount();
+            out.writeInt(blockSize);
+            out.writeInt(tableSize);
+            out.writeLong(offsetsStart);
+            out.writeLong(tableStart);
+            out.writeLong(wordsStart);
+            out.writeInt(writers.size());
+            for (BlockWriter writer : writers) {
+                out.writeLong(writer.nrOfNgrams);
+                out.writeLong(writer.nrOfDistinctNgrams);
+                out.writeLong(writer.blockCount);
+                out.writeLong(writer.indexStart);
+            }
+            out.writeLong(directoryStart);
+        }
+    }
+
+    public int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    /**
+     * @param blockSize
+     *            the number of n-grams per block. Larger blocks make the sparse index smaller,
+     *            but a lookup has to decode more entries.
+     */
+    public void setBlockSize(int blockSize)
+    {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1 but was ["
+                    + blockSize + "]");
+        }
+        this.blockSize = blockSize;
+    }
+
+    public long getSortBufferSize()
+    {
+        return sortBufferSize;
+    }
+
+    /**
+     * @param sortBufferSize
+     *            the memory in bytes used to sort n-grams before they are written to a temporary
+     *            run file.
+     */
+    public void setSortBufferSize(long sortBufferSize)
+    {
+        if (sortBufferSize < 1) {
+            throw new IllegalArgumentException("Sort buffer size must be at least 1 but was ["
+                    + sortBufferSize + "]");
+        }
+        this.sortBufferSize = sortBufferSize;
+    }
+
+    private String[] readVocabulary(List<File[]> levels)
+        throws IOException
+    {
+        Set<String> words = new HashSet<>();
+        for (int i = 0; i < levels.size(); i++) {
+            read(i + 1, levels.get(i), (tokens, count) -> {
+                for (String token : tokens) {
+                    words.add(token);
+                }
+            });
+        }
+
+        String[] vocabulary = words.toArray(new String[words.size()]);
+        Arrays.sort(vocabulary);
+        return vocabulary;
+    }
+
+    private void convertLevel(int n, File[] files, String[] vocabulary, BlockWriter writer,
+            File tempFolder)
+        throws IOException
+    {
+        // Each record consists of the word ids followed by the upper and lower half of the count
+        int stride = n + 2;
+        int capacity = (int) Math.max(1,
+                Math.min(sortBufferSize / (stride * Integer.BYTES), Integer.MAX_VALUE / stride));
+        int[] records = new int[capacity * stride];
+        int[] size = { 0 };
+
+        List<File> runs = new ArrayList<>();
+        try {
+            read(n, files, (tokens, count) -> {
+                int base = size[0] * stride;
+                for (int i = 0; i < n; i++) {
+                    records[base + i] = Arrays.binarySearch(vocabulary, tokens[i]);
+                }
+                records[base + n] = (int) (count >>> 32);
+                records[base + n + 1] = (int) count;
+                size[0]++;
+
+                if (size[0] == capacity) {
+                    runs.add(writeRun(n, records, size[0], tempFolder));
+                    size[0] = 0;
+                }
+            });
+            if (size[0] > 0) {
+                runs.add(writeRun(n, records, size[0], tempFolder));
+            }
+
+            merge(n, runs, writer);
+        }
+        finally {
+            for (File run : runs) {
+                Files.deleteIfExists(run.toPath());
+            }
+        }
+    }
+
+    /**
+     * Sort the records and write them to a temporary file, summing up the counts of duplicates.
+     */
+    private File writeRun(int n, int[] records, int size, File tempFolder)
+        throws IOException
+    {
+        int stride = n + 2;
+        it.unimi.dsi.fastutil.Arrays.quickSort(0, size, new AbstractIntComparator()
+        {
+            @Override
+            public int compare(int a, int b)
+            {
+                int pa = a * stride;
+                int pb = b * stride;
+                for (int i = 0; i < n; i++) {
+                    if (records[pa + i] != records[pb + i]) {
+                        return Integer.compare(records[pa + i], records[pb + i]);
+                    }
+                }
+                return 0;
+            }
+        }, (a, b) -> {
+            for (int i = 0; i < stride; i++) {
+                int tmp = records[a * stride + i];
+                records[a * stride + i] = records[b * stride + i];
+                records[b * stride + i] = tmp;
+            }
+        });
+
+        File run = File.createTempFile("ngrams", ".run", tempFolder);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(run)))) {
+            int i = 0;
+            while (i < size) {
+                int base = i * stride;
+                long count = 0;
+                int j = i;
+                while (j < size && equalKeys(records, base, j * stride, n)) {
+                    int pos = j * stride + n;
+                    count += ((long) records[pos] << 32) | (records[pos + 1] & 0xFFFFFFFFL);
+                    j++;
+                }
+                for (int k = 0; k < n; k++) {
+                    out.writeInt(records[base + k]);
+                }
+                out.writeLong(count);
+                i = j;
+            }
+        }
+        return run;
+    }
+
+    private void merge(int n, List<File> runs, BlockWriter writer)
+        throws IOException
+    {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> BinaryNgramProvider.compare(a.key, b.key, n));
+        try {
+            for (File run : runs) {
+                RunReader reader = new RunReader(run, n);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+                else {
+                    reader.close();
+                }
+            }
+
+            int[] key = new int[n];
+            long count = 0;
+            boolean pending = false;
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                if (pending && BinaryNgramProvider.compare(key, reader.key, n) == 0) {
+                    count += reader.count;
+                }
+                else {
+                    if (pending) {
+                        writer.add(key, count);
+                    }
+                    System.arraycopy(reader.key, 0, key, 0, n);
+                    count = reader.count;
+                    pending = true;
+                }
+
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+                else {
+                    reader.close();
+                }
+            }
+            if (pending) {
+                writer.add(key, count);
+            }
+        }
+        finally {
+            for (RunReader reader : queue) {
+                reader.close();
+            }
+        }
+    }
+
+    private static boolean equalKeys(int[] records, int a, int b, int n)
+    {
+        for (int i = 0; i < n; i++) {
+            if (records[a + i] != records[b + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read all n-grams of a level from the given files.
+     */
+    private static void read(int n, File[] files, NgramConsumer consumer)
+        throws IOException
+    {
+        for (File file : files) {
+            InputStream is = new FileInputStream(file);
+            if (file.getName().endsWith(".gz")) {
+                is = new GZIPInputStream(is);
+            }
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(is, StandardCharsets.UTF_8))) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+
+                    int tab = line.lastIndexOf('\t');
+                    String[] tokens = tab > 0 ? line.substring(0, tab).split(" ") : null;
+                    if (tokens == null || tokens.length != n) {
+                        throw new IOException(file + ":" + lineNumber + ": Expected " + n
+                                + "-gram followed by a count but found [" + line + "]");
+                    }
+
+                    long count;
+                    try {
+                        count = Long.parseLong(line.substring(tab + 1).trim());
+                    }
+                    catch (NumberFormatException e) {
+                        throw new IOException(file + ":" + lineNumber + ": Invalid count ["
+                                + line.substring(tab + 1) + "]");
+                    }
+
+                    consumer.accept(tokens, count);
+                }
+            }
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value)
+        throws IOException
+    {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private interface NgramConsumer
+    {
+        void accept(String[] tokens, long count)
+            throws IOException;
+    }
+
+    private static final class RunReader
+    {
+        final DataInputStream in;
+        final int[] key;
+        long count;
+
+        RunReader(File run, int n)
+            throws IOException
+        {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+            key = new int[n];
+        }
+
+        boolean next()
+            throws IOException
+        {
+            try {
+                key[0] = in.readInt();
+            }
+            catch (EOFException e) {
+                return false;
+            }
+            for (int i = 1; i < key.length; i++) {
+                key[i] = in.readInt();
+            }
+            count = in.readLong();
+            return true;
+        }
+
+        void close()
+            throws IOException
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the sorted n-grams of one level as delta-encoded blocks to the target and spools the
+     * sparse block index to a temporary file which is appended once all blocks are written.
+     */
+    private final class BlockWriter
+    {
+        private final int n;
+        private final DataOutputStream out;
+        private final CountingOutputStream counter;
+        private final File indexSpool;
+        private final DataOutputStream index;
+        private final int[] previous;
+        long nrOfNgrams;
+        long nrOfDistinctNgrams;
+        long blockCount;
+        long indexStart;
+
+        BlockWriter(int n, DataOutputStream out, CountingOutputStream counter, File tempFolder)
+            throws IOException
+        {
+            this.n = n;
+            this.out = out;
+            this.counter = counter;
+            previous = new int[n];
+            indexSpool = File.createTempFile("ngrams", ".index", tempFolder);
+            index = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(indexSpool)));
+        }
+
+        void add(int[] key, long count)
+            throws IOException
+        {
+            int shared = 0;
+            if (nrOfDistinctNgrams % blockSize == 0) {
+                Arrays.fill(previous, 0);
+                for (int id : key) {
+                    index.writeInt(id);
+                }
+                index.writeLong(counter.getByteCount());
+                blockCount++;
+            }
+            else {
+                while (key[shared] == previous[shared]) {
+                    shared++;
+                }
+            }
+
+            out.writeByte(shared);
+            writeVarLong(out, key[shared] - previous[shared]);
+            for (int i = shared + 1; i < n; i++) {
+                writeVarLong(out, key[i]);
+            }
+            writeVarLong(out, count);
+
+            System.arraycopy(key, 0, previous, 0, n);
+            nrOfDistinctNgrams++;
+            nrOfNgrams += count;
+        }
+
+        void writeIndex()
+            throws IOException
+        {
+            index.close();
+            indexStart = counter.getByteCount();
+            Files.copy(indexSpool.toPath(), out);
+        }
+
+        void close()
+            throws IOException
+        {
+            try {
+                index.close();
+            }
+            finally {
+                Files.deleteIfExists(indexSpool.toPath());
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.frequency;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import de.tudarmstadt.ukp.dkpro.core.api.frequency.provider.FrequencyCountProviderBase;
+
+/**
+ * Frequency count provider backed by a memory-mapped binary n-gram file as created by
+ * {@link BinaryNgramConverter}. The file is never loaded onto the heap, so it may be larger than
+ * the available memory. Lookups allocate no objects and only use absolute reads on the mapped
+ * file, so a single instance can be shared between threads.
+ * <p>
+ * The file consists of
+ * <ul>
+ * <li>a magic number and the format version (int, int)</li>
+ * <li>the vocabulary as a {@link MappedStringDictionary}: the offsets of the UTF-8 encoded
+ * words (long, one per word plus one end offset), an open-addressing hash table mapping the hash
+ * of a word to its id (int, -1 if the slot is empty) and the encoded words. Ids are assigned in the
+ * natural order of the words.</li>
+ * <li>per n-gram level, the n-grams as id tuples in ascending order, grouped in blocks of a fixed
+ * number of entries. Each entry is stored as the number of leading ids it shares with the
+ * previous entry (byte), the difference of the first differing id to the previous entry (varint),
+ * the remaining ids (varint) and the count (varint). The first entry of each block is stored
+ * relative to zero, so each block can be decoded on its own.</li>
+ * <li>per n-gram level, a sparse index holding the first id tuple (int) and the file offset (long)
+ * of each block</li>
+ * <li>a directory with the block size, the positions of the sections and the n-gram totals</li>
+ * <li>the position of the directory (long)</li>
+ * </ul>
+ * A lookup maps the words of the phrase to ids, locates the block by binary search over the
+ * sparse index and decodes at most one block.
+ */
+public class BinaryNgramProvider
+    extends FrequencyCountProviderBase
+{
+    static final int MAGIC = 0x444B4E47; // "DKNG"
+    static final int VERSION = 1;
+
+    private final String language;
+    private final MappedFileBuffer buffer;
+    private final int blockSize;
+    private final MappedStringDictionary vocabulary;
+    private final Level[] levels;
+    private final ThreadLocal<Cursor> cursors;
+
+    public BinaryNgramProvider(String language, File ngramFile)
+        throws IOException
+    {
+        this.language = language;
+        buffer = new MappedFileBuffer(ngramFile);
+
+        if (buffer.size() < 2 * Integer.BYTES + Long.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary n-gram file: [" + ngramFile + "]");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported binary n-gram file version ["
+                    + buffer.getInt(Integer.BYTES) + "]");
+        }
+
+        long pos = buffer.getLong(buffer.size() - Long.BYTES);
+        blockSize = buffer.getInt(pos);
+        pos += Integer.BYTES;
+        int tableSize = buffer.getInt(pos);
+        pos += Integer.BYTES;
+        long offsetsStart = buffer.getLong(pos);
+        pos += Long.BYTES;
+        long tableStart = buffer.getLong(pos);
+        pos += Long.BYTES;
+        long wordsStart = buffer.getLong(pos);
+        pos += Long.BYTES;
+        vocabulary = new MappedStringDictionary(buffer, tableSize, offsetsStart, tableStart,
+                wordsStart);
+
+        levels = new Level[buffer.getInt(pos)];
+        pos += Integer.BYTES;
+        for (int i = 0; i < levels.length; i++) {
+            Level level = new Level(i + 1);
+            level.nrOfNgrams = buffer.getLong(pos);
+            level.nrOfDistinctNgrams = buffer.getLong(pos + Long.BYTES);
+            level.blockCount = buffer.getLong(pos + 2 * Long.BYTES);
+            level.indexStart = buffer.getLong(pos + 3 * Long.BYTES);
+            pos += 4 * Long.BYTES;
+            levels[i] = level;
+        }
+
+        int maxN = levels.length;
+        cursors = ThreadLocal.withInitial(() -> new Cursor(maxN));
+    }
+
+    @Override
+    protected long getFrequencyFromProvider(String phrase)
+        throws IOException
+    {
+        Cursor cursor = cursors.get();
+        int n = toIds(phrase, cursor.query);
+        if (n <= 0) {
+            return 0;
+        }
+
+        Level level = levels[n - 1];
+        long block = findBlock(level, cursor.query);
+        if (block < 0) {
+            return 0;
+        }
+
+        cursor.pos = buffer.getLong(level.indexStart + block * level.indexEntrySize
+                + n * Integer.BYTES);
+        long entries = Math.min(blockSize, level.nrOfDistinctNgrams - block * blockSize);
+        for (long i = 0; i < entries; i++) {
+            long count = readEntry(cursor, n, i == 0);
+            int cmp = compare(cursor.key, cursor.query, n);
+            if (cmp == 0) {
+                return count;
+            }
+            if (cmp > 0) {
+                break;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long getNrOfNgrams(int n)
+    {
+        return n > 0 && n <= levels.length ? levels[n - 1].nrOfNgrams : 0;
+    }
+
+    @Override
+    public long getNrOfDistinctNgrams(int n)
+    {
+        return n > 0 && n <= levels.length ? levels[n - 1].nrOfDistinctNgrams : 0;
+    }
+
+    @Override
+    public long getNrOfTokens()
+    {
+        return getNrOfNgrams(1);
+    }
+
+    @Override
+    public Iterator<String> getNgramIterator(int n)
+        throws IOException
+    {
+        if (n <= 0 || n > levels.length) {
+            return Collections.emptyIterator();
+        }
+        return new NgramIterator(levels[n - 1]);
+    }
+
+    @Override
+    public String getLanguage()
+    {
+        return language;
+    }
+
+    /**
+     * Map the space-separated words of the phrase to vocabulary ids.
+     *
+     * @return the number of words or {@code -1} if a word is not in the vocabulary or the phrase
+     *         is longer than the longest n-grams in the file.
+     */
+    private int toIds(String phrase, int[] ids)
+    {
+        int n = 0;
+        int length = phrase.length();
+        int begin = 0;
+        while (begin < length) {
+            int end = phrase.indexOf(' ', begin);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > begin) {
+                if (n == ids.length) {
+                    return -1;
+                }
+                int id = vocabulary.indexOf(phrase, begin, end);
+                if (id < 0) {
+                    return -1;
+                }
+                ids[n++] = id;
+            }
+            begin = end + 1;
+        }
+        return n;
+    }
+
+    /**
+     * @return the last block whose first n-gram is not larger than the given one or {@code -1} if
+     *         the n-gram is smaller than all n-grams of the level.
+     */
+    private long findBlock(Level level, int[] ids)
+    {
+        long low = 0;
+        long high = level.blockCount - 1;
+        long result = -1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long pos = level.indexStart + mid * level.indexEntrySize;
+            int cmp = 0;
+            for (int i = 0; i < level.n && cmp == 0; i++) {
+                cmp = Integer.compare(buffer.getInt(pos + i * Integer.BYTES), ids[i]);
+            }
+            if (cmp <= 0) {
+                result = mid;
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decode the entry at the current position of the cursor into its key.
+     *
+     * @return the count of the entry.
+     */
+    private long readEntry(Cursor cursor, int n, boolean blockStart)
+    {
+        int[] key = cursor.key;
+        if (blockStart) {
+            Arrays.fill(key, 0, n, 0);
+        }
+
+        int shared = buffer.get(cursor.pos++);
+        key[shared] += (int) readVarLong(cursor);
+        for (int i = shared + 1; i < n; i++) {
+            key[i] = (int) readVarLong(cursor);
+        }
+        return readVarLong(cursor);
+    }
+
+    private long readVarLong(Cursor cursor)
+    {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(cursor.pos++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while (b < 0);
+        return value;
+    }
+
+    static int compare(int[] a, int[] b, int n)
+    {
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return Integer.compare(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+
+    private static final class Level
+    {
+        final int n;
+        final int indexEntrySize;
+        long nrOfNgrams;
+        long nrOfDistinctNgrams;
+        long blockCount;
+        long indexStart;
+
+        Level(int n)
+        {
+            this.n = n;
+            indexEntrySize = n * Integer.BYTES + Long.BYTES;
+        }
+    }
+
+    /**
+     * Per-thread decoding state, so that lookups do not need to allocate.
+     */
+    private static final class Cursor
+    {
+        final int[] query;
+        final int[] key;
+        long pos;
+
+        Cursor(int maxN)
+        {
+            query = new int[maxN];
+            key = new int[maxN];
+        }
+    }
+
+    private class NgramIterator
+        implements Iterator<String>
+    {
+        private final Level level;
+        private final Cursor cursor;
+        private long next;
+
+        NgramIterator(Level level)
+        {
+            this.level = level;
+            cursor = new Cursor(level.n);
+            if (level.blockCount > 0) {
+                // Blocks are stored back to back, so the iterator only needs to seek once
+                cursor.pos = buffer.getLong(level.indexStart + level.n * Integer.BYTES);
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return next < level.nrOfDistinctNgrams;
+        }
+
+        @Override
+        public String next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            readEntry(cursor, level.n, next % blockSize == 0);
+            next++;
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < level.n; i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                sb.append(vocabulary.get(cursor.key[i]));
+            }
+            return sb.toString();
+        }
+    }
+}
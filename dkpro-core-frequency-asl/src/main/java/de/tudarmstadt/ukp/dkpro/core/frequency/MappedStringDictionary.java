@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.frequency;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary of strings stored in a {@link MappedFileBuffer}, mapping each string to its id. It
+ * consists of three sections, which do not need to be adjacent:
+ * <ul>
+ * <li>the offsets of the UTF-8 encoded strings (long, one per string plus one end offset)</li>
+ * <li>an open-addressing hash table mapping the hash of a string to its id (int, -1 if the slot is
+ * empty)</li>
+ * <li>the encoded strings</li>
+ * </ul>
+ * Lookups allocate no objects and only use absolute reads on the buffer, so a single instance can
+ * be shared between threads.
+ */
+public class MappedStringDictionary
+{
+    private static final int EMPTY = -1;
+
+    private final MappedFileBuffer buffer;
+    private final int tableMask;
+    private final long offsetsStart;
+    private final long tableStart;
+    private final long stringsStart;
+
+    /**
+     * @param buffer
+     *            the buffer containing the dictionary.
+     * @param tableSize
+     *            the size of the hash table as returned by {@link #writeTable}.
+     * @param offsetsStart
+     *            the position of the offsets.
+     * @param tableStart
+     *            the position of the hash table.
+     * @param stringsStart
+     *            the position of the encoded strings.
+     */
+    public MappedStringDictionary(MappedFileBuffer buffer, int tableSize, long offsetsStart,
+            long tableStart, long stringsStart)
+    {
+        this.buffer = buffer;
+        this.tableMask = tableSize - 1;
+        this.offsetsStart = offsetsStart;
+        this.tableStart = tableStart;
+        this.stringsStart = stringsStart;
+    }
+
+    /**
+     * @return the id of the string or {@code -1} if the string is not in the dictionary.
+     */
+    public int indexOf(String string)
+    {
+        return indexOf(string, 0, string.length());
+    }
+
+    /**
+     * @return the id of the string between the given offsets or {@code -1} if the string is not in
+     *         the dictionary.
+     */
+    public int indexOf(String string, int begin, int end)
+    {
+        // Same as String.hashCode() on the substring, but without creating it
+        int h = 0;
+        for (int i = begin; i < end; i++) {
+            h = 31 * h + string.charAt(i);
+        }
+
+        int slot = (h ^ (h >>> 16)) & tableMask;
+        while (true) {
+            int id = buffer.getInt(tableStart + (long) slot * Integer.BYTES);
+            if (id == EMPTY) {
+                return -1;
+            }
+            if (matches(id, string, begin, end)) {
+                return id;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+    }
+
+    /**
+     * @return the string with the given id.
+     */
+    public String get(int id)
+    {
+        long begin = stringsStart + buffer.getLong(offsetsStart + (long) id * Long.BYTES);
+        long end = stringsStart + buffer.getLong(offsetsStart + (id + 1L) * Long.BYTES);
+        byte[] bytes = new byte[(int) (end - begin)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(begin + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare the UTF-8 encoded string with the given id to the given part of the string without
+     * decoding the encoded string into a new string.
+     */
+    private boolean matches(int id, String string, int begin, int end)
+    {
+        long pos = stringsStart + buffer.getLong(offsetsStart + (long) id * Long.BYTES);
+        long encodedEnd = stringsStart + buffer.getLong(offsetsStart + (id + 1L) * Long.BYTES);
+        int i = begin;
+        while (pos < encodedEnd) {
+            if (i >= end) {
+                return false;
+            }
+
+            int b = buffer.get(pos++) & 0xFF;
+            int codePoint;
+            if (b < 0x80) {
+                codePoint = b;
+            }
+            else if (b < 0xE0) {
+                codePoint = ((b & 0x1F) << 6) | (buffer.get(pos++) & 0x3F);
+            }
+            else if (b < 0xF0) {
+                codePoint = ((b & 0x0F) << 12) | ((buffer.get(pos++) & 0x3F) << 6)
+                        | (buffer.get(pos++) & 0x3F);
+            }
+            else {
+                codePoint = ((b & 0x07) << 18) | ((buffer.get(pos++) & 0x3F) << 12)
+                        | ((buffer.get(pos++) & 0x3F) << 6) | (buffer.get(pos++) & 0x3F);
+            }
+
+            int c = string.codePointAt(i);
+            if (c != codePoint) {
+                return false;
+            }
+            i += Character.charCount(c);
+        }
+        return i == end;
+    }
+
+    /**
+     * Write the offsets section. The id of a string is its position in the given array.
+     */
+    public static void writeOffsets(DataOutput out, String[] strings)
+        throws IOException
+    {
+        long offset = 0;
+        for (String string : strings) {
+            out.writeLong(offset);
+            offset += string.getBytes(StandardCharsets.UTF_8).length;
+        }
+        out.writeLong(offset);
+    }
+
+    /**
+     * Write the hash table section.
+     *
+     * @return the size of the hash table.
+     */
+    public static int writeTable(DataOutput out, String[] strings)
+        throws IOException
+    {
+        // Keep the load factor at or below 0.5 so that probe sequences remain short
+        int tableSize = Integer.highestOneBit(Math.max(1, strings.length * 2 - 1)) << 1;
+        int[] table = new int[tableSize];
+        Arrays.fill(table, EMPTY);
+        for (int id = 0; id < strings.length; id++) {
+            int h = strings[id].hashCode();
+            int slot = (h ^ (h >>> 16)) & (tableSize - 1);
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            table[slot] = id;
+        }
+        for (int slot : table) {
+            out.writeInt(slot);
+        }
+        return tableSize;
+    }
+
+    /**
+     * Write the encoded strings section.
+     */
+    public static void writeStrings(DataOutput out, String[] strings)
+        throws IOException
+    {
+        for (String string : strings) {
+            out.write(string.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
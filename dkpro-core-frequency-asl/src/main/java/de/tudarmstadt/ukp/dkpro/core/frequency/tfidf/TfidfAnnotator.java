@@ -17,6 +17,8 @@
  */
 package de.tudarmstadt.ukp.dkpro.core.frequency.tfidf;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map.Entry;
 
@@ -33,18 +35,19 @@ import org.apache.uima.util.Level;
 import de.tudarmstadt.ukp.dkpro.core.api.featurepath.FeaturePathException;
 import de.tudarmstadt.ukp.dkpro.core.api.featurepath.FeaturePathFactory;
 import de.tudarmstadt.ukp.dkpro.core.api.frequency.tfidf.type.Tfidf;
+import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.BinaryDfModel;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.DfModel;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.DfStore;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.SharedDfModel;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.util.FreqDist;
-import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.util.TermIterator;
+import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.util.TermCounter;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.util.TfidfUtils;
 
 /**
  * This component adds {@link Tfidf} annotations consisting of a term and a tfidf weight. <br>
  * The annotator is type agnostic concerning the input annotation, so you have to specify the
- * annotation type and string representation. It uses a pre-serialized {@link DfStore}, which can be
- * created using the {@link TfidfConsumer}.
+ * annotation type and string representation. It uses a pre-serialized {@link DfStore} or a
+ * memory-mapped {@link BinaryDfModel}, which can be created using the {@link TfidfConsumer}.
  * 
  */
 @TypeCapability(outputs = { "de.tudarmstadt.ukp.dkpro.core.api.frequency.tfidf.type.Tfidf" })
@@ -113,6 +116,11 @@ public class TfidfAnnotator
 
     private DfModel dfModel;
 
+    // Reused between documents
+    private TermCounter termFrequencies;
+    private List<AnnotationFS> annotations;
+    private List<String> terms;
+
     @Override
     public void initialize(UimaContext context)
         throws ResourceInitializationException
@@ -124,15 +132,21 @@ public class TfidfAnnotator
         catch (Exception e) {
             throw new ResourceInitializationException(e);
         }
+
+        termFrequencies = new TermCounter();
+        annotations = new ArrayList<AnnotationFS>();
+        terms = new ArrayList<String>();
     }
 
     @Override
     public void process(JCas jcas)
         throws AnalysisEngineProcessException
     {
-
-        FreqDist<String> termFrequencies = getTermFrequencies(jcas);
-
+        // Count all terms with the given annotation in a single pass and remember them, so the
+        // feature path does not have to be evaluated again when adding the annotations
+        termFrequencies.clear();
+        annotations.clear();
+        terms.clear();
         try {
             for (Entry<AnnotationFS, String> entry : FeaturePathFactory.select(jcas.getCas(),
                     featurePath)) {
@@ -141,37 +155,66 @@ public class TfidfAnnotator
                     term = term.toLowerCase();
                 }
 
-                int tf = termFrequencies.getCount(term);
-                int df = dfModel.getDf(term);
-                if (df == 0) {
-                    getContext().getLogger().log(Level.WARNING,
-                            "Term [" + term + "] not found in dfStore!");
-                }
-
-                double tfidf = getWeightedTf(tf) * getWeightedIdf(df, dfModel.getDocumentCount());
-
-                logTfidf(term, tf, df, tfidf);
-
-                Tfidf tfidfAnnotation = new Tfidf(jcas);
-                tfidfAnnotation.setTerm(term);
-                tfidfAnnotation.setTfidfValue(tfidf);
-                tfidfAnnotation.setBegin(entry.getKey().getBegin());
-                tfidfAnnotation.setEnd(entry.getKey().getEnd());
-                tfidfAnnotation.addToIndexes();
+                termFrequencies.count(term);
+                annotations.add(entry.getKey());
+                terms.add(term);
             }
         }
         catch (FeaturePathException e) {
             throw new AnalysisEngineProcessException(e);
         }
+
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            AnnotationFS annotation = annotations.get(i);
+
+            int tf = termFrequencies.getCount(term);
+            int df = dfModel.getDf(term);
+            if (df == 0) {
+                getContext().getLogger().log(Level.WARNING,
+                        "Term [" + term + "] not found in dfStore!");
+            }
+
+            double tfidf = getWeightedTf(tf) * getWeightedIdf(df, dfModel.getDocumentCount());
+
+            logTfidf(term, tf, df, tfidf);
+
+            Tfidf tfidfAnnotation = new Tfidf(jcas);
+            tfidfAnnotation.setTerm(term);
+            tfidfAnnotation.setTfidfValue(tfidf);
+            tfidfAnnotation.setBegin(annotation.getBegin());
+            tfidfAnnotation.setEnd(annotation.getEnd());
+            tfidfAnnotation.addToIndexes();
+        }
+
+        // Do not keep the annotations of this document alive
+        annotations.clear();
+        terms.clear();
     }
 
+    /**
+     * Counts all terms with the given annotation in the document.
+     * 
+     * @deprecated {@link #process(JCas)} counts the terms while collecting them and no longer
+     *             calls this method, so overriding it has no effect on the annotations.
+     */
+    @Deprecated
     protected FreqDist<String> getTermFrequencies(JCas jcas)
         throws AnalysisEngineProcessException
     {
-        // count all terms with the given annotation
         FreqDist<String> termFrequencies = new FreqDist<String>();
-        for (String term : TermIterator.create(jcas, featurePath, lowercase)) {
-            termFrequencies.count(term);
+        try {
+            for (Entry<AnnotationFS, String> entry : FeaturePathFactory.select(jcas.getCas(),
+                    featurePath)) {
+                String term = entry.getValue();
+                if (lowercase) {
+                    term = term.toLowerCase();
+                }
+                termFrequencies.count(term);
+            }
+        }
+        catch (FeaturePathException e) {
+            throw new AnalysisEngineProcessException(e);
         }
         return termFrequencies;
     }
@@ -25,6 +25,7 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.BinaryDfModel;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.DfModel;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.DfStore;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.util.TermIterator;
@@ -62,6 +63,15 @@ public class TfidfConsumer
     @ConfigurationParameter(name = PARAM_FEATURE_PATH, mandatory = true)
     private String featurePath;
 
+    /**
+     * If set to true, the model is written as a memory-mapped {@link BinaryDfModel} instead of
+     * using Java serialization. Such a model loads almost instantly and is recognized
+     * automatically by the {@link TfidfAnnotator}.
+     */
+    public static final String PARAM_BINARY_MODEL = "binaryModel";
+    @ConfigurationParameter(name = PARAM_BINARY_MODEL, mandatory = true, defaultValue = "false")
+    private boolean binaryModel;
+
     private DfStore dfStore;
 
     @Override
@@ -93,7 +103,12 @@ public class TfidfConsumer
         throws AnalysisEngineProcessException
     {
         try {
-            TfidfUtils.writeDfModel(dfStore, outputPath);
+            if (binaryModel) {
+                TfidfUtils.writeBinaryDfModel(dfStore, outputPath);
+            }
+            else {
+                TfidfUtils.writeDfModel(dfStore, outputPath);
+            }
         }
         catch (Exception e) {
             throw new AnalysisEngineProcessException(e);
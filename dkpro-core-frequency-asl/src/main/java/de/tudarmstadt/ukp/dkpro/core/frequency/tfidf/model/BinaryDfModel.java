@@ -0,0 +1,297 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import de.tudarmstadt.ukp.dkpro.core.frequency.MappedFileBuffer;
+import de.tudarmstadt.ukp.dkpro.core.frequency.MappedStringDictionary;
+
+/**
+ * {@link DfModel} backed by a memory-mapped binary file. Opening the model only reads the header,
+ * so even models with many millions of terms are available immediately and the operating system
+ * pages in only the parts which are actually used. Lookups allocate no objects and only use
+ * absolute reads on the mapped file, so a single instance can be shared between threads.
+ * <p>
+ * The file consists of
+ * <ul>
+ * <li>a magic number and the format version (int, int)</li>
+ * <li>the offsets of the UTF-8 encoded terms (long, one per term plus one end offset)</li>
+ * <li>an open-addressing hash table mapping the hash of a term to its id (int, -1 if the slot is
+ * empty)</li>
+ * <li>the document frequencies (int, one per term)</li>
+ * <li>the encoded terms. Ids are assigned in the natural order of the terms.</li>
+ * <li>the feature path (UTF-8 encoded)</li>
+ * <li>a directory with the number of terms, the table size, the positions of the sections, the
+ * document count and the lowercase flag</li>
+ * <li>the position of the directory (long)</li>
+ * </ul>
+ * The offsets, the hash table and the terms form a {@link MappedStringDictionary}. The format is
+ * written by {@link #write(DfStore, File)} and recognized by {@link #isBinaryDfModel(File)}.
+ */
+public class BinaryDfModel
+    implements DfModel
+{
+    private static final long serialVersionUID = 4316095384223451796L;
+
+    static final int MAGIC = 0x444B4446; // "DKDF"
+    static final int VERSION = 1;
+
+    private final File file;
+    private final transient MappedFileBuffer buffer;
+    private final transient int termCount;
+    private final transient MappedStringDictionary terms;
+    private final transient long dfStart;
+    private final transient int documentCount;
+    private final transient boolean lowercase;
+    private final transient String featurePath;
+
+    private BinaryDfModel(File file)
+        throws IOException
+    {
+        this.file = file;
+        buffer = new MappedFileBuffer(file);
+
+        if (buffer.size() < 2 * Integer.BYTES + Long.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary df model: [" + file + "]");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported binary df model version ["
+                    + buffer.getInt(Integer.BYTES) + "]");
+        }
+
+        long pos = buffer.getLong(buffer.size() - Long.BYTES);
+        termCount = buffer.getInt(pos);
+        pos += Integer.BYTES;
+        int tableSize = buffer.getInt(pos);
+        pos += Integer.BYTES;
+        long offsetsStart = buffer.getLong(pos);
+        pos += Long.BYTES;
+        long tableStart = buffer.getLong(pos);
+        pos += Long.BYTES;
+        dfStart = buffer.getLong(pos);
+        pos += Long.BYTES;
+        long termsStart = buffer.getLong(pos);
+        pos += Long.BYTES;
+        terms = new MappedStringDictionary(buffer, tableSize, offsetsStart, tableStart,
+                termsStart);
+        long featurePathStart = buffer.getLong(pos);
+        pos += Long.BYTES;
+        int featurePathLength = buffer.getInt(pos);
+        pos += Integer.BYTES;
+        documentCount = buffer.getInt(pos);
+        pos += Integer.BYTES;
+        lowercase = buffer.get(pos) != 0;
+
+        if (featurePathLength >= 0) {
+            byte[] bytes = new byte[featurePathLength];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(featurePathStart + i);
+            }
+            featurePath = new String(bytes, StandardCharsets.UTF_8);
+        }
+        else {
+            featurePath = null;
+        }
+    }
+
+    /**
+     * Open a binary df model.
+     *
+     * @param file
+     *            the model file.
+     * @return the model.
+     * @throws IOException
+     *             if the file cannot be read or is not a binary df model.
+     */
+    public static BinaryDfModel open(File file)
+        throws IOException
+    {
+        return new BinaryDfModel(file);
+    }
+
+    /**
+     * @param file
+     *            a file.
+     * @return whether the file starts like a binary df model.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+    public static boolean isBinaryDfModel(File file)
+        throws IOException
+    {
+        if (file.length() < Integer.BYTES) {
+            return false;
+        }
+
+        try (DataInputStream is = new DataInputStream(new FileInputStream(file))) {
+            return is.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Write the document frequencies collected in the given store as a binary df model.
+     *
+     * @param dfStore
+     *            the store.
+     * @param file
+     *            the target file.
+     * @throws IOException
+     *             if the model cannot be written.
+     */
+    public static void write(DfStore dfStore, File file)
+        throws IOException
+    {
+        String[] terms = dfStore.getTerms().toArray(new String[0]);
+        Arrays.sort(terms);
+
+        if (file.getParentFile() != null) {
+            FileUtils.forceMkdir(file.getParentFile());
+        }
+
+        CountingOutputStream counter = new CountingOutputStream(
+                new BufferedOutputStream(FileUtils.openOutputStream(file)));
+        try (DataOutputStream out = new DataOutputStream(counter)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            long offsetsStart = counter.getByteCount();
+            MappedStringDictionary.writeOffsets(out, terms);
+            long tableStart = counter.getByteCount();
+            int tableSize = MappedStringDictionary.writeTable(out, terms);
+
+            long dfStart = counter.getByteCount();
+            for (String term : terms) {
+                out.writeInt(dfStore.getDf(term));
+            }
+
+            long termsStart = counter.getByteCount();
+            MappedStringDictionary.writeStrings(out, terms);
+
+            long featurePathStart = counter.getByteCount();
+            byte[] featurePath = dfStore.getFeaturePath() != null
+                    ? dfStore.getFeaturePath().getBytes(StandardCharsets.UTF_8) : null;
+            if (featurePath != null) {
+                out.write(featurePath);
+            }
+
+            // Directory
+            long directoryStart = counter.getByteCount();
+            out.writeInt(terms.length);
+            out.writeInt(tableSize);
+            out.writeLong(offsetsStart);
+            out.writeLong(tableStart);
+            out.writeLong(dfStart);
+            out.writeLong(termsStart);
+            out.writeLong(featurePathStart);
+            out.writeInt(featurePath != null ? featurePath.length : -1);
+            out.writeInt(dfStore.getDocumentCount());
+            out.writeBoolean(dfStore.getLowercase());
+            out.writeLong(directoryStart);
+        }
+    }
+
+    @Override
+    public int getDf(String term)
+    {
+        int id = terms.indexOf(term);
+        return id >= 0 ? buffer.getInt(dfStart + (long) id * Integer.BYTES) : 0;
+    }
+
+    @Override
+    public int getDocumentCount()
+    {
+        return documentCount;
+    }
+
+    @Override
+    public String getFeaturePath()
+    {
+        return featurePath;
+    }
+
+    @Override
+    public boolean getLowercase()
+    {
+        return lowercase;
+    }
+
+    /**
+     * @return the number of distinct terms in the model.
+     */
+    public int getTermCount()
+    {
+        return termCount;
+    }
+
+    @Override
+    public String toString()
+    {
+        return file.getPath();
+    }
+
+    /**
+     * The mapping cannot be serialized, so only the file is serialized and mapped again when
+     * deserializing.
+     */
+    private Object writeReplace()
+        throws ObjectStreamException
+    {
+        return new SerializedForm(file);
+    }
+
+    private static final class SerializedForm
+        implements Serializable
+    {
+        private static final long serialVersionUID = -3311622905453101872L;
+
+        private final File file;
+
+        SerializedForm(File file)
+        {
+            this.file = file;
+        }
+
+        private Object readResolve()
+            throws ObjectStreamException
+        {
+            try {
+                return open(file);
+            }
+            catch (IOException e) {
+                InvalidObjectException ex = new InvalidObjectException(
+                        "Unable to open binary df model [" + file + "]");
+                ex.initCause(e);
+                throw ex;
+            }
+        }
+    }
+}
@@ -84,6 +84,14 @@ public class DfStore
         return df.getCount(term);
     }
 
+    /**
+     * @return all terms which occur in at least one document.
+     */
+    public Set<String> getTerms()
+    {
+        return df.getKeys();
+    }
+
     @Override
     public int getDocumentCount()
     {
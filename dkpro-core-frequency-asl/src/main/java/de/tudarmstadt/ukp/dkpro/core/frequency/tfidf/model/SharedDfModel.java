@@ -71,7 +71,18 @@ public class SharedDfModel
         throws ResourceInitializationException
     {
         try {
-            dfModel = (DfModel) new ObjectInputStream(aData.getInputStream()).readObject();
+            // Binary models are memory-mapped, which requires a file
+            if (aData.getUrl() != null && "file".equals(aData.getUrl().getProtocol())) {
+                File file = new File(aData.getUri());
+                if (BinaryDfModel.isBinaryDfModel(file)) {
+                    dfModel = BinaryDfModel.open(file);
+                    return;
+                }
+            }
+
+            try (ObjectInputStream is = new ObjectInputStream(aData.getInputStream())) {
+                dfModel = (DfModel) is.readObject();
+            }
         }
         catch (Exception e) {
             throw new ResourceInitializationException(e);
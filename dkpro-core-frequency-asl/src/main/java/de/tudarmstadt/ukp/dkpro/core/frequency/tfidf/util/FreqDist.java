@@ -132,6 +132,16 @@ public class FreqDist<T>
         }
     }
 
+    /**
+     * Returns the elements which have been counted.
+     * 
+     * @return the elements
+     */
+    public Set<T> getKeys()
+    {
+        return Collections.unmodifiableSet(counts.keySet());
+    }
+
     /**
      * Returns the accumulated count of all elements.
      * 
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.util;
+
+import java.util.Arrays;
+
+/**
+ * Counts terms using an open-addressing hash table with primitive counts. Unlike {@link FreqDist},
+ * counting does not box the counts or create map entries, and the counter can be
+ * {@link #clear() cleared} and reused for the next document without giving up its capacity.
+ */
+public class TermCounter
+{
+    private String[] terms;
+    private int[] counts;
+    private int size;
+
+    public TermCounter()
+    {
+        this(64);
+    }
+
+    /**
+     * @param expectedTerms
+     *            the number of distinct terms expected.
+     */
+    public TermCounter(int expectedTerms)
+    {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedTerms * 2 - 1)) << 1;
+        terms = new String[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * Increment the count of the given term.
+     *
+     * @param term
+     *            the term.
+     */
+    public void count(String term)
+    {
+        int slot = slot(terms, term);
+        if (terms[slot] == null) {
+            terms[slot] = term;
+            size++;
+            if (size * 2 > terms.length) {
+                grow();
+                slot = slot(terms, term);
+            }
+        }
+        counts[slot]++;
+    }
+
+    /**
+     * @param term
+     *            a term.
+     * @return how often the term was counted.
+     */
+    public int getCount(String term)
+    {
+        int slot = slot(terms, term);
+        return terms[slot] != null ? counts[slot] : 0;
+    }
+
+    /**
+     * @return the number of distinct terms.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Reset all counts.
+     */
+    public void clear()
+    {
+        if (size > 0) {
+            Arrays.fill(terms, null);
+            Arrays.fill(counts, 0);
+            size = 0;
+        }
+    }
+
+    private void grow()
+    {
+        String[] oldTerms = terms;
+        int[] oldCounts = counts;
+        terms = new String[oldTerms.length * 2];
+        counts = new int[oldTerms.length * 2];
+        for (int i = 0; i < oldTerms.length; i++) {
+            if (oldTerms[i] != null) {
+                int slot = slot(terms, oldTerms[i]);
+                terms[slot] = oldTerms[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding the term or the empty slot where it would be inserted.
+     */
+    private static int slot(String[] table, String term)
+    {
+        int mask = table.length - 1;
+        int h = term.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (table[slot] != null && !table[slot].equals(term)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
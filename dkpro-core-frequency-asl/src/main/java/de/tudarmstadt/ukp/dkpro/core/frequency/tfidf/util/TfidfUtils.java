@@ -27,6 +27,7 @@ import java.io.ObjectOutputStream;
 
 import org.apache.commons.io.FileUtils;
 
+import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.BinaryDfModel;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.DfModel;
 import de.tudarmstadt.ukp.dkpro.core.frequency.tfidf.model.DfStore;
 
@@ -54,7 +55,24 @@ public class TfidfUtils
     }
 
     /**
-     * Reads a {@link DfStore} from disk.
+     * Writes the DfStore at outputPath as a memory-mapped {@link BinaryDfModel}.
+     * 
+     * @param dfStore
+     *            a model.
+     * @param path
+     *            the target path.
+     * @throws IOException
+     *             if the model cannot be written.
+     */
+    public static void writeBinaryDfModel(DfStore dfStore, String path)
+        throws IOException
+    {
+        BinaryDfModel.write(dfStore, new File(path));
+    }
+
+    /**
+     * Reads a {@link DfStore} from disk. If the file is a {@link BinaryDfModel}, it is
+     * memory-mapped instead.
      * 
      * @param path
      *            the source path.
@@ -65,6 +83,10 @@ public class TfidfUtils
     public static DfModel getDfModel(String path)
         throws IOException
     {
+        File file = new File(path);
+        if (BinaryDfModel.isBinaryDfModel(file)) {
+            return BinaryDfModel.open(file);
+        }
         return deserialize(path);
     }
 
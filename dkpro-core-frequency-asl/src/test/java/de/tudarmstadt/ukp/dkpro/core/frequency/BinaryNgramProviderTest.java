@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.frequency;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.core.testing.DkproTestContext;
+
+public class BinaryNgramProviderTest
+{
+    @Rule
+    public DkproTestContext testContext = new DkproTestContext();
+
+    @Test
+    public void binaryNgramTest()
+        throws Exception
+    {
+        BinaryNgramProvider provider = convert(new BinaryNgramConverter());
+
+        test(provider);
+    }
+
+    @Test
+    public void binaryNgramTest_smallBlocksAndRuns()
+        throws Exception
+    {
+        // Force several blocks per level and several sorted runs that need to be merged
+        BinaryNgramConverter converter = new BinaryNgramConverter();
+        converter.setBlockSize(2);
+        converter.setSortBufferSize(64);
+        BinaryNgramProvider provider = convert(converter);
+
+        test(provider);
+    }
+
+    @Test
+    public void binaryNgramTest_web1tDistribution()
+        throws Exception
+    {
+        // Contains the sorted unigram copy vocab_cs.gz and the index file 2gm.idx, which must
+        // not be read as n-grams
+        BinaryNgramProvider provider = convert(new BinaryNgramConverter(),
+                "src/test/resources/web1t-distribution/");
+
+        test(provider);
+    }
+
+    @Test
+    public void binaryNgramIteratorTest()
+        throws Exception
+    {
+        BinaryNgramConverter converter = new BinaryNgramConverter();
+        converter.setBlockSize(3);
+        BinaryNgramProvider provider = convert(converter);
+
+        List<String> unigrams = toList(provider.getNgramIterator(1));
+        assertEquals(11, unigrams.size());
+        assertEquals("!", unigrams.get(0));
+        assertEquals("Nilmerg", unigrams.get(10));
+
+        List<String> bigrams = toList(provider.getNgramIterator(2));
+        assertEquals(21, bigrams.size());
+        assertEquals("frist website", bigrams.get(0));
+        assertEquals("influx this", bigrams.get(20));
+
+        assertEquals(0, toList(provider.getNgramIterator(3)).size());
+    }
+
+    @Test
+    public void binaryNgramConcurrentTest()
+        throws Exception
+    {
+        BinaryNgramProvider provider = convert(new BinaryNgramConverter());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        test(provider);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private BinaryNgramProvider convert(BinaryNgramConverter converter)
+        throws Exception
+    {
+        return convert(converter, "src/test/resources/web1t/");
+    }
+
+    private BinaryNgramProvider convert(BinaryNgramConverter converter, String web1TFolder)
+        throws Exception
+    {
+        File target = new File(testContext.getTestOutputFolder(), "ngrams.bin");
+        converter.convert(new File(web1TFolder), target);
+        return new BinaryNgramProvider("en", target);
+    }
+
+    private void test(BinaryNgramProvider provider) throws Exception {
+        assertEquals(2147436244l, provider.getFrequency("!"));
+        assertEquals(528,         provider.getFrequency("Nilmeier"));
+        assertEquals(106,         provider.getFrequency("influx takes"));
+        assertEquals(69,          provider.getFrequency("frist will"));
+        assertEquals(188,         provider.getFrequency("frist xxx"));
+
+        assertEquals(0,           provider.getFrequency("Nilmeie"));
+        assertEquals(0,           provider.getFrequency("takes influx"));
+        assertEquals(0,           provider.getFrequency("frist will win"));
+
+        assertEquals(13893397919l, provider.getNrOfNgrams(1));
+        assertEquals(6042, provider.getNrOfNgrams(2));
+        assertEquals(11, provider.getNrOfDistinctNgrams(1));
+        assertEquals(21, provider.getNrOfDistinctNgrams(2));
+    }
+
+    private static List<String> toList(Iterator<String> iterator)
+    {
+        List<String> list = new ArrayList<>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        return list;
+    }
+}
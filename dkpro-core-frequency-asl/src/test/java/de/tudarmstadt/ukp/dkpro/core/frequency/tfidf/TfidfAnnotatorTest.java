@@ -173,6 +173,44 @@ public class TfidfAnnotatorTest
         }
     }
 
+    @Test
+    public void tfidfTest_binaryModel()
+        throws Exception
+    {
+        File binaryModel = folder.newFile();
+
+        CollectionReaderDescription reader = createReaderDescription(TextReader.class,
+                TextReader.PARAM_SOURCE_LOCATION, CONSUMER_TEST_DATA_PATH, 
+                TextReader.PARAM_PATTERNS, INCLUDE_PREFIX + "*.txt");
+
+        AnalysisEngineDescription segmenter = createEngineDescription(BreakIteratorSegmenter.class);
+
+        SimplePipeline.runPipeline(reader, segmenter, createEngineDescription(
+                TfidfConsumer.class, 
+                TfidfConsumer.PARAM_FEATURE_PATH, Token.class, 
+                TfidfConsumer.PARAM_TARGET_LOCATION, binaryModel,
+                TfidfConsumer.PARAM_BINARY_MODEL, true));
+
+        AnalysisEngineDescription tfidfAnnotator = createEngineDescription(TfidfAnnotator.class,
+                TfidfAnnotator.PARAM_FEATURE_PATH, Token.class,
+                TfidfAnnotator.PARAM_TFDF_PATH, binaryModel, 
+                TfidfAnnotator.PARAM_TF_MODE, WeightingModeTf.NORMAL, 
+                TfidfAnnotator.PARAM_IDF_MODE, WeightingModeIdf.LOG);
+
+        Map<String, Double> expectedDoc1 = new HashMap<String, Double>();
+        expectedDoc1.put("example", 0.0);
+        expectedDoc1.put("sentence", 0.0);
+        expectedDoc1.put("funny", Math.log(2));
+
+        Map<String, Double> expectedDoc2 = new HashMap<String, Double>();
+        expectedDoc2.put("example", 0.0);
+        expectedDoc2.put("sentence", 0.0);
+
+        for (JCas jcas : new JCasIterable(reader, segmenter, tfidfAnnotator)) {
+            testIt(jcas, expectedDoc1, expectedDoc2);
+        }
+    }
+
     private void testIt(JCas jcas, Map<String, Double> expectedDoc1,
             Map<String, Double> expectedDoc2)
     {
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.hunpos;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.ProcessBuilder.Redirect;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.uima.util.Level;
+import org.apache.uima.util.Logger;
+
+/**
+ * A pool of long-running {@code hunpos-tag} processes. The processes are started lazily and kept
+ * alive across documents so that the model is loaded only once per process. Each process has a
+ * dedicated writer thread which streams the sentences to the tagger while the tags are read back
+ * concurrently, so the tagger never waits for the next sentence. Processes which terminate
+ * unexpectedly are restarted and the failed batch is retried once.
+ */
+class HunPosProcessPool
+{
+    private final Logger log;
+    private final File executable;
+    private final File model;
+    private final String encoding;
+    private final List<Worker> workers;
+    private final ExecutorService readerExecutor;
+
+    private final AtomicLong taggedSentences = new AtomicLong();
+    private final AtomicLong taggedTokens = new AtomicLong();
+    private final AtomicLong taggingTime = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+
+    public HunPosProcessPool(Logger aLog, File aExecutable, File aModel, String aEncoding,
+            int aSize)
+    {
+        log = aLog;
+        executable = aExecutable;
+        model = aModel;
+        encoding = aEncoding;
+
+        workers = new ArrayList<>(aSize);
+        for (int i = 0; i < aSize; i++) {
+            workers.add(new Worker(i));
+        }
+        readerExecutor = Executors.newFixedThreadPool(aSize, r -> {
+            Thread t = new Thread(r, "hunpos-reader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public File getModel()
+    {
+        return model;
+    }
+
+    public String getEncoding()
+    {
+        return encoding;
+    }
+
+    /**
+     * Tag the given sentences. The sentences are split into contiguous batches which are
+     * distributed over the processes in the pool.
+     *
+     * @param aSentences
+     *            the sentences, each given as an array of token texts.
+     * @param aBatchSize
+     *            the maximum number of sentences sent to a process in a single batch.
+     * @return the tags for each token of each sentence.
+     * @throws IOException
+     *             if a process fails even after having been restarted.
+     */
+    public String[][] tag(List<String[]> aSentences, int aBatchSize)
+        throws IOException
+    {
+        long start = System.nanoTime();
+
+        String[][] tags = new String[aSentences.size()][];
+
+        // Small documents are handled by a single process without any batching overhead
+        if (workers.size() == 1 || aSentences.size() <= aBatchSize) {
+            workers.get(0).tagWithRetry(aSentences, tags, 0);
+        }
+        else {
+            List<Future<Void>> futures = new ArrayList<>();
+            int batch = 0;
+            for (int offset = 0; offset < aSentences.size(); offset += aBatchSize) {
+                Worker worker = workers.get(batch % workers.size());
+                List<String[]> sentences = aSentences.subList(offset,
+                        Math.min(offset + aBatchSize, aSentences.size()));
+                int batchOffset = offset;
+                futures.add(readerExecutor.submit(() -> {
+                    worker.tagWithRetry(sentences, tags, batchOffset);
+                    return null;
+                }));
+                batch++;
+            }
+
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        }
+
+        long tokens = 0;
+        for (String[] sentence : aSentences) {
+            tokens += sentence.length;
+        }
+        taggedSentences.addAndGet(aSentences.size());
+        taggedTokens.addAndGet(tokens);
+        taggingTime.addAndGet(System.nanoTime() - start);
+
+        return tags;
+    }
+
+    public long getTaggedSentences()
+    {
+        return taggedSentences.get();
+    }
+
+    public long getTaggedTokens()
+    {
+        return taggedTokens.get();
+    }
+
+    public long getRestarts()
+    {
+        return restarts.get();
+    }
+
+    /**
+     * @return the average number of tokens tagged per second.
+     */
+    public double getThroughput()
+    {
+        long time = taggingTime.get();
+        return time == 0 ? 0.0 : taggedTokens.get() / (time / 1_000_000_000.0);
+    }
+
+    public void logStatistics()
+    {
+        log.log(Level.INFO, String.format(
+                "HunPos pool [%s]: %d processes, %d sentences, %d tokens, %.1f tokens/s, "
+                        + "%d restarts", model.getName(), workers.size(), getTaggedSentences(),
+                getTaggedTokens(), getThroughput(), getRestarts()));
+    }
+
+    public void shutdown()
+    {
+        readerExecutor.shutdownNow();
+        for (Worker worker : workers) {
+            worker.stop();
+            worker.writerExecutor.shutdownNow();
+        }
+    }
+
+    private static void closeQuietly(Closeable aCloseable)
+    {
+        try {
+            if (aCloseable != null) {
+                aCloseable.close();
+            }
+        }
+        catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static void await(Future<?> aFuture)
+        throws IOException
+    {
+        try {
+            aFuture.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private class Worker
+    {
+        private final int id;
+        private final ExecutorService writerExecutor;
+        private Process process;
+        private BufferedWriter out;
+        private BufferedReader in;
+
+        public Worker(int aId)
+        {
+            id = aId;
+            writerExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "hunpos-writer-" + aId);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        public synchronized void tagWithRetry(List<String[]> aSentences, String[][] aTags,
+                int aOffset)
+            throws IOException
+        {
+            try {
+                tag(aSentences, aTags, aOffset);
+            }
+            catch (IOException e) {
+                log.log(Level.WARNING, "HunPos process " + id + " failed - restarting: "
+                        + e.getMessage());
+                stop();
+                restarts.incrementAndGet();
+                tag(aSentences, aTags, aOffset);
+            }
+        }
+
+        private void tag(List<String[]> aSentences, String[][] aTags, int aOffset)
+            throws IOException
+        {
+            ensureRunning();
+
+            BufferedWriter sink = out;
+            Future<Void> writer = writerExecutor.submit(() -> {
+                for (String[] sentence : aSentences) {
+                    for (String token : sentence) {
+                        sink.write(token);
+                        sink.write('\n');
+                    }
+                    sink.write('\n');
+                }
+                sink.flush();
+                return null;
+            });
+
+            String[] sentence = null;
+            String line = null;
+            try {
+                for (int s = 0; s < aSentences.size(); s++) {
+                    sentence = aSentences.get(s);
+                    String[] tags = new String[sentence.length];
+                    for (int i = 0; i < sentence.length; i++) {
+                        line = in.readLine();
+                        if (line == null) {
+                            throw new IOException("HunPos process terminated unexpectedly");
+                        }
+                        int sep = line.indexOf('\t');
+                        if (sep < 0) {
+                            throw new IOException("Unexpected response: [" + line + "]");
+                        }
+                        tags[i] = line.substring(sep + 1).trim();
+                    }
+                    in.readLine(); // Read extra new line after sentence
+                    aTags[aOffset + s] = tags;
+                }
+
+                await(writer);
+            }
+            catch (IOException e) {
+                writer.cancel(true);
+                throw new IOException(e.getMessage() + " - sent before error: ["
+                        + (sentence != null ? String.join(" ", sentence) : "")
+                        + "], last response before error: [" + line + "]", e);
+            }
+        }
+
+        private void ensureRunning()
+            throws IOException
+        {
+            if (process != null && process.isAlive()) {
+                return;
+            }
+
+            stop();
+
+            ProcessBuilder pb = new ProcessBuilder(executable.getAbsolutePath(),
+                    model.getAbsolutePath());
+            pb.redirectError(Redirect.INHERIT);
+            process = pb.start();
+            out = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), encoding));
+            in = new BufferedReader(new InputStreamReader(process.getInputStream(), encoding));
+        }
+
+        public void stop()
+        {
+            if (process != null) {
+                closeQuietly(out);
+                closeQuietly(in);
+                process.destroy();
+                process = null;
+                out = null;
+                in = null;
+            }
+        }
+    }
+}
@@ -20,14 +20,10 @@ package de.tudarmstadt.ukp.dkpro.core.hunpos;
 import static org.apache.uima.fit.util.JCasUtil.select;
 import static org.apache.uima.fit.util.JCasUtil.selectCovered;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.lang.ProcessBuilder.Redirect;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.uima.UimaContext;
@@ -116,9 +112,30 @@ public class HunPosTagger
     @ConfigurationParameter(name = PARAM_PRINT_TAGSET, mandatory = true, defaultValue = "false")
     protected boolean printTagSet;
 
+    /**
+     * Number of {@code hunpos-tag} processes kept running to tag the sentences of a document in
+     * parallel. The processes are kept alive across documents.
+     *
+     * Default: {@code 1}
+     */
+    public static final String PARAM_NUM_PROCESSES = "numProcesses";
+    @ConfigurationParameter(name = PARAM_NUM_PROCESSES, mandatory = true, defaultValue = "1")
+    private int numProcesses;
+
+    /**
+     * Maximum number of sentences sent to a single process at a time. Documents with more
+     * sentences are split into batches which are distributed over the available processes.
+     *
+     * Default: {@code 100}
+     */
+    public static final String PARAM_BATCH_SIZE = "batchSize";
+    @ConfigurationParameter(name = PARAM_BATCH_SIZE, mandatory = true, defaultValue = "100")
+    private int batchSize;
+
     private CasConfigurableProviderBase<File> modelProvider;
     private RuntimeProvider runtimeProvider;
     private MappingProvider posMappingProvider;
+    private HunPosProcessPool processPool;
 
     @Override
     public void initialize(UimaContext aContext)
@@ -126,6 +143,15 @@ public class HunPosTagger
     {
         super.initialize(aContext);
 
+        if (numProcesses < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Parameter [" + PARAM_NUM_PROCESSES + "] must be at least 1"));
+        }
+        if (batchSize < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Parameter [" + PARAM_BATCH_SIZE + "] must be at least 1"));
+        }
+
         modelProvider = new CasConfigurableProviderBase<File>()
         {
             {
@@ -172,90 +198,88 @@ public class HunPosTagger
             throw new AnalysisEngineProcessException(
                     new Throwable("Model should contain encoding metadata"));
         }
-        File model = modelProvider.getResource();
-        File executable;
+        
+        HunPosProcessPool pool = getProcessPool(modelProvider.getResource(), modelEncoding);
+
+        List<List<Token>> sentenceTokens = new ArrayList<>();
+        List<String[]> sentences = new ArrayList<>();
+        for (Sentence sentence : select(aJCas, Sentence.class)) {
+            List<Token> tokens = selectCovered(Token.class, sentence);
 
+            // Skip empty sentences
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            
+            String[] tokenTexts = new String[tokens.size()];
+            for (int i = 0; i < tokens.size(); i++) {
+                tokenTexts[i] = tokens.get(i).getCoveredText();
+            }
+            sentenceTokens.add(tokens);
+            sentences.add(tokenTexts);
+        }
+        
+        String[][] tags;
         try {
-            executable = runtimeProvider.getFile("hunpos-tag");
+            tags = pool.tag(sentences, batchSize);
         }
         catch (IOException e) {
             throw new AnalysisEngineProcessException(e);
         }
 
-        ProcessBuilder pb = new ProcessBuilder(executable.getAbsolutePath(),
-                model.getAbsolutePath());
-        pb.redirectError(Redirect.INHERIT);
-
-        StringBuffer lastOut = new StringBuffer();
-        String lastIn = null;
-        boolean success = false;
-        Process proc = null;
-        try {
-            proc = pb.start();
-
-            PrintWriter out = new PrintWriter(new OutputStreamWriter(proc.getOutputStream(),
-                    modelEncoding));
-            BufferedReader in = new BufferedReader(new InputStreamReader(proc.getInputStream(),
-                    modelEncoding));
-
-            for (Sentence sentence : select(aJCas, Sentence.class)) {
-                List<Token> tokens = selectCovered(Token.class, sentence);
-
-                // Skip empty sentences
-                if (tokens.isEmpty()) {
-                    continue;
-                }
-
-                // Send full sentence
-                for (Token token : tokens) {
-                    lastOut.append(token.getCoveredText()).append(' ');
-                    out.printf("%s%n", token.getCoveredText());
-                }
-                out.printf("%n");
-                out.flush();
-
-                // Read sentence tags
-                String[] tags = new String[tokens.size()];
-                for (int i = 0; i < tokens.size(); i++) {
-                    lastIn = in.readLine();
-                    tags[i] = lastIn.split("\t", 2)[1].trim();
-                }
-                in.readLine(); // Read extra new line after sentence
-
-                int i = 0;
-                for (Token t : tokens) {
-                    Type posTag = posMappingProvider.getTagType(tags[i]);
-                    POS posAnno = (POS) cas.createAnnotation(posTag, t.getBegin(), t.getEnd());
-                    posAnno.setPosValue(internTags ? tags[i].intern() : tags[i]);
-                    posAnno.setCoarseValue(posAnno.getClass().equals(POS.class) ? null
-                            : posAnno.getType().getShortName().intern());
-                    posAnno.addToIndexes();
-                    t.setPos(posAnno);
-                    i++;
-                }
-
-                lastOut.setLength(0);
+        for (int s = 0; s < sentenceTokens.size(); s++) {
+            int i = 0;
+            for (Token t : sentenceTokens.get(s)) {
+                String tag = tags[s][i];
+                Type posTag = posMappingProvider.getTagType(tag);
+                POS posAnno = (POS) cas.createAnnotation(posTag, t.getBegin(), t.getEnd());
+                posAnno.setPosValue(internTags ? tag.intern() : tag);
+                posAnno.setCoarseValue(posAnno.getClass().equals(POS.class) ? null
+                        : posAnno.getType().getShortName().intern());
+                posAnno.addToIndexes();
+                t.setPos(posAnno);
+                i++;
             }
+        }
+    }
 
-            success = true;
+    private HunPosProcessPool getProcessPool(File aModel, String aEncoding)
+        throws AnalysisEngineProcessException
+    {
+        // Keep the running processes as long as the model does not change
+        if (processPool != null && processPool.getModel().equals(aModel)
+                && processPool.getEncoding().equals(aEncoding)) {
+            return processPool;
+        }
+        
+        shutdownProcessPool();
+
+        File executable;
+        try {
+            executable = runtimeProvider.getFile("hunpos-tag");
         }
         catch (IOException e) {
             throw new AnalysisEngineProcessException(e);
         }
-        finally {
-            if (!success) {
-                getLogger().error("Sent before error: [" + lastOut + "]");
-                getLogger().error("Last response before error: [" + lastIn + "]");
-            }
-            if (proc != null) {
-                proc.destroy();
-            }
+        
+        processPool = new HunPosProcessPool(getLogger(), executable, aModel, aEncoding,
+                numProcesses);
+        return processPool;
+    }
+    
+    private void shutdownProcessPool()
+    {
+        if (processPool != null) {
+            processPool.logStatistics();
+            processPool.shutdown();
+            processPool = null;
         }
     }
 
     @Override
     public void destroy()
     {
+        shutdownProcessPool();
         runtimeProvider.uninstall();
         super.destroy();
     }
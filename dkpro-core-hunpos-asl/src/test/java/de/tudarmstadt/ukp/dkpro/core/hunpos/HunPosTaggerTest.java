@@ -87,6 +87,33 @@ public class HunPosTaggerTest
         		new String[] { "PROPN",   "VERB",   "VERB",        "NOUN",     "PUNCT" });
     }
 
+    @Test
+    public void testEnglishProcessPool()
+        throws Exception
+    {
+        AnalysisEngine engine = createEngine(HunPosTagger.class,
+                HunPosTagger.PARAM_NUM_PROCESSES, 2,
+                HunPosTagger.PARAM_BATCH_SIZE, 1);
+
+        try {
+            // Run multiple documents to make sure the processes survive across documents
+            for (int n = 0; n < 3; n++) {
+                JCas jcas = TestRunner.runTest(engine, "en",
+                        "This is a test .\nA neural net .\nThis is a test .");
+
+                AssertAnnotations.assertPOS(
+                        new String[] { "DET", "VERB", "DET", "NOUN", "PUNCT", "DET", "ADJ",
+                                "NOUN", "PUNCT", "DET", "VERB", "DET", "NOUN", "PUNCT" },
+                        new String[] { "DT", "VBZ", "DT", "NN", ".", "DT", "JJ", "NN", ".",
+                                "DT", "VBZ", "DT", "NN", "." },
+                        select(jcas, POS.class));
+            }
+        }
+        finally {
+            engine.destroy();
+        }
+    }
+
     @Test
     public void testFarsi()
         throws Exception
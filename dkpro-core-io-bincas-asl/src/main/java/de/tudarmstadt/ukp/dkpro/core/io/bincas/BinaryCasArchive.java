@@ -0,0 +1,362 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.io.bincas;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.CASMgrSerializer;
+import org.apache.uima.cas.impl.TypeSystemImpl;
+import org.apache.uima.util.CasIOUtils;
+
+/**
+ * Random access to a CAS archive written by {@link BinaryCasArchiveWriter}. The archive is mapped
+ * into memory, so documents are paged in by the operating system on demand and several readers
+ * can share the archive without reading it more than once. An instance can be used by multiple
+ * threads concurrently.
+ * <p>
+ * Layout of the archive:
+ * <ul>
+ * <li>Magic number {@code DKProA1\0}</li>
+ * <li>Type system: length (int), Java-serialized {@link CASMgrSerializer}</li>
+ * <li>Documents: one {@code COMPRESSED_FILTERED} payload after the other</li>
+ * <li>Index: number of documents (int), per document the ID (UTF), offset (long) and length
+ * (int) of the payload; number of skip lists (int), per skip list the type name (UTF), the number
+ * of documents (int) and the ascending positions of the documents containing the type (int)</li>
+ * <li>Footer: offset of the index (long), magic number</li>
+ * </ul>
+ */
+public class BinaryCasArchive
+    implements Closeable
+{
+    static final byte[] MAGIC = new byte[] { 'D', 'K', 'P', 'r', 'o', 'A', '1', 0 };
+    static final int FOOTER_SIZE = Long.BYTES + MAGIC.length;
+
+    /**
+     * Documents are mapped in segments of at most this size. A segment always starts at a
+     * document boundary, so no document spans two segments.
+     */
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final TypeSystemImpl typeSystem;
+    private final String[] documentIds;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final Map<String, int[]> skipLists;
+    private final Map<String, Integer> documentPositions;
+
+    private final List<MappedByteBuffer> segments;
+    private final long[] segmentStarts;
+    private final int[] documentSegments;
+
+    private BinaryCasArchive(File aFile)
+        throws IOException
+    {
+        file = aFile;
+        raf = new RandomAccessFile(aFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+
+            if (size < MAGIC.length + FOOTER_SIZE) {
+                throw new IOException("[" + aFile + "] is not a CAS archive");
+            }
+
+            // Footer
+            ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, size - FOOTER_SIZE,
+                    FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            checkMagic(footer);
+            checkMagic(channel.map(FileChannel.MapMode.READ_ONLY, 0, MAGIC.length));
+
+            // Type system
+            ByteBuffer tsLength = channel.map(FileChannel.MapMode.READ_ONLY, MAGIC.length,
+                    Integer.BYTES);
+            ByteBuffer tsData = channel.map(FileChannel.MapMode.READ_ONLY,
+                    MAGIC.length + Integer.BYTES, tsLength.getInt());
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new ByteBufferInputStream(tsData))) {
+                CASMgrSerializer casMgr = (CASMgrSerializer) ois.readObject();
+                typeSystem = casMgr.getTypeSystem();
+                typeSystem.commit();
+            }
+            catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+
+            // Index
+            DataInputStream index = new DataInputStream(new ByteBufferInputStream(
+                    channel.map(FileChannel.MapMode.READ_ONLY, indexOffset,
+                            size - FOOTER_SIZE - indexOffset)));
+            int documentCount = index.readInt();
+            documentIds = new String[documentCount];
+            offsets = new long[documentCount];
+            lengths = new int[documentCount];
+            documentPositions = new HashMap<>(documentCount * 4 / 3 + 1);
+            for (int i = 0; i < documentCount; i++) {
+                documentIds[i] = index.readUTF();
+                offsets[i] = index.readLong();
+                lengths[i] = index.readInt();
+                documentPositions.putIfAbsent(documentIds[i], i);
+            }
+
+            int skipListCount = index.readInt();
+            skipLists = new HashMap<>();
+            for (int i = 0; i < skipListCount; i++) {
+                String typeName = index.readUTF();
+                int[] documents = new int[index.readInt()];
+                for (int d = 0; d < documents.length; d++) {
+                    documents[d] = index.readInt();
+                }
+                skipLists.put(typeName, documents);
+            }
+
+            // Map the documents. Documents are stored in ascending order, so a new segment is
+            // started whenever the next document would not fit into the current one.
+            segments = new ArrayList<>();
+            List<Long> starts = new ArrayList<>();
+            documentSegments = new int[documentCount];
+            int first = 0;
+            while (first < documentCount) {
+                long start = offsets[first];
+                int last = first;
+                while (last + 1 < documentCount
+                        && offsets[last + 1] + lengths[last + 1] - start <= MAX_SEGMENT_SIZE) {
+                    last++;
+                }
+                long end = offsets[last] + lengths[last];
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+                starts.add(start);
+                Arrays.fill(documentSegments, first, last + 1, segments.size() - 1);
+                first = last + 1;
+            }
+            segmentStarts = new long[starts.size()];
+            for (int i = 0; i < segmentStarts.length; i++) {
+                segmentStarts[i] = starts.get(i);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a CAS archive.
+     *
+     * @param aFile
+     *            the archive.
+     * @return the opened archive.
+     * @throws IOException
+     *             if the archive cannot be read or if the file is not a CAS archive.
+     */
+    public static BinaryCasArchive open(File aFile)
+        throws IOException
+    {
+        return new BinaryCasArchive(aFile);
+    }
+
+    private void checkMagic(ByteBuffer aBuffer)
+        throws IOException
+    {
+        byte[] magic = new byte[MAGIC.length];
+        aBuffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("[" + file + "] is not a CAS archive");
+        }
+    }
+
+    /**
+     * @return the number of documents in the archive.
+     */
+    public int size()
+    {
+        return documentIds.length;
+    }
+
+    /**
+     * @param aPosition
+     *            the position of a document in the archive.
+     * @return the ID of the document.
+     */
+    public String getDocumentId(int aPosition)
+    {
+        return documentIds[aPosition];
+    }
+
+    /**
+     * @param aDocumentId
+     *            a document ID.
+     * @return the position of the first document with the given ID or -1 if the archive does not
+     *         contain such a document.
+     */
+    public int indexOf(String aDocumentId)
+    {
+        Integer position = documentPositions.get(aDocumentId);
+        return position != null ? position : -1;
+    }
+
+    /**
+     * @return the names of the types for which skip lists are available.
+     */
+    public Set<String> getSkipListTypes()
+    {
+        return Collections.unmodifiableSet(skipLists.keySet());
+    }
+
+    /**
+     * @param aTypeName
+     *            a type name.
+     * @return the ascending positions of the documents containing at least one feature structure
+     *         of the given type or {@code null} if no skip list was recorded for the type.
+     */
+    public int[] getSkipList(String aTypeName)
+    {
+        int[] documents = skipLists.get(aTypeName);
+        return documents != null ? documents.clone() : null;
+    }
+
+    /**
+     * @return the type system the documents were written with.
+     */
+    public TypeSystemImpl getTypeSystem()
+    {
+        return typeSystem;
+    }
+
+    /**
+     * Load a document into the given CAS. The CAS may have been initialized with a different type
+     * system than the one the archive was written with. In this case, the document is loaded
+     * leniently.
+     *
+     * @param aPosition
+     *            the position of a document in the archive.
+     * @param aCAS
+     *            the CAS to load the document into.
+     * @throws IOException
+     *             if the document cannot be loaded.
+     */
+    public void load(int aPosition, CAS aCAS)
+        throws IOException
+    {
+        int segment = documentSegments[aPosition];
+        ByteBuffer data = segments.get(segment).duplicate();
+        int start = (int) (offsets[aPosition] - segmentStarts[segment]);
+        data.position(start);
+        data.limit(start + lengths[aPosition]);
+        CasIOUtils.load(new ByteBufferInputStream(data), aCAS, typeSystem);
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        // The mapped segments are released when they are garbage collected
+        raf.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return file.getPath();
+    }
+
+    /**
+     * Input stream over the remaining bytes of a buffer.
+     */
+    private static class ByteBufferInputStream
+        extends InputStream
+    {
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer aBuffer)
+        {
+            buffer = aBuffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] aBytes, int aOffset, int aLength)
+        {
+            if (aLength == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int length = Math.min(aLength, buffer.remaining());
+            buffer.get(aBytes, aOffset, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long aCount)
+        {
+            int count = (int) Math.max(0, Math.min(aCount, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int aReadLimit)
+        {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset()
+        {
+            buffer.reset();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.io.bincas;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.fit.component.CasCollectionReader_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+
+import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+
+/**
+ * Reads documents from a CAS archive written by {@link BinaryCasArchiveWriter}.
+ * <p>
+ * The archive is mapped into memory. Particular documents can be selected by their ID or by the
+ * types they contain without loading any other documents. The selected documents can further be
+ * split into contiguous shards which are read e.g. by several processes in parallel.
+ *
+ * @see BinaryCasArchive
+ */
+public class BinaryCasArchiveReader
+    extends CasCollectionReader_ImplBase
+{
+    /**
+     * The archive file.
+     */
+    public static final String PARAM_SOURCE_LOCATION = ComponentParameters.PARAM_SOURCE_LOCATION;
+    @ConfigurationParameter(name = PARAM_SOURCE_LOCATION, mandatory = true)
+    private File sourceLocation;
+
+    /**
+     * IDs of the documents to read in the order in which they should be read. If not set, all
+     * documents are read in the order in which they were written.
+     */
+    public static final String PARAM_DOCUMENT_IDS = "documentIds";
+    @ConfigurationParameter(name = PARAM_DOCUMENT_IDS, mandatory = false)
+    private String[] documentIds;
+
+    /**
+     * Read only documents containing feature structures of all of these types. A skip list must
+     * have been recorded for each of the types when writing the archive.
+     *
+     * @see BinaryCasArchiveWriter#PARAM_SKIP_LIST_TYPES
+     */
+    public static final String PARAM_REQUIRED_TYPES = "requiredTypes";
+    @ConfigurationParameter(name = PARAM_REQUIRED_TYPES, mandatory = false)
+    private String[] requiredTypes;
+
+    /**
+     * Number of shards into which the selected documents are split. Each shard is a contiguous
+     * range of documents. Each reader only reads the shard given by {@link #PARAM_SHARD_INDEX}.
+     */
+    public static final String PARAM_SHARD_COUNT = "shardCount";
+    @ConfigurationParameter(name = PARAM_SHARD_COUNT, mandatory = true, defaultValue = "1")
+    private int shardCount;
+
+    /**
+     * Index of the shard to be read, from 0 to {@link #PARAM_SHARD_COUNT} - 1.
+     */
+    public static final String PARAM_SHARD_INDEX = "shardIndex";
+    @ConfigurationParameter(name = PARAM_SHARD_INDEX, mandatory = true, defaultValue = "0")
+    private int shardIndex;
+
+    private BinaryCasArchive archive;
+    private int[] documents;
+    private int completed;
+
+    @Override
+    public void initialize(UimaContext aContext)
+        throws ResourceInitializationException
+    {
+        super.initialize(aContext);
+
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Shard index must be between 0 and " + (shardCount - 1) + " and shard count "
+                            + "must be at least 1, but were [" + shardIndex + "] and ["
+                            + shardCount + "]."));
+        }
+
+        try {
+            archive = BinaryCasArchive.open(sourceLocation);
+        }
+        catch (IOException e) {
+            throw new ResourceInitializationException(e);
+        }
+
+        try {
+            documents = selectDocuments();
+        }
+        catch (IllegalArgumentException e) {
+            closeQuietly(archive);
+            throw new ResourceInitializationException(e);
+        }
+
+        // Split the selection into contiguous ranges
+        int begin = (int) ((long) documents.length * shardIndex / shardCount);
+        int end = (int) ((long) documents.length * (shardIndex + 1) / shardCount);
+        documents = Arrays.copyOfRange(documents, begin, end);
+        completed = 0;
+
+        getLogger().info("Reading [" + documents.length + "] of [" + archive.size()
+                + "] documents from CAS archive [" + archive + "]");
+    }
+
+    private int[] selectDocuments()
+    {
+        int[] selected;
+        if (documentIds != null) {
+            selected = new int[documentIds.length];
+            for (int i = 0; i < documentIds.length; i++) {
+                selected[i] = archive.indexOf(documentIds[i]);
+                if (selected[i] == -1) {
+                    throw new IllegalArgumentException("Document [" + documentIds[i]
+                            + "] not found in CAS archive [" + archive + "]");
+                }
+            }
+        }
+        else {
+            selected = new int[archive.size()];
+            for (int i = 0; i < selected.length; i++) {
+                selected[i] = i;
+            }
+        }
+
+        if (requiredTypes != null) {
+            for (String typeName : requiredTypes) {
+                int[] skipList = archive.getSkipList(typeName);
+                if (skipList == null) {
+                    throw new IllegalArgumentException("CAS archive [" + archive
+                            + "] contains no skip list for type [" + typeName + "]");
+                }
+
+                int count = 0;
+                for (int document : selected) {
+                    if (Arrays.binarySearch(skipList, document) >= 0) {
+                        selected[count++] = document;
+                    }
+                }
+                selected = Arrays.copyOf(selected, count);
+            }
+        }
+
+        return selected;
+    }
+
+    @Override
+    public boolean hasNext()
+        throws IOException, CollectionException
+    {
+        return completed < documents.length;
+    }
+
+    @Override
+    public void getNext(CAS aCAS)
+        throws IOException, CollectionException
+    {
+        archive.load(documents[completed], aCAS);
+        completed++;
+
+        // Initialize the JCas sub-system which is the most often used API in DKPro Core components
+        try {
+            aCAS.getJCas();
+        }
+        catch (CASException e) {
+            throw new CollectionException(e);
+        }
+    }
+
+    @Override
+    public Progress[] getProgress()
+    {
+        return new Progress[] { new ProgressImpl(completed, documents.length, Progress.ENTITIES) };
+    }
+
+    @Override
+    public void destroy()
+    {
+        closeQuietly(archive);
+        super.destroy();
+    }
+}
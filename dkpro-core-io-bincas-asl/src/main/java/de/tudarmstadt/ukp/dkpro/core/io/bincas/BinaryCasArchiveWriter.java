@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.io.bincas;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+import static org.apache.uima.cas.SerialFormat.COMPRESSED_FILTERED;
+import static org.apache.uima.cas.impl.Serialization.serializeCASMgr;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.Type;
+import org.apache.uima.fit.component.JCasConsumer_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.descriptor.TypeCapability;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.CasIOUtils;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+
+/**
+ * Write all documents into a single CAS archive which supports random access by document. The
+ * type system is stored only once in the archive and each document is stored in the
+ * {@code COMPRESSED_FILTERED} format (form 6). The archive is read using the
+ * {@link BinaryCasArchiveReader} or programmatically via {@link BinaryCasArchive}.
+ * <p>
+ * All documents must use the same type system. The archive is only usable once the collection has
+ * been completely processed.
+ *
+ * @see BinaryCasArchive
+ */
+@TypeCapability(inputs = { "de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData" })
+public class BinaryCasArchiveWriter
+    extends JCasConsumer_ImplBase
+{
+    /**
+     * The archive file.
+     */
+    public static final String PARAM_TARGET_LOCATION = ComponentParameters.PARAM_TARGET_LOCATION;
+    @ConfigurationParameter(name = PARAM_TARGET_LOCATION, mandatory = true)
+    private File targetLocation;
+
+    /**
+     * Allow overwriting an existing archive.
+     */
+    public static final String PARAM_OVERWRITE = "overwrite";
+    @ConfigurationParameter(name = PARAM_OVERWRITE, mandatory = true, defaultValue = "false")
+    private boolean overwrite;
+
+    /**
+     * Types for which a skip list is recorded. A skip list contains the documents that contain at
+     * least one indexed feature structure of the type. The {@link BinaryCasArchiveReader} uses
+     * these to read only documents containing particular types without loading the others.
+     */
+    public static final String PARAM_SKIP_LIST_TYPES = "skipListTypes";
+    @ConfigurationParameter(name = PARAM_SKIP_LIST_TYPES, mandatory = false)
+    private String[] skipListTypes;
+
+    private CountingOutputStream archiveOS;
+    private DataOutputStream dataOS;
+
+    private String[] documentIds;
+    private long[] offsets;
+    private int[] lengths;
+    private int documentCount;
+    private Map<String, DocumentList> skipLists;
+
+    @Override
+    public void initialize(UimaContext aContext)
+        throws ResourceInitializationException
+    {
+        super.initialize(aContext);
+
+        documentIds = new String[1024];
+        offsets = new long[documentIds.length];
+        lengths = new int[documentIds.length];
+        documentCount = 0;
+
+        skipLists = new LinkedHashMap<>();
+        if (skipListTypes != null) {
+            for (String typeName : skipListTypes) {
+                skipLists.put(typeName, new DocumentList());
+            }
+        }
+    }
+
+    @Override
+    public void process(JCas aJCas)
+        throws AnalysisEngineProcessException
+    {
+        try {
+            if (archiveOS == null) {
+                openArchive(aJCas);
+            }
+
+            long offset = archiveOS.getByteCount();
+            CasIOUtils.save(aJCas.getCas(), new CloseShieldOutputStream(dataOS),
+                    COMPRESSED_FILTERED);
+            long length = archiveOS.getByteCount() - offset;
+
+            if (documentCount == documentIds.length) {
+                int capacity = documentIds.length * 2;
+                documentIds = Arrays.copyOf(documentIds, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+
+            String documentId = null;
+            try {
+                documentId = DocumentMetaData.get(aJCas).getDocumentId();
+            }
+            catch (IllegalArgumentException e) {
+                // No document metadata
+            }
+
+            documentIds[documentCount] = documentId != null ? documentId
+                    : String.valueOf(documentCount);
+            offsets[documentCount] = offset;
+            lengths[documentCount] = (int) length;
+
+            for (Entry<String, DocumentList> e : skipLists.entrySet()) {
+                Type type = aJCas.getTypeSystem().getType(e.getKey());
+                if (type != null
+                        && aJCas.getCas().getIndexRepository().getAllIndexedFS(type).hasNext()) {
+                    e.getValue().add(documentCount);
+                }
+            }
+
+            documentCount++;
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+    }
+
+    private void openArchive(JCas aJCas)
+        throws IOException
+    {
+        if (!overwrite && targetLocation.exists()) {
+            throw new IOException("Target file [" + targetLocation
+                    + "] already exists and overwriting not enabled.");
+        }
+
+        if (targetLocation.getParentFile() != null) {
+            FileUtils.forceMkdir(targetLocation.getParentFile());
+        }
+
+        getLogger().info("Writing CAS archive to [" + targetLocation + "]");
+
+        archiveOS = new CountingOutputStream(new BufferedOutputStream(
+                FileUtils.openOutputStream(targetLocation)));
+        dataOS = new DataOutputStream(archiveOS);
+        dataOS.write(BinaryCasArchive.MAGIC);
+
+        // The type system is stored once for all documents
+        ByteArrayOutputStream tsBuffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream tsOS = new ObjectOutputStream(tsBuffer)) {
+            tsOS.writeObject(serializeCASMgr(aJCas.getCasImpl()));
+        }
+        dataOS.writeInt(tsBuffer.size());
+        tsBuffer.writeTo(dataOS);
+    }
+
+    @Override
+    public void collectionProcessComplete()
+        throws AnalysisEngineProcessException
+    {
+        if (archiveOS == null) {
+            getLogger().warn("No documents processed - CAS archive [" + targetLocation
+                    + "] has not been written");
+            super.collectionProcessComplete();
+            return;
+        }
+
+        try {
+            long indexOffset = archiveOS.getByteCount();
+
+            dataOS.writeInt(documentCount);
+            for (int i = 0; i < documentCount; i++) {
+                dataOS.writeUTF(documentIds[i]);
+                dataOS.writeLong(offsets[i]);
+                dataOS.writeInt(lengths[i]);
+            }
+
+            dataOS.writeInt(skipLists.size());
+            for (Entry<String, DocumentList> e : skipLists.entrySet()) {
+                dataOS.writeUTF(e.getKey());
+                dataOS.writeInt(e.getValue().size);
+                for (int i = 0; i < e.getValue().size; i++) {
+                    dataOS.writeInt(e.getValue().documents[i]);
+                }
+            }
+
+            dataOS.writeLong(indexOffset);
+            dataOS.write(BinaryCasArchive.MAGIC);
+            dataOS.close();
+
+            getLogger().info("Wrote [" + documentCount + "] documents to CAS archive ["
+                    + targetLocation + "]");
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+        finally {
+            closeQuietly(dataOS);
+            archiveOS = null;
+            dataOS = null;
+        }
+
+        super.collectionProcessComplete();
+    }
+
+    @Override
+    public void destroy()
+    {
+        closeQuietly(dataOS);
+        super.destroy();
+    }
+
+    /**
+     * Growable list of document positions.
+     */
+    private static class DocumentList
+    {
+        private int[] documents = new int[16];
+        private int size;
+
+        public void add(int aDocument)
+        {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = aDocument;
+        }
+    }
+}
@@ -19,14 +19,18 @@ package de.tudarmstadt.ukp.dkpro.core.io.bincas;
 
 import static org.apache.commons.io.IOUtils.closeQuietly;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.net.MalformedURLException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
@@ -49,6 +53,11 @@ public class BinaryCasReader
 {
     private static final byte[] DKPRO_HEADER = new byte[] { 'D', 'K', 'P', 'r', 'o', '1' };
     
+    /**
+     * Maximum number of distinct embedded type systems kept in the cache.
+     */
+    private static final int TYPE_SYSTEM_CACHE_SIZE = 8;
+    
     /**
      * The location from which to obtain the type system when the CAS is stored in form 0.
      */
@@ -58,6 +67,15 @@ public class BinaryCasReader
     
     private CASMgrSerializer casMgrSerializer;
     private TypeSystemImpl typeSystem;
+    
+    /**
+     * Embedded type systems that have already been read, most recently used first. The type
+     * systems embedded in UIMA's {@code COMPRESSED_FILTERED_TS(I)} formats are read by
+     * {@link CasIOUtils} itself and are not cached.
+     */
+    private LinkedList<CachedTypeSystem> typeSystemCache = new LinkedList<>();
+    private int typeSystemCacheHits;
+    private int typeSystemCacheMisses;
         
     @Override
     public void getNext(CAS aCAS)
@@ -95,11 +113,9 @@ public class BinaryCasReader
             if (Arrays.equals(header, DKPRO_HEADER)) {
                 // If it is DKPro Core format, read the type system
                 getLogger().debug("Found DKPro-Core-style embedded type system");
-                ObjectInputStream ois = new ObjectInputStream(bis);
-                CASMgrSerializer casMgr = (CASMgrSerializer) ois.readObject();
+                TypeSystemImpl embeddedTs = readEmbeddedTypeSystem(bis);
                 if (ts == null) {
-                    ts = casMgr.getTypeSystem();
-                    ts.commit();
+                    ts = embeddedTs;
                 }
             }
             else {
@@ -130,6 +146,58 @@ public class BinaryCasReader
         }
     }
     
+    /**
+     * Read the embedded type system at the current position of the stream. Usually, all files in
+     * a collection embed the same type system. Thus, the serialized form of each type system is
+     * remembered together with the committed type system. If the stream continues with the same
+     * bytes as a cached type system, these bytes are skipped and the cached type system is used.
+     * This avoids deserializing and committing the type system again. It also allows UIMA to
+     * reuse the type mapping it computes for a particular pair of type systems when loading the
+     * CAS leniently.
+     */
+    private TypeSystemImpl readEmbeddedTypeSystem(BufferedInputStream aStream)
+        throws IOException, ClassNotFoundException
+    {
+        Iterator<CachedTypeSystem> i = typeSystemCache.iterator();
+        while (i.hasNext()) {
+            CachedTypeSystem cached = i.next();
+            if (cached.matches(aStream)) {
+                // Move to the front
+                i.remove();
+                typeSystemCache.addFirst(cached);
+                typeSystemCacheHits++;
+                return cached.typeSystem;
+            }
+        }
+        
+        RecordingInputStream recorder = new RecordingInputStream(aStream);
+        ObjectInputStream ois = new ObjectInputStream(recorder);
+        CASMgrSerializer casMgr = (CASMgrSerializer) ois.readObject();
+        TypeSystemImpl ts = casMgr.getTypeSystem();
+        ts.commit();
+        
+        typeSystemCacheMisses++;
+        typeSystemCache.addFirst(new CachedTypeSystem(recorder.getBytes(), ts));
+        if (typeSystemCache.size() > TYPE_SYSTEM_CACHE_SIZE) {
+            typeSystemCache.removeLast();
+        }
+        getLogger().debug("Cached embedded type system (" + typeSystemCache.size()
+                + " type systems cached)");
+        
+        return ts;
+    }
+    
+    @Override
+    public void destroy()
+    {
+        if (typeSystemCacheHits + typeSystemCacheMisses > 0) {
+            getLogger().info("Embedded type system cache: [" + typeSystemCacheHits + "] hits, ["
+                    + typeSystemCacheMisses + "] misses");
+        }
+        typeSystemCache.clear();
+        super.destroy();
+    }
+    
     /**
      * It is possible that the type system overlaps with the scan pattern for files, e.g. because
      * the type system ends in {@code .ser} and the resources also end in {@code .ser}. If this is
@@ -209,4 +277,102 @@ public class BinaryCasReader
         
         return casMgrSerializer;
     }
+    
+    private static class CachedTypeSystem
+    {
+        private final byte[] serialized;
+        private final int hash;
+        private final TypeSystemImpl typeSystem;
+        
+        public CachedTypeSystem(byte[] aSerialized, TypeSystemImpl aTypeSystem)
+        {
+            serialized = aSerialized;
+            hash = Arrays.hashCode(aSerialized);
+            typeSystem = aTypeSystem;
+        }
+        
+        /**
+         * Check if the stream continues with the serialized type system. If it does, the stream
+         * is positioned after the type system, otherwise it is reset.
+         */
+        public boolean matches(BufferedInputStream aStream)
+            throws IOException
+        {
+            aStream.mark(serialized.length);
+            byte[] buffer = new byte[serialized.length];
+            int read = 0;
+            while (read < buffer.length) {
+                int n = aStream.read(buffer, read, buffer.length - read);
+                if (n == -1) {
+                    break;
+                }
+                read += n;
+            }
+            
+            if (read == buffer.length && Arrays.hashCode(buffer) == hash
+                    && Arrays.equals(buffer, serialized)) {
+                return true;
+            }
+            
+            aStream.reset();
+            return false;
+        }
+    }
+    
+    /**
+     * Keeps a copy of all bytes read through it.
+     */
+    private static class RecordingInputStream
+        extends FilterInputStream
+    {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        
+        public RecordingInputStream(InputStream aStream)
+        {
+            super(aStream);
+        }
+        
+        @Override
+        public int read()
+            throws IOException
+        {
+            int b = super.read();
+            if (b != -1) {
+                buffer.write(b);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] aBuffer, int aOffset, int aLength)
+            throws IOException
+        {
+            int n = super.read(aBuffer, aOffset, aLength);
+            if (n > 0) {
+                buffer.write(aBuffer, aOffset, n);
+            }
+            return n;
+        }
+        
+        @Override
+        public long skip(long aCount)
+            throws IOException
+        {
+            // Read instead of skipping so that the skipped bytes are recorded as well
+            byte[] skipped = new byte[(int) Math.min(aCount, 8192)];
+            int n = read(skipped, 0, skipped.length);
+            return Math.max(n, 0);
+        }
+        
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+        
+        public byte[] getBytes()
+        {
+            return buffer.toByteArray();
+        }
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.dkpro.core.io.bincas;
+
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
+import static org.apache.uima.fit.pipeline.SimplePipeline.runPipeline;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.TagsetDescription;
+import de.tudarmstadt.ukp.dkpro.core.io.text.TextReader;
+import de.tudarmstadt.ukp.dkpro.core.testing.DkproTestContext;
+
+public class BinaryCasArchiveWriterReaderTest
+{
+    @Rule
+    public DkproTestContext testContext = new DkproTestContext();
+
+    private File archive;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        archive = new File(testContext.getTestOutputFolder(), "archive.bca");
+
+        CollectionReader textReader = createReader(
+                TextReader.class,
+                TextReader.PARAM_SOURCE_LOCATION, "src/test/resources/texts",
+                TextReader.PARAM_PATTERNS, "*.txt",
+                TextReader.PARAM_LANGUAGE, "latin");
+
+        runPipeline(textReader, createEngine(
+                BinaryCasArchiveWriter.class,
+                BinaryCasArchiveWriter.PARAM_TARGET_LOCATION, archive,
+                BinaryCasArchiveWriter.PARAM_SKIP_LIST_TYPES, new String[] {
+                        DocumentMetaData.class.getName(), TagsetDescription.class.getName() }));
+    }
+
+    @Test
+    public void testReadAll()
+        throws Exception
+    {
+        CollectionReader reader = createReader(
+                BinaryCasArchiveReader.class,
+                BinaryCasArchiveReader.PARAM_SOURCE_LOCATION, archive);
+
+        assertEquals(asList("example1.txt", "example2.txt"), readDocumentIds(reader));
+    }
+
+    @Test
+    public void testReadContent()
+        throws Exception
+    {
+        CollectionReader reader = createReader(
+                BinaryCasArchiveReader.class,
+                BinaryCasArchiveReader.PARAM_SOURCE_LOCATION, archive);
+
+        JCas jcas = JCasFactory.createJCas();
+        reader.getNext(jcas.getCas());
+        assertEquals(readFileToString(new File("src/test/resources/texts/example1.txt")),
+                jcas.getDocumentText());
+        assertEquals("latin", jcas.getDocumentLanguage());
+    }
+
+    @Test
+    public void testRandomAccess()
+        throws Exception
+    {
+        try (BinaryCasArchive a = BinaryCasArchive.open(archive)) {
+            assertEquals(2, a.size());
+            assertEquals(1, a.indexOf("example2.txt"));
+            assertEquals(-1, a.indexOf("missing.txt"));
+
+            JCas jcas = JCasFactory.createJCas();
+            a.load(a.indexOf("example2.txt"), jcas.getCas());
+            assertEquals(readFileToString(new File("src/test/resources/texts/example2.txt")),
+                    jcas.getDocumentText());
+        }
+
+        CollectionReader reader = createReader(
+                BinaryCasArchiveReader.class,
+                BinaryCasArchiveReader.PARAM_SOURCE_LOCATION, archive,
+                BinaryCasArchiveReader.PARAM_DOCUMENT_IDS, new String[] { "example2.txt",
+                        "example1.txt" });
+
+        assertEquals(asList("example2.txt", "example1.txt"), readDocumentIds(reader));
+    }
+
+    @Test
+    public void testSkipLists()
+        throws Exception
+    {
+        CollectionReader reader = createReader(
+                BinaryCasArchiveReader.class,
+                BinaryCasArchiveReader.PARAM_SOURCE_LOCATION, archive,
+                BinaryCasArchiveReader.PARAM_REQUIRED_TYPES, DocumentMetaData.class.getName());
+        assertEquals(asList("example1.txt", "example2.txt"), readDocumentIds(reader));
+
+        reader = createReader(
+                BinaryCasArchiveReader.class,
+                BinaryCasArchiveReader.PARAM_SOURCE_LOCATION, archive,
+                BinaryCasArchiveReader.PARAM_REQUIRED_TYPES, TagsetDescription.class.getName());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test(expected = ResourceInitializationException.class)
+    public void testMissingSkipList()
+        throws Exception
+    {
+        createReader(
+                BinaryCasArchiveReader.class,
+                BinaryCasArchiveReader.PARAM_SOURCE_LOCATION, archive,
+                BinaryCasArchiveReader.PARAM_REQUIRED_TYPES, "some.UnknownType");
+    }
+
+    @Test
+    public void testShards()
+        throws Exception
+    {
+        List<String> all = new ArrayList<>();
+        for (int shard = 0; shard < 2; shard++) {
+            CollectionReader reader = createReader(
+                    BinaryCasArchiveReader.class,
+                    BinaryCasArchiveReader.PARAM_SOURCE_LOCATION, archive,
+                    BinaryCasArchiveReader.PARAM_SHARD_COUNT, 2,
+                    BinaryCasArchiveReader.PARAM_SHARD_INDEX, shard);
+            List<String> ids = readDocumentIds(reader);
+            assertEquals(1, ids.size());
+            all.addAll(ids);
+        }
+
+        assertEquals(asList("example1.txt", "example2.txt"), all);
+    }
+
+    private static List<String> readDocumentIds(CollectionReader aReader)
+        throws Exception
+    {
+        List<String> ids = new ArrayList<>();
+        JCas jcas = JCasFactory.createJCas();
+        while (aReader.hasNext()) {
+            jcas.reset();
+            aReader.getNext(jcas.getCas());
+            ids.add(DocumentMetaData.get(jcas).getDocumentId());
+        }
+        return ids;
+    }
+}
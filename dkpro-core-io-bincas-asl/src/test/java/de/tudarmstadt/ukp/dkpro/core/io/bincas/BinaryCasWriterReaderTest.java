@@ -597,6 +597,54 @@ public class BinaryCasWriterReaderTest
         measureWriteSerializedCas(testdata, new File(testFolder, "dummy.bin"));
     }
     
+    @Ignore("Run this only when you want to compare performance")
+    @Test
+    public void compressionPerformanceTest()
+        throws Exception
+    {
+        int REPEATS = 100;
+        
+        // Generate test data
+        Iterable<JCas> testdata = repeat(generateRandomCas(), REPEATS);
+        
+        System.out.printf("Data serialized to %s %n", testFolder);
+        
+        // Run tests
+        System.out.printf("--------------------------------------------%n");
+        for (CompressionMethod compression : CompressionMethod.values()) {
+            System.out.printf("Format 6+ - %s compression%n", compression);
+            System.out.printf("  Measuring WRITE%n");
+            
+            for (File f : FileUtils.listFiles(testFolder, new PrefixFileFilter("dummy.bin"), null)) {
+                f.delete();
+            }
+            
+            AnalysisEngineDescription writer = createEngineDescription(
+                    BinaryCasWriter.class, 
+                    BinaryCasWriter.PARAM_OVERWRITE, true,
+                    BinaryCasWriter.PARAM_FORMAT, "6+", 
+                    BinaryCasWriter.PARAM_COMPRESSION, compression,
+                    BinaryCasWriter.PARAM_TARGET_LOCATION, testFolder);
+            SummaryStatistics writeStats = measureWritePerformance(writer, testdata);
+
+            Collection<File> files = FileUtils.listFiles(testFolder, new PrefixFileFilter("dummy.bin"), null);
+            assertEquals(1, files.size());
+            File f = files.iterator().next();
+            
+            JCas jcas = JCasFactory.createJCas();
+            System.out.printf("  Measuring READ%n");
+            CollectionReaderDescription reader = createReaderDescription(
+                    BinaryCasReader.class,
+                    BinaryCasReader.PARAM_SOURCE_LOCATION, f);
+            
+            SummaryStatistics readStats = measureReadPerformance(reader, jcas, REPEATS);
+            
+            printStats(writeStats, readStats);
+            System.out.printf("  Size    %10d bytes%n", f.length());
+            System.out.printf("--------------------------------------------%n");
+        }
+    }
+    
     private static void printStats(String aTitle, SummaryStatistics aStats)
     {
         System.out.printf("          %10s%n", aTitle, "READ");
@@ -32,8 +32,12 @@ import org.apache.uima.util.ProgressImpl;
 
 import java.io.IOException;
 import java.sql.*;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import static java.util.Arrays.asList;
 
@@ -48,6 +52,10 @@ import static java.util.Arrays.asList;
  * <p>
  * will create a CAS for each record, write the content of "text" column into CAS document text and
  * that of "title" column into the document title field of the {@link DocumentMetaData} annotation.
+ * <p>
+ * By default, the result set is scrolled to its end in order to count the documents. Most drivers
+ * load the complete result set into memory to do so. For large tables, enable
+ * {@link #PARAM_STREAMING} to read the rows with a forward-only cursor instead.
  */
 
 @TypeCapability(
@@ -135,21 +143,107 @@ public class JdbcReader
     @ConfigurationParameter(name = PARAM_LANGUAGE, mandatory = false)
     private String language;
 
+    /**
+     * Read the rows using a forward-only cursor which fetches {@link #PARAM_FETCH_SIZE} rows at a
+     * time instead of counting the rows of the result set up front. The number of documents is
+     * determined using {@link #PARAM_COUNT_QUERY} or remains unknown. Auto-commit is disabled on
+     * the connection because some drivers (e.g. PostgreSQL) ignore the fetch size otherwise.
+     */
+    public static final String PARAM_STREAMING = "streaming";
+    @ConfigurationParameter(name = PARAM_STREAMING, mandatory = true, defaultValue = "false")
+    private boolean streaming;
+
+    /**
+     * Number of rows fetched from the database at a time when streaming. MySQL Connector/J only
+     * honors this if {@code &useCursorFetch=true} is added to {@link #PARAM_CONNECTION_PARAMS};
+     * alternatively, {@link Integer#MIN_VALUE} makes it stream the rows one by one.
+     */
+    public static final String PARAM_FETCH_SIZE = "fetchSize";
+    @ConfigurationParameter(name = PARAM_FETCH_SIZE, mandatory = true, defaultValue = "1000")
+    private int fetchSize;
+
+    /**
+     * Query returning the number of documents as a single value. Only used when streaming. If not
+     * set, the progress is reported without a total.
+     */
+    public static final String PARAM_COUNT_QUERY = "countQuery";
+    @ConfigurationParameter(name = PARAM_COUNT_QUERY, mandatory = false)
+    private String countQuery;
+
+    /**
+     * Column by which the query is paged when streaming. If set, the query must contain a single
+     * parameter placeholder, select only rows with a key greater than that parameter, order them
+     * by the key and limit them to a page, e.g.
+     * <p>
+     * <code>SELECT id, text AS cas_text FROM docs WHERE id &gt; ? ORDER BY id LIMIT 10000</code>
+     * <p>
+     * The query is executed repeatedly with the key of the last row read until it returns no more
+     * rows. Each query only has to sort and read a single page, so no cursor has to be held open
+     * for the whole table.
+     */
+    public static final String PARAM_KEY_COLUMN = "keyColumn";
+    @ConfigurationParameter(name = PARAM_KEY_COLUMN, mandatory = false)
+    private String keyColumn;
+
+    /**
+     * Key value below the keys of all rows to be read. Used for the first page if
+     * {@link #PARAM_KEY_COLUMN} is set.
+     */
+    public static final String PARAM_KEY_START = "keyStart";
+    @ConfigurationParameter(name = PARAM_KEY_START, mandatory = true, defaultValue = "0")
+    private String keyStart;
+
+    /**
+     * Number of rows to read ahead on a background thread when streaming. If set to 0, the rows
+     * are read when the next CAS is requested.
+     */
+    public static final String PARAM_PREFETCH_SIZE = "prefetchSize";
+    @ConfigurationParameter(name = PARAM_PREFETCH_SIZE, mandatory = true, defaultValue = "0")
+    private int prefetchSize;
+
+    // Marks the end of the rows in the prefetch queue
+    private static final Map<String, String> END_OF_ROWS = new HashMap<>();
+
     private Connection sqlConnection;
+    private Statement statement;
     private ResultSet resultSet;
     private int resultSetSize;
     private int completed;
     private Set<String> columnNames;
 
+    // Streaming
+    private Object lastKey;
+    private int pageRows;
+    private boolean exhausted;
+    private Map<String, String> nextRow;
+    private BlockingQueue<Map<String, String>> prefetchQueue;
+    private Thread prefetchThread;
+    private boolean endOfRows;
+    private volatile SQLException prefetchError;
+
     @Override
     public void initialize(UimaContext context)
             throws ResourceInitializationException
     {
         super.initialize(context);
 
+        if (streaming && fetchSize == 0) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Streaming requires a fetch size other than 0."));
+        }
+        if (prefetchSize < 0) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Prefetch size must not be negative, but was [" + prefetchSize + "]."));
+        }
+
         try {
             openDatabaseConnection();
-            query();
+            if (streaming) {
+                streamingQuery();
+            }
+            else {
+                query();
+            }
         }
         catch (SQLException | ClassNotFoundException e) {
             throw new ResourceInitializationException(e);
@@ -176,7 +270,7 @@ public class JdbcReader
     {
         getLogger().info("Executing query: '" + query + "'.");
 
-        Statement statement = sqlConnection
+        statement = sqlConnection
                 .createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
         resultSet = statement.executeQuery(query);
         resultSet.last();
@@ -186,7 +280,12 @@ public class JdbcReader
         resultSet.beforeFirst();
         completed = 0;
 
-        // Store available column names
+        storeColumnNames();
+    }
+
+    private void storeColumnNames()
+            throws SQLException
+    {
         columnNames = new HashSet<>();
         ResultSetMetaData meta = resultSet.getMetaData();
         for (int i = 1; i < meta.getColumnCount() + 1; i++) {
@@ -198,16 +297,146 @@ public class JdbcReader
         }
     }
 
+    private void streamingQuery()
+            throws SQLException
+    {
+        resultSetSize = -1;
+        if (countQuery != null) {
+            getLogger().info("Executing count query: '" + countQuery + "'.");
+            try (Statement countStatement = sqlConnection.createStatement();
+                    ResultSet count = countStatement.executeQuery(countQuery)) {
+                if (count.next()) {
+                    resultSetSize = count.getInt(1);
+                    getLogger().info(resultSetSize + " documents to be retrieved.");
+                }
+            }
+        }
+        completed = 0;
+
+        sqlConnection.setAutoCommit(false);
+        lastKey = keyStart;
+
+        if (prefetchSize > 0) {
+            prefetchQueue = new ArrayBlockingQueue<>(prefetchSize);
+            prefetchThread = new Thread(this::prefetchRows, "jdbc-prefetch");
+            prefetchThread.setDaemon(true);
+            prefetchThread.start();
+        }
+    }
+
+    /**
+     * Execute the query for the next page using a forward-only cursor.
+     */
+    private void executePage()
+            throws SQLException
+    {
+        getLogger().info("Executing query: '" + query + "'"
+                + (keyColumn != null ? " after key [" + lastKey + "]." : "."));
+
+        if (keyColumn != null) {
+            PreparedStatement pageStatement = sqlConnection.prepareStatement(query,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement = pageStatement;
+            pageStatement.setFetchSize(fetchSize);
+            pageStatement.setObject(1, lastKey);
+            resultSet = pageStatement.executeQuery();
+        }
+        else {
+            statement = sqlConnection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            resultSet = statement.executeQuery(query);
+        }
+        pageRows = 0;
+
+        if (columnNames == null) {
+            storeColumnNames();
+        }
+    }
+
+    /**
+     * Read the next row from the database, executing the query for the next page if necessary.
+     * 
+     * @return the values of the CAS columns or {@code null} if there are no more rows.
+     */
+    private Map<String, String> fetchRow()
+            throws SQLException
+    {
+        while (!exhausted) {
+            if (resultSet == null) {
+                executePage();
+            }
+
+            if (resultSet.next()) {
+                pageRows++;
+                if (keyColumn != null) {
+                    lastKey = resultSet.getObject(keyColumn);
+                }
+                return readRow();
+            }
+
+            closeResultSet();
+            exhausted = keyColumn == null || pageRows == 0;
+        }
+        return null;
+    }
+
+    private void prefetchRows()
+    {
+        try {
+            try {
+                Map<String, String> row;
+                while ((row = fetchRow()) != null) {
+                    prefetchQueue.put(row);
+                }
+            }
+            catch (SQLException e) {
+                prefetchError = e;
+            }
+            prefetchQueue.put(END_OF_ROWS);
+        }
+        catch (InterruptedException e) {
+            // Reader has been closed
+        }
+    }
+
+    private Map<String, String> readRow()
+    {
+        Map<String, String> row = new HashMap<>();
+        for (String columnName : CAS_COLUMNS) {
+            row.put(columnName, getStringQuietly(columnName));
+        }
+        return row;
+    }
+
+    private void closeResultSet()
+    {
+        DbUtils.closeQuietly(resultSet);
+        resultSet = null;
+        DbUtils.closeQuietly(statement);
+        statement = null;
+    }
+
     @Override
     public void getNext(CAS cas)
             throws IOException, CollectionException
     {
-        try {
-            resultSet.next(); // advance to next item (used to be done in hasNext())
+        Map<String, String> row;
+        if (streaming) {
+            hasNext();
+            row = nextRow;
+            nextRow = null;
         }
-        catch (SQLException e) {
-            throw new CollectionException(e);
+        else {
+            try {
+                resultSet.next(); // advance to next item (used to be done in hasNext())
+            }
+            catch (SQLException e) {
+                throw new CollectionException(e);
+            }
+            row = readRow();
         }
+
         // Store data into CAS
         DocumentMetaData metadata;
         try {
@@ -217,18 +446,18 @@ public class JdbcReader
             throw new CollectionException(e);
         }
 
-        cas.setDocumentText(getStringQuietly(CAS_TEXT));
-        metadata.setDocumentTitle(getStringQuietly(CAS_METADATA_TITLE));
-        String language = getStringQuietly(CAS_METADATA_LANGUAGE);
+        cas.setDocumentText(row.get(CAS_TEXT));
+        metadata.setDocumentTitle(row.get(CAS_METADATA_TITLE));
+        String language = row.get(CAS_METADATA_LANGUAGE);
         if (language == null) {
             language = this.language;
         }
         metadata.setLanguage(language);
 
-        metadata.setDocumentId(getStringQuietly(CAS_METADATA_DOCUMENT_ID));
-        metadata.setCollectionId(getStringQuietly(CAS_METADATA_COLLECTION_ID));
-        metadata.setDocumentUri(getStringQuietly(CAS_METADATA_DOCUMENT_URI));
-        metadata.setDocumentBaseUri(getStringQuietly(CAS_METADATA_DOCUMENT_BASE_URI));
+        metadata.setDocumentId(row.get(CAS_METADATA_DOCUMENT_ID));
+        metadata.setCollectionId(row.get(CAS_METADATA_COLLECTION_ID));
+        metadata.setDocumentUri(row.get(CAS_METADATA_DOCUMENT_URI));
+        metadata.setDocumentBaseUri(row.get(CAS_METADATA_DOCUMENT_BASE_URI));
 
         completed++;
     }
@@ -258,14 +487,53 @@ public class JdbcReader
     public boolean hasNext()
             throws IOException, CollectionException
     {
-        return (completed < resultSetSize);
+        if (!streaming) {
+            return (completed < resultSetSize);
+        }
+
+        if (nextRow == null && prefetchQueue == null) {
+            try {
+                nextRow = fetchRow();
+            }
+            catch (SQLException e) {
+                throw new CollectionException(e);
+            }
+        }
+        else if (nextRow == null && !endOfRows) {
+            try {
+                nextRow = prefetchQueue.take();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CollectionException(e);
+            }
+            if (nextRow == END_OF_ROWS) {
+                nextRow = null;
+                endOfRows = true;
+                if (prefetchError != null) {
+                    throw new CollectionException(prefetchError);
+                }
+            }
+        }
+
+        return nextRow != null;
     }
 
     @Override
     public void close()
             throws IOException
     {
-        DbUtils.closeQuietly(resultSet);
+        if (prefetchThread != null) {
+            prefetchThread.interrupt();
+            try {
+                prefetchThread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            prefetchThread = null;
+        }
+        closeResultSet();
         DbUtils.closeQuietly(sqlConnection);
     }
 }
@@ -113,4 +113,96 @@ public class JdbcReaderExample
         	i++;
         }
     }
+
+    @Test
+    public void hsqldbStreamingTest()
+        throws SQLException, UIMAException, IOException
+    {
+        createKeyedTable("streaming_db", 5);
+
+        CollectionReader jdbcReader = createStreamingReader("streaming_db",
+                "SELECT title AS \"" + JdbcReader.CAS_METADATA_TITLE + "\", text AS \""
+                        + JdbcReader.CAS_TEXT + "\" FROM " + TBL_NAME + " ORDER BY id;",
+                JdbcReader.PARAM_FETCH_SIZE, 2);
+
+        assertRows(jdbcReader, 5);
+    }
+
+    @Test
+    public void hsqldbKeysetPagingTest()
+        throws SQLException, UIMAException, IOException
+    {
+        createKeyedTable("keyset_db", 7);
+
+        // Pages of three rows each, the last page is partially filled
+        CollectionReader jdbcReader = createStreamingReader("keyset_db",
+                "SELECT id, title AS \"" + JdbcReader.CAS_METADATA_TITLE + "\", text AS \""
+                        + JdbcReader.CAS_TEXT + "\" FROM " + TBL_NAME
+                        + " WHERE id > ? ORDER BY id LIMIT 3;",
+                JdbcReader.PARAM_KEY_COLUMN, "ID",
+                JdbcReader.PARAM_COUNT_QUERY, "SELECT COUNT(*) FROM " + TBL_NAME + ";",
+                JdbcReader.PARAM_PREFETCH_SIZE, 2);
+
+        Assert.assertEquals(7, jdbcReader.getProgress()[0].getTotal());
+        assertRows(jdbcReader, 7);
+        Assert.assertEquals(7, jdbcReader.getProgress()[0].getCompleted());
+        jdbcReader.close();
+    }
+
+    private void createKeyedTable(String aDbName, int aRows)
+        throws SQLException
+    {
+        Connection conn = null;
+        Statement stmnt = null;
+        try {
+            conn = DriverManager.getConnection("jdbc:hsqldb:mem:/" + aDbName, DB_USER, DB_PASS);
+            stmnt = conn.createStatement();
+            stmnt.addBatch("CREATE TABLE " + TBL_NAME
+                    + " (id int PRIMARY KEY, title varchar(50), text varchar(100));");
+            for (int i = 1; i <= aRows; i++) {
+                stmnt.addBatch("INSERT INTO " + TBL_NAME + " (id, title, text) VALUES (" + i
+                        + ", 'title" + i + "', 'text..." + i + "');");
+            }
+            stmnt.executeBatch();
+        }
+        finally {
+            DbUtils.closeQuietly(stmnt);
+            DbUtils.closeQuietly(conn);
+        }
+    }
+
+    private CollectionReader createStreamingReader(String aDbName, String aQuery,
+            Object... aExtraParams)
+        throws UIMAException
+    {
+        Object[] params = new Object[] {
+                JdbcReader.PARAM_DATABASE, aDbName,
+                JdbcReader.PARAM_USER, DB_USER,
+                JdbcReader.PARAM_PASSWORD, DB_PASS,
+                JdbcReader.PARAM_QUERY, aQuery,
+                JdbcReader.PARAM_DRIVER, "org.hsqldb.jdbc.JDBCDriver",
+                JdbcReader.PARAM_CONNECTION, "jdbc:hsqldb:mem:",
+                JdbcReader.PARAM_STREAMING, true };
+        Object[] allParams = new Object[params.length + aExtraParams.length];
+        System.arraycopy(params, 0, allParams, 0, params.length);
+        System.arraycopy(aExtraParams, 0, allParams, params.length, aExtraParams.length);
+        return CollectionReaderFactory.createReader(JdbcReader.class, allParams);
+    }
+
+    private void assertRows(CollectionReader aReader, int aExpectedRows)
+        throws UIMAException, IOException
+    {
+        int i = 1;
+        while (aReader.hasNext()) {
+            // Calling hasNext() again must not skip a row
+            aReader.hasNext();
+
+            CAS cas = JCasFactory.createJCas().getCas();
+            aReader.getNext(cas);
+            Assert.assertEquals("title" + i, DocumentMetaData.get(cas).getDocumentTitle());
+            Assert.assertEquals("text..." + i, cas.getDocumentText());
+            i++;
+        }
+        Assert.assertEquals(aExpectedRows, i - 1);
+    }
 }
@@ -21,6 +21,7 @@ import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.ATTR_FU
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.ATTR_LEMMA;
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.ATTR_POS;
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.ATTR_TYPE;
+import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.E_TEI_TEI;
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.TAG_CHARACTER;
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.TAG_MULTIWORD;
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.TAG_PARAGRAPH;
@@ -32,7 +33,6 @@ import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.TAG_TEX
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.TAG_TITLE;
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.TAG_U;
 import static de.tudarmstadt.ukp.dkpro.core.io.tei.internal.TeiConstants.TAG_WORD;
-import static java.util.Arrays.asList;
 import static org.apache.commons.io.IOUtils.closeQuietly;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 
@@ -42,8 +42,21 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.zip.GZIPInputStream;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.util.XMLEventConsumer;
+
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.uima.UimaContext;
@@ -60,17 +73,9 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.Logger;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.io.SAXReader;
-import org.dom4j.io.SAXWriter;
-import org.jaxen.JaxenException;
-import org.jaxen.XPath;
-import org.jaxen.dom4j.Dom4jXPath;
 import org.xml.sax.Attributes;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 
 import de.tudarmstadt.ukp.dkpro.core.api.io.ResourceCollectionReaderBase;
@@ -89,7 +94,9 @@ import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.constituent.Constituent;
 import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.constituent.ROOT;
 
 /**
- * Reader for the TEI XML.
+ * Reader for the TEI XML. The input files are read as a stream and a CAS is created for every
+ * {@code TEI} element while the file is being read, so files containing large TEI corpora do not
+ * have to fit into memory.
  */
 @MimeTypeCapability({MimeTypes.APPLICATION_TEI_XML})
 @TypeCapability(
@@ -202,13 +209,35 @@ public class TeiReader
     @ConfigurationParameter(name = PARAM_UTTERANCES_AS_SENTENCES, mandatory = true, defaultValue = "false")
     private boolean utterancesAsSentences;
 
-	private Iterator<Element> teiElementIterator;
-	private Element currentTeiElement;
+    /**
+     * Read the next TEI element on a background thread while the current one is turned into a
+     * CAS. Only the element being read ahead and one element waiting to be processed are kept in
+     * memory.
+     */
+    public static final String PARAM_PREFETCH = "prefetch";
+    @ConfigurationParameter(name = PARAM_PREFETCH, mandatory = true, defaultValue = "false")
+    private boolean prefetch;
+
 	private Resource currentResource;
 	private int currentTeiElementNumber;
 
 	private MappingProvider posMappingProvider;
 
+    private XMLInputFactory xmlInputFactory;
+
+    // The next TEI element to be read or null if there are no more TEI elements
+    private TeiElement nextTeiElement;
+    
+    // State while scanning files for TEI elements - owned by the prefetch thread if prefetching
+    private Resource scanResource;
+    private int scanTeiElementNumber;
+    private InputStream is;
+    private XMLEventReader xmlEventReader;
+
+    // Prefetching
+    private BlockingQueue<TeiElement> prefetchQueue;
+    private Thread prefetchThread;
+
 	@Override
 	public void initialize(UimaContext aContext)
 		throws ResourceInitializationException
@@ -220,88 +249,191 @@ public class TeiReader
 					"Setting readPOS to 'true' requires writeToken to be 'true' too."));
 		}
 
-		try {
-			// Init with an empty iterator
-			teiElementIterator = asList(new Element[0]).iterator();
+        posMappingProvider = MappingProviderFactory.createPosMappingProvider(mappingPosLocation,
+                posTagset, getLanguage());
+
+        xmlInputFactory = XMLInputFactory.newInstance();
+        
+        if (prefetch) {
+            prefetchQueue = new ArrayBlockingQueue<>(1);
+            prefetchThread = new Thread(this::prefetchTeiElements, "tei-prefetch");
+            prefetchThread.setDaemon(true);
+            prefetchThread.start();
+        }
 
+		try {
 			// Make sure we know about the first element;
 			nextTeiElement();
 		}
-		catch (CollectionException | IOException e) {
+		catch (IOException e) {
 			throw new ResourceInitializationException(e);
 		}
-
-        posMappingProvider = MappingProviderFactory.createPosMappingProvider(mappingPosLocation,
-                posTagset, getLanguage());
 	}
 
-	private void nextTeiElement() throws CollectionException, IOException
-	{
-		if (teiElementIterator == null) {
-			currentTeiElement = null;
-			return;
-		}
-
-		while (!teiElementIterator.hasNext() && super.hasNext()) {
-			currentResource = nextFile();
-
-			InputStream is = null;
-			try {
-				is = currentResource.getInputStream();
-
-				if (currentResource.getPath().endsWith(".gz")) {
-				    is = new GZIPInputStream(is);
-				}
-
-				InputSource source = new InputSource(is);
-				source.setPublicId(currentResource.getLocation());
-				source.setSystemId(currentResource.getLocation());
-
-				SAXReader reader = new SAXReader();
-				Document xml = reader.read(source);
-
-				final XPath teiPath = new Dom4jXPath("//tei:TEI");
-				teiPath.addNamespace("tei", "http://www.tei-c.org/ns/1.0");
-
-				List<Element> teiElements = teiPath.selectNodes(xml);
+    @Override
+    public void destroy()
+    {
+        if (prefetchThread != null) {
+            prefetchThread.interrupt();
+            try {
+                prefetchThread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            prefetchThread = null;
+        }
+        closeAll();
+        super.destroy();
+    }
+
+    private void closeAll()
+    {
+        if (xmlEventReader != null) {
+            try {
+                xmlEventReader.close();
+            }
+            catch (XMLStreamException e) {
+                // Ignore
+            }
+        }
+        xmlEventReader = null;
+        closeQuietly(is);
+        is = null;
+        scanResource = null;
+    }
+
+    private void nextTeiElement()
+        throws IOException
+    {
+        if (prefetchQueue == null) {
+            nextTeiElement = seekTeiElement()
+                    ? new TeiElement(scanResource, scanTeiElementNumber, null) : null;
+            return;
+        }
+        
+        TeiElement element;
+        try {
+            element = prefetchQueue.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        
+        if (element.error != null) {
+            nextTeiElement = null;
+            throw element.error;
+        }
+        
+        nextTeiElement = element.resource != null ? element : null;
+    }
 
-//				System.out.printf("Found %d TEI elements in %s.%n", teiElements.size(),
-//						currentResource.getLocation());
+    /**
+     * Seek the next TEI element, opening the next file if necessary. Stop once the start element
+     * has been found without reading it.
+     * 
+     * @return whether another TEI element was found.
+     */
+    private boolean seekTeiElement()
+        throws IOException
+    {
+        while (true) {
+            try {
+                if (xmlEventReader == null) {
+                    // Call to super here because we want to know about the resources, not the
+                    // TEI elements
+                    if (!super.hasNext()) {
+                        return false;
+                    }
+                    
+                    scanResource = nextFile();
+                    scanTeiElementNumber = 0;
+                    is = scanResource.getInputStream();
+                    if (scanResource.getPath().endsWith(".gz")) {
+                        is = new GZIPInputStream(is);
+                    }
+                    xmlEventReader = xmlInputFactory.createXMLEventReader(
+                            scanResource.getLocation(), is);
+                }
 
-				teiElementIterator = teiElements.iterator();
-				currentTeiElementNumber = 0;
-			}
-			catch (DocumentException e) {
-				throw new IOException(e);
-			}
-			catch (JaxenException e) {
-				throw new IOException(e);
-			}
-			finally {
-				closeQuietly(is);
-			}
-		}
+                XMLEvent e;
+                while ((e = xmlEventReader.peek()) != null) {
+                    if (e.isStartElement() && E_TEI_TEI.equals(e.asStartElement().getName())) {
+                        scanTeiElementNumber++;
+                        return true;
+                    }
+                    xmlEventReader.nextEvent();
+                }
 
-		currentTeiElement = teiElementIterator.hasNext() ? teiElementIterator.next() : null;
-		currentTeiElementNumber++;
+                // End of file reached
+                closeAll();
+            }
+            catch (XMLStreamException e) {
+                closeAll();
+                throw new IOException(e);
+            }
+        }
+    }
 
-		if (!super.hasNext() && !teiElementIterator.hasNext()) {
-			// Mark end of processing.
-			teiElementIterator = null;
-		}
-	}
+    /**
+     * Pass the events of the TEI element at which the reader is currently positioned to the given
+     * consumer, up to and including its end element.
+     */
+    private void readTeiElement(XMLEventConsumer aConsumer)
+        throws XMLStreamException
+    {
+        int depth = 0;
+        do {
+            XMLEvent e = xmlEventReader.nextEvent();
+            if (e.isStartElement()) {
+                depth++;
+            }
+            else if (e.isEndElement()) {
+                depth--;
+            }
+            aConsumer.add(e);
+        }
+        while (depth > 0);
+    }
+
+    private void prefetchTeiElements()
+    {
+        try {
+            try {
+                while (seekTeiElement()) {
+                    List<XMLEvent> events = new ArrayList<>();
+                    readTeiElement(events::add);
+                    prefetchQueue.put(new TeiElement(scanResource, scanTeiElementNumber, events));
+                }
+                prefetchQueue.put(new TeiElement(null, 0, null));
+            }
+            catch (IOException e) {
+                prefetchQueue.put(new TeiElement(e));
+            }
+            catch (XMLStreamException | RuntimeException e) {
+                prefetchQueue.put(new TeiElement(new IOException(e)));
+            }
+        }
+        catch (InterruptedException e) {
+            // Reader has been destroyed
+        }
+    }
 
 	@Override
 	public boolean hasNext()
 		throws IOException, CollectionException
 	{
-		return teiElementIterator != null || currentTeiElement != null;
+		return nextTeiElement != null;
 	}
 
 	@Override
 	public void getNext(CAS aCAS)
 		throws IOException, CollectionException
 	{
+	    currentResource = nextTeiElement.resource;
+	    currentTeiElementNumber = nextTeiElement.number;
+	    
 		initCas(aCAS, currentResource);
 
 		// Set up language
@@ -317,8 +449,6 @@ public class TeiReader
             throw new IOException(e1);
         }
 
-		InputStream is = null;
-
 		try {
 			JCas jcas = aCAS.getJCas();
 
@@ -328,8 +458,15 @@ public class TeiReader
 			handler.setLogger(getLogger());
 
 			// Parse TEI text
-			SAXWriter writer = new SAXWriter(handler);
-			writer.write(currentTeiElement);
+			SaxEventConsumer consumer = new SaxEventConsumer(handler);
+			if (nextTeiElement.events != null) {
+			    for (XMLEvent e : nextTeiElement.events) {
+			        consumer.add(e);
+			    }
+			}
+			else {
+			    readTeiElement(consumer);
+			}
 			handler.endDocument();
 		}
 		catch (CASException e) {
@@ -338,9 +475,12 @@ public class TeiReader
 		catch (SAXException e) {
 			throw new IOException(e);
 		}
-		finally {
-			closeQuietly(is);
-		}
+        catch (XMLStreamException e) {
+            if (e.getNestedException() instanceof SAXException) {
+                throw new IOException(e.getNestedException());
+            }
+            throw new IOException(e);
+        }
 
 		// Move currentTeiElement to the next text
 		nextTeiElement();
@@ -608,6 +748,94 @@ public class TeiReader
 		}
 	}
 	
+    /**
+     * A TEI element which is either read directly from the current file or has been prefetched.
+     */
+    private static class TeiElement
+    {
+        final Resource resource;
+        final int number;
+        final List<XMLEvent> events;
+        final IOException error;
+
+        TeiElement(Resource aResource, int aNumber, List<XMLEvent> aEvents)
+        {
+            resource = aResource;
+            number = aNumber;
+            events = aEvents;
+            error = null;
+        }
+
+        TeiElement(IOException aError)
+        {
+            resource = null;
+            number = 0;
+            events = null;
+            error = aError;
+        }
+    }
+
+    /**
+     * Passes StAX events on to a SAX handler. Element and attribute names are reported using the
+     * prefix under which they appear in the file.
+     */
+    private static class SaxEventConsumer
+        implements XMLEventConsumer
+    {
+        private final DefaultHandler handler;
+
+        public SaxEventConsumer(DefaultHandler aHandler)
+        {
+            handler = aHandler;
+        }
+
+        @Override
+        public void add(XMLEvent aEvent)
+            throws XMLStreamException
+        {
+            try {
+                if (aEvent.isStartElement()) {
+                    StartElement element = aEvent.asStartElement();
+                    AttributesImpl attributes = new AttributesImpl();
+                    Iterator<?> i = element.getAttributes();
+                    while (i.hasNext()) {
+                        Attribute attribute = (Attribute) i.next();
+                        QName name = attribute.getName();
+                        attributes.addAttribute(name.getNamespaceURI(), name.getLocalPart(),
+                                qualifiedName(name), "CDATA", attribute.getValue());
+                    }
+                    handler.startElement(element.getName().getNamespaceURI(),
+                            element.getName().getLocalPart(), qualifiedName(element.getName()),
+                            attributes);
+                }
+                else if (aEvent.isEndElement()) {
+                    EndElement element = aEvent.asEndElement();
+                    handler.endElement(element.getName().getNamespaceURI(),
+                            element.getName().getLocalPart(), qualifiedName(element.getName()));
+                }
+                else if (aEvent.isCharacters()) {
+                    Characters characters = aEvent.asCharacters();
+                    char[] data = characters.getData().toCharArray();
+                    if (characters.isIgnorableWhiteSpace()) {
+                        handler.ignorableWhitespace(data, 0, data.length);
+                    }
+                    else {
+                        handler.characters(data, 0, data.length);
+                    }
+                }
+            }
+            catch (SAXException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+
+        private static String qualifiedName(QName aName)
+        {
+            return aName.getPrefix().isEmpty() ? aName.getLocalPart()
+                    : aName.getPrefix() + ":" + aName.getLocalPart();
+        }
+    }
+
 	private static class ConstituentWrapper {
 	    public Constituent constituent;
 	    public List<Annotation> children = new ArrayList<Annotation>();
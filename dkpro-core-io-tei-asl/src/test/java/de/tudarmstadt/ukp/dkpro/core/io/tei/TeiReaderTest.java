@@ -174,6 +174,32 @@ public class TeiReaderTest
                 FileUtils.readFileToString(output, "UTF-8"));
     }
 
+    @Test
+    public void brownReaderTest_prefetch()
+        throws Exception
+    {
+        File reference = new File("src/test/resources/brown_ims.txt");
+        File output = new File("target/test-output/brown_ims_prefetch.txt");
+
+        CollectionReaderDescription reader = createReaderDescription(
+                TeiReader.class,
+                TeiReader.PARAM_LANGUAGE, "en",
+                TeiReader.PARAM_SOURCE_LOCATION, "classpath:/brown_tei/",
+                TeiReader.PARAM_PATTERNS, new String[] { "[+]*.xml" },
+                TeiReader.PARAM_PREFETCH, true);
+
+        AnalysisEngineDescription writer = createEngineDescription(ImsCwbWriter.class,
+                ImsCwbWriter.PARAM_TARGET_LOCATION, output,
+                ImsCwbWriter.PARAM_WRITE_CPOS, true,
+                ImsCwbWriter.PARAM_SENTENCE_TAG, "sentence");
+
+        SimplePipeline.runPipeline(reader, writer);
+
+        assertEquals(
+                FileUtils.readFileToString(reference, "UTF-8"),
+                FileUtils.readFileToString(output, "UTF-8"));
+    }
+
     @Test
     public void brownReaderTest_noSentences()
         throws Exception
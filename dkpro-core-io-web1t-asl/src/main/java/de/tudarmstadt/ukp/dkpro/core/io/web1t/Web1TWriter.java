@@ -124,6 +124,24 @@ public class Web1TWriter
 	@ConfigurationParameter(name = PARAM_SPLIT_TRESHOLD, mandatory = false, defaultValue = "1.0")
 	private float splitThreshold;
 
+	/**
+	 * The number of threads used to sort and consolidate the n-gram files when the index is
+	 * created. The n-gram levels are also processed concurrently.
+	 */
+	public static final String PARAM_NUM_THREADS = ComponentParameters.PARAM_NUM_THREADS;
+	@ConfigurationParameter(name = PARAM_NUM_THREADS, mandatory = true, defaultValue = ComponentParameters.AUTO_NUM_THREADS)
+	private int numThreads;
+
+	/**
+	 * The amount of memory in megabytes used to aggregate the n-gram counts across documents.
+	 * When the buffer is full, the aggregated counts are written to the intermediate n-gram
+	 * files. Larger buffers result in smaller intermediate files and a faster index creation.
+	 * Use 0 to write the counts after every document.
+	 */
+	public static final String PARAM_AGGREGATION_BUFFER_SIZE = "aggregationBufferSize";
+	@ConfigurationParameter(name = PARAM_AGGREGATION_BUFFER_SIZE, mandatory = false, defaultValue = "64")
+	private int aggregationBufferSize;
+
 	/**
 	 * The type being used for segments
 	 */
@@ -152,6 +170,8 @@ public class Web1TWriter
 		converter.setMinFrequency(minFreq);
 		converter.setToLowercase(lowercase);
 		converter.setOutputEncoding(outputEncoding);
+		converter.setNumThreads(ComponentParameters.computeNumThreads(numThreads));
+		converter.setAggregationBufferSize(aggregationBufferSize * 1024L * 1024L);
 	}
 
     @Override
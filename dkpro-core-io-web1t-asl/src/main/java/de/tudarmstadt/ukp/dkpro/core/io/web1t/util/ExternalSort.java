@@ -4,9 +4,16 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -47,6 +54,24 @@ public class ExternalSort {
 	// are too small, we shall create too many temporary files. 
 	// If they are too big, we shall be using too much memory. 
 	public static long estimateBestSizeOfBlocks(File filetobesorted, int maxtmpfiles) {
+		return estimateBestSizeOfBlocks(filetobesorted, maxtmpfiles, 1);
+	}
+
+	/**
+	 * Estimate the block size when several files are sorted at the same time. Each of the
+	 * concurrent sorts gets an equal share of the memory a single sort would use, so the total
+	 * memory used stays bounded.
+	 *
+	 * @param filetobesorted
+	 *            the file to be sorted.
+	 * @param maxtmpfiles
+	 *            maximum number of temporary files
+	 * @param concurrentsorts
+	 *            the number of sorts running at the same time.
+	 * @return the block size in bytes.
+	 */
+	public static long estimateBestSizeOfBlocks(File filetobesorted, int maxtmpfiles,
+			int concurrentsorts) {
 		long sizeoffile = filetobesorted.length() * 2;
 		/**
 		* We multiply by two because later on someone insisted on counting the memory
@@ -59,7 +84,7 @@ public class ExternalSort {
 		
 		// on the other hand, we don't want to create many temporary files
 		// for naught. If blocksize is smaller than half the free memory, grow it.
-		long freemem = Runtime.getRuntime().freeMemory();
+		long freemem = Runtime.getRuntime().freeMemory() / Math.max(1, concurrentsorts);
 		if( blocksize < freemem/2) {
 		    blocksize = freemem/2;
 		} 
@@ -97,9 +122,31 @@ public class ExternalSort {
      *             if an I/O problem occurs.
      */
 	public static List<File> sortInBatch(File file, Comparator<String> cmp, int maxtmpfiles) throws IOException {
+		return sortInBatch(file, cmp, Charset.defaultCharset(),
+				estimateBestSizeOfBlocks(file, maxtmpfiles));
+	}
+
+    /**
+     * Like {@link #sortInBatch(File, Comparator, int)}, but using the given encoding for the input
+     * file and the temporary files and the given block size.
+     * 
+     * @param file
+     *            some flat file
+     * @param cmp
+     *            string comparator
+     * @param cs
+     *            the encoding of the file
+     * @param blocksize
+     *            the amount of memory to use for a block in bytes, e.g. as obtained from
+     *            {@link #estimateBestSizeOfBlocks(File, int, int)}
+     * @return a list of temporary flat files
+     * @throws IOException
+     *             if an I/O problem occurs.
+     */
+	public static List<File> sortInBatch(File file, Comparator<String> cmp, Charset cs,
+			long blocksize) throws IOException {
 		List<File> files = new ArrayList<File>();
-		BufferedReader fbr = new BufferedReader(new FileReader(file));
-		long blocksize = estimateBestSizeOfBlocks(file,maxtmpfiles);// in bytes
+		BufferedReader fbr = newReader(file, cs);
 
 		try{
 			List<String> tmplist =  new ArrayList<String>();
@@ -112,12 +159,12 @@ public class ExternalSort {
 						tmplist.add(line);
 						currentblocksize += line.length() * 2; // java uses 16 bits per character?
 					}
-					files.add(sortAndSave(tmplist,cmp));
+					files.add(sortAndSave(tmplist,cmp,cs));
 					tmplist.clear();
 				}
 			} catch(EOFException oef) {
 				if(tmplist.size()>0) {
-					files.add(sortAndSave(tmplist,cmp));
+					files.add(sortAndSave(tmplist,cmp,cs));
 					tmplist.clear();
 				}
 			}
@@ -129,10 +176,14 @@ public class ExternalSort {
 
 
 	public static File sortAndSave(List<String> tmplist, Comparator<String> cmp) throws IOException  {
+		return sortAndSave(tmplist, cmp, Charset.defaultCharset());
+	}
+
+	public static File sortAndSave(List<String> tmplist, Comparator<String> cmp, Charset cs) throws IOException  {
 		Collections.sort(tmplist,cmp);  
 		File newtmpfile = File.createTempFile("sortInBatch", "flatfile");
 		newtmpfile.deleteOnExit();
-		BufferedWriter fbw = new BufferedWriter(new FileWriter(newtmpfile));
+		BufferedWriter fbw = newWriter(newtmpfile, cs);
 		try {
 			for(String r : tmplist) {
 				fbw.write(r);
@@ -158,6 +209,27 @@ public class ExternalSort {
      *             if an I/O problem occurs.
      */
 	public static int mergeSortedFiles(List<File> files, File outputfile, final Comparator<String> cmp) throws IOException {
+		return mergeSortedFiles(files, outputfile, cmp, Charset.defaultCharset());
+	}
+
+    /**
+     * This merges a bunch of temporary flat files using the given encoding. The files are read
+     * through buffered file channels and merged using a heap holding the head of each file.
+     * 
+     * @param files
+     *            the files to merge.
+     * @param outputfile
+     *            the target file.
+     * @param cmp
+     *            the comprarator.
+     * @param cs
+     *            the encoding of the files.
+     * @return The number of lines sorted.
+     * @throws IOException
+     *             if an I/O problem occurs.
+     */
+	public static int mergeSortedFiles(List<File> files, File outputfile, final Comparator<String> cmp,
+			Charset cs) throws IOException {
 		PriorityQueue<BinaryFileBuffer> pq = new PriorityQueue<BinaryFileBuffer>(11, 
             new Comparator<BinaryFileBuffer>() {
               @Override
@@ -167,10 +239,15 @@ public class ExternalSort {
             }
         );
 		for (File f : files) {
-			BinaryFileBuffer bfb = new BinaryFileBuffer(f);
+			BinaryFileBuffer bfb = new BinaryFileBuffer(f, cs);
+			if (bfb.empty()) {
+				bfb.close();
+				f.delete();
+				continue;
+			}
 			pq.add(bfb);
 		}
-		BufferedWriter fbw = new BufferedWriter(new FileWriter(outputfile));
+		BufferedWriter fbw = newWriter(outputfile, cs);
 		int rowcounter = 0;
 		try {
 			while(pq.size()>0) {
@@ -193,6 +270,19 @@ public class ExternalSort {
 		return rowcounter;
 	}
 
+	static BufferedReader newReader(File file, Charset cs) throws IOException {
+		// Replace malformed input like FileReader does instead of failing
+		return new BufferedReader(new InputStreamReader(new FileInputStream(file),
+				cs.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+						.onUnmappableCharacter(CodingErrorAction.REPLACE)),
+				BinaryFileBuffer.BUFFERSIZE);
+	}
+
+	static BufferedWriter newWriter(File file, Charset cs) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), cs),
+				BinaryFileBuffer.BUFFERSIZE);
+	}
+
 	public static void main(String[] args) throws IOException {
 		
 		boolean verbose = false;
@@ -228,15 +318,23 @@ public class ExternalSort {
 
 
 class BinaryFileBuffer  {
-	public static int BUFFERSIZE = 2048;
+	public static int BUFFERSIZE = 64 * 1024;
 	public BufferedReader fbr;
 	public File originalfile;
 	private String cache;
 	private boolean empty;
 	
 	public BinaryFileBuffer(File f) throws IOException {
+		this(f, Charset.defaultCharset());
+	}
+
+	public BinaryFileBuffer(File f, Charset cs) throws IOException {
 		originalfile = f;
-		fbr = new BufferedReader(new FileReader(f), BUFFERSIZE);
+		fbr = new BufferedReader(Channels.newReader(
+				FileChannel.open(f.toPath(), StandardOpenOption.READ),
+				cs.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+						.onUnmappableCharacter(CodingErrorAction.REPLACE), BUFFERSIZE),
+				BUFFERSIZE);
 		reload();
 	}
 	
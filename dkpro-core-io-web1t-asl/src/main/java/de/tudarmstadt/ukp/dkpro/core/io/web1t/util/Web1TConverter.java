@@ -25,7 +25,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -33,9 +35,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Type;
@@ -45,6 +52,8 @@ import org.apache.uima.jcas.JCas;
 
 import com.googlecode.jweb1t.JWeb1TIndexer;
 
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
 import de.tudarmstadt.ukp.dkpro.core.api.featurepath.FeaturePathException;
 import de.tudarmstadt.ukp.dkpro.core.api.featurepath.FeaturePathInfo;
 import de.tudarmstadt.ukp.dkpro.core.api.frequency.util.ConditionalFrequencyDistribution;
@@ -53,6 +62,7 @@ import de.tudarmstadt.ukp.dkpro.core.ngrams.util.NGramStringIterable;
 
 public class Web1TConverter
 {
+    private final Log log = LogFactory.getLog(getClass());
 
     public static final String SENTENCE_START = "<S>";
     public static final String SENTENCE_END = "</S>";
@@ -60,6 +70,12 @@ public class Web1TConverter
     private static final String LF = "\n";
     private static final String TAB = "\t";
 
+    /**
+     * Rough estimate of the heap used by an aggregation buffer entry in addition to the characters
+     * of the n-gram: the string and its character array plus the hash table slots.
+     */
+    private static final int ENTRY_OVERHEAD = 72;
+
     private String outputPath;
     private String outputEncoding = "UTF-8";
     private int minNgramLength = 1;
@@ -68,10 +84,17 @@ public class Web1TConverter
     private boolean toLowercase = false;
     private boolean writeIndexes = true;
     private float splitThreshold = 1.0f;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+    private long aggregationBufferSize = 64 * 1024 * 1024;
 
     private Map<Integer, BufferedWriter> ngramWriters;
     private Map<Integer, FrequencyDistribution<String>> letterFDs;
 
+    // N-gram counts aggregated across documents until the buffer is spilled to the n-gram files
+    private Map<Integer, Object2LongOpenHashMap<String>> aggregationBuffers;
+    private long bufferedBytes;
+    private long spills;
+
     public Web1TConverter(String outputPath)
         throws IOException
     {
@@ -93,6 +116,10 @@ public class Web1TConverter
 
         ngramWriters = initializeWriters(minNgramLength, maxNgramLength);
         letterFDs = initializeLetterFDs(minNgramLength, maxNgramLength);
+        aggregationBuffers = new HashMap<Integer, Object2LongOpenHashMap<String>>();
+        for (int level = minNgramLength; level <= maxNgramLength; level++) {
+            aggregationBuffers.put(level, new Object2LongOpenHashMap<String>());
+        }
 
         if (splitThreshold >= 100) {
             throw new IllegalArgumentException("Threshold has to be lower 100");
@@ -102,8 +129,6 @@ public class Web1TConverter
     public void add(JCas jcas, Set<String> inputPaths, Type sentenceType)
         throws IOException
     {
-        ConditionalFrequencyDistribution<Integer, String> cfd = new ConditionalFrequencyDistribution<Integer, String>();
-
         CAS cas = jcas.getCas();
 
         for (AnnotationFS annotation : CasUtil.select(cas, sentenceType)) {
@@ -126,26 +151,81 @@ public class Web1TConverter
                 }
 
                 for (int ngramLength = minNgramLength; ngramLength <= maxNgramLength; ngramLength++) {
-                    cfd.incAll(ngramLength, new NGramStringIterable(tokenStrings, ngramLength,
-                            ngramLength));
+                    Object2LongOpenHashMap<String> buffer = aggregationBuffers.get(ngramLength);
+                    for (String ngram : new NGramStringIterable(tokenStrings, ngramLength,
+                            ngramLength)) {
+                        aggregate(buffer, ngram, 1);
+                    }
                 }
             }
         }
 
-        add(cfd);
+        spillIfFull();
     }
 
     public void add(ConditionalFrequencyDistribution<Integer, String> cfd)
         throws IOException
     {
-        writeFrequencyDistributionsToNGramFiles(cfd);
+        for (int level : cfd.getConditions()) {
+            Object2LongOpenHashMap<String> buffer = aggregationBuffers.get(level);
+            if (buffer == null) {
+                throw new IOException("No writer for ngram level " + level + " initialized.");
+            }
+
+            for (String key : cfd.getFrequencyDistribution(level).getKeys()) {
+                aggregate(buffer, key, cfd.getCount(level, key));
+            }
+        }
+
+        spillIfFull();
+    }
+
+    private void aggregate(Object2LongOpenHashMap<String> buffer, String ngram, long count)
+    {
+        if (buffer.addTo(ngram, count) == 0) {
+            bufferedBytes += ENTRY_OVERHEAD + 2 * ngram.length();
+        }
+    }
+
+    private void spillIfFull()
+        throws IOException
+    {
+        if (bufferedBytes >= aggregationBufferSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Write the aggregated counts of all levels to the n-gram files as a sorted run and clear the
+     * buffers. The runs of different spills may contain the same n-grams - they are summed up
+     * when the index is created.
+     */
+    private void spill()
+        throws IOException
+    {
+        if (bufferedBytes == 0) {
+            return;
+        }
+
+        for (Map.Entry<Integer, Object2LongOpenHashMap<String>> e : aggregationBuffers
+                .entrySet()) {
+            writeNGramFile(e.getKey(), e.getValue());
+            e.getValue().clear();
+        }
+
+        spills++;
+        log.debug("Spilled " + bufferedBytes + " bytes of aggregated n-gram counts (spill "
+                + spills + ")");
+        bufferedBytes = 0;
     }
 
     public void createIndex()
         throws IOException
     {
 
+        spill();
         closeWriters(ngramWriters.values());
+        log.info("Aggregated n-gram counts were written in " + spills + " runs");
 
         Comparator<String> comparator = new Comparator<String>()
         {
@@ -157,11 +237,32 @@ public class Web1TConverter
         };
 
         // read the file with the counts per file and create the final
-        // aggregated counts
-        for (int level = minNgramLength; level <= maxNgramLength; level++) {
-            Integer nextFreeFileNumber = processInputFileForLevel(level, comparator);
-
-            processCreatedMiscFileAgain(level, comparator, nextFreeFileNumber);
+        // aggregated counts. The levels are independent of each other and are processed
+        // concurrently. The split files of all levels share a single pool of worker threads.
+        int levels = maxNgramLength - minNgramLength + 1;
+        ExecutorService fileExecutor = Executors.newFixedThreadPool(numThreads);
+        ExecutorService levelExecutor = Executors.newFixedThreadPool(Math.min(numThreads,
+                levels));
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int level = minNgramLength; level <= maxNgramLength; level++) {
+                int l = level;
+                futures.add(Web1TUtil.submit(levelExecutor, () -> {
+                    long start = System.currentTimeMillis();
+                    int nextFreeFileNumber = processInputFileForLevel(l, comparator,
+                            fileExecutor);
+
+                    processCreatedMiscFileAgain(l, comparator, nextFreeFileNumber,
+                            fileExecutor);
+                    log.info("Level " + l + " completed in "
+                            + (System.currentTimeMillis() - start) + "ms");
+                }));
+            }
+            Web1TUtil.awaitAll(futures);
+        }
+        finally {
+            levelExecutor.shutdownNow();
+            fileExecutor.shutdownNow();
         }
 
         if (writeIndexes) {
@@ -170,7 +271,8 @@ public class Web1TConverter
         }
     }
 
-    private int processInputFileForLevel(int level, Comparator<String> comparator)
+    private int processInputFileForLevel(int level, Comparator<String> comparator,
+            ExecutorService executor)
         throws IOException
     {
 
@@ -186,18 +288,22 @@ public class Web1TConverter
 
         splitter.split();
         List<File> splitFiles = splitter.getFiles();
+        log.info("Level " + level + ": split into " + splitFiles.size() + " files");
 
-        Web1TFileSorter sorter = new Web1TFileSorter(splitFiles, comparator);
+        Web1TFileSorter sorter = new Web1TFileSorter(splitFiles, comparator,
+                Charset.forName(outputEncoding), executor);
         sorter.sort();
         splitter.cleanUp(); // Remove files from previous step
+        log.info("Level " + level + ": sorted " + splitFiles.size() + " files");
 
         LinkedList<File> sortedFiles = sorter.getSortedFiles();
 
         Web1TFileConsolidator consolidator = new Web1TFileConsolidator(sortedFiles, comparator,
-                outputEncoding, minFrequency);
+                outputEncoding, minFrequency, executor);
 
         consolidator.consolidate();
         sorter.cleanUp(); // Remove files from previous step
+        log.info("Level " + level + ": consolidated " + sortedFiles.size() + " files");
 
         LinkedList<File> consolidatedFiles = consolidator.getConsolidatedFiles();
 
@@ -214,30 +320,15 @@ public class Web1TConverter
         return splitter.getNextUnusedFileNumber();
     }
 
-    /**
-     * Write the frequency distributions to the corresponding n-gram files.
-     */
-    private void writeFrequencyDistributionsToNGramFiles(
-            ConditionalFrequencyDistribution<Integer, String> cfd)
-        throws IOException
-    {
-        for (int level : cfd.getConditions()) {
-
-            if (!ngramWriters.containsKey(level)) {
-                throw new IOException("No writer for ngram level " + level + " initialized.");
-            }
-
-            writeNGramFile(cfd, level);
-
-        }
-    }
-
-    private void writeNGramFile(ConditionalFrequencyDistribution<Integer, String> cfd, int level)
+    private void writeNGramFile(int level, Object2LongOpenHashMap<String> counts)
         throws IOException
     {
         FrequencyDistribution<String> letterFD = letterFDs.get(level);
         BufferedWriter writer = ngramWriters.get(level);
-        for (String key : cfd.getFrequencyDistribution(level).getKeys()) {
+
+        String[] keys = counts.keySet().toArray(new String[counts.size()]);
+        Arrays.parallelSort(keys);
+        for (String key : keys) {
 
             // add starting letter to frequency distribution
             if (key.length() > 1) {
@@ -253,7 +344,7 @@ public class Web1TConverter
 
             writer.write(key);
             writer.write(TAB);
-            writer.write(Long.toString(cfd.getCount(level, key)));
+            writer.write(Long.toString(counts.getLong(key)));
             writer.write(LF);
         }
         writer.flush();
@@ -316,7 +407,7 @@ public class Web1TConverter
      * have grown large. In order to prevent an real large misc. file we split again.
      */
     private void processCreatedMiscFileAgain(int level, Comparator<String> comparator,
-            int nextFileNumber)
+            int nextFileNumber, ExecutorService executor)
         throws IOException
     {
         File folder = getOutputFolder(level);
@@ -328,24 +419,24 @@ public class Web1TConverter
 
         FrequencyDistribution<String> letterFD = createFreqDistForMiscFile(misc);
 
-        float oldThreshold = splitThreshold;
-        // Make sure that the misc file is split into little pieces
-        splitThreshold /= 10;
+        // Make sure that the misc file is split into little pieces. The levels are processed
+        // concurrently, so the threshold must not be changed in place.
+        float miscThreshold = splitThreshold / 10;
 
         Web1TFileSplitter splitter = new Web1TFileSplitter(misc, folder, "UTF-8", letterFD,
-                splitThreshold, nextFileNumber);
+                miscThreshold, nextFileNumber);
         splitter.split();
         List<File> splittedFiles = splitter.getFiles();
 
-        Web1TFileSorter sorter = new Web1TFileSorter(splittedFiles, comparator);
+        Web1TFileSorter sorter = new Web1TFileSorter(splittedFiles, comparator,
+                Charset.forName("UTF-8"), executor);
         sorter.sort();
         List<File> sortedFiles = splitter.getFiles();
 
-        splitThreshold = oldThreshold;
         misc.delete();
 
         Web1TFileConsolidator consolidator = new Web1TFileConsolidator(sortedFiles, comparator,
-                outputEncoding, minFrequency);
+                outputEncoding, minFrequency, executor);
         consolidator.consolidate();
 
         LinkedList<File> consolidatedFiles = consolidator.getConsolidatedFiles();
@@ -467,6 +558,49 @@ public class Web1TConverter
         this.splitThreshold = splitThreshold;
     }
 
+    public int getNumThreads()
+    {
+        return numThreads;
+    }
+
+    /**
+     * Set the number of threads used to sort and consolidate the n-gram files when creating the
+     * index. The n-gram levels are processed concurrently as well.
+     *
+     * @param numThreads
+     *            the number of threads.
+     */
+    public void setNumThreads(int numThreads)
+    {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads is invalid (must be >= 1)");
+        }
+
+        this.numThreads = numThreads;
+    }
+
+    public long getAggregationBufferSize()
+    {
+        return aggregationBufferSize;
+    }
+
+    /**
+     * Set the approximate amount of memory used to aggregate n-gram counts across documents
+     * before they are written to the n-gram files. Larger buffers result in smaller intermediate
+     * files. Use {@code 0} to write the counts after every document.
+     *
+     * @param aggregationBufferSize
+     *            the buffer size in bytes.
+     */
+    public void setAggregationBufferSize(long aggregationBufferSize)
+    {
+        if (aggregationBufferSize < 0) {
+            throw new IllegalArgumentException("Aggregation buffer size is invalid (must be >= 0)");
+        }
+
+        this.aggregationBufferSize = aggregationBufferSize;
+    }
+
     public String getOutputEncoding()
     {
         return outputEncoding;
@@ -25,9 +25,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 public class Web1TFileConsolidator
@@ -38,17 +41,39 @@ public class Web1TFileConsolidator
 	private LinkedList<File> consolidatedFiles = new LinkedList<File>();
 	private final String fileEncoding;
 	private final int minFreq;
+	private final ExecutorService executor;
 
 	private final String TAB = "\t";
 	private final String LF = "\n";
 
 	public Web1TFileConsolidator(List<File> sortedInputFiles,
 			Comparator<String> comparator, String fileEncoding, int minFreq)
+	{
+		this(sortedInputFiles, comparator, fileEncoding, minFreq, null);
+	}
+
+	/**
+	 * @param sortedInputFiles
+	 *            the sorted files.
+	 * @param comparator
+	 *            the comparator.
+	 * @param fileEncoding
+	 *            the encoding of the files.
+	 * @param minFreq
+	 *            the minimum frequency of an entry to be retained.
+	 * @param executor
+	 *            the executor used to consolidate the files concurrently or {@code null} to
+	 *            consolidate them one after another in the calling thread.
+	 */
+	public Web1TFileConsolidator(List<File> sortedInputFiles,
+			Comparator<String> comparator, String fileEncoding, int minFreq,
+			ExecutorService executor)
 	{
 		this.inputFiles = sortedInputFiles;
 		this.comparator = comparator;
 		this.fileEncoding = fileEncoding;
 		this.minFreq = minFreq;
+		this.executor = executor;
 	}
 
 	public void consolidate()
@@ -62,67 +87,79 @@ public class Web1TFileConsolidator
 					.cutOffUnderscoredSuffixFromFileName(file) + "_cons"));
 		}
 
+		List<Future<?>> futures = new ArrayList<Future<?>>();
 		for (int i = 0; i < inputFiles.size(); i++) {
-
 			File file_in = inputFiles.get(i);
 			File file_out = consolidatedFiles.get(i);
+			if (executor != null) {
+				futures.add(Web1TUtil.submit(executor, () -> consolidate(file_in, file_out)));
+			}
+			else {
+				consolidate(file_in, file_out);
+			}
+		}
+
+		Web1TUtil.awaitAll(futures);
+	}
 
-			BufferedReader sortedSplitFileReader = new BufferedReader(
-					new InputStreamReader(new FileInputStream(file_in),
-							fileEncoding));
+	private void consolidate(File file_in, File file_out)
+		throws IOException
+	{
+		BufferedReader sortedSplitFileReader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file_in),
+						fileEncoding));
+
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file_out), fileEncoding));
+
+		String prevEntry = null;
+		String entry = null;
+		Long prevEntryFreq = null;
+		Long entryFreq = null;
+
+		while ((entry = sortedSplitFileReader.readLine()) != null) {
 
-			BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
-					new FileOutputStream(file_out), fileEncoding));
+			int tabPos = entry.indexOf(TAB);
 
-			String prevEntry = null;
-			String entry = null;
-			Integer prevEntryFreq = null;
-			Integer entryFreq = null;
+			if (hasLineInvalidFormat(tabPos)) {
+			    System.err.println("Wrong file format in line: " + entry);
+				continue;
+			}
 
-			while ((entry = sortedSplitFileReader.readLine()) != null) {
+			String entryWithoutFreq = extractTextValue(entry, tabPos);
+			entryFreq = extractFreqValue(entry, tabPos);
 
-				int tabPos = entry.indexOf(TAB);
+			if (isFirstIteration(prevEntry, prevEntryFreq)) {
+				prevEntry = entryWithoutFreq;
+				prevEntryFreq = entryFreq;
+			}
+			else {
 
-				if (hasLineInvalidFormat(tabPos)) {
-				    System.err.println("Wrong file format in line: " + entry);
-					continue;
+				// Entries are equal, add up frequency
+				if (arePrevEntryAndCurrentEntryEqual(prevEntry,
+						entryWithoutFreq, comparator)) {
+					prevEntryFreq += entryFreq;
 				}
+				else { // Entry changed, write aggregated entry
 
-				String entryWithoutFreq = extractTextValue(entry, tabPos);
-				entryFreq = extractFreqValue(entry, tabPos);
+					writeAggregatedEntryToFile(writer, prevEntry,
+							prevEntryFreq);
 
-				if (isFirstIteration(prevEntry, prevEntryFreq)) {
+					// Prepare next iteration
 					prevEntry = entryWithoutFreq;
 					prevEntryFreq = entryFreq;
 				}
-				else {
-
-					// Entries are equal, add up frequency
-					if (arePrevEntryAndCurrentEntryEqual(prevEntry,
-							entryWithoutFreq, comparator)) {
-						prevEntryFreq += entryFreq;
-					}
-					else { // Entry changed, write aggregated entry
-
-						writeAggregatedEntryToFile(writer, prevEntry,
-								prevEntryFreq);
-
-						// Prepare next iteration
-						prevEntry = entryWithoutFreq;
-						prevEntryFreq = entryFreq;
-					}
-				}
-
 			}
-			writeAggregatedEntryToFile(writer, prevEntry, prevEntryFreq);
-			writer.close();
-			
-			sortedSplitFileReader.close();
+
 		}
+		writeAggregatedEntryToFile(writer, prevEntry, prevEntryFreq);
+		writer.close();
+		
+		sortedSplitFileReader.close();
 	}
 
 	private void writeAggregatedEntryToFile(BufferedWriter writer,
-			String entry, Integer entryFrequency)
+			String entry, Long entryFrequency)
 		throws IOException
 	{
 
@@ -139,7 +176,7 @@ public class Web1TFileConsolidator
 		return comparator.compare(prevEntry, entryWithoutFreq) == 0;
 	}
 
-	private boolean isFirstIteration(String prevEntry, Integer prevEntryFreq)
+	private boolean isFirstIteration(String prevEntry, Long prevEntryFreq)
 	{
 		return prevEntry == null || prevEntryFreq == null;
 	}
@@ -149,11 +186,11 @@ public class Web1TFileConsolidator
 		return (tabPos < 0);
 	}
 
-	private Integer extractFreqValue(String entry, int tabPos)
+	private Long extractFreqValue(String entry, int tabPos)
 	{
 		String freqOfEntryAsString = entry.substring(tabPos + 1);
-		Integer freqOfEntryAsInt = Integer.parseInt(freqOfEntryAsString);
-		return freqOfEntryAsInt;
+		// Counts are aggregated in memory before being written, so they may exceed the int range
+		return Long.parseLong(freqOfEntryAsString);
 	}
 
 	private String extractTextValue(String entry, int tabPos)
@@ -19,39 +19,99 @@ package de.tudarmstadt.ukp.dkpro.core.io.web1t.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
-
+/**
+ * Sorts the split files of an n-gram level. If an executor is given, the files are sorted
+ * concurrently. The memory available for sorting is then shared between the concurrent sorts.
+ */
 public class Web1TFileSorter
 {
+    private final Log log = LogFactory.getLog(getClass());
 
 	private final List<File> inputFiles;
 	private List<File> sortedFiles = new LinkedList<File>();
 	private final Comparator<String> comparator;
+	private final Charset charset;
+	private final ExecutorService executor;
 
 	public Web1TFileSorter(List<File> unsortedFiles,
 			Comparator<String> comparator)
+	{
+		this(unsortedFiles, comparator, Charset.defaultCharset(), null);
+	}
+
+	/**
+	 * @param unsortedFiles
+	 *            the files to sort.
+	 * @param comparator
+	 *            the comparator.
+	 * @param charset
+	 *            the encoding of the files.
+	 * @param executor
+	 *            the executor used to sort the files concurrently or {@code null} to sort them
+	 *            one after another in the calling thread.
+	 */
+	public Web1TFileSorter(List<File> unsortedFiles,
+			Comparator<String> comparator, Charset charset, ExecutorService executor)
 	{
 		this.inputFiles = unsortedFiles;
 		this.comparator = comparator;
+		this.charset = charset;
+		this.executor = executor;
 	}
 
 	public void sort()
 		throws IOException
 	{
+		int concurrentSorts = 1;
+		if (executor instanceof ThreadPoolExecutor) {
+			concurrentSorts = ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+		}
+
+		List<File> targets = new ArrayList<File>();
 		for (File file : inputFiles) {
+			targets.add(new File(
+					Web1TUtil.cutOffUnderscoredSuffixFromFileName(file)
+							+ "_sorted"));
+		}
+		sortedFiles.addAll(targets);
 
-			List<File> l = ExternalSort.sortInBatch(file, comparator);
+		AtomicInteger done = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int i = 0; i < inputFiles.size(); i++) {
+			File file = inputFiles.get(i);
+			File target = targets.get(i);
+			int sorts = concurrentSorts;
+			Web1TUtil.Task task = () -> {
+				long blockSize = ExternalSort.estimateBestSizeOfBlocks(file,
+						ExternalSort.DEFAULTMAXTEMPFILES, sorts);
+				List<File> l = ExternalSort.sortInBatch(file, comparator, charset, blockSize);
+				ExternalSort.mergeSortedFiles(l, target, comparator, charset);
+				log.debug("Sorted [" + file.getName() + "] (" + done.incrementAndGet() + "/"
+						+ inputFiles.size() + ")");
+			};
 
-			File sortedSplitFile = new File(
-					Web1TUtil.cutOffUnderscoredSuffixFromFileName(file)
-							+ "_sorted");
-			sortedFiles.add(sortedSplitFile);
-			ExternalSort.mergeSortedFiles(l, sortedSplitFile, comparator);
+			if (executor != null) {
+				futures.add(Web1TUtil.submit(executor, task));
+			}
+			else {
+				task.run();
+			}
 		}
+
+		Web1TUtil.awaitAll(futures);
 	}
 
 	public LinkedList<File> getSortedFiles()
@@ -114,7 +114,6 @@ public class Web1TFileSplitter
     
     			writer.write(readLine);
     			writer.write(LF);
-    			writer.flush();
     		}
 		}
 		finally {
@@ -18,6 +18,11 @@
 package de.tudarmstadt.ukp.dkpro.core.io.web1t.util;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class Web1TUtil
 {
@@ -44,4 +49,54 @@ public class Web1TUtil
 		key = key.toLowerCase();
 		return key;
 	}
+
+	/**
+	 * A unit of work of the index builder which may fail with an {@link IOException}.
+	 */
+	public interface Task
+	{
+		void run()
+			throws IOException;
+	}
+
+	public static Future<Void> submit(ExecutorService executor, Task task)
+	{
+		return executor.submit(() -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Wait for all given tasks to complete. If a task fails, the remaining tasks are cancelled.
+	 *
+	 * @param futures
+	 *            the tasks.
+	 * @throws IOException
+	 *             the exception of the first failed task.
+	 */
+	public static void awaitAll(List<? extends Future<?>> futures)
+		throws IOException
+	{
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+		finally {
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
 }
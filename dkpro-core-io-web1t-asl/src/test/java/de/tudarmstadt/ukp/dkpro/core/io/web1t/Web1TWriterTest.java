@@ -20,10 +20,14 @@ package de.tudarmstadt.ukp.dkpro.core.io.web1t;
 import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
 import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.uima.UIMAException;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.collection.CollectionReader;
@@ -94,6 +98,44 @@ public class Web1TWriterTest
 
     }
 
+    @Test
+    public void web1TFormatTest_multiThreaded()
+        throws Exception
+    {
+        File folder = testContext.getTestOutputFolder();
+        File singleThreaded = new File(folder, "single");
+        File multiThreaded = new File(folder, "multi");
+
+        String[] inputTypes = new String[] { Token.class.getName() };
+        writeWeb1TFormat(singleThreaded, inputTypes, Web1TWriter.PARAM_NUM_THREADS, 1);
+        writeWeb1TFormat(multiThreaded, inputTypes, Web1TWriter.PARAM_NUM_THREADS, 4);
+
+        Collection<File> files = FileUtils.listFiles(singleThreaded, null, true);
+        assertEquals(files.size(), FileUtils.listFiles(multiThreaded, null, true).size());
+        for (File file : files) {
+            File other = new File(multiThreaded,
+                    singleThreaded.toURI().relativize(file.toURI()).getPath());
+            assertTrue("Files differ: " + other, FileUtils.contentEquals(file, other));
+        }
+    }
+
+    @Test
+    public void web1TFormatTest_withoutAggregationBuffer()
+        throws Exception
+    {
+        File folder = testContext.getTestOutputFolder();
+
+        writeWeb1TFormat(folder, new String[] { Token.class.getName() },
+                Web1TWriter.PARAM_AGGREGATION_BUFFER_SIZE, 0);
+        Web1TFileAccessProvider web1tProvider = new Web1TFileAccessProvider("en", folder,
+                MIN_NGRAM, MAX_NGRAM);
+
+        assertEquals(4, web1tProvider.getFrequency("."));
+        assertEquals(1, web1tProvider.getFrequency(","));
+        assertEquals(3, web1tProvider.getFrequency("sentence"));
+        assertEquals(1, web1tProvider.getFrequency("written"));
+    }
+
     @Test(expected = ResourceInitializationException.class)
     public void web1TFormatTest_exceptionForInvalidMinFrequency1()
         throws Exception
@@ -145,7 +187,7 @@ public class Web1TWriterTest
         return web1tProvider;
     }
 
-    private void writeWeb1TFormat(File target, String[] inputPath)
+    private void writeWeb1TFormat(File target, String[] inputPath, Object... extraParams)
         throws Exception
     {
         CollectionReader reader = createReader(TextReader.class,
@@ -160,10 +202,11 @@ public class Web1TWriterTest
         AnalysisEngineDescription lemmatizer = createEngineDescription(ClearNlpLemmatizer.class);
 
         AnalysisEngineDescription ngramWriter = createEngineDescription(Web1TWriter.class,
-                Web1TWriter.PARAM_TARGET_LOCATION, target,
-                Web1TWriter.PARAM_INPUT_TYPES, inputPath, 
-                Web1TWriter.PARAM_MIN_NGRAM_LENGTH, MIN_NGRAM, 
-                Web1TWriter.PARAM_MAX_NGRAM_LENGTH, MAX_NGRAM);
+                ArrayUtils.addAll(new Object[] {
+                        Web1TWriter.PARAM_TARGET_LOCATION, target,
+                        Web1TWriter.PARAM_INPUT_TYPES, inputPath, 
+                        Web1TWriter.PARAM_MIN_NGRAM_LENGTH, MIN_NGRAM, 
+                        Web1TWriter.PARAM_MAX_NGRAM_LENGTH, MAX_NGRAM }, extraParams));
 
         SimplePipeline.runPipeline(reader, segmenter, tagger, lemmatizer, ngramWriter);
     }
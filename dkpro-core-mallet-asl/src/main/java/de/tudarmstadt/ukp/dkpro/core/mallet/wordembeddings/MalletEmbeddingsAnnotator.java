@@ -37,7 +37,6 @@ import org.dkpro.core.api.embeddings.text.TextFormatVectorizer;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Optional;
 
 /**
  * Reads word embeddings from a file and adds {@link WordEmbedding} annotations to tokens/lemmas.
@@ -65,6 +64,7 @@ public class MalletEmbeddingsAnnotator
     @ConfigurationParameter(name = PARAM_MODEL_IS_BINARY, mandatory = true, defaultValue = "false")
     private boolean modelIsBinary;
     private Vectorizer vectorizer;
+    private float[] vectorBuffer;
 
     /**
      * Specify how to handle unknown tokens:
@@ -124,6 +124,8 @@ public class MalletEmbeddingsAnnotator
             throw new ResourceInitializationException(new IllegalArgumentException(
                     "If PARAM_LOWERCASE is set, the model should be caseless and vice-versa."));
         }
+
+        vectorBuffer = new float[vectorizer.dimensions()];
     }
 
     @Override
@@ -148,14 +150,15 @@ public class MalletEmbeddingsAnnotator
         if (lowercase) {
             text = text.toLowerCase();
         }
-        Optional<float[]> vector = getVector(text);
 
-        if (vector.isPresent()) {
+        // If PARAM_ANNOTATE_UNKNOWN_TOKENS is set, unknown tokens are annotated with the stable
+        // random vector returned by the vectorizer for unknown tokens.
+        boolean known = vectorizer.vectorize(text, vectorBuffer);
+
+        if (known || annotateUnknownTokens) {
             WordEmbedding embedding = new WordEmbedding(aJCas, begin, end);
-            FloatArray array = new FloatArray(aJCas, vector.get().length);
-            for (int i = 0; i < vector.get().length; i++) {
-                array.set(i, vector.get()[i]);
-            }
+            FloatArray array = new FloatArray(aJCas, vectorBuffer.length);
+            array.copyFromArray(vectorBuffer, 0, 0, vectorBuffer.length);
             embedding.setWordEmbedding(array);
             embedding.addToIndexes(aJCas);
         }
@@ -163,26 +166,4 @@ public class MalletEmbeddingsAnnotator
             getLogger().debug(text + " not found in embeddings list.");
         }
     }
-
-    /**
-     * If {@link #PARAM_ANNOTATE_UNKNOWN_TOKENS} is set to true, always return a vector retrieved
-     * from the vectorizer, which should hold a stable random vector for unknown tokens.
-     * Otherwise, return a vector for known tokens, or none if the token is unknown.
-     *
-     * @param token a token for which to look up an embedding
-     * @return an {@code Optional<float[]>} that holds the token embedding or is empty if no embeddings is available for the token
-     * @throws IOException if an I/O error occurs
-     */
-    private Optional<float[]> getVector(String token)
-            throws IOException
-    {
-        if (annotateUnknownTokens) {
-            return Optional.of(vectorizer.vectorize(token));
-        }
-        else {
-            return vectorizer.contains(token) ?
-                    Optional.of(vectorizer.vectorize(token)) :
-                    Optional.empty();
-        }
-    }
 }
@@ -21,17 +21,14 @@ package de.tudarmstadt.ukp.dkpro.core.sfst;
 import static org.apache.uima.fit.util.JCasUtil.select;
 import static org.apache.uima.fit.util.JCasUtil.selectCovered;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.lang.ProcessBuilder.Redirect;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.uima.UimaContext;
@@ -67,8 +64,6 @@ import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
 public class SfstAnnotator
     extends JCasAnnotator_ImplBase
 {
-    private static final String FLUSH_TOKEN = "-= FLUSH =-";
-    
     public static enum Mode {
         FIRST,
         ALL
@@ -135,9 +130,41 @@ public class SfstAnnotator
     @ConfigurationParameter(name = PARAM_MORPH_MAPPING_LOCATION, mandatory = false)
     private String morphMappingLocation;
 
+    /**
+     * Number of {@code fst-infl2} processes kept running to analyze the words of a document in
+     * parallel. The processes are kept alive across documents.
+     *
+     * Default: {@code 1}
+     */
+    public static final String PARAM_NUM_PROCESSES = "numProcesses";
+    @ConfigurationParameter(name = PARAM_NUM_PROCESSES, mandatory = true, defaultValue = "1")
+    private int numProcesses;
+
+    /**
+     * Maximum number of distinct words sent to a single process at a time.
+     *
+     * Default: {@code 1000}
+     */
+    public static final String PARAM_BATCH_SIZE = "batchSize";
+    @ConfigurationParameter(name = PARAM_BATCH_SIZE, mandatory = true, defaultValue = "1000")
+    private int batchSize;
+
+    /**
+     * Maximum number of surface forms for which the analyses are cached. The cache is kept across
+     * documents as long as the model does not change. Set to {@code 0} to disable the cache, in
+     * which case every distinct word of a document is sent to the transducer. Negative values are
+     * not permitted.
+     *
+     * Default: {@code 100000}
+     */
+    public static final String PARAM_CACHE_SIZE = "cacheSize";
+    @ConfigurationParameter(name = PARAM_CACHE_SIZE, mandatory = true, defaultValue = "100000")
+    private int cacheSize;
+
     private ModelProviderBase<File> modelProvider;
     private MorphologicalFeaturesParser featuresParser;
     private RuntimeProvider runtimeProvider;
+    private SfstProcessPool processPool;
     
     @Override
     public void initialize(UimaContext aContext)
@@ -145,6 +172,19 @@ public class SfstAnnotator
     {
         super.initialize(aContext);
 
+        if (numProcesses < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Parameter [" + PARAM_NUM_PROCESSES + "] must be at least 1"));
+        }
+        if (batchSize < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Parameter [" + PARAM_BATCH_SIZE + "] must be at least 1"));
+        }
+        if (cacheSize < 0) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Parameter [" + PARAM_CACHE_SIZE + "] must be at least 0"));
+        }
+
         // Returns FST automaton for specified language, which is then passed to fst-infl from SFST.
         // Currently available for Turkish and German.
         modelProvider = new ModelProviderBase<File>(this, "sfst", "morph")
@@ -218,123 +258,95 @@ public class SfstAnnotator
             throw new AnalysisEngineProcessException(
                     new Throwable("Model should contain encoding metadata"));
         }
-        File model = modelProvider.getResource();
-        File executable;
+        
+        SfstProcessPool pool = getProcessPool(modelProvider.getResource(), modelEncoding);
 
+        List<Token> tokens = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        for (Sentence sentence : select(aJCas, Sentence.class)) {
+            for (Token token : selectCovered(Token.class, sentence)) {
+                tokens.add(token);
+                words.add(token.getCoveredText());
+            }
+        }
+        
+        Map<String, String[]> analyses;
         try {
-            executable = runtimeProvider.getFile("fst-infl2");
+            analyses = pool.analyze(words, batchSize);
         }
         catch (IOException e) {
             throw new AnalysisEngineProcessException(e);
         }
 
-        ProcessBuilder pb = new ProcessBuilder(executable.getAbsolutePath(), "-s", "-q",
-                model.getAbsolutePath());
-        pb.redirectError(Redirect.INHERIT);
-
-        StringBuffer lastOut = new StringBuffer();
-        String lastIn = null;
-        boolean success = false;
-        Process proc = null;
-        try {
-            proc = pb.start();
-
-            PrintWriter out = new PrintWriter(new OutputStreamWriter(proc.getOutputStream(),
-                    modelEncoding));
-            BufferedReader in = new BufferedReader(new InputStreamReader(proc.getInputStream(),
-                    modelEncoding));
-
-            for (Sentence sentence : select(aJCas, Sentence.class)) {
-                List<Token> tokens = selectCovered(Token.class, sentence);
-
-                // Skip empty sentences
-                if (tokens.isEmpty()) {
-                    continue;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            String[] tokenAnalyses = analyses.get(words.get(i));
+            
+            if (tokenAnalyses.length == 0) {
+                // No analysis for this token
+                MorphologicalFeatures morph = new MorphologicalFeatures(aJCas,
+                        token.getBegin(), token.getEnd());
+                morph.setValue("");
+                morph.addToIndexes();
+                
+                if (token.getMorph() == null) {
+                    token.setMorph(morph);
                 }
-
-                // Send full sentence
-                for (Token token : tokens) {
-                    lastOut.append(token.getCoveredText()).append(' ');
-                    out.printf("%s%n", token.getCoveredText());
-                    out.printf("%s%n", FLUSH_TOKEN);
+                continue;
+            }
+            
+            for (String analysis : tokenAnalyses) {
+                MorphologicalFeatures morph = featuresParser.parse(aJCas, token, analysis);
+                
+                if (token.getMorph() == null) {
+                    token.setMorph(morph);
                 }
-                out.flush();
-
-                // Read sentence tags
-                tokenLoop: for (Token token : tokens) {
-                    boolean skip = false;
-                    analysisLoop: while ((lastIn = in.readLine()) != null) {
-                        // Analysis line
-                        if (lastIn.startsWith(">")) {
-                            // Echo line, ignore.
-                            continue analysisLoop;
-                        }
-                        
-                        if (lastIn.contains(FLUSH_TOKEN)) {
-                            // End of analysis
-                            continue tokenLoop;
-                        }
-                        
-                        if (lastIn.startsWith("no result for")) {
-                            // No analysis for this token
-                            MorphologicalFeatures morph = new MorphologicalFeatures(aJCas,
-                                    token.getBegin(), token.getEnd());
-                            morph.setValue("");
-                            morph.addToIndexes();
-                            
-                            if (token.getMorph() == null) {
-                                token.setMorph(morph);
-                            }
-                            
-                            // We need to continue the inner loop because we still need to consume
-                            // the flush marker.
-                            continue analysisLoop;
-                        }
-                        
-                        // Analysis line
-                        if (!skip) {
-                            MorphologicalFeatures morph = featuresParser
-                                    .parse(aJCas, token, lastIn);
-                            
-                            if (token.getMorph() == null) {
-                                token.setMorph(morph);
-                            }
-                        }
-                            
-                        switch (mode) {
-                        case FIRST:
-                            // Go to next token after reading first analysis
-                            skip = true;
-                            break;
-                        case ALL:
-                            // We record all analyses
-                            break;
-                        }
-                    }
+                
+                if (mode == Mode.FIRST) {
+                    // Go to next token after reading first analysis
+                    break;
                 }
-
-                lastOut.setLength(0);
             }
+        }
+    }
 
-            success = true;
+    private SfstProcessPool getProcessPool(File aModel, String aEncoding)
+        throws AnalysisEngineProcessException
+    {
+        // Keep the running processes and the cache as long as the model does not change
+        if (processPool != null && processPool.getModel().equals(aModel)
+                && processPool.getEncoding().equals(aEncoding)) {
+            return processPool;
+        }
+        
+        shutdownProcessPool();
+
+        File executable;
+        try {
+            executable = runtimeProvider.getFile("fst-infl2");
         }
         catch (IOException e) {
             throw new AnalysisEngineProcessException(e);
         }
-        finally {
-            if (!success) {
-                getLogger().error("Sent before error: [" + lastOut + "]");
-                getLogger().error("Last response before error: [" + lastIn + "]");
-            }
-            if (proc != null) {
-                proc.destroy();
-            }
+        
+        processPool = new SfstProcessPool(getLogger(), executable, aModel, aEncoding,
+                numProcesses, cacheSize);
+        return processPool;
+    }
+    
+    private void shutdownProcessPool()
+    {
+        if (processPool != null) {
+            processPool.logStatistics();
+            processPool.shutdown();
+            processPool = null;
         }
     }
 
     @Override
     public void destroy()
     {
+        shutdownProcessPool();
         runtimeProvider.uninstall();
         super.destroy();
     }
@@ -0,0 +1,360 @@
+/**
+ * Copyright 2007-2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package de.tudarmstadt.ukp.dkpro.core.sfst;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.ProcessBuilder.Redirect;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.uima.util.Level;
+import org.apache.uima.util.Logger;
+
+/**
+ * A pool of long-running {@code fst-infl2} processes for a single transducer. Each distinct word
+ * is looked up in an LRU cache of raw analyses first and only the words not found there are sent
+ * to the processes.
+ */
+class SfstProcessPool
+{
+    private static final String FLUSH_TOKEN = "-= FLUSH =-";
+
+    private static final String[] NO_ANALYSIS = new String[0];
+
+    private final Logger log;
+    private final File executable;
+    private final File model;
+    private final String encoding;
+    private final List<Worker> workers;
+    private final ExecutorService readerExecutor;
+    private final Map<String, String[]> cache;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+
+    /**
+     * @param aCacheSize
+     *            maximum number of surface forms for which the analyses are cached. If
+     *            {@code 0}, no analyses are cached.
+     */
+    public SfstProcessPool(Logger aLog, File aExecutable, File aModel, String aEncoding,
+            int aSize, int aCacheSize)
+    {
+        if (aCacheSize < 0) {
+            throw new IllegalArgumentException("Cache size must be at least 0, but was ["
+                    + aCacheSize + "]");
+        }
+
+        log = aLog;
+        executable = aExecutable;
+        model = aModel;
+        encoding = aEncoding;
+
+        workers = new ArrayList<>(aSize);
+        for (int i = 0; i < aSize; i++) {
+            workers.add(new Worker(i));
+        }
+        readerExecutor = Executors.newFixedThreadPool(aSize, r -> {
+            Thread t = new Thread(r, "sfst-reader");
+            t.setDaemon(true);
+            return t;
+        });
+
+        cache = new LinkedHashMap<String, String[]>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<String, String[]> aEldest)
+            {
+                return size() > aCacheSize;
+            }
+        };
+    }
+
+    public File getModel()
+    {
+        return model;
+    }
+
+    public String getEncoding()
+    {
+        return encoding;
+    }
+
+    /**
+     * Analyze the given words.
+     *
+     * @param aWords
+     *            the words to analyze. May contain duplicates.
+     * @param aBatchSize
+     *            the maximum number of distinct words sent to a process in a single batch.
+     * @return the raw analysis lines produced by the transducer for each distinct word. Words for
+     *         which the transducer produced no result are mapped to an empty array.
+     * @throws IOException
+     *             if a process fails even after having been restarted.
+     */
+    public Map<String, String[]> analyze(Collection<String> aWords, int aBatchSize)
+        throws IOException
+    {
+        Map<String, String[]> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        Set<String> distinct = new LinkedHashSet<>(aWords);
+        synchronized (cache) {
+            for (String word : distinct) {
+                String[] analyses = cache.get(word);
+                if (analyses != null) {
+                    result.put(word, analyses);
+                }
+                else {
+                    missing.add(word);
+                }
+            }
+        }
+
+        lookups.addAndGet(distinct.size());
+        cacheHits.addAndGet(distinct.size() - missing.size());
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        String[][] analyses = new String[missing.size()][];
+        if (workers.size() == 1 || missing.size() <= aBatchSize) {
+            workers.get(0).analyzeWithRetry(missing, analyses, 0);
+        }
+        else {
+            List<Future<Void>> futures = new ArrayList<>();
+            int batch = 0;
+            for (int offset = 0; offset < missing.size(); offset += aBatchSize) {
+                Worker worker = workers.get(batch % workers.size());
+                List<String> words = missing.subList(offset,
+                        Math.min(offset + aBatchSize, missing.size()));
+                int batchOffset = offset;
+                futures.add(readerExecutor.submit(() -> {
+                    worker.analyzeWithRetry(words, analyses, batchOffset);
+                    return null;
+                }));
+                batch++;
+            }
+
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        }
+
+        synchronized (cache) {
+            for (int i = 0; i < missing.size(); i++) {
+                result.put(missing.get(i), analyses[i]);
+                cache.put(missing.get(i), analyses[i]);
+            }
+        }
+
+        return result;
+    }
+
+    public void logStatistics()
+    {
+        long l = lookups.get();
+        log.log(Level.INFO, String.format(
+                "SFST pool [%s]: %d words looked up, %.1f%% found in cache, %d restarts",
+                model.getName(), l, l == 0 ? 0.0 : (100.0 * cacheHits.get()) / l,
+                restarts.get()));
+    }
+
+    public void shutdown()
+    {
+        readerExecutor.shutdownNow();
+        for (Worker worker : workers) {
+            worker.stop();
+            worker.writerExecutor.shutdownNow();
+        }
+    }
+
+    private static void closeQuietly(Closeable aCloseable)
+    {
+        try {
+            if (aCloseable != null) {
+                aCloseable.close();
+            }
+        }
+        catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static void await(Future<?> aFuture)
+        throws IOException
+    {
+        try {
+            aFuture.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private class Worker
+    {
+        private final int id;
+        private final ExecutorService writerExecutor;
+        private Process process;
+        private BufferedWriter out;
+        private BufferedReader in;
+
+        public Worker(int aId)
+        {
+            id = aId;
+            writerExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "sfst-writer-" + aId);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        public synchronized void analyzeWithRetry(List<String> aWords, String[][] aAnalyses,
+                int aOffset)
+            throws IOException
+        {
+            try {
+                analyze(aWords, aAnalyses, aOffset);
+            }
+            catch (IOException e) {
+                log.log(Level.WARNING, "SFST process " + id + " failed - restarting: "
+                        + e.getMessage());
+                stop();
+                restarts.incrementAndGet();
+                analyze(aWords, aAnalyses, aOffset);
+            }
+        }
+
+        private void analyze(List<String> aWords, String[][] aAnalyses, int aOffset)
+            throws IOException
+        {
+            ensureRunning();
+
+            BufferedWriter sink = out;
+            Future<Void> writer = writerExecutor.submit(() -> {
+                for (String word : aWords) {
+                    sink.write(word);
+                    sink.write('\n');
+                    sink.write(FLUSH_TOKEN);
+                    sink.write('\n');
+                }
+                sink.flush();
+                return null;
+            });
+
+            try {
+                List<String> analyses = new ArrayList<>();
+                for (int i = 0; i < aWords.size(); i++) {
+                    analyses.clear();
+                    String line;
+                    while (true) {
+                        line = in.readLine();
+                        if (line == null) {
+                            throw new IOException("SFST process terminated unexpectedly");
+                        }
+
+                        if (line.startsWith(">")) {
+                            // Echo line, ignore.
+                            continue;
+                        }
+
+                        if (line.contains(FLUSH_TOKEN)) {
+                            // End of analysis
+                            break;
+                        }
+
+                        if (line.startsWith("no result for")) {
+                            // No analysis for this token
+                            continue;
+                        }
+
+                        analyses.add(line);
+                    }
+                    aAnalyses[aOffset + i] = analyses.isEmpty() ? NO_ANALYSIS
+                            : analyses.toArray(new String[analyses.size()]);
+                }
+
+                await(writer);
+            }
+            catch (IOException e) {
+                writer.cancel(true);
+                throw e;
+            }
+        }
+
+        private void ensureRunning()
+            throws IOException
+        {
+            if (process != null && process.isAlive()) {
+                return;
+            }
+
+            stop();
+
+            ProcessBuilder pb = new ProcessBuilder(executable.getAbsolutePath(), "-s", "-q",
+                    model.getAbsolutePath());
+            pb.redirectError(Redirect.INHERIT);
+            process = pb.start();
+            out = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), encoding));
+            in = new BufferedReader(new InputStreamReader(process.getInputStream(), encoding));
+        }
+
+        public void stop()
+        {
+            if (process != null) {
+                closeQuietly(out);
+                closeQuietly(in);
+                process.destroy();
+                process = null;
+                out = null;
+                in = null;
+            }
+        }
+    }
+}
@@ -21,6 +21,10 @@ package de.tudarmstadt.ukp.dkpro.core.sfst;
 import static de.tudarmstadt.ukp.dkpro.core.testing.AssertAnnotations.*;
 import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
 import static org.apache.uima.fit.util.JCasUtil.select;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.jcas.JCas;
@@ -166,6 +170,32 @@ public class SfstAnnotatorTest
         assertTagsetParser(MorphologicalFeatures.class, "morphisto", unmappedTags, jcas);
     }
 
+    @Test
+    public void testGermanMorphistoProcessPool()
+        throws Exception
+    {
+        String document = "Der Arzt arbeitet im Krankenhaus .\nDer Arzt arbeitet .";
+        
+        JCas expected = runTest("de", "morphisto-ca", document);
+        
+        AnalysisEngine engine = createEngine(SfstAnnotator.class,
+                SfstAnnotator.PARAM_VARIANT, "morphisto-ca",
+                SfstAnnotator.PARAM_MODE, SfstAnnotator.Mode.ALL,
+                SfstAnnotator.PARAM_NUM_PROCESSES, 2,
+                SfstAnnotator.PARAM_BATCH_SIZE, 1);
+        
+        try {
+            // The second run is served from the cache
+            for (int n = 0; n < 2; n++) {
+                JCas actual = TestRunner.runTest(engine, "de", document);
+                assertEquals(toStrings(expected), toStrings(actual));
+            }
+        }
+        finally {
+            engine.destroy();
+        }
+    }
+
     @Test
     public void testGermanSmor()
         throws Exception
@@ -404,6 +434,15 @@ public class SfstAnnotatorTest
         return jcas;
     }
     
+    private static List<String> toStrings(JCas aJCas)
+    {
+        List<String> result = new ArrayList<>();
+        for (MorphologicalFeatures morph : select(aJCas, MorphologicalFeatures.class)) {
+            result.add(morph.getBegin() + "-" + morph.getEnd() + " " + morph.getValue());
+        }
+        return result;
+    }
+    
     @Rule
     public DkproTestContext testContext = new DkproTestContext();
 }
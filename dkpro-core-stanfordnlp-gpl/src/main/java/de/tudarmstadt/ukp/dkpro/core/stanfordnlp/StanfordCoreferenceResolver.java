@@ -41,7 +41,6 @@ import org.apache.uima.resource.ResourceInitializationException;
 import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceChain;
 import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceLink;
 import de.tudarmstadt.ukp.dkpro.core.api.ner.type.NamedEntity;
-import de.tudarmstadt.ukp.dkpro.core.api.resources.CasConfigurableProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ModelProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
 import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.constituent.ROOT;
@@ -130,7 +129,7 @@ public class StanfordCoreferenceResolver
     @ConfigurationParameter(name = PARAM_MAXDIST, defaultValue = "-1", mandatory = true)
     private int maxdist;
 
-    private CasConfigurableProviderBase<Coreferencer> modelProvider;
+    private ModelProviderBase<Coreferencer> modelProvider;
 
     @Override
     public void initialize(UimaContext aContext)
@@ -220,6 +219,8 @@ public class StanfordCoreferenceResolver
                 }
             }
         };
+
+        modelProvider.enableParallelLoading(aContext);
     }
 
     @Override
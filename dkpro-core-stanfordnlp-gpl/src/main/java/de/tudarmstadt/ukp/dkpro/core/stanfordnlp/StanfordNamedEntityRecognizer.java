@@ -157,6 +157,8 @@ public class StanfordNamedEntityRecognizer
         mappingProvider.setOverride(MappingProvider.LANGUAGE, language);
         mappingProvider.setOverride(MappingProvider.VARIANT, variant);
         mappingProvider.addTagMappingImport("ner", modelProvider);
+
+        modelProvider.enableParallelLoading(aContext);
     }
 
     @Override
@@ -52,7 +52,6 @@ import org.apache.uima.util.Level;
 import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.SingletonTagset;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
-import de.tudarmstadt.ukp.dkpro.core.api.resources.CasConfigurableProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProvider;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProviderFactory;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ModelProviderBase;
@@ -320,7 +319,7 @@ public class StanfordParser
     @ConfigurationParameter(name = PARAM_KEEP_PUNCTUATION, mandatory = true, defaultValue = "false")
     private boolean keepPunctuation;
 
-    private CasConfigurableProviderBase<ParserGrammar> modelProvider;
+    private ModelProviderBase<ParserGrammar> modelProvider;
     private MappingProvider posMappingProvider;
     private MappingProvider constituentMappingProvider;
 
@@ -350,6 +349,8 @@ public class StanfordParser
         
         constituentMappingProvider = MappingProviderFactory.createConstituentMappingProvider(
                 constituentMappingLocation, language, modelProvider);
+
+        modelProvider.enableParallelLoading(context);
     }
 
     /**
@@ -40,7 +40,6 @@ import org.apache.uima.resource.ResourceInitializationException;
 import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.SingletonTagset;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
-import de.tudarmstadt.ukp.dkpro.core.api.resources.CasConfigurableProviderBase;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProvider;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.MappingProviderFactory;
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ModelProviderBase;
@@ -148,7 +147,7 @@ public class StanfordPosTagger
 	@ConfigurationParameter(name = PARAM_MAX_SENTENCE_LENGTH, mandatory = false)
 	private int maxSentenceTokens = 0;
 
-	private CasConfigurableProviderBase<MaxentTagger> modelProvider;
+	private ModelProviderBase<MaxentTagger> modelProvider;
 	private MappingProvider posMappingProvider;
 
     private final PTBEscapingProcessor<HasWord, String, Word> escaper = new PTBEscapingProcessor<HasWord, String, Word>();
@@ -186,6 +185,8 @@ public class StanfordPosTagger
                 language, modelProvider);
 		posMappingProvider.setDefaultVariantsLocation(
 				"de/tudarmstadt/ukp/dkpro/core/stanfordnlp/lib/tagger-default-variants.map");
+
+		modelProvider.enableParallelLoading(aContext);
 	}
 
 	@Override